@@ -0,0 +1,127 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.deps.auth;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process wide cache of the SSLContexts that only hold trusted certificates, keyed by the content of those
+ * certificates. Creating such a context parses the PEM certificates and initializes a trust manager, which is repeated
+ * for every client otherwise. Sharing the context also shares its client session cache, so that the clients that
+ * reconnect after a network failure resume their TLS sessions instead of making full handshakes.
+ *
+ * <p>The cached contexts are never modified after they are created and may be used by any number of connections.
+ * Contexts that hold a client certificate and private key are specific to an identity and are not cached here.</p>
+ */
+public final class IotHubSSLContextCache
+{
+    private static final String SSL_CONTEXT_INSTANCE = "TLSv1.2";
+    private static final String TRUSTED_IOT_HUB_CERT_PREFIX = "trustedIotHubCert-";
+    private static final String DEFAULT_CERT_KEY = "";
+
+    private static final ConcurrentMap<String, SSLContext> SSL_CONTEXTS = new ConcurrentHashMap<>();
+
+    private IotHubSSLContextCache()
+    {
+    }
+
+    /**
+     * Returns the shared SSLContext that trusts the default IotHub certificates
+     * @return the shared SSLContext
+     * @throws IOException If the default certificates could not be read
+     * @throws CertificateException If the default certificates could not be parsed
+     * @throws KeyStoreException If the certificates could not be loaded into a key store
+     * @throws NoSuchAlgorithmException If the TLSv1.2 SSLContext or the default trust manager cannot be created
+     * @throws KeyManagementException If the SSLContext could not be initialized
+     */
+    public static SSLContext getDefaultSSLContext()
+            throws IOException, CertificateException, KeyStoreException, NoSuchAlgorithmException, KeyManagementException
+    {
+        return getSSLContext(null);
+    }
+
+    /**
+     * Returns the shared SSLContext that trusts the provided certificates, creating it on first use
+     * @param trustedCert the PEM formatted certificates to trust, or {@code null} for the default IotHub certificates
+     * @return the shared SSLContext
+     * @throws IllegalArgumentException If the provided certificate string is empty or holds no certificates
+     * @throws IOException If the certificates could not be read
+     * @throws CertificateException If the certificates could not be parsed
+     * @throws KeyStoreException If the certificates could not be loaded into a key store
+     * @throws NoSuchAlgorithmException If the TLSv1.2 SSLContext or the default trust manager cannot be created
+     * @throws KeyManagementException If the SSLContext could not be initialized
+     */
+    public static SSLContext getSSLContext(String trustedCert)
+            throws IllegalArgumentException, IOException, CertificateException, KeyStoreException, NoSuchAlgorithmException, KeyManagementException
+    {
+        String key = trustedCert == null ? DEFAULT_CERT_KEY : trustedCert;
+        SSLContext sslContext = SSL_CONTEXTS.get(key);
+        if (sslContext != null)
+        {
+            return sslContext;
+        }
+
+        IotHubCertificateManager certificateManager = new IotHubCertificateManager();
+        if (trustedCert != null)
+        {
+            certificateManager.setCertificates(trustedCert);
+        }
+
+        SSLContext created = createSSLContext(certificateManager);
+
+        // if another thread created the same context concurrently, its context is the one that is shared
+        SSLContext existing = SSL_CONTEXTS.putIfAbsent(key, created);
+        return existing == null ? created : existing;
+    }
+
+    /**
+     * Getter for the number of cached SSLContexts
+     * @return the number of distinct sets of trusted certificates that a context was created for
+     */
+    public static int size()
+    {
+        return SSL_CONTEXTS.size();
+    }
+
+    /**
+     * Removes all the SSLContexts from the cache. The connections that use them are not affected.
+     */
+    public static void clear()
+    {
+        SSL_CONTEXTS.clear();
+    }
+
+    private static SSLContext createSSLContext(IotHubCertificateManager certificateManager)
+            throws IOException, CertificateException, KeyStoreException, NoSuchAlgorithmException, KeyManagementException
+    {
+        KeyStore trustKeyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustKeyStore.load(null);
+
+        int certificateIndex = 0;
+        for (Certificate certificate : certificateManager.getCertificateCollection())
+        {
+            trustKeyStore.setCertificateEntry(TRUSTED_IOT_HUB_CERT_PREFIX + certificateIndex++, certificate);
+        }
+
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustKeyStore);
+
+        SSLContext sslContext = SSLContext.getInstance(SSL_CONTEXT_INSTANCE);
+        sslContext.init(null, trustManagerFactory.getTrustManagers(), new SecureRandom());
+        return sslContext;
+    }
+}
@@ -0,0 +1,124 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Representation of the response body of a bulk registry operation, as returned by the service
+ * when creating, updating or deleting several device identities in a single request.
+ */
+public class BulkRegistryOperationResultParser
+{
+    private transient static Gson gson = GsonInstances.DEFAULT;
+
+    private static final String IS_SUCCESSFUL_NAME = "isSuccessful";
+    @Expose(serialize = true, deserialize = true)
+    @SerializedName(IS_SUCCESSFUL_NAME)
+    private boolean isSuccessful;
+
+    private static final String ERRORS_NAME = "errors";
+    @Expose(serialize = true, deserialize = true)
+    @SerializedName(ERRORS_NAME)
+    private List<DeviceRegistryOperationErrorParser> errors;
+
+    private static final String WARNINGS_NAME = "warnings";
+    @Expose(serialize = true, deserialize = true)
+    @SerializedName(WARNINGS_NAME)
+    private List<DeviceRegistryOperationWarningParser> warnings;
+
+    /**
+     * Empty constructor
+     */
+    public BulkRegistryOperationResultParser()
+    {
+    }
+
+    /**
+     * Constructor for a BulkRegistryOperationResultParser that is constructed from Json.
+     * @param json the json to build from.
+     * @throws IllegalArgumentException if the provided json is null, empty, or cannot be parsed
+     */
+    public BulkRegistryOperationResultParser(String json) throws IllegalArgumentException
+    {
+        if (json == null || json.isEmpty())
+        {
+            throw new IllegalArgumentException("The provided json cannot be null or empty");
+        }
+
+        BulkRegistryOperationResultParser parser;
+        try
+        {
+            parser = gson.fromJson(json, BulkRegistryOperationResultParser.class);
+        }
+        catch (JsonSyntaxException e)
+        {
+            throw new IllegalArgumentException("The provided json could not be parsed");
+        }
+
+        if (parser == null)
+        {
+            throw new IllegalArgumentException("The provided json could not be parsed");
+        }
+
+        this.isSuccessful = parser.isSuccessful;
+        this.errors = parser.errors;
+        this.warnings = parser.warnings;
+    }
+
+    /**
+     * Converts this into a json string.
+     * @return the json representation of this.
+     */
+    public String toJson()
+    {
+        return gson.toJson(this);
+    }
+
+    /**
+     * Getter for isSuccessful
+     *
+     * @return true if every device in the request was processed without error
+     */
+    public boolean getIsSuccessful()
+    {
+        return isSuccessful;
+    }
+
+    /**
+     * Getter for errors
+     *
+     * @return The per device errors. Never null.
+     */
+    public List<DeviceRegistryOperationErrorParser> getErrors()
+    {
+        if (errors == null)
+        {
+            return new ArrayList<>();
+        }
+
+        return errors;
+    }
+
+    /**
+     * Getter for warnings
+     *
+     * @return The per device warnings. Never null.
+     */
+    public List<DeviceRegistryOperationWarningParser> getWarnings()
+    {
+        if (warnings == null)
+        {
+            return new ArrayList<>();
+        }
+
+        return warnings;
+    }
+}
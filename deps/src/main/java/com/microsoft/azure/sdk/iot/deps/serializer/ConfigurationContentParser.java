@@ -22,7 +22,7 @@ public class ConfigurationContentParser
     @SerializedName(DEVICE_CONTENT_NAME)
     private Map<String, Object> deviceContent;
 
-    private transient static Gson gson = new Gson();
+    private transient static Gson gson = GsonInstances.DEFAULT;
 
     /**
      * Empty constructor: Used only to keep GSON happy.
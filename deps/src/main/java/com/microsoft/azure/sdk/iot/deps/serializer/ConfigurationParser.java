@@ -1,14 +1,19 @@
 package com.microsoft.azure.sdk.iot.deps.serializer;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 
 public class ConfigurationParser
 {
@@ -74,7 +79,7 @@ public class ConfigurationParser
     @SerializedName(E_TAG_NAME)
     private String eTag;
 
-    private transient static Gson gson = new GsonBuilder().enableComplexMapKeySerialization().serializeNulls().create();
+    private transient static Gson gson = GsonInstances.COMPLEX_MAP_KEYS_SERIALIZE_NULLS;
 
     /**
      * Empty constructor: Used only to keep GSON happy.
@@ -110,6 +115,51 @@ public class ConfigurationParser
             throw new IllegalArgumentException("The provided json could not be parsed");
         }
 
+        this.copyFrom(configurationParser);
+    }
+
+    /**
+     * Builds a list of ConfigurationParser objects from a json array of configurations, reading the array in a single
+     * pass without materializing an intermediate tree or string for each configuration.
+     * @param reader the reader to read the json array from
+     * @return the list of ConfigurationParser objects, in the order they appear in the array
+     * @throws IllegalArgumentException if the reader is null, or its content is not a json array of configurations in the expected format
+     */
+    public static List<ConfigurationParser> fromJsonArray(Reader reader) throws IllegalArgumentException
+    {
+        if (reader == null)
+        {
+            throw new IllegalArgumentException("The provided reader cannot be null");
+        }
+
+        List<ConfigurationParser> configurationParsers = new ArrayList<>();
+        try
+        {
+            JsonReader jsonReader = new JsonReader(reader);
+            jsonReader.beginArray();
+            while (jsonReader.hasNext())
+            {
+                ConfigurationParser configurationParser = new ConfigurationParser();
+                configurationParser.copyFrom((ConfigurationParser) gson.fromJson(jsonReader, ConfigurationParser.class));
+                configurationParsers.add(configurationParser);
+            }
+            jsonReader.endArray();
+        }
+        catch (IOException | JsonParseException | IllegalStateException e)
+        {
+            throw new IllegalArgumentException("The provided json could not be parsed");
+        }
+
+        return configurationParsers;
+    }
+
+    private void copyFrom(ConfigurationParser configurationParser) throws IllegalArgumentException
+    {
+        if (configurationParser == null)
+        {
+            throw new IllegalArgumentException("The provided json could not be parsed");
+        }
+
         //Codes_SRS_CONFIGURATION_PARSER_28_003: [If the provided json is missing the id field or its value is empty, an IllegalArgumentException shall be thrown.]
         if (configurationParser.id == null || configurationParser.id.isEmpty())
         {
@@ -159,7 +209,7 @@ public class ConfigurationParser
         }
 
         //Codes_SRS_CONFIGURATION_PARSER_28_006: [This method shall return a json representation of this.]
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+        Gson gson = GsonInstances.EXPOSED_FIELDS;
         JsonObject jsonObject = gson.toJsonTree(this).getAsJsonObject();
 
         /* SRS_TWIN_STATE_21_009: [If the tags is null, the JSON shall not include the `tags`.] */
@@ -4,11 +4,17 @@
 package com.microsoft.azure.sdk.iot.deps.serializer;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 public class DeviceParser
 {
@@ -90,7 +96,7 @@ public class DeviceParser
     @SerializedName(SCOPE_NAME)
     private String scope;
 
-    private transient Gson gson = new Gson();
+    private transient static Gson gson = GsonInstances.DEFAULT;
 
     /**
      * Converts this into json format and returns it
@@ -148,6 +154,51 @@ public class DeviceParser
             throw new IllegalArgumentException("The provided json could not be parsed");
         }
 
+        this.copyFrom(deviceParser);
+    }
+
+    /**
+     * Builds a list of DeviceParser objects from a json array of devices, reading the array in a single pass without
+     * materializing an intermediate tree or string for each device.
+     * @param reader the reader to read the json array from
+     * @return the list of DeviceParser objects, in the order they appear in the array
+     * @throws IllegalArgumentException if the reader is null, or its content is not a json array of devices in the expected format
+     */
+    public static List<DeviceParser> fromJsonArray(Reader reader) throws IllegalArgumentException
+    {
+        if (reader == null)
+        {
+            throw new IllegalArgumentException("The provided reader cannot be null");
+        }
+
+        List<DeviceParser> deviceParsers = new ArrayList<>();
+        try
+        {
+            JsonReader jsonReader = new JsonReader(reader);
+            jsonReader.beginArray();
+            while (jsonReader.hasNext())
+            {
+                DeviceParser deviceParser = new DeviceParser();
+                deviceParser.copyFrom((DeviceParser) gson.fromJson(jsonReader, DeviceParser.class));
+                deviceParsers.add(deviceParser);
+            }
+            jsonReader.endArray();
+        }
+        catch (IOException | JsonParseException | IllegalStateException e)
+        {
+            throw new IllegalArgumentException("The provided json could not be parsed");
+        }
+
+        return deviceParsers;
+    }
+
+    private void copyFrom(DeviceParser deviceParser) throws IllegalArgumentException
+    {
+        if (deviceParser == null)
+        {
+            throw new IllegalArgumentException("The provided json could not be parsed");
+        }
+
         //Codes_SRS_DEVICE_PARSER_34_011: [If the provided json is missing the DeviceId field or its value is empty, an IllegalArgumentException shall be thrown.]
         if (deviceParser.deviceId == null || deviceParser.deviceId.isEmpty())
         {
@@ -0,0 +1,78 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Representation of a single device failure reported by a bulk registry operation.
+ */
+public class DeviceRegistryOperationErrorParser
+{
+    private static final String DEVICE_ID_NAME = "deviceId";
+    @Expose(serialize = true, deserialize = true)
+    @SerializedName(DEVICE_ID_NAME)
+    private String deviceId;
+
+    private static final String ERROR_CODE_NAME = "errorCode";
+    @Expose(serialize = true, deserialize = true)
+    @SerializedName(ERROR_CODE_NAME)
+    private String errorCode;
+
+    private static final String ERROR_STATUS_NAME = "errorStatus";
+    @Expose(serialize = true, deserialize = true)
+    @SerializedName(ERROR_STATUS_NAME)
+    private String errorStatus;
+
+    /**
+     * Empty constructor: Used only to keep GSON happy.
+     */
+    public DeviceRegistryOperationErrorParser()
+    {
+    }
+
+    /**
+     * Constructor for a DeviceRegistryOperationErrorParser with all of its fields set
+     * @param deviceId the id of the device the error applies to
+     * @param errorCode the error code reported by the service
+     * @param errorStatus the description of the error
+     */
+    public DeviceRegistryOperationErrorParser(String deviceId, String errorCode, String errorStatus)
+    {
+        this.deviceId = deviceId;
+        this.errorCode = errorCode;
+        this.errorStatus = errorStatus;
+    }
+
+    /**
+     * Getter for deviceId
+     *
+     * @return The value of deviceId
+     */
+    public String getDeviceId()
+    {
+        return deviceId;
+    }
+
+    /**
+     * Getter for errorCode
+     *
+     * @return The value of errorCode
+     */
+    public String getErrorCode()
+    {
+        return errorCode;
+    }
+
+    /**
+     * Getter for errorStatus
+     *
+     * @return The value of errorStatus
+     */
+    public String getErrorStatus()
+    {
+        return errorStatus;
+    }
+}
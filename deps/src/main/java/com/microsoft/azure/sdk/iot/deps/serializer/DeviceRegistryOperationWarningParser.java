@@ -0,0 +1,78 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Representation of a single device warning reported by a bulk registry operation.
+ */
+public class DeviceRegistryOperationWarningParser
+{
+    private static final String DEVICE_ID_NAME = "deviceId";
+    @Expose(serialize = true, deserialize = true)
+    @SerializedName(DEVICE_ID_NAME)
+    private String deviceId;
+
+    private static final String WARNING_CODE_NAME = "warningCode";
+    @Expose(serialize = true, deserialize = true)
+    @SerializedName(WARNING_CODE_NAME)
+    private String warningCode;
+
+    private static final String WARNING_STATUS_NAME = "warningStatus";
+    @Expose(serialize = true, deserialize = true)
+    @SerializedName(WARNING_STATUS_NAME)
+    private String warningStatus;
+
+    /**
+     * Empty constructor: Used only to keep GSON happy.
+     */
+    public DeviceRegistryOperationWarningParser()
+    {
+    }
+
+    /**
+     * Constructor for a DeviceRegistryOperationWarningParser with all of its fields set
+     * @param deviceId the id of the device the warning applies to
+     * @param warningCode the warning code reported by the service
+     * @param warningStatus the description of the warning
+     */
+    public DeviceRegistryOperationWarningParser(String deviceId, String warningCode, String warningStatus)
+    {
+        this.deviceId = deviceId;
+        this.warningCode = warningCode;
+        this.warningStatus = warningStatus;
+    }
+
+    /**
+     * Getter for deviceId
+     *
+     * @return The value of deviceId
+     */
+    public String getDeviceId()
+    {
+        return deviceId;
+    }
+
+    /**
+     * Getter for warningCode
+     *
+     * @return The value of warningCode
+     */
+    public String getWarningCode()
+    {
+        return warningCode;
+    }
+
+    /**
+     * Getter for warningStatus
+     *
+     * @return The value of warningStatus
+     */
+    public String getWarningStatus()
+    {
+        return warningStatus;
+    }
+}
@@ -35,7 +35,7 @@ public class ErrorMessageParser
             return "";
         }
 
-        Gson gson = new GsonBuilder().create();
+        Gson gson = GsonInstances.DEFAULT;
 
         String rootMessage = fullErrorMessage;
         String rootException = null;
@@ -96,7 +96,7 @@ public class ErrorMessageParser
 
         try
         {
-            JsonObject errorMessageJson = new GsonBuilder().create().fromJson(fullErrorMessage, JsonObject.class);
+            JsonObject errorMessageJson = GsonInstances.DEFAULT.fromJson(fullErrorMessage, JsonObject.class);
 
             if (errorMessageJson.has(errorCodeJsonKey) && errorMessageJson.get(errorCodeJsonKey).isJsonPrimitive())
             {
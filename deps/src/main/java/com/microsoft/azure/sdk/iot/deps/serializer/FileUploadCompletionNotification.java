@@ -4,7 +4,6 @@
 package com.microsoft.azure.sdk.iot.deps.serializer;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 
@@ -68,7 +67,7 @@ public class FileUploadCompletionNotification
      */
     public FileUploadCompletionNotification(String json)
     {
-        Gson gson = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+        Gson gson = GsonInstances.DISABLE_HTML_ESCAPING_SERIALIZE_NULLS;
         FileUploadCompletionNotification fileUploadCompletionNotification;
 
         try
@@ -100,7 +99,7 @@ public class FileUploadCompletionNotification
      */
     public String toJson()
     {
-        Gson gson = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+        Gson gson = GsonInstances.DISABLE_HTML_ESCAPING_SERIALIZE_NULLS;
 
         return gson.toJson(this);
     }
@@ -0,0 +1,67 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Shared, pre-configured {@link Gson} instances, one per configuration used by the parsers in this library.
+ *
+ * <p> A {@link Gson} instance is immutable and thread safe, and caches the type adapters that it builds by
+ *     reflection the first time it sees a type. Creating a new instance per call throws that cache away and
+ *     reflects the same types again on every serialization, so parsers should use these instances instead.
+ */
+public final class GsonInstances
+{
+    /**
+     * Default configuration: escapes html characters and omits null fields.
+     */
+    public static final Gson DEFAULT = new GsonBuilder().create();
+
+    /**
+     * Does not escape html characters, omits null fields.
+     */
+    public static final Gson DISABLE_HTML_ESCAPING = new GsonBuilder().disableHtmlEscaping().create();
+
+    /**
+     * Escapes html characters, includes null fields.
+     */
+    public static final Gson SERIALIZE_NULLS = new GsonBuilder().serializeNulls().create();
+
+    /**
+     * Does not escape html characters, includes null fields.
+     */
+    public static final Gson DISABLE_HTML_ESCAPING_SERIALIZE_NULLS = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+
+    /**
+     * Does not escape html characters and does not serialize inner classes.
+     */
+    public static final Gson DISABLE_HTML_ESCAPING_AND_INNER_CLASSES = new GsonBuilder().disableInnerClassSerialization().disableHtmlEscaping().create();
+
+    /**
+     * Only includes fields annotated with {@link com.google.gson.annotations.Expose}, escapes html characters.
+     */
+    public static final Gson EXPOSED_FIELDS = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+
+    /**
+     * Only includes fields annotated with {@link com.google.gson.annotations.Expose}, does not escape html characters.
+     */
+    public static final Gson EXPOSED_FIELDS_DISABLE_HTML_ESCAPING = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+
+    /**
+     * Only includes fields annotated with {@link com.google.gson.annotations.Expose}, does not escape html characters,
+     * pretty prints the json.
+     */
+    public static final Gson EXPOSED_FIELDS_DISABLE_HTML_ESCAPING_PRETTY_PRINTING = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().setPrettyPrinting().disableHtmlEscaping().create();
+
+    /**
+     * Serializes complex map keys as json arrays, includes null fields.
+     */
+    public static final Gson COMPLEX_MAP_KEYS_SERIALIZE_NULLS = new GsonBuilder().enableComplexMapKeySerialization().serializeNulls().create();
+
+    private GsonInstances()
+    {
+    }
+}
@@ -3,7 +3,6 @@
 
 package com.microsoft.azure.sdk.iot.deps.serializer;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
@@ -26,6 +25,9 @@ import static com.microsoft.azure.sdk.iot.deps.serializer.ParserUtility.resolveJ
  */
 public class MethodParser
 {
+    // JsonParser holds no state between calls, so a single instance is shared by all parsers
+    private static final JsonParser JSON_PARSER = new JsonParser();
+
     protected enum Operation
     {
         invoke,
@@ -161,7 +163,7 @@ public class MethodParser
             throw new IllegalArgumentException("Invalid json.");
         }
 
-        JsonParser jsonParser = new JsonParser();
+        JsonParser jsonParser = JSON_PARSER;
         try
         {
             JsonElement jsonElement = jsonParser.parse(json);
@@ -346,7 +348,7 @@ public class MethodParser
         }
         else
         {
-            JsonParser parser = new JsonParser();
+            JsonParser parser = JSON_PARSER;
             try
             {
                 String json = payload.toString();
@@ -362,7 +364,7 @@ public class MethodParser
             }
             catch (JsonSyntaxException e)
             {
-                return new Gson().toJsonTree(payload);
+                return GsonInstances.DEFAULT.toJsonTree(payload);
             }
         }
     }
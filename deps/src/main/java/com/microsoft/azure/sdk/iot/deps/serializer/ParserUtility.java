@@ -4,7 +4,6 @@
 package com.microsoft.azure.sdk.iot.deps.serializer;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -41,6 +40,42 @@ public class ParserUtility
     private static final double MILLISECONDS_NUMERIC_BASE = 10;
     private static final String MILLISECONDS_REGEX = "[.,Z]";
 
+    // Layout of the canonical date and time "yyyy-MM-ddTHH:mm:ss" handled without SimpleDateFormat
+    private static final int DATE_AND_TIME_LENGTH = 19;
+    private static final int OFFSET_LENGTH = 6;
+    private static final int MIN_FAST_PATH_YEAR = 1600;
+    private static final int MAX_FAST_PATH_YEAR = 9999;
+    private static final long NOT_PARSED = Long.MIN_VALUE;
+    private static final long MILLISECONDS_PER_SECOND = 1000L;
+    private static final long MILLISECONDS_PER_MINUTE = 60L * MILLISECONDS_PER_SECOND;
+    private static final long MILLISECONDS_PER_HOUR = 60L * MILLISECONDS_PER_MINUTE;
+    private static final long MILLISECONDS_PER_DAY = 24L * MILLISECONDS_PER_HOUR;
+    private static final int DAYS_PER_ERA = 146097;
+    private static final int DAYS_FROM_ERA_TO_EPOCH = 719468;
+
+    // SimpleDateFormat is not thread safe, so the formats used for dates outside of the canonical layout are kept per thread
+    private static final ThreadLocal<SimpleDateFormat> UTC_DATE_FORMAT = new ThreadLocal<SimpleDateFormat>()
+    {
+        @Override
+        protected SimpleDateFormat initialValue()
+        {
+            SimpleDateFormat dateFormat = new SimpleDateFormat(DATEFORMAT);
+            dateFormat.setTimeZone(TimeZone.getTimeZone(TIMEZONE));
+            return dateFormat;
+        }
+    };
+
+    private static final ThreadLocal<SimpleDateFormat> UTC_OFFSET_DATE_FORMAT = new ThreadLocal<SimpleDateFormat>()
+    {
+        @Override
+        protected SimpleDateFormat initialValue()
+        {
+            SimpleDateFormat dateFormat = new SimpleDateFormat(OFFSETFORMAT);
+            dateFormat.setTimeZone(TimeZone.getTimeZone(TIMEZONE));
+            return dateFormat;
+        }
+    };
+
     /**
      * Helper to validate if the provided string is not null, empty, and all characters are UTF-8.
      *
@@ -276,18 +311,46 @@ public class ParserUtility
      */
     public static Date getDateTimeUtc(String dataTime) throws IllegalArgumentException
     {
-        Date dateTimeUtc;
-        /* Codes_SRS_PARSER_UTILITY_21_020: [The getDateTimeUtc shall parse the provide string using `UTC` timezone.] */
-        /* Codes_SRS_PARSER_UTILITY_21_021: [The getDateTimeUtc shall parse the provide string using the data format `yyyy-MM-dd'T'HH:mm:ss`.] */
-        SimpleDateFormat dateFormat = new SimpleDateFormat(DATEFORMAT);
-        dateFormat.setTimeZone(TimeZone.getTimeZone(TIMEZONE));
+        /* Codes_SRS_PARSER_UTILITY_21_022: [If the provide string is null, empty or contains an invalid data format, the getDateTimeUtc shall throw IllegalArgumentException.] */
+        if((dataTime == null) || dataTime.isEmpty())
+        {
+            throw new IllegalArgumentException("date is null, empty, or invalid");
+        }
+
+        return new Date(getDateTimeUtcInMilliseconds(dataTime));
+    }
 
+    /**
+     * Helper to convert the provided string in a UTC date, as milliseconds since the epoch.
+     * Expected format:
+     *      "2016-06-01T21:22:43.7996883Z"
+     *
+     * <p> Dates in the canonical layout used by the service, with up to any number of fractional digits, are parsed
+     *     without creating any intermediate object. Other dates are parsed by a {@code SimpleDateFormat}, exactly as
+     *     {@link #getDateTimeUtc(String)} always did.
+     *
+     * @param dataTime is the string with the date and time
+     * @return the number of milliseconds since January 1, 1970, 00:00:00 UTC represented by the string
+     * @throws IllegalArgumentException if the date and time in the string is not in the correct format.
+     */
+    public static long getDateTimeUtcInMilliseconds(String dataTime) throws IllegalArgumentException
+    {
         /* Codes_SRS_PARSER_UTILITY_21_022: [If the provide string is null, empty or contains an invalid data format, the getDateTimeUtc shall throw IllegalArgumentException.] */
         if((dataTime == null) || dataTime.isEmpty())
         {
             throw new IllegalArgumentException("date is null, empty, or invalid");
         }
 
+        long dateTimeUtc = parseCanonicalDateTimeUtc(dataTime);
+        if (dateTimeUtc != NOT_PARSED)
+        {
+            return dateTimeUtc;
+        }
+
+        /* Codes_SRS_PARSER_UTILITY_21_020: [The getDateTimeUtc shall parse the provide string using `UTC` timezone.] */
+        /* Codes_SRS_PARSER_UTILITY_21_021: [The getDateTimeUtc shall parse the provide string using the data format `yyyy-MM-dd'T'HH:mm:ss`.] */
+        SimpleDateFormat dateFormat = UTC_DATE_FORMAT.get();
+
         try
         {
             /* Codes_SRS_PARSER_UTILITY_21_040: [If the provide string contains more than 3 digits for milliseconds, the getDateTimeUtc shall reduce the milliseconds to 3 digits.] */
@@ -313,14 +376,12 @@ public class ParserUtility
                 /* Codes_SRS_PARSER_UTILITY_21_041: [The getDateTimeUtc shall accept date without milliseconds.] */
                 milliseconds = NO_MILLISECONDS_IN_DATE;
             }
-            dateTimeUtc =  new Date(dateFormat.parse(splitDateTime[DATE_AND_TIME_IN_DATE]).getTime() + milliseconds);
+            return dateFormat.parse(splitDateTime[DATE_AND_TIME_IN_DATE]).getTime() + milliseconds;
         }
         catch (ParseException e)
         {
             throw new IllegalArgumentException("invalid time:" + dataTime);
         }
-
-        return dateTimeUtc;
     }
 
     /**
@@ -336,17 +397,22 @@ public class ParserUtility
     {
         Date dateTimeOffset;
 
-        /* Codes_SRS_PARSER_UTILITY_21_023: [The stringToDateTimeOffset shall parse the provide string using `UTC` timezone.] */
-        /* Codes_SRS_PARSER_UTILITY_21_024: [The stringToDateTimeOffset shall parse the provide string using the data format `2016-06-01T21:22:41+00:00`.] */
-        SimpleDateFormat dateFormat = new SimpleDateFormat(OFFSETFORMAT);
-        dateFormat.setTimeZone(TimeZone.getTimeZone(TIMEZONE));
-
         /* Codes_SRS_PARSER_UTILITY_21_025: [If the provide string is null, empty or contains an invalid data format, the stringToDateTimeOffset shall throw IllegalArgumentException.] */
         if((dateTime == null) || dateTime.isEmpty())
         {
             throw new IllegalArgumentException("date is null or empty");
         }
 
+        long canonicalDateTime = parseCanonicalDateTimeOffset(dateTime);
+        if (canonicalDateTime != NOT_PARSED)
+        {
+            return new Date(canonicalDateTime);
+        }
+
+        /* Codes_SRS_PARSER_UTILITY_21_023: [The stringToDateTimeOffset shall parse the provide string using `UTC` timezone.] */
+        /* Codes_SRS_PARSER_UTILITY_21_024: [The stringToDateTimeOffset shall parse the provide string using the data format `2016-06-01T21:22:41+00:00`.] */
+        SimpleDateFormat dateFormat = UTC_OFFSET_DATE_FORMAT.get();
+
         try
         {
             dateTimeOffset = dateFormat.parse(dateTime);
@@ -377,10 +443,11 @@ public class ParserUtility
         }
 
         /* Codes_SRS_PARSER_UTILITY_21_054: [The dateTimeUtcToString shall serialize the provide Date using `UTC` timezone.] */
-        SimpleDateFormat dateFormat = new SimpleDateFormat(DATEFORMAT);
-        dateFormat.setTimeZone(TimeZone.getTimeZone(TIMEZONE));
-        StringBuilder dateStr = new StringBuilder();
-        dateStr.append(dateFormat.format(date));
+        StringBuilder dateStr = new StringBuilder(DATE_AND_TIME_LENGTH + 5);
+        if (!appendCanonicalDateTime(dateStr, date.getTime()))
+        {
+            dateStr.append(UTC_DATE_FORMAT.get().format(date));
+        }
         dateStr.append(".");
         int milliseconds = (int)(date.getTime() % 1000L);
         milliseconds = milliseconds < 0 ? milliseconds + 1000 : milliseconds;
@@ -407,9 +474,229 @@ public class ParserUtility
         }
 
         //Codes_SRS_PARSER_UTILITY_34_043: [The provided date shall be converted into this format: "yyyy-MM-dd'T'HH:mm:ss".]
+        long localTime = date.getTime() + TimeZone.getDefault().getOffset(date.getTime());
+        StringBuilder dateStr = new StringBuilder(DATE_AND_TIME_LENGTH);
+        if (appendCanonicalDateTime(dateStr, localTime))
+        {
+            return dateStr.toString();
+        }
+
         return new SimpleDateFormat(DATEFORMAT).format(date);
     }
 
+    /**
+     * Parses a date in the canonical layout "yyyy-MM-ddTHH:mm:ss", optionally followed by a '.' or ',' and any number
+     * of fractional digits, optionally followed by 'Z'. Only the first 3 fractional digits are used.
+     *
+     * @return the milliseconds since the epoch, or {@link #NOT_PARSED} if the string is not in the canonical layout
+     */
+    private static long parseCanonicalDateTimeUtc(String dateTime)
+    {
+        int length = dateTime.length();
+        long dateAndTime = parseCanonicalDateAndTime(dateTime);
+        if (dateAndTime == NOT_PARSED)
+        {
+            return NOT_PARSED;
+        }
+
+        int position = DATE_AND_TIME_LENGTH;
+        int milliseconds = 0;
+        if (position < length && (dateTime.charAt(position) == '.' || dateTime.charAt(position) == ','))
+        {
+            position++;
+            int fractionStart = position;
+            int scale = 100;
+            while (position < length && isDigit(dateTime.charAt(position)))
+            {
+                milliseconds += (dateTime.charAt(position) - '0') * scale;
+                scale /= 10;
+                position++;
+            }
+
+            if (position == fractionStart)
+            {
+                return NOT_PARSED;
+            }
+        }
+
+        if (position < length && dateTime.charAt(position) == 'Z')
+        {
+            position++;
+        }
+
+        return position == length ? dateAndTime + milliseconds : NOT_PARSED;
+    }
+
+    /**
+     * Parses a date in the canonical layout "yyyy-MM-ddTHH:mm:ss" followed by either 'Z' or an offset "+HH:mm".
+     *
+     * @return the milliseconds since the epoch, or {@link #NOT_PARSED} if the string is not in the canonical layout
+     */
+    private static long parseCanonicalDateTimeOffset(String dateTime)
+    {
+        int length = dateTime.length();
+        long dateAndTime = parseCanonicalDateAndTime(dateTime);
+        if (dateAndTime == NOT_PARSED)
+        {
+            return NOT_PARSED;
+        }
+
+        if (length == DATE_AND_TIME_LENGTH)
+        {
+            return NOT_PARSED;
+        }
+
+        char zone = dateTime.charAt(DATE_AND_TIME_LENGTH);
+        if (length == DATE_AND_TIME_LENGTH + 1 && zone == 'Z')
+        {
+            return dateAndTime;
+        }
+
+        if (length != DATE_AND_TIME_LENGTH + OFFSET_LENGTH || (zone != '+' && zone != '-') || dateTime.charAt(DATE_AND_TIME_LENGTH + 3) != ':')
+        {
+            return NOT_PARSED;
+        }
+
+        int offsetHours = parseTwoDigits(dateTime, DATE_AND_TIME_LENGTH + 1);
+        int offsetMinutes = parseTwoDigits(dateTime, DATE_AND_TIME_LENGTH + 4);
+        if (offsetHours < 0 || offsetHours > 23 || offsetMinutes < 0 || offsetMinutes > 59)
+        {
+            return NOT_PARSED;
+        }
+
+        long offset = offsetHours * MILLISECONDS_PER_HOUR + offsetMinutes * MILLISECONDS_PER_MINUTE;
+        return zone == '+' ? dateAndTime - offset : dateAndTime + offset;
+    }
+
+    /**
+     * Parses the leading "yyyy-MM-ddTHH:mm:ss" of the string, requiring every field to be in range.
+     *
+     * @return the milliseconds since the epoch, or {@link #NOT_PARSED} if the string does not start with the canonical layout
+     */
+    private static long parseCanonicalDateAndTime(String dateTime)
+    {
+        if (dateTime.length() < DATE_AND_TIME_LENGTH
+                || dateTime.charAt(4) != '-' || dateTime.charAt(7) != '-' || dateTime.charAt(10) != 'T'
+                || dateTime.charAt(13) != ':' || dateTime.charAt(16) != ':')
+        {
+            return NOT_PARSED;
+        }
+
+        int yearHigh = parseTwoDigits(dateTime, 0);
+        int yearLow = parseTwoDigits(dateTime, 2);
+        int month = parseTwoDigits(dateTime, 5);
+        int day = parseTwoDigits(dateTime, 8);
+        int hour = parseTwoDigits(dateTime, 11);
+        int minute = parseTwoDigits(dateTime, 14);
+        int second = parseTwoDigits(dateTime, 17);
+        if (yearHigh < 0 || yearLow < 0)
+        {
+            return NOT_PARSED;
+        }
+
+        int year = yearHigh * 100 + yearLow;
+        if (year < MIN_FAST_PATH_YEAR || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+        {
+            // Out of range fields are rolled over by the lenient SimpleDateFormat, so those dates take the slow path
+            return NOT_PARSED;
+        }
+
+        return daysFromCivil(year, month, day) * MILLISECONDS_PER_DAY
+                + hour * MILLISECONDS_PER_HOUR + minute * MILLISECONDS_PER_MINUTE + second * MILLISECONDS_PER_SECOND;
+    }
+
+    /**
+     * Appends the "yyyy-MM-ddTHH:mm:ss" representation of the provided time, taking it as UTC.
+     *
+     * @return false, without appending anything, if the year of the provided time is outside of the canonical layout
+     */
+    private static boolean appendCanonicalDateTime(StringBuilder dateStr, long time)
+    {
+        long days = floorDiv(time, MILLISECONDS_PER_DAY);
+        int millisecondsOfDay = (int) (time - days * MILLISECONDS_PER_DAY);
+
+        // Civil date from days since the epoch, see http://howardhinnant.github.io/date_algorithms.html
+        long shiftedDays = days + DAYS_FROM_ERA_TO_EPOCH;
+        long era = floorDiv(shiftedDays, DAYS_PER_ERA);
+        int dayOfEra = (int) (shiftedDays - era * DAYS_PER_ERA);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < MIN_FAST_PATH_YEAR || year > MAX_FAST_PATH_YEAR)
+        {
+            return false;
+        }
+
+        appendTwoDigits(dateStr, (int) (year / 100));
+        appendTwoDigits(dateStr, (int) (year % 100));
+        dateStr.append('-');
+        appendTwoDigits(dateStr, month);
+        dateStr.append('-');
+        appendTwoDigits(dateStr, day);
+        dateStr.append('T');
+        appendTwoDigits(dateStr, (int) (millisecondsOfDay / MILLISECONDS_PER_HOUR));
+        dateStr.append(':');
+        appendTwoDigits(dateStr, (int) (millisecondsOfDay % MILLISECONDS_PER_HOUR / MILLISECONDS_PER_MINUTE));
+        dateStr.append(':');
+        appendTwoDigits(dateStr, (int) (millisecondsOfDay % MILLISECONDS_PER_MINUTE / MILLISECONDS_PER_SECOND));
+        return true;
+    }
+
+    // Days since the epoch of a civil date, see http://howardhinnant.github.io/date_algorithms.html
+    private static long daysFromCivil(int year, int month, int day)
+    {
+        int shiftedYear = month <= 2 ? year - 1 : year;
+        int era = shiftedYear / 400;
+        int yearOfEra = shiftedYear - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (long) era * DAYS_PER_ERA + dayOfEra - DAYS_FROM_ERA_TO_EPOCH;
+    }
+
+    private static int daysInMonth(int year, int month)
+    {
+        if (month == 2)
+        {
+            return ((year % 4 == 0) && (year % 100 != 0)) || (year % 400 == 0) ? 29 : 28;
+        }
+
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    private static long floorDiv(long dividend, long divisor)
+    {
+        long quotient = dividend / divisor;
+        return (dividend % divisor != 0 && ((dividend < 0) != (divisor < 0))) ? quotient - 1 : quotient;
+    }
+
+    private static int parseTwoDigits(String str, int position)
+    {
+        char high = str.charAt(position);
+        char low = str.charAt(position + 1);
+        if (!isDigit(high) || !isDigit(low))
+        {
+            return -1;
+        }
+
+        return (high - '0') * 10 + (low - '0');
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static void appendTwoDigits(StringBuilder dateStr, int value)
+    {
+        dateStr.append((char) ('0' + value / 10));
+        dateStr.append((char) ('0' + value % 10));
+    }
+
     /**
      * Helper to convert a provided map in to a JsonElement, including sub-maps.
      *
@@ -421,7 +708,7 @@ public class ParserUtility
     {
         /* Codes_SRS_PARSER_UTILITY_21_035: [The mapToJsonElement shall serialize the provided map into a JsonElement.] */
         /* Codes_SRS_PARSER_UTILITY_21_036: [The mapToJsonElement shall include keys with null values in the JsonElement.] */
-        Gson gson = new GsonBuilder().serializeNulls().create();
+        Gson gson = GsonInstances.SERIALIZE_NULLS;
 
         /* Codes_SRS_PARSER_UTILITY_21_038: [If the map is empty, the mapToJsonElement shall return a empty JsonElement.] */
         JsonObject json = new JsonObject();
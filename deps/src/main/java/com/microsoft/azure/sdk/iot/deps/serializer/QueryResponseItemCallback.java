@@ -0,0 +1,22 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.JsonObject;
+
+/**
+ * An interface for receiving the items of a query response one at a time.
+ *
+ * The {@link QueryResponseParser#forEachJsonItem} method will call {@link QueryResponseItemCallback#execute(JsonObject)}
+ * for each item of the response, in the order they appear in it.
+ */
+public interface QueryResponseItemCallback
+{
+    /**
+     * Executes the callback.
+     *
+     * @param item is the json object of the current query response item.
+     */
+    void execute(JsonObject item);
+}
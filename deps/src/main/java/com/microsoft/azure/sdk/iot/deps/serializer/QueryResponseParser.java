@@ -6,15 +6,20 @@
 package com.microsoft.azure.sdk.iot.deps.serializer;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.LinkedList;
 import java.util.List;
 
 public class QueryResponseParser
 {
+    private transient static Gson streamingGson = GsonInstances.DISABLE_HTML_ESCAPING;
+
     private transient Gson gson;
     private JsonObject[] jsonItems = null;
 
@@ -28,7 +33,7 @@ public class QueryResponseParser
     public QueryResponseParser(String json) throws IllegalArgumentException
     {
         //Codes_SRS_QUERY_RESPONSE_PARSER_25_001: [The constructor shall create an instance of the QueryResponseParser.]
-        gson = new GsonBuilder().disableHtmlEscaping().create();
+        gson = GsonInstances.DISABLE_HTML_ESCAPING;
 
         //Codes_SRS_QUERY_RESPONSE_PARSER_25_003: [If the provided json is null, empty, or not valid, the constructor shall throws IllegalArgumentException.]
         if((json == null) || json.isEmpty())
@@ -63,6 +68,59 @@ public class QueryResponseParser
         return jsonElements;
     }
 
+    /**
+     * Streams the json items of a query response to the provided callback one at a time, without building the full
+     * list of items or their string representations. Only the item currently handed to the callback is held in memory.
+     *
+     * @param reader the reader over a json array of query response items.
+     * @param itemCallback the callback to execute for each item, in the order they appear in the response.
+     * @throws IllegalArgumentException if any parameter is null, or if the json is not a valid array of json objects.
+     */
+    public static void forEachJsonItem(Reader reader, QueryResponseItemCallback itemCallback) throws IllegalArgumentException
+    {
+        if (reader == null || itemCallback == null)
+        {
+            throw new IllegalArgumentException("parameter is null");
+        }
+
+        JsonReader jsonReader = new JsonReader(reader);
+        try
+        {
+            jsonReader.beginArray();
+        }
+        catch (IOException | IllegalStateException malformed)
+        {
+            throw new IllegalArgumentException("Malformed json:" + malformed);
+        }
+
+        while (true)
+        {
+            JsonObject item;
+            try
+            {
+                if (!jsonReader.hasNext())
+                {
+                    jsonReader.endArray();
+                    return;
+                }
+
+                item = streamingGson.fromJson(jsonReader, JsonObject.class);
+            }
+            catch (IOException | JsonParseException | IllegalStateException malformed)
+            {
+                throw new IllegalArgumentException("Malformed json:" + malformed);
+            }
+
+            if (item == null)
+            {
+                throw new IllegalArgumentException("Malformed json: query response items must be json objects");
+            }
+
+            // Called outside of the try block so that exceptions thrown by the callback are not reported as malformed json
+            itemCallback.execute(item);
+        }
+    }
+
     /**
      * Empty constructor: Used only to keep GSON happy.
      */
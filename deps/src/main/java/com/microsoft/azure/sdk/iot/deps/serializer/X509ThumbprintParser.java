@@ -17,7 +17,7 @@ public class X509ThumbprintParser
     @SerializedName(SECONDARY_THUMBPRINT_SERIALIZED_NAME)
     private String secondaryThumbprint;
 
-    private transient Gson gson = new Gson();
+    private transient static Gson gson = GsonInstances.DEFAULT;
 
     /**
      * Empty constructor: Used only to keep GSON happy.
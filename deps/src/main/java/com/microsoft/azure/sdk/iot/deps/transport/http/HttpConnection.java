@@ -7,11 +7,11 @@ package com.microsoft.azure.sdk.iot.deps.transport.http;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.ProtocolException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +29,9 @@ import java.util.Map;
  */
 public class HttpConnection
 {
+    /** The size of the blocks in which the response streams are read. */
+    private static final int READ_BUFFER_SIZE = 8192;
+
     /** The underlying HTTPS connection. */
     protected final HttpsURLConnection connection;
 
@@ -278,7 +281,10 @@ public class HttpConnection
     }
 
     /**
-     * Reads the input stream until the stream is empty.
+     * Reads the input stream until the stream is empty. The stream is read in blocks of
+     * {@code READ_BUFFER_SIZE} bytes, so that reading a large response does not cost a call
+     * per byte, and it is left at its end so that Java can return the underlying
+     * connection to its keep-alive cache.
      *
      * @param stream The input stream.
      *
@@ -289,23 +295,17 @@ public class HttpConnection
     protected static byte[] readInputStream(InputStream stream)
             throws IOException
     {
-        ArrayList<Byte> byteBuffer = new ArrayList<>();
-        int nextByte = -1;
-        // read(byte[]) reads the byte into the buffer and returns the number
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int bytesRead;
+        // read(byte[], int, int) reads up to the buffer length into the buffer and returns the number
         // of bytes read, or -1 if the end of the stream has been reached.
-        while ((nextByte = stream.read()) > -1)
-        {
-            byteBuffer.add((byte) nextByte);
-        }
-
-        int bufferSize = byteBuffer.size();
-        byte[] byteArray = new byte[bufferSize];
-        for (int i = 0; i < bufferSize; ++i)
+        while ((bytesRead = stream.read(buffer, 0, buffer.length)) > -1)
         {
-            byteArray[i] = byteBuffer.get(i);
+            content.write(buffer, 0, bytesRead);
         }
 
-        return byteArray;
+        return content.toByteArray();
     }
 
     void setSSLContext(SSLContext sslContext) throws IllegalArgumentException
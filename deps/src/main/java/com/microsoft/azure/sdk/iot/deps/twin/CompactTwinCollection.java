@@ -0,0 +1,673 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.deps.twin;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.microsoft.azure.sdk.iot.deps.serializer.GsonInstances;
+import com.microsoft.azure.sdk.iot.deps.serializer.ParserUtility;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Immutable, compact representation of a Twin collection.
+ *
+ * <p> Where the {@link TwinCollection} keeps a {@code HashMap} per nesting level, this class keeps every leaf of
+ *     the collection in a single pair of arrays, sorted by the path of keys that leads to the leaf. The key
+ *     strings are shared between all the paths that contain them, so a collection with thousands of properties
+ *     holds each distinct key once and does not allocate any per entry map nodes.
+ *
+ * <p> The collection is a read only {@code Map} of {@code String} and {@code Object}, so it can be read wherever
+ *     a twin collection is read as a Map, such as {@link ParserUtility#mapToJsonElement(Map)}. A nested collection
+ *     is returned as a lightweight view over a range of the same arrays, created only when it is asked for. Any
+ *     attempt to change the collection throws {@code UnsupportedOperationException}.
+ *
+ * <p> This is a separate model, not a {@link TwinCollection}. The APIs that take a {@link TwinCollection}, such as
+ *     the twin parsers and the setters of the service twin, need a copy created by {@link #toTwinCollection()} or
+ *     {@link TwinCollection#TwinCollection(Map)}, which rebuilds the full tree of maps. The savings of this class
+ *     only apply to the code that reads, keeps or serializes the twin properties through this class.
+ *
+ * <p> The collection can be written to and read from JSON in a single pass, without building an intermediate
+ *     tree of maps or JSON elements. The {@code $version} of the collection is kept, the {@code $metadata} is not.
+ *
+ * <p> For instance, the following code reads the desired properties of a twin and gets the <b>NewValue</b>
+ *     nested in <b>MaxSpeed</b>:
+ * <pre>
+ * {@code
+ *      CompactTwinCollection desired = CompactTwinCollection.fromJson(desiredPropertiesJson);
+ *      Map<String, Object> maxSpeed = (Map<String, Object>) desired.get("MaxSpeed");
+ *      Number newValue = (Number) maxSpeed.get("NewValue");
+ * }
+ * </pre>
+ */
+public final class CompactTwinCollection extends AbstractMap<String, Object>
+{
+    private static final String VERSION_TAG = "$version";
+    private static final String METADATA_TAG = "$metadata";
+
+    // the value of a leaf that is an empty nested collection
+    private static final Object EMPTY_COLLECTION = new Object();
+
+    private static final Comparator<Leaf> LEAF_ORDER = new Comparator<Leaf>()
+    {
+        @Override
+        public int compare(Leaf leaf1, Leaf leaf2)
+        {
+            int length = Math.min(leaf1.path.length, leaf2.path.length);
+            for (int i = 0; i < length; i++)
+            {
+                int comparison = leaf1.path[i].compareTo(leaf2.path[i]);
+                if (comparison != 0)
+                {
+                    return comparison;
+                }
+            }
+            return leaf1.path.length - leaf2.path.length;
+        }
+    };
+
+    // shared by the collection and all its nested views
+    private final String[][] paths;
+    private final Object[] values;
+
+    // the leaves of this view are paths[from] to paths[to - 1], and its keys are at paths[i][depth]
+    private final int from;
+    private final int to;
+    private final int depth;
+
+    private final Integer version;
+
+    private int size = -1;
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    private CompactTwinCollection(String[][] paths, Object[] values, int from, int to, int depth, Integer version)
+    {
+        this.paths = paths;
+        this.values = values;
+        this.from = from;
+        this.to = to;
+        this.depth = depth;
+        this.version = version;
+    }
+
+    /**
+     * Creates a compact collection with the content of the provided Map.
+     *
+     * <p> Nested Maps are flattened in the compact collection. If the Map is a {@link TwinCollection}, its
+     *     version is kept, its metadata is not.
+     *
+     * @param map the Map of {@code String} and {@code Object} with the Twin collection. It can be {@code null}.
+     * @return the compact collection with the content of the Map.
+     * @throws IllegalArgumentException if the Map contains an empty key or an invalid value.
+     */
+    @SuppressWarnings("unchecked")
+    public static CompactTwinCollection fromMap(Map<String, ?> map) throws IllegalArgumentException
+    {
+        if (map instanceof CompactTwinCollection)
+        {
+            return (CompactTwinCollection) map;
+        }
+
+        Integer version = null;
+        List<Leaf> leaves = new ArrayList<>();
+        if (map != null)
+        {
+            ParserUtility.validateMap((Map<String, Object>) map);
+            if (map instanceof TwinCollection)
+            {
+                version = ((TwinCollection) map).getVersionFinal();
+            }
+            addLeaves(map, new String[0], new HashMap<String, String>(), leaves);
+        }
+
+        return create(leaves, version);
+    }
+
+    /**
+     * Creates a compact collection from the JSON of a Twin collection, reading the JSON in a single pass.
+     *
+     * <p> Numbers are read as {@code Double}, as in the {@link TwinCollection} created by the twin parsers. The
+     *     {@code $version} of the collection is kept, its {@code $metadata} is skipped.
+     *
+     * @param json the {@code String} with the JSON of the Twin collection. It cannot be {@code null} or empty.
+     * @return the compact collection with the content of the JSON.
+     * @throws IllegalArgumentException if the JSON is {@code null}, empty or is not a valid Twin collection.
+     */
+    public static CompactTwinCollection fromJson(String json) throws IllegalArgumentException
+    {
+        if ((json == null) || json.isEmpty())
+        {
+            throw new IllegalArgumentException("json cannot be null or empty");
+        }
+
+        return fromJson(new StringReader(json));
+    }
+
+    /**
+     * Creates a compact collection from the JSON of a Twin collection, reading the JSON in a single pass.
+     *
+     * @param reader the {@code Reader} with the JSON of the Twin collection. It cannot be {@code null}.
+     * @return the compact collection with the content of the JSON.
+     * @throws IllegalArgumentException if the reader is {@code null}, or the JSON is not a valid Twin collection.
+     * @see #fromJson(String)
+     */
+    public static CompactTwinCollection fromJson(Reader reader) throws IllegalArgumentException
+    {
+        if (reader == null)
+        {
+            throw new IllegalArgumentException("reader cannot be null");
+        }
+
+        Integer version = null;
+        List<Leaf> leaves = new ArrayList<>();
+        Map<String, String> keys = new HashMap<>();
+        try
+        {
+            JsonReader jsonReader = new JsonReader(reader);
+            if (jsonReader.peek() != JsonToken.BEGIN_OBJECT)
+            {
+                throw new IllegalArgumentException("json is not a Twin collection");
+            }
+
+            jsonReader.beginObject();
+            Map<String, int[]> memberLeaves = new HashMap<>();
+            while (jsonReader.hasNext())
+            {
+                String key = jsonReader.nextName();
+                if (key.equals(VERSION_TAG) && (jsonReader.peek() == JsonToken.NUMBER))
+                {
+                    version = jsonReader.nextInt();
+                }
+                else if (key.equals(METADATA_TAG))
+                {
+                    jsonReader.skipValue();
+                }
+                else
+                {
+                    readMember(jsonReader, new String[] { share(key, keys) }, keys, leaves, memberLeaves);
+                }
+            }
+            jsonReader.endObject();
+        }
+        catch (IOException | IllegalStateException | NumberFormatException | JsonParseException e)
+        {
+            throw new IllegalArgumentException("Malformed json: " + e.getMessage(), e);
+        }
+
+        // the JSON keys are not sorted, and the leaves of the earlier values of duplicated keys were dropped
+        List<Leaf> uniqueLeaves = new ArrayList<>(leaves.size());
+        for (Leaf leaf : leaves)
+        {
+            if (leaf != null)
+            {
+                uniqueLeaves.add(leaf);
+            }
+        }
+        Collections.sort(uniqueLeaves, LEAF_ORDER);
+
+        return create(uniqueLeaves, version);
+    }
+
+    /**
+     * Getter for the version.
+     *
+     * @return The {@code Integer} with the version content. It is {@code null} for nested collections, and can
+     *         be {@code null} for the root collection.
+     */
+    public Integer getVersionFinal()
+    {
+        return this.version;
+    }
+
+    /**
+     * Creates a {@link TwinCollection} with the content and the version of this collection. The whole collection is
+     * copied into a new tree of maps, so this costs as much as parsing the collection into a {@link TwinCollection}.
+     *
+     * @return a new, mutable {@link TwinCollection}.
+     */
+    public TwinCollection toTwinCollection()
+    {
+        Map<String, Object> rawCollection = new HashMap<>(this);
+        if (this.version != null)
+        {
+            rawCollection.put(VERSION_TAG, this.version);
+        }
+
+        return TwinCollection.createFromRawCollection(rawCollection);
+    }
+
+    /**
+     * Serializer
+     *
+     * <p> Creates a {@code JsonElement} with the content of this collection, without metadata, as
+     *     {@link TwinCollection#toJsonElement()} does.
+     *
+     * @return The {@code JsonElement} with the content of this collection.
+     */
+    public JsonElement toJsonElement()
+    {
+        return toJsonObject(this.from, this.to, this.depth);
+    }
+
+    /**
+     * Writes the JSON of this collection, without metadata, directly to the provided writer.
+     *
+     * @param writer the {@code Writer} to write the JSON to. It cannot be {@code null}.
+     * @throws IllegalArgumentException if the writer is {@code null}.
+     * @throws IOException if the writer fails.
+     */
+    public void writeJson(Writer writer) throws IllegalArgumentException, IOException
+    {
+        if (writer == null)
+        {
+            throw new IllegalArgumentException("writer cannot be null");
+        }
+
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setSerializeNulls(true);
+        writeObject(jsonWriter, this.from, this.to, this.depth);
+        jsonWriter.flush();
+    }
+
+    /**
+     * Creates the JSON of this collection, without metadata.
+     *
+     * @return The {@code String} with the JSON of this collection.
+     */
+    public String toJson()
+    {
+        StringWriter writer = new StringWriter();
+        try
+        {
+            writeJson(writer);
+        }
+        catch (IOException e)
+        {
+            // a StringWriter does not throw
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public int size()
+    {
+        if (this.size < 0)
+        {
+            int count = 0;
+            for (int i = this.from; i < this.to; i = groupEnd(i))
+            {
+                count++;
+            }
+            this.size = count;
+        }
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.from == this.to;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return (key instanceof String) && (findGroup((String) key) >= 0);
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        if (!(key instanceof String))
+        {
+            return null;
+        }
+
+        int groupStart = findGroup((String) key);
+        return groupStart < 0 ? null : valueOf(groupStart, groupEnd(groupStart));
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet()
+    {
+        if (this.entrySet == null)
+        {
+            this.entrySet = new AbstractSet<Map.Entry<String, Object>>()
+            {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator()
+                {
+                    return new Iterator<Map.Entry<String, Object>>()
+                    {
+                        private int next = from;
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return this.next < to;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next()
+                        {
+                            if (this.next >= to)
+                            {
+                                throw new NoSuchElementException();
+                            }
+
+                            int groupStart = this.next;
+                            this.next = groupEnd(groupStart);
+                            return new AbstractMap.SimpleImmutableEntry<>(paths[groupStart][depth], valueOf(groupStart, this.next));
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            throw new UnsupportedOperationException("CompactTwinCollection is immutable");
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return CompactTwinCollection.this.size();
+                }
+            };
+        }
+        return this.entrySet;
+    }
+
+    /**
+     * Creates the JSON of this collection, without metadata.
+     *
+     * @return The {@code String} with the JSON of this collection.
+     */
+    @Override
+    public String toString()
+    {
+        return toJson();
+    }
+
+    private static CompactTwinCollection create(List<Leaf> leaves, Integer version)
+    {
+        String[][] paths = new String[leaves.size()][];
+        Object[] values = new Object[leaves.size()];
+        for (int i = 0; i < paths.length; i++)
+        {
+            paths[i] = leaves.get(i).path;
+            values[i] = leaves.get(i).value;
+        }
+
+        return new CompactTwinCollection(paths, values, 0, paths.length, 0, version);
+    }
+
+    private static void addLeaves(Map<String, ?> map, String[] prefix, Map<String, String> keys, List<Leaf> leaves)
+    {
+        // visiting the keys of every level in order produces the leaves already sorted
+        List<String> sortedKeys = new ArrayList<>(map.keySet());
+        for (String key : sortedKeys)
+        {
+            if ((key == null) || key.isEmpty())
+            {
+                throw new IllegalArgumentException("Key cannot be null or empty");
+            }
+        }
+        Collections.sort(sortedKeys);
+
+        for (String key : sortedKeys)
+        {
+            String[] path = Arrays.copyOf(prefix, prefix.length + 1);
+            path[prefix.length] = share(key, keys);
+
+            Object value = map.get(key);
+            if (value instanceof Map)
+            {
+                @SuppressWarnings("unchecked")
+                Map<String, ?> nestedMap = (Map<String, ?>) value;
+                if (nestedMap.isEmpty())
+                {
+                    leaves.add(new Leaf(path, EMPTY_COLLECTION));
+                }
+                else
+                {
+                    addLeaves(nestedMap, path, keys, leaves);
+                }
+            }
+            else
+            {
+                leaves.add(new Leaf(path, value));
+            }
+        }
+    }
+
+    private static void readLeaves(JsonReader jsonReader, String[] path, Map<String, String> keys, List<Leaf> leaves) throws IOException
+    {
+        switch (jsonReader.peek())
+        {
+            case BEGIN_OBJECT:
+                jsonReader.beginObject();
+                if (!jsonReader.hasNext())
+                {
+                    leaves.add(new Leaf(path, EMPTY_COLLECTION));
+                }
+                Map<String, int[]> memberLeaves = new HashMap<>();
+                while (jsonReader.hasNext())
+                {
+                    String[] nestedPath = Arrays.copyOf(path, path.length + 1);
+                    nestedPath[path.length] = share(jsonReader.nextName(), keys);
+                    readMember(jsonReader, nestedPath, keys, leaves, memberLeaves);
+                }
+                jsonReader.endObject();
+                break;
+            case STRING:
+                leaves.add(new Leaf(path, jsonReader.nextString()));
+                break;
+            case NUMBER:
+                leaves.add(new Leaf(path, jsonReader.nextDouble()));
+                break;
+            case BOOLEAN:
+                leaves.add(new Leaf(path, jsonReader.nextBoolean()));
+                break;
+            case NULL:
+                jsonReader.nextNull();
+                leaves.add(new Leaf(path, null));
+                break;
+            default:
+                leaves.add(new Leaf(path, GsonInstances.DEFAULT.fromJson(jsonReader, List.class)));
+                break;
+        }
+    }
+
+    private static void readMember(JsonReader jsonReader, String[] path, Map<String, String> keys, List<Leaf> leaves,
+                                   Map<String, int[]> memberLeaves) throws IOException
+    {
+        // the leaves of a member are read one after the other, so they are a range of the list
+        int start = leaves.size();
+        readLeaves(jsonReader, path, keys, leaves);
+        int[] previousLeaves = memberLeaves.put(path[path.length - 1], new int[] { start, leaves.size() });
+
+        // a duplicated key keeps its last value as in the other parsers, even if one value is nested and not the other
+        if (previousLeaves != null)
+        {
+            for (int i = previousLeaves[0]; i < previousLeaves[1]; i++)
+            {
+                leaves.set(i, null);
+            }
+        }
+    }
+
+    private static String share(String key, Map<String, String> keys)
+    {
+        String sharedKey = keys.get(key);
+        if (sharedKey == null)
+        {
+            keys.put(key, key);
+            sharedKey = key;
+        }
+        return sharedKey;
+    }
+
+    private int findGroup(String key)
+    {
+        // binary search for the first leaf in this view with the provided key at this depth
+        int low = this.from;
+        int high = this.to;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (this.paths[middle][this.depth].compareTo(key) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return ((low < this.to) && this.paths[low][this.depth].equals(key)) ? low : -1;
+    }
+
+    private int groupEnd(int groupStart)
+    {
+        return groupEnd(groupStart, this.to, this.depth);
+    }
+
+    private int groupEnd(int groupStart, int end, int level)
+    {
+        // the leaves with the same key at this level are next to each other
+        String key = this.paths[groupStart][level];
+        int groupEnd = groupStart + 1;
+        while ((groupEnd < end) && this.paths[groupEnd][level].equals(key))
+        {
+            groupEnd++;
+        }
+        return groupEnd;
+    }
+
+    private boolean isLeaf(int groupStart, int groupEnd)
+    {
+        return (groupEnd - groupStart == 1) && (this.paths[groupStart].length == this.depth + 1);
+    }
+
+    private Object valueOf(int groupStart, int groupEnd)
+    {
+        if (isLeaf(groupStart, groupEnd))
+        {
+            Object value = this.values[groupStart];
+            if (value != EMPTY_COLLECTION)
+            {
+                return value;
+            }
+            groupEnd = groupStart;
+        }
+
+        return new CompactTwinCollection(this.paths, this.values, groupStart, groupEnd, this.depth + 1, null);
+    }
+
+    private JsonObject toJsonObject(int start, int end, int level)
+    {
+        JsonObject json = new JsonObject();
+        int groupStart = start;
+        while (groupStart < end)
+        {
+            int groupEnd = groupEnd(groupStart, end, level);
+
+            String key = this.paths[groupStart][level];
+            if ((groupEnd - groupStart == 1) && (this.paths[groupStart].length == level + 1))
+            {
+                Object value = this.values[groupStart];
+                if (value == EMPTY_COLLECTION)
+                {
+                    json.add(key, new JsonObject());
+                }
+                else
+                {
+                    json.add(key, value == null ? JsonNull.INSTANCE : GsonInstances.SERIALIZE_NULLS.toJsonTree(value));
+                }
+            }
+            else
+            {
+                json.add(key, toJsonObject(groupStart, groupEnd, level + 1));
+            }
+            groupStart = groupEnd;
+        }
+        return json;
+    }
+
+    private void writeObject(JsonWriter jsonWriter, int start, int end, int level) throws IOException
+    {
+        jsonWriter.beginObject();
+        int groupStart = start;
+        while (groupStart < end)
+        {
+            int groupEnd = groupEnd(groupStart, end, level);
+
+            jsonWriter.name(this.paths[groupStart][level]);
+            if ((groupEnd - groupStart == 1) && (this.paths[groupStart].length == level + 1))
+            {
+                writeValue(jsonWriter, this.values[groupStart]);
+            }
+            else
+            {
+                writeObject(jsonWriter, groupStart, groupEnd, level + 1);
+            }
+            groupStart = groupEnd;
+        }
+        jsonWriter.endObject();
+    }
+
+    private static void writeValue(JsonWriter jsonWriter, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            jsonWriter.nullValue();
+        }
+        else if (value == EMPTY_COLLECTION)
+        {
+            jsonWriter.beginObject();
+            jsonWriter.endObject();
+        }
+        else if (value instanceof String)
+        {
+            jsonWriter.value((String) value);
+        }
+        else if (value instanceof Boolean)
+        {
+            jsonWriter.value(((Boolean) value).booleanValue());
+        }
+        else if (value instanceof Number)
+        {
+            jsonWriter.value((Number) value);
+        }
+        else
+        {
+            GsonInstances.SERIALIZE_NULLS.toJson(value, value.getClass(), jsonWriter);
+        }
+    }
+
+    private static final class Leaf
+    {
+        private final String[] path;
+        private final Object value;
+
+        private Leaf(String[] path, Object value)
+        {
+            this.path = path;
+            this.value = value;
+        }
+    }
+}
@@ -4,12 +4,12 @@
 package com.microsoft.azure.sdk.iot.deps.twin;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.deps.serializer.GsonInstances;
 import com.microsoft.azure.sdk.iot.deps.util.Tools;
 
 import java.util.Map;
@@ -182,7 +182,7 @@ public class TwinState extends RegisterManager
         /* SRS_TWIN_STATE_21_002: [The toJsonElement shall return a JsonElement with the information in this class in a JSON format.] */
         /* SRS_TWIN_STATE_21_003: [If the tags is null, the toJsonElement shall not include the `tags` in the final JSON.] */
         /* SRS_TWIN_STATE_21_004: [If the property is null, the toJsonElement shall not include the `properties` in the final JSON.] */
-        Gson gson = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+        Gson gson = GsonInstances.DISABLE_HTML_ESCAPING_SERIALIZE_NULLS;
         JsonElement json = gson.toJsonTree(this).getAsJsonObject();
 
         //since null values are lost when building the json tree, need to manually re-add properties as reported properties
@@ -257,7 +257,7 @@ public class TwinState extends RegisterManager
     public String toString()
     {
         /* SRS_TWIN_STATE_21_008: [The toString shall return a String with the information in this class in a pretty print JSON.] */
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().setPrettyPrinting().disableHtmlEscaping().create();
+        Gson gson = GsonInstances.EXPOSED_FIELDS_DISABLE_HTML_ESCAPING_PRETTY_PRINTING;
         JsonObject jsonObject = gson.toJsonTree(this).getAsJsonObject();
 
         /* SRS_TWIN_STATE_21_009: [If the tags is null, the JSON shall not include the `tags`.] */
@@ -293,7 +293,7 @@ public class TwinState extends RegisterManager
 
         /* SRS_TWIN_STATE_21_012: [The factory shall throw JsonSyntaxException if the JSON is invalid.] */
         /* SRS_TWIN_STATE_21_013: [The factory shall deserialize the provided JSON for the twin class and subclasses.] */
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        Gson gson = GsonInstances.EXPOSED_FIELDS_DISABLE_HTML_ESCAPING;
         TwinState result = gson.fromJson(json, TwinState.class);
 
         /*
@@ -329,7 +329,7 @@ public class TwinState extends RegisterManager
 
         /* SRS_TWIN_STATE_21_015: [The factory shall throw JsonSyntaxException if the JSON is invalid.] */
         /* SRS_TWIN_STATE_21_016: [The factory shall deserialize the provided JSON for the Twin class and subclasses.] */
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        Gson gson = GsonInstances.EXPOSED_FIELDS_DISABLE_HTML_ESCAPING;
         TwinCollection result = gson.fromJson(json, TwinCollection.class);
 
         return new TwinState(null, result, null);
@@ -353,7 +353,7 @@ public class TwinState extends RegisterManager
 
         /* SRS_TWIN_STATE_21_018: [The factory shall throw JsonSyntaxException if the JSON is invalid.] */
         /* SRS_TWIN_STATE_21_019: [The factory shall deserialize the provided JSON for the Twin class and subclasses.] */
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        Gson gson = GsonInstances.EXPOSED_FIELDS_DISABLE_HTML_ESCAPING;
         TwinCollection result = gson.fromJson(json, TwinCollection.class);
 
         return new TwinState(null, null, result);
@@ -377,7 +377,7 @@ public class TwinState extends RegisterManager
 
         /* SRS_TWIN_STATE_21_021: [The factory shall throw JsonSyntaxException if the JSON is invalid.] */
         /* SRS_TWIN_STATE_21_022: [The factory shall deserialize the provided JSON for the Twin class and subclasses.] */
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        Gson gson = GsonInstances.EXPOSED_FIELDS_DISABLE_HTML_ESCAPING;
         TwinProperties result = gson.fromJson(json, TwinProperties.class);
 
         return new TwinState(null, result.getDesired(), result.getReported());
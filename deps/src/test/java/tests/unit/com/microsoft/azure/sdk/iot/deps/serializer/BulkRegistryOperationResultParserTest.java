@@ -0,0 +1,90 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.microsoft.azure.sdk.iot.deps.serializer.BulkRegistryOperationResultParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Code coverage:
+ * Methods: 100%
+ * Lines: 100%
+ */
+public class BulkRegistryOperationResultParserTest
+{
+    @Test
+    public void constructorParsesErrorsAndWarnings()
+    {
+        //arrange
+        String json = "{\"isSuccessful\":false," +
+                "\"errors\":[{\"deviceId\":\"device1\",\"errorCode\":\"DeviceAlreadyExists\",\"errorStatus\":\"already exists\"}]," +
+                "\"warnings\":[{\"deviceId\":\"device2\",\"warningCode\":\"DeviceRegisteredWithoutTwin\",\"warningStatus\":\"no twin\"}]}";
+
+        //act
+        BulkRegistryOperationResultParser parser = new BulkRegistryOperationResultParser(json);
+
+        //assert
+        assertFalse(parser.getIsSuccessful());
+        assertEquals(1, parser.getErrors().size());
+        assertEquals("device1", parser.getErrors().get(0).getDeviceId());
+        assertEquals("DeviceAlreadyExists", parser.getErrors().get(0).getErrorCode());
+        assertEquals("already exists", parser.getErrors().get(0).getErrorStatus());
+        assertEquals(1, parser.getWarnings().size());
+        assertEquals("device2", parser.getWarnings().get(0).getDeviceId());
+        assertEquals("DeviceRegisteredWithoutTwin", parser.getWarnings().get(0).getWarningCode());
+        assertEquals("no twin", parser.getWarnings().get(0).getWarningStatus());
+    }
+
+    @Test
+    public void missingListsAreReturnedEmpty()
+    {
+        //act
+        BulkRegistryOperationResultParser parser = new BulkRegistryOperationResultParser("{\"isSuccessful\":true}");
+
+        //assert
+        assertTrue(parser.getIsSuccessful());
+        assertTrue(parser.getErrors().isEmpty());
+        assertTrue(parser.getWarnings().isEmpty());
+    }
+
+    @Test
+    public void toJsonRoundTrips()
+    {
+        //arrange
+        BulkRegistryOperationResultParser parser = new BulkRegistryOperationResultParser(
+                "{\"isSuccessful\":false,\"errors\":[{\"deviceId\":\"device1\",\"errorCode\":\"code\",\"errorStatus\":\"status\"}]}");
+
+        //act
+        BulkRegistryOperationResultParser processedParser = new BulkRegistryOperationResultParser(parser.toJson());
+
+        //assert
+        assertEquals(parser.getIsSuccessful(), processedParser.getIsSuccessful());
+        assertEquals("device1", processedParser.getErrors().get(0).getDeviceId());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void nullJsonForConstructorThrows()
+    {
+        //act
+        new BulkRegistryOperationResultParser(null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void emptyJsonForConstructorThrows()
+    {
+        //act
+        new BulkRegistryOperationResultParser("");
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void invalidJsonForConstructorThrows()
+    {
+        //act
+        new BulkRegistryOperationResultParser("}");
+    }
+}
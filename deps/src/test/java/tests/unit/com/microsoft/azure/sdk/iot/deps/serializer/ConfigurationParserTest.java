@@ -5,7 +5,9 @@ import mockit.integration.junit4.JMockit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.StringReader;
 import java.util.HashMap;
+import java.util.List;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNotNull;
@@ -198,4 +200,38 @@ public class ConfigurationParserTest
         //act
         new ConfigurationParser().setId(null);
     }
+
+    @Test
+    public void fromJsonArrayParsesEveryConfiguration()
+    {
+        //arrange
+        String json = "[{\"id\":\"config1\",\"etag\":\"MQ==\",\"createdTimeUtc\":\"0001-01-01T00:00:00\"," +
+                "\"content\":{\"deviceContent\":{\"properties.desired.settings1\": {\"c\":3}}}}," +
+                "{\"id\":\"config2\",\"priority\":10}]";
+
+        //act
+        List<ConfigurationParser> parsers = ConfigurationParser.fromJsonArray(new StringReader(json));
+
+        //assert
+        assertEquals(2, parsers.size());
+        assertEquals("config1", parsers.get(0).getId());
+        assertEquals(ParserUtility.getDateTimeUtc("0001-01-01T00:00:00"), parsers.get(0).getCreatedTimeUtc());
+        assertNotNull(parsers.get(0).getContent());
+        assertEquals("config2", parsers.get(1).getId());
+        assertEquals(Integer.valueOf(10), parsers.get(1).getPriority());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromJsonArrayThrowsForNullReader()
+    {
+        //act
+        ConfigurationParser.fromJsonArray(null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromJsonArrayThrowsForMissingId()
+    {
+        //act
+        ConfigurationParser.fromJsonArray(new StringReader("[{\"priority\":10}]"));
+    }
 }
@@ -12,10 +12,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.StringReader;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNull;
@@ -497,4 +499,65 @@ public class DeviceParserTest
         //act
         parser.setAuthenticationParser(null);
     }
+
+    @Test
+    public void fromJsonArrayParsesEveryDevice()
+    {
+        //arrange
+        String json = "[" +
+                "{\"deviceId\":\"device1\",\"moduleId\":\"module1\",\"status\":\"enabled\",\"lastActivityTime\":\"" + validDateString + "\"," +
+                "\"authentication\":{\"type\":\"" + SAS_JSON_VALUE + "\",\"symmetricKey\":{\"primaryKey\":\"a\",\"secondaryKey\":\"b\"}}}," +
+                "{\"deviceId\":\"device2\",\"authentication\":{\"type\":\"" + CERTIFICATE_AUTHORITY_JSON_VALUE + "\"}}" +
+                "]";
+
+        //act
+        List<DeviceParser> parsers = DeviceParser.fromJsonArray(new StringReader(json));
+
+        //assert
+        assertEquals(2, parsers.size());
+        assertEquals("device1", parsers.get(0).getDeviceId());
+        assertEquals("module1", parsers.get(0).getModuleId());
+        assertEquals("a", parsers.get(0).getAuthenticationParser().getSymmetricKey().getPrimaryKeyFinal());
+        assertEquals(ParserUtility.getDateTimeUtc(validDateString), parsers.get(0).getLastActivityTime());
+        assertEquals("device2", parsers.get(1).getDeviceId());
+        assertEquals(AuthenticationTypeParser.CERTIFICATE_AUTHORITY, parsers.get(1).getAuthenticationParser().getType());
+    }
+
+    @Test
+    public void fromJsonArrayParsesEmptyArray()
+    {
+        //act
+        List<DeviceParser> parsers = DeviceParser.fromJsonArray(new StringReader("[]"));
+
+        //assert
+        assertTrue(parsers.isEmpty());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromJsonArrayThrowsForNullReader()
+    {
+        //act
+        DeviceParser.fromJsonArray(null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromJsonArrayThrowsForMissingDeviceId()
+    {
+        //act
+        DeviceParser.fromJsonArray(new StringReader("[{\"authentication\":{\"type\":\"" + SAS_JSON_VALUE + "\"}}]"));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromJsonArrayThrowsForNonArrayJson()
+    {
+        //act
+        DeviceParser.fromJsonArray(new StringReader("{\"deviceId\":\"device1\"}"));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromJsonArrayThrowsForTruncatedJson()
+    {
+        //act
+        DeviceParser.fromJsonArray(new StringReader("[{\"deviceId\":\"device1\","));
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.deps.serializer;
+
+import com.google.gson.annotations.Expose;
+import com.microsoft.azure.sdk.iot.deps.serializer.GsonInstances;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/*
+    Unit tests for GsonInstances
+ */
+public class GsonInstancesTest
+{
+    private static class TestObject
+    {
+        @Expose
+        private String exposed = "<a>";
+
+        private String notExposed = null;
+    }
+
+    @Test
+    public void defaultEscapesHtmlAndOmitsNulls()
+    {
+        assertEquals("{\"exposed\":\"\\u003ca\\u003e\"}", GsonInstances.DEFAULT.toJson(new TestObject()));
+    }
+
+    @Test
+    public void disableHtmlEscapingDoesNotEscapeHtml()
+    {
+        assertEquals("{\"exposed\":\"<a>\"}", GsonInstances.DISABLE_HTML_ESCAPING.toJson(new TestObject()));
+    }
+
+    @Test
+    public void serializeNullsIncludesNullFields()
+    {
+        assertEquals("{\"exposed\":\"<a>\",\"notExposed\":null}", GsonInstances.DISABLE_HTML_ESCAPING_SERIALIZE_NULLS.toJson(new TestObject()));
+        assertEquals("{\"exposed\":\"\\u003ca\\u003e\",\"notExposed\":null}", GsonInstances.SERIALIZE_NULLS.toJson(new TestObject()));
+    }
+
+    @Test
+    public void exposedFieldsExcludesFieldsWithoutExposeAnnotation()
+    {
+        TestObject testObject = new TestObject();
+        testObject.notExposed = "value";
+
+        assertEquals("{\"exposed\":\"<a>\"}", GsonInstances.EXPOSED_FIELDS_DISABLE_HTML_ESCAPING.toJson(testObject));
+        assertEquals("{\"exposed\":\"\\u003ca\\u003e\"}", GsonInstances.EXPOSED_FIELDS.toJson(testObject));
+    }
+}
@@ -10,10 +10,13 @@ import mockit.Deencapsulation;
 import org.junit.Test;
 import tests.unit.com.microsoft.azure.sdk.iot.deps.Helpers;
 
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
 
 import static org.junit.Assert.assertEquals;
 
@@ -700,4 +703,141 @@ public class ParserUtilityTest
         //assert
         assertEquals(expectedString, actualString);
     }
+
+    private static final long FUZZ_MIN_TIME = -11676096000000L; // 1600-01-01T00:00:00Z
+    private static final long FUZZ_MAX_TIME = 253402300799999L; // 9999-12-31T23:59:59.999Z
+    private static final int FUZZ_ITERATIONS = 20000;
+
+    private static long randomTime(Random random)
+    {
+        return FUZZ_MIN_TIME + (long) (random.nextDouble() * (FUZZ_MAX_TIME - FUZZ_MIN_TIME));
+    }
+
+    private static SimpleDateFormat utcDateFormat(String pattern)
+    {
+        SimpleDateFormat dateFormat = new SimpleDateFormat(pattern);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return dateFormat;
+    }
+
+    // Reference implementation of getDateTimeUtc based only on SimpleDateFormat, for equivalence tests
+    private static long referenceDateTimeUtc(String dateTime) throws ParseException
+    {
+        String[] splitDateTime = dateTime.split("[.,Z]");
+        int milliseconds = 0;
+        if (splitDateTime.length == 2 && !splitDateTime[1].isEmpty())
+        {
+            int millisecondsLength = Math.min(splitDateTime[1].length(), 3);
+            milliseconds = Integer.parseInt(splitDateTime[1].substring(0, millisecondsLength)) * (int) Math.pow(10, 3 - millisecondsLength);
+        }
+
+        return utcDateFormat("yyyy-MM-dd'T'HH:mm:ss").parse(splitDateTime[0]).getTime() + milliseconds;
+    }
+
+    //Tests_SRS_PARSER_UTILITY_21_040: [If the provide string contains more than 3 digits for milliseconds, the getDateTimeUtc shall reduce the milliseconds to 3 digits.]
+    @Test
+    public void getDateTimeUtcInMillisecondsReducesFractionToMilliseconds()
+    {
+        assertEquals(1464816163799L, ParserUtility.getDateTimeUtcInMilliseconds("2016-06-01T21:22:43.7996883Z"));
+        assertEquals(1464816163700L, ParserUtility.getDateTimeUtcInMilliseconds("2016-06-01T21:22:43.7Z"));
+        assertEquals(1464816163070L, ParserUtility.getDateTimeUtcInMilliseconds("2016-06-01T21:22:43,07"));
+        assertEquals(1464816163000L, ParserUtility.getDateTimeUtcInMilliseconds("2016-06-01T21:22:43Z"));
+    }
+
+    @Test
+    public void getDateTimeUtcInMillisecondsAcceptsLeapDay()
+    {
+        assertEquals(951782400000L, ParserUtility.getDateTimeUtcInMilliseconds("2000-02-29T00:00:00Z"));
+    }
+
+    @Test
+    public void getDateTimeUtcInMillisecondsAcceptsDatesOutsideOfCanonicalLayout() throws ParseException
+    {
+        String[] dates = {"0001-01-01T00:00:00", "2016-6-1T1:2:3", "2015-02-29T00:00:00Z", "2016-06-01T24:00:00", "2016-06-01T21:22:43+05:00"};
+        for (String date : dates)
+        {
+            assertEquals(date, referenceDateTimeUtc(date), ParserUtility.getDateTimeUtcInMilliseconds(date));
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getDateTimeUtcInMillisecondsInvalidFractionThrows()
+    {
+        ParserUtility.getDateTimeUtcInMilliseconds("2016-06-01T21:22:43.7a");
+    }
+
+    @Test
+    public void getDateTimeUtcMatchesSimpleDateFormatForRandomDates() throws ParseException
+    {
+        Random random = new Random(20180401);
+        SimpleDateFormat dateFormat = utcDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        for (int i = 0; i < FUZZ_ITERATIONS; i++)
+        {
+            String dateTime = dateFormat.format(new Date(randomTime(random)));
+            int fractionLength = random.nextInt(8);
+            if (fractionLength > 0)
+            {
+                dateTime += random.nextBoolean() ? "." : ",";
+                for (int digit = 0; digit < fractionLength; digit++)
+                {
+                    dateTime += random.nextInt(10);
+                }
+            }
+            if (random.nextBoolean())
+            {
+                dateTime += "Z";
+            }
+
+            assertEquals(dateTime, referenceDateTimeUtc(dateTime), ParserUtility.getDateTimeUtc(dateTime).getTime());
+        }
+    }
+
+    @Test
+    public void stringToDateTimeOffsetMatchesSimpleDateFormatForRandomDates() throws ParseException
+    {
+        Random random = new Random(20180402);
+        SimpleDateFormat dateFormat = utcDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        SimpleDateFormat referenceFormat = utcDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+        for (int i = 0; i < FUZZ_ITERATIONS; i++)
+        {
+            String dateTime = dateFormat.format(new Date(randomTime(random)));
+            if (random.nextInt(4) == 0)
+            {
+                dateTime += "Z";
+            }
+            else
+            {
+                dateTime += String.format("%s%02d:%02d", random.nextBoolean() ? "+" : "-", random.nextInt(15), random.nextInt(60));
+            }
+
+            assertEquals(dateTime, referenceFormat.parse(dateTime).getTime(), ParserUtility.stringToDateTimeOffset(dateTime).getTime());
+        }
+    }
+
+    @Test
+    public void dateTimeUtcToStringMatchesSimpleDateFormatForRandomDates()
+    {
+        Random random = new Random(20180403);
+        SimpleDateFormat dateFormat = utcDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        for (int i = 0; i < FUZZ_ITERATIONS; i++)
+        {
+            Date date = new Date(randomTime(random));
+
+            String expected = dateFormat.format(date) + "." + (date.getTime() % 1000 + 1000) % 1000 + "Z";
+            assertEquals(expected, ParserUtility.dateTimeUtcToString(date));
+        }
+    }
+
+    @Test
+    public void getDateStringFromDateMatchesSimpleDateFormatForRandomDates()
+    {
+        Random random = new Random(20180404);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        for (int i = 0; i < FUZZ_ITERATIONS; i++)
+        {
+            Date date = new Date(randomTime(random));
+
+            assertEquals(dateFormat.format(date), ParserUtility.getDateStringFromDate(date));
+        }
+    }
 }
@@ -8,12 +8,17 @@ package tests.unit.com.microsoft.azure.sdk.iot.deps.serializer;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.microsoft.azure.sdk.iot.deps.serializer.QueryResponseItemCallback;
 import com.microsoft.azure.sdk.iot.deps.serializer.QueryResponseParser;
+import mockit.Mocked;
 import org.junit.Test;
 
+import java.io.StringReader;
 import java.util.LinkedList;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static tests.unit.com.microsoft.azure.sdk.iot.deps.Helpers.assertListEquals;
 
 /*
@@ -22,6 +27,9 @@ import static tests.unit.com.microsoft.azure.sdk.iot.deps.Helpers.assertListEqua
  */
 public class QueryResponseParserTest
 {
+    @Mocked
+    QueryResponseItemCallback mockCallback;
+
     private static final String VALID_JSON = "{" +
                                              "\"deviceId\":\"devA\"" +
                                                 "}";
@@ -143,4 +151,87 @@ public class QueryResponseParserTest
         assertListEquals(buildListFromJsonArray(VALID_JSON_ARRAY_2), testParser.getJsonItems());
     }
 
+    @Test
+    public void forEachJsonItemStreamsItemsInOrder() throws IllegalArgumentException
+    {
+        //arrange
+        final List<JsonObject> items = new LinkedList<>();
+
+        //act
+        QueryResponseParser.forEachJsonItem(new StringReader("[{\"deviceId\":\"devA\"},{\"deviceId\":\"devB\"}]"), new QueryResponseItemCallback()
+        {
+            @Override
+            public void execute(JsonObject item)
+            {
+                items.add(item);
+            }
+        });
+
+        //assert
+        assertEquals(2, items.size());
+        assertEquals("devA", items.get(0).get("deviceId").getAsString());
+        assertEquals("devB", items.get(1).get("deviceId").getAsString());
+    }
+
+    @Test
+    public void forEachJsonItemAcceptsEmptyArray() throws IllegalArgumentException
+    {
+        //arrange
+        final List<JsonObject> items = new LinkedList<>();
+
+        //act
+        QueryResponseParser.forEachJsonItem(new StringReader("[]"), new QueryResponseItemCallback()
+        {
+            @Override
+            public void execute(JsonObject item)
+            {
+                items.add(item);
+            }
+        });
+
+        //assert
+        assertTrue(items.isEmpty());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void forEachJsonItemThrowsOnNullReader() throws IllegalArgumentException
+    {
+        //act
+        QueryResponseParser.forEachJsonItem(null, mockCallback);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void forEachJsonItemThrowsOnNonArrayJson() throws IllegalArgumentException
+    {
+        //act
+        QueryResponseParser.forEachJsonItem(new StringReader(VALID_JSON), mockCallback);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void forEachJsonItemThrowsOnMalformedJson() throws IllegalArgumentException
+    {
+        //act
+        QueryResponseParser.forEachJsonItem(new StringReader(buildJsonInputArrayFromJson(MALFORMED_JSON)), mockCallback);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void forEachJsonItemThrowsOnNonObjectItem() throws IllegalArgumentException
+    {
+        //act
+        QueryResponseParser.forEachJsonItem(new StringReader("[1]"), mockCallback);
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void forEachJsonItemPropagatesConsumerExceptions() throws IllegalArgumentException
+    {
+        //act
+        QueryResponseParser.forEachJsonItem(new StringReader(VALID_JSON_ARRAY_1), new QueryResponseItemCallback()
+        {
+            @Override
+            public void execute(JsonObject item)
+            {
+                throw new IllegalStateException();
+            }
+        });
+    }
 }
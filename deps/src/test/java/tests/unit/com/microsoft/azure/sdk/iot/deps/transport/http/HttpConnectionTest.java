@@ -7,6 +7,7 @@ package tests.unit.com.microsoft.azure.sdk.iot.deps.transport.http;
 
 import com.microsoft.azure.sdk.iot.deps.transport.http.HttpConnection;
 import com.microsoft.azure.sdk.iot.deps.transport.http.HttpMethod;
+import mockit.Delegate;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import mockit.Verifications;
@@ -15,6 +16,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import javax.net.ssl.HttpsURLConnection;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -408,8 +410,40 @@ public class HttpConnectionTest
                 result = httpsMethod.name();
                 mockUrlConn.getInputStream();
                 result = mockIs;
-                mockIs.read();
-                returns(1, 2, 3, -1);
+                mockIs.read((byte[]) any, anyInt, anyInt);
+                result = readsContentOnce(new byte[] { 1, 2, 3 });
+            }
+        };
+        HttpConnection conn = new HttpConnection(mockUrl, httpsMethod);
+        conn.connect();
+        // Act
+        byte[] testResponse = conn.readInput();
+        // Assert
+        assertThat(testResponse, is(expectedResponse));
+    }
+
+    // Tests_SRS_HTTPSCONNECTION_25_014: [The function shall read from the input stream (response stream) and return the response.]
+    @Test
+    public void readInputReadsResponsesLargerThanTheReadBuffer() throws IOException
+    {
+        // Arrange
+        final HttpMethod httpsMethod = HttpMethod.GET;
+        final byte[] expectedResponse = new byte[50000];
+        for (int i = 0; i < expectedResponse.length; i++)
+        {
+            expectedResponse[i] = (byte) i;
+        }
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getProtocol();
+                result = "https";
+                mockUrl.openConnection();
+                result = mockUrlConn;
+                mockUrlConn.getRequestMethod();
+                result = httpsMethod.name();
+                mockUrlConn.getInputStream();
+                result = new ByteArrayInputStream(expectedResponse);
             }
         };
         HttpConnection conn = new HttpConnection(mockUrl, httpsMethod);
@@ -463,7 +497,7 @@ public class HttpConnectionTest
                 result = httpsMethod.name();
                 mockUrlConn.getInputStream();
                 result = mockIs;
-                mockIs.read();
+                mockIs.read((byte[]) any, anyInt, anyInt);
                 result = -1;
             }
         };
@@ -497,7 +531,7 @@ public class HttpConnectionTest
                 result = httpsMethod.name();
                 mockUrlConn.getInputStream();
                 result = mockIs;
-                mockIs.read();
+                mockIs.read((byte[]) any, anyInt, anyInt);
                 result = new IOException("This is a test exception");
             }
         };
@@ -542,8 +576,8 @@ public class HttpConnectionTest
                 result = httpsMethod.name();
                 mockUrlConn.getErrorStream();
                 result = mockIs;
-                mockIs.read();
-                returns(1, 2, 3, -1);
+                mockIs.read((byte[]) any, anyInt, anyInt);
+                result = readsContentOnce(new byte[] { 1, 2, 3 });
             }
         };
         HttpConnection conn = new HttpConnection(mockUrl, httpsMethod);
@@ -625,7 +659,7 @@ public class HttpConnectionTest
                 result = httpsMethod.name();
                 mockUrlConn.getErrorStream();
                 result = mockIs;
-                mockIs.read();
+                mockIs.read((byte[]) any, anyInt, anyInt);
                 result = -1;
             }
         };
@@ -659,7 +693,7 @@ public class HttpConnectionTest
                 result = httpsMethod.name();
                 mockUrlConn.getErrorStream();
                 result = mockIs;
-                mockIs.read();
+                mockIs.read((byte[]) any, anyInt, anyInt);
                 result = new IOException("This is a test exception");
             }
         };
@@ -811,4 +845,25 @@ public class HttpConnectionTest
         // Act
         conn.getResponseHeaders();
     }
+
+    // fills the read buffer with the content on the first read, then reports the end of the stream
+    private static Delegate readsContentOnce(final byte[] content)
+    {
+        return new Delegate()
+        {
+            private boolean contentRead = false;
+
+            @SuppressWarnings("unused")
+            int read(byte[] buffer, int offset, int length)
+            {
+                if (contentRead)
+                {
+                    return -1;
+                }
+                contentRead = true;
+                System.arraycopy(content, 0, buffer, offset, content.length);
+                return content.length;
+            }
+        };
+    }
 }
@@ -0,0 +1,239 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.deps.twin;
+
+import com.microsoft.azure.sdk.iot.deps.serializer.ParserUtility;
+import com.microsoft.azure.sdk.iot.deps.twin.CompactTwinCollection;
+import com.microsoft.azure.sdk.iot.deps.twin.TwinCollection;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the CompactTwinCollection
+ * 100% methods covered
+ */
+public class CompactTwinCollectionTest
+{
+    private static final String TWIN_JSON =
+            "{" +
+                "\"Brand\":\"NiceCar\"," +
+                "\"MaxSpeed\":{" +
+                    "\"Value\":500.0," +
+                    "\"NewValue\":300.0," +
+                    "\"Limits\":{\"Min\":10.0,\"Enabled\":true}" +
+                "}," +
+                "\"Empty\":{}," +
+                "\"Removed\":null," +
+                "\"$metadata\":{\"$lastUpdated\":\"2017-09-21T02:07:44.238Z\",\"$lastUpdatedVersion\":4}," +
+                "\"$version\":4" +
+            "}";
+
+    private static Map<String, Object> map(Object... keysAndValues)
+    {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static Map<String, Object> sampleMap()
+    {
+        return map(
+                "Brand", "NiceCar",
+                "MaxSpeed", map("Value", 500.0, "NewValue", 300.0, "Limits", map("Min", 10.0, "Enabled", true)),
+                "Empty", new HashMap<String, Object>(),
+                "Removed", null);
+    }
+
+    @Test
+    public void fromMapKeepsContentAsMap()
+    {
+        //act
+        CompactTwinCollection collection = CompactTwinCollection.fromMap(sampleMap());
+
+        //assert
+        assertEquals(4, collection.size());
+        assertEquals(sampleMap(), collection);
+        assertEquals("NiceCar", collection.get("Brand"));
+        assertTrue(collection.containsKey("Removed"));
+        assertNull(collection.get("Removed"));
+        assertFalse(collection.containsKey("Unknown"));
+        assertTrue(((Map) collection.get("Empty")).isEmpty());
+        Map maxSpeed = (Map) collection.get("MaxSpeed");
+        assertEquals(3, maxSpeed.size());
+        assertEquals(300.0, maxSpeed.get("NewValue"));
+        assertEquals(true, ((Map) maxSpeed.get("Limits")).get("Enabled"));
+        assertNull(collection.getVersionFinal());
+    }
+
+    @Test
+    public void fromMapKeepsTwinCollectionVersion()
+    {
+        //arrange
+        TwinCollection twinCollection = CompactTwinCollection.fromJson("{\"Brand\":\"NiceCar\",\"$version\":7}").toTwinCollection();
+
+        //act
+        CompactTwinCollection collection = CompactTwinCollection.fromMap(twinCollection);
+
+        //assert
+        assertEquals(7, (int) collection.getVersionFinal());
+        assertEquals(twinCollection, collection);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromMapThrowsOnEmptyKey()
+    {
+        CompactTwinCollection.fromMap(map("", "value"));
+    }
+
+    @Test
+    public void fromMapWithNullCreatesEmptyCollection()
+    {
+        //act
+        CompactTwinCollection collection = CompactTwinCollection.fromMap(null);
+
+        //assert
+        assertTrue(collection.isEmpty());
+        assertEquals("{}", collection.toJson());
+    }
+
+    @Test
+    public void fromJsonKeepsVersionAndSkipsMetadata()
+    {
+        //act
+        CompactTwinCollection collection = CompactTwinCollection.fromJson(TWIN_JSON);
+
+        //assert
+        assertEquals(4, (int) collection.getVersionFinal());
+        assertFalse(collection.containsKey("$metadata"));
+        assertFalse(collection.containsKey("$version"));
+        assertEquals(sampleMap(), collection);
+    }
+
+    @Test
+    public void fromJsonSharesKeysBetweenPaths()
+    {
+        //act
+        CompactTwinCollection collection = CompactTwinCollection.fromJson("{\"a\":{\"Value\":1},\"b\":{\"Value\":2}}");
+
+        //assert
+        String keyInA = ((Map<String, Object>) collection.get("a")).keySet().iterator().next();
+        String keyInB = ((Map<String, Object>) collection.get("b")).keySet().iterator().next();
+        assertSame(keyInA, keyInB);
+    }
+
+    @Test
+    public void fromJsonKeepsLastValueOfDuplicatedKey()
+    {
+        //act
+        CompactTwinCollection collection = CompactTwinCollection.fromJson("{\"a\":1,\"b\":2,\"a\":3}");
+
+        //assert
+        assertEquals(2, collection.size());
+        assertEquals(3.0, collection.get("a"));
+    }
+
+    @Test
+    public void fromJsonKeepsLastValueOfDuplicatedKeyWithNestedAndScalarValues()
+    {
+        //act
+        CompactTwinCollection scalarLast = CompactTwinCollection.fromJson("{\"a\":{\"x\":1},\"a\":2}");
+        CompactTwinCollection nestedLast = CompactTwinCollection.fromJson("{\"a\":2,\"b\":{\"a\":{\"x\":1},\"a\":{\"y\":3}},\"a\":{\"x\":1}}");
+
+        //assert
+        assertEquals(1, scalarLast.size());
+        assertEquals(2.0, scalarLast.get("a"));
+        assertEquals(2, nestedLast.size());
+        assertEquals(Collections.singletonMap("x", 1.0), nestedLast.get("a"));
+        assertEquals(Collections.singletonMap("a", Collections.singletonMap("y", 3.0)), nestedLast.get("b"));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromJsonThrowsOnNullJson()
+    {
+        CompactTwinCollection.fromJson((String) null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromJsonThrowsOnNonObjectJson()
+    {
+        CompactTwinCollection.fromJson("[1,2]");
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void fromJsonThrowsOnMalformedJson()
+    {
+        CompactTwinCollection.fromJson("{\"a\":");
+    }
+
+    @Test
+    public void toJsonRoundTrips() throws Exception
+    {
+        //arrange
+        CompactTwinCollection collection = CompactTwinCollection.fromMap(sampleMap());
+        StringWriter writer = new StringWriter();
+
+        //act
+        collection.writeJson(writer);
+
+        //assert
+        assertEquals(collection.toJson(), writer.toString());
+        assertEquals(collection, CompactTwinCollection.fromJson(writer.toString()));
+        assertEquals("{\"Enabled\":true,\"Min\":10.0}", ((Map) collection.get("MaxSpeed")).get("Limits").toString());
+    }
+
+    @Test
+    public void toJsonElementMatchesTwinCollection()
+    {
+        //arrange
+        CompactTwinCollection collection = CompactTwinCollection.fromMap(sampleMap());
+
+        //act
+        String json = collection.toJsonElement().toString();
+
+        //assert
+        assertEquals(ParserUtility.mapToJsonElement(sampleMap()), collection.toJsonElement());
+        assertEquals(ParserUtility.mapToJsonElement(collection), collection.toJsonElement());
+        assertTrue(json.contains("\"Removed\":null"));
+        assertTrue(json.contains("\"Empty\":{}"));
+    }
+
+    @Test
+    public void toTwinCollectionKeepsContentAndVersion()
+    {
+        //arrange
+        CompactTwinCollection collection = CompactTwinCollection.fromJson(TWIN_JSON);
+
+        //act
+        TwinCollection twinCollection = collection.toTwinCollection();
+
+        //assert
+        assertEquals(4, (int) twinCollection.getVersionFinal());
+        assertEquals(collection, twinCollection);
+        assertTrue(twinCollection.get("MaxSpeed") instanceof TwinCollection);
+    }
+
+    @Test (expected = UnsupportedOperationException.class)
+    public void putThrows()
+    {
+        CompactTwinCollection.fromMap(sampleMap()).put("Brand", "OtherCar");
+    }
+
+    @Test (expected = UnsupportedOperationException.class)
+    public void removeThroughIteratorThrows()
+    {
+        Iterator<Map.Entry<String, Object>> iterator = CompactTwinCollection.fromMap(sampleMap()).entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+    }
+}
@@ -0,0 +1,165 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.DeviceTwin;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local copy of the desired properties of a twin, kept up to date by applying the desired property patches sent by
+ * the IotHub in the order given by their {@code $version}.
+ *
+ * <p>Patches are merged in place following the JSON merge-patch rules, so applying a patch costs time and memory
+ * proportional to the size of the patch rather than to the size of the twin. A patch whose version is not newer than
+ * the cached one is reported as {@link PatchResult#STALE} and left out, and a patch that skips one or more versions
+ * is reported as {@link PatchResult#APPLIED_WITH_GAP} so that the caller can fetch the full twin to recover the
+ * missing changes.</p>
+ */
+public final class DesiredPropertiesCache
+{
+    /**
+     * The outcome of {@link #applyPatch(Map, Integer)}
+     */
+    public enum PatchResult
+    {
+        /**
+         * The patch was the next version of the cached properties, or either version was unknown, and was merged.
+         */
+        APPLIED,
+
+        /**
+         * The patch was merged, but its version shows that at least one earlier patch was missed.
+         */
+        APPLIED_WITH_GAP,
+
+        /**
+         * The patch was a duplicate or older than the cached properties, and was ignored.
+         */
+        STALE
+    }
+
+    private final Map<String, Object> properties = new HashMap<>();
+    private Integer version;
+
+    /**
+     * Getter for the version of the cached desired properties
+     * @return the {@code $version} of the last applied patch or full twin, or {@code null} if unknown
+     */
+    public synchronized Integer getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * Getter for the cached desired properties
+     * @return an unmodifiable copy of the top level of the cached desired properties
+     */
+    public synchronized Map<String, Object> getProperties()
+    {
+        return Collections.unmodifiableMap(new HashMap<>(this.properties));
+    }
+
+    /**
+     * Merges a desired property patch into the cached properties. A {@code null} value removes the property, and a map
+     * value is merged into the existing map of the same key.
+     * @param patch the desired property patch
+     * @param patchVersion the {@code $version} of the patch, or {@code null} if unknown
+     * @return the outcome of the merge
+     * @throws IllegalArgumentException if the patch is {@code null}
+     */
+    public synchronized PatchResult applyPatch(Map<String, Object> patch, Integer patchVersion) throws IllegalArgumentException
+    {
+        if (patch == null)
+        {
+            throw new IllegalArgumentException("patch cannot be null");
+        }
+
+        if (patchVersion != null && this.version != null && patchVersion <= this.version)
+        {
+            return PatchResult.STALE;
+        }
+
+        boolean isGap = patchVersion != null && this.version != null && patchVersion > this.version + 1;
+
+        merge(this.properties, patch);
+        if (patchVersion != null)
+        {
+            this.version = patchVersion;
+        }
+
+        return isGap ? PatchResult.APPLIED_WITH_GAP : PatchResult.APPLIED;
+    }
+
+    /**
+     * Replaces the cached properties with the desired properties of a full twin
+     * @param desiredProperties the full desired properties
+     * @param twinVersion the {@code $version} of the desired properties, or {@code null} if unknown
+     * @return the top level keys that were added, changed or removed by the replacement. This is empty if the desired
+     * properties are older than the cached ones, in which case the cache is left unchanged
+     * @throws IllegalArgumentException if the desired properties are {@code null}
+     */
+    public synchronized Set<String> replace(Map<String, Object> desiredProperties, Integer twinVersion) throws IllegalArgumentException
+    {
+        if (desiredProperties == null)
+        {
+            throw new IllegalArgumentException("desiredProperties cannot be null");
+        }
+
+        Set<String> changedKeys = new HashSet<>();
+        if (twinVersion != null && this.version != null && twinVersion < this.version)
+        {
+            return changedKeys;
+        }
+
+        for (String key : this.properties.keySet())
+        {
+            if (!desiredProperties.containsKey(key))
+            {
+                changedKeys.add(key);
+            }
+        }
+
+        for (Map.Entry<String, Object> entry : desiredProperties.entrySet())
+        {
+            Object cachedValue = this.properties.get(entry.getKey());
+            if (entry.getValue() == null ? cachedValue != null : !entry.getValue().equals(cachedValue))
+            {
+                changedKeys.add(entry.getKey());
+            }
+        }
+
+        this.properties.clear();
+        merge(this.properties, desiredProperties);
+        this.version = twinVersion;
+
+        return changedKeys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void merge(Map<String, Object> target, Map<String, Object> patch)
+    {
+        for (Map.Entry<String, Object> entry : patch.entrySet())
+        {
+            Object value = entry.getValue();
+            if (value == null)
+            {
+                target.remove(entry.getKey());
+            }
+            else if (value instanceof Map)
+            {
+                Object existing = target.get(entry.getKey());
+                Map<String, Object> nested = existing instanceof Map ? (Map<String, Object>) existing : new HashMap<String, Object>();
+                merge(nested, (Map<String, Object>) value);
+                target.put(entry.getKey(), nested);
+            }
+            else
+            {
+                target.put(entry.getKey(), value);
+            }
+        }
+    }
+}
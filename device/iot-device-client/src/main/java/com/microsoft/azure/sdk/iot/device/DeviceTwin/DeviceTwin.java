@@ -11,11 +11,8 @@ import com.microsoft.azure.sdk.iot.device.transport.IotHubTransportMessage;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.util.Date;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.*;
+import java.util.concurrent.*;
 
 import static com.microsoft.azure.sdk.iot.device.IotHubMessageResult.ABANDON;
 import static com.microsoft.azure.sdk.iot.device.IotHubMessageResult.COMPLETE;
@@ -28,6 +25,11 @@ public class DeviceTwin
     private DeviceClientConfig config = null;
     private boolean isSubscribed = false;
 
+    /*
+        Get twin request sent to recover missed desired properties patches, until its response or failure
+     */
+    private volatile ResyncRequest pendingResync = null;
+
     private final Object DEVICE_TWIN_LOCK = new Object();
 
     /*
@@ -49,6 +51,21 @@ public class DeviceTwin
     private ConcurrentSkipListMap<String, Pair<PropertyCallBack<String, Object>, Object>> onDesiredPropertyChangeMap;
     private ConcurrentSkipListMap<String, Pair<TwinPropertyCallBack, Object>> onDesiredTwinPropertyChangeMap;
 
+    /*
+        Local copy of the desired properties, used to drop stale patches and to detect missed ones
+     */
+    private final DesiredPropertiesCache desiredPropertiesCache = new DesiredPropertiesCache();
+
+    /*
+        Reported properties waiting to be merged into a single patch, and the patches waiting for a response
+     */
+    private long coalescingWindowMillis = 0;
+    private int coalescingMaxProperties = 0;
+    private ReportedPropertiesBatch pendingReportedProperties = null;
+    private ScheduledExecutorService coalescingScheduler = null;
+    private ScheduledFuture<?> pendingFlush = null;
+    private final ConcurrentMap<String, ReportedPropertiesBatch> inFlightReportedProperties = new ConcurrentHashMap<>();
+
     /*
         Callback invoked when a response to device twin operation is issued by iothub
      */
@@ -81,17 +98,35 @@ public class DeviceTwin
                 {
                     case DEVICE_OPERATION_TWIN_GET_RESPONSE:
                     {
+                        ResyncRequest resync = pendingResync;
+                        boolean isResyncResponse = resync != null && resync.isAnsweredBy(dtMessage);
+                        if (isResyncResponse)
+                        {
+                            pendingResync = null;
+                        }
+
                         if (status != null)
                         {
                             iotHubStatus = IotHubStatusCode.getIotHubStatusCode(Integer.parseInt(status));
                         }
-                        /*
-                         **Codes_SRS_DEVICETWIN_25_029: [**If the message is of type DEVICE_TWIN and DEVICE_OPERATION_TWIN_GET_RESPONSE then the user call with a valid status is triggered.**]**
-                         */
 
-                        log.trace("Executing twin callback for message {}", dtMessage);
-                        deviceTwinStatusCallback.execute(iotHubStatus, deviceTwinStatusCallbackContext);
-                        log.trace("Twin callback returned for message {}", dtMessage);
+                        if (isResyncResponse)
+                        {
+                            // the user did not request this twin, so its status is not reported to them
+                            if (iotHubStatus != IotHubStatusCode.OK)
+                            {
+                                log.warn("Could not get the twin to recover missed desired properties patches, status {}", iotHubStatus);
+                            }
+                        }
+                        else
+                        {
+                            /*
+                             **Codes_SRS_DEVICETWIN_25_029: [**If the message is of type DEVICE_TWIN and DEVICE_OPERATION_TWIN_GET_RESPONSE then the user call with a valid status is triggered.**]**
+                             */
+                            log.trace("Executing twin callback for message {}", dtMessage);
+                            deviceTwinStatusCallback.execute(iotHubStatus, deviceTwinStatusCallbackContext);
+                            log.trace("Twin callback returned for message {}", dtMessage);
+                        }
 
                         if (iotHubStatus == IotHubStatusCode.OK)
                         {
@@ -99,9 +134,19 @@ public class DeviceTwin
                              **Codes_SRS_DEVICETWIN_25_030: [**If the message is of type DEVICE_TWIN and DEVICE_OPERATION_TWIN_GET_RESPONSE then the payload is deserialized only if the status is ok.**]**
                              */
                             TwinState twinState = TwinState.createFromPropertiesJson(new String(dtMessage.getBytes(), Message.DEFAULT_IOTHUB_MESSAGE_CHARSET));
-                            if (twinState.getDesiredProperty() != null)
+                            TwinCollection desiredProperties = twinState.getDesiredProperty();
+                            if (desiredProperties != null)
                             {
-                                OnDesiredPropertyChanged(twinState.getDesiredProperty());
+                                Set<String> changedKeys = desiredPropertiesCache.replace(desiredProperties, desiredProperties.getVersionFinal());
+                                if (isResyncResponse)
+                                {
+                                    // the twin was requested to recover missed patches, so only report what they changed
+                                    OnDesiredPropertyChanged(desiredProperties, changedKeys);
+                                }
+                                else
+                                {
+                                    OnDesiredPropertyChanged(desiredProperties);
+                                }
                             }
                             if (twinState.getReportedProperty() != null)
                             {
@@ -121,6 +166,12 @@ public class DeviceTwin
                          */
                         log.trace("Executing twin status callback for device operation twin update reported properties response with status " + iotHubStatus);
                         deviceTwinStatusCallback.execute(iotHubStatus, deviceTwinStatusCallbackContext);
+
+                        ReportedPropertiesBatch batch = removeInFlightBatch(dtMessage.getRequestId(), dtMessage.getCorrelationId());
+                        if (batch != null)
+                        {
+                            batch.complete(iotHubStatus);
+                        }
                         break;
                     }
                     case DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE:
@@ -133,7 +184,22 @@ public class DeviceTwin
 
                         if(twinState.getDesiredProperty() != null)
                         {
-                            OnDesiredPropertyChanged(twinState.getDesiredProperty());
+                            TwinCollection desiredPatch = twinState.getDesiredProperty();
+                            DesiredPropertiesCache.PatchResult patchResult = desiredPropertiesCache.applyPatch(desiredPatch, desiredPatch.getVersionFinal());
+                            if (patchResult == DesiredPropertiesCache.PatchResult.STALE)
+                            {
+                                log.debug("Ignoring desired properties patch with version {}, the local copy is already at version {}", desiredPatch.getVersionFinal(), desiredPropertiesCache.getVersion());
+                                break;
+                            }
+
+                            OnDesiredPropertyChanged(desiredPatch);
+
+                            ResyncRequest resync = pendingResync;
+                            if (patchResult == DesiredPropertiesCache.PatchResult.APPLIED_WITH_GAP && (resync == null || resync.isExpired()))
+                            {
+                                log.debug("Missed desired properties patches before version {}, requesting the full twin", desiredPatch.getVersionFinal());
+                                sendResyncRequest();
+                            }
                         }
 
                         break;
@@ -173,6 +239,22 @@ public class DeviceTwin
         }
     }
 
+    private void OnDesiredPropertyChanged(TwinCollection desiredPropertyMap, Set<String> changedKeys)
+    {
+        synchronized (DEVICE_TWIN_LOCK)
+        {
+            for (String key : changedKeys)
+            {
+                // a key missing from the map was removed, and is reported with a null value
+                Property property = this.getProperty(desiredPropertyMap, key, false);
+                if (!reportPropertyCallback(property))
+                {
+                    reportDeviceTwinGenericPropertyCallback(property);
+                }
+            }
+        }
+    }
+
     private void OnReportedPropertyChanged(TwinCollection reportedPropertyMap)
     {
         synchronized (DEVICE_TWIN_LOCK)
@@ -233,7 +315,25 @@ public class DeviceTwin
                  */
                 if((responseStatus != IotHubStatusCode.OK) && (responseStatus != IotHubStatusCode.OK_EMPTY))
                 {
+                    if (callbackContext instanceof ResyncRequest)
+                    {
+                        // no response will come, so the next gap in the desired properties versions requests the twin again
+                        if (pendingResync == callbackContext)
+                        {
+                            pendingResync = null;
+                        }
+                        log.warn("Could not send the request for the twin to recover missed desired properties patches, status {}", responseStatus);
+                        return;
+                    }
+
                     deviceTwinStatusCallback.execute(responseStatus, deviceTwinStatusCallbackContext);
+
+                    if (callbackContext instanceof ReportedPropertiesBatch)
+                    {
+                        ReportedPropertiesBatch batch = (ReportedPropertiesBatch) callbackContext;
+                        removeInFlightBatch(batch.requestId, batch.correlationId);
+                        batch.complete(responseStatus);
+                    }
                 }
             }
         }
@@ -298,7 +398,31 @@ public class DeviceTwin
     public void getDeviceTwin()
     {
         checkSubscription();
+        sendGetTwinRequest();
+    }
 
+    private void sendGetTwinRequest()
+    {
+        sendGetTwinRequest(null);
+    }
+
+    private void sendResyncRequest()
+    {
+        ResyncRequest resync = new ResyncRequest();
+        pendingResync = resync;
+        try
+        {
+            sendGetTwinRequest(resync);
+        }
+        catch (RuntimeException e)
+        {
+            pendingResync = null;
+            throw e;
+        }
+    }
+
+    private void sendGetTwinRequest(ResyncRequest resync)
+    {
         /*
          **Codes_SRS_DEVICETWIN_25_005: [**The method shall create a device twin message with empty payload to be sent IotHub.**]**
          */
@@ -314,10 +438,16 @@ public class DeviceTwin
          */
         getTwinRequestMessage.setDeviceOperationType(DeviceOperations.DEVICE_OPERATION_TWIN_GET_REQUEST);
 
+        if (resync != null)
+        {
+            resync.requestId = getTwinRequestMessage.getRequestId();
+            resync.correlationId = getTwinRequestMessage.getCorrelationId();
+        }
+
         /*
          **Codes_SRS_DEVICETWIN_25_008: [**This method shall send the message to the lower transport layers by calling sendEventAsync.**]**
          */
-        this.deviceIO.sendEventAsync(getTwinRequestMessage, new deviceTwinRequestMessageCallback(), null, this.config.getDeviceId());
+        this.deviceIO.sendEventAsync(getTwinRequestMessage, new deviceTwinRequestMessageCallback(), resync, this.config.getDeviceId());
     }
 
     public synchronized void updateReportedProperties(Set<Property> reportedProperties) throws IOException
@@ -326,6 +456,125 @@ public class DeviceTwin
     }
 
     public synchronized void updateReportedProperties(Set<Property> reportedProperties, Integer version) throws IOException
+    {
+        this.updateReportedProperties(reportedProperties, version, null, null);
+    }
+
+    /**
+     * Sends reported properties to the IotHub, and notifies the provided callback with the status of the response
+     * to the patch that carried them. If coalescing is enabled, the properties may be merged with the properties
+     * reported by other calls into a single patch, in which case every caller is notified with the status of that
+     * patch.
+     *
+     * @param reportedProperties the reported properties to send. Cannot be {@code null}.
+     * @param reportedPropertiesCallback the callback to notify with the status of the patch. Can be {@code null}.
+     * @param reportedPropertiesCallbackContext the context to be passed to the callback. Can be {@code null}.
+     * @throws IOException if the set of properties contains duplicate keys
+     */
+    public synchronized void updateReportedProperties(Set<Property> reportedProperties, IotHubEventCallback reportedPropertiesCallback,
+                                                      Object reportedPropertiesCallbackContext) throws IOException
+    {
+        this.updateReportedProperties(reportedProperties, null, reportedPropertiesCallback, reportedPropertiesCallbackContext);
+    }
+
+    /**
+     * Merges the reported properties sent within a time window into a single patch, to reduce the number of patches
+     * sent to the IotHub by devices that report frequently changing state. Later values of a property replace earlier
+     * ones, and nested collections are merged key by key. A pending patch is sent once the window since its first
+     * property elapses, or as soon as it holds {@code maxPropertiesPerPatch} top level properties. Updates that carry
+     * a version are never merged, and are sent after any pending patch.
+     *
+     * @param windowInMilliseconds the maximum time a reported property waits to be sent. Must be positive.
+     * @param maxPropertiesPerPatch the maximum number of top level properties in a merged patch. Must be positive.
+     * @throws IllegalArgumentException if the window or the maximum number of properties is not positive
+     */
+    public synchronized void enableReportedPropertiesCoalescing(long windowInMilliseconds, int maxPropertiesPerPatch) throws IllegalArgumentException
+    {
+        if (windowInMilliseconds <= 0 || maxPropertiesPerPatch <= 0)
+        {
+            throw new IllegalArgumentException("Coalescing window and maximum properties per patch must be positive");
+        }
+
+        this.coalescingWindowMillis = windowInMilliseconds;
+        this.coalescingMaxProperties = maxPropertiesPerPatch;
+    }
+
+    /**
+     * Sends any pending merged patch and stops merging reported properties. Does nothing if coalescing is not enabled.
+     */
+    public synchronized void disableReportedPropertiesCoalescing()
+    {
+        this.stopReportedPropertiesCoalescing(true);
+        this.coalescingWindowMillis = 0;
+        this.coalescingMaxProperties = 0;
+    }
+
+    /**
+     * Stops the thread that ends the coalescing windows, when the client closes. Coalescing stays enabled, and the
+     * thread starts again with the next merged update.
+     *
+     * @param sendPendingProperties {@code true} to send the pending merged patch, {@code false} to drop it and notify
+     *                              its callers with {@link IotHubStatusCode#MESSAGE_CANCELLED_ONCLOSE}
+     */
+    public synchronized void stopReportedPropertiesCoalescing(boolean sendPendingProperties)
+    {
+        if (sendPendingProperties)
+        {
+            this.flushReportedProperties();
+        }
+        else
+        {
+            if (this.pendingFlush != null)
+            {
+                this.pendingFlush.cancel(false);
+                this.pendingFlush = null;
+            }
+
+            ReportedPropertiesBatch batch = this.pendingReportedProperties;
+            this.pendingReportedProperties = null;
+            if (batch != null)
+            {
+                batch.complete(IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE);
+            }
+        }
+
+        if (this.coalescingScheduler != null)
+        {
+            this.coalescingScheduler.shutdownNow();
+            this.coalescingScheduler = null;
+        }
+    }
+
+    /**
+     * Sends the pending merged patch without waiting for the end of its coalescing window. Does nothing if no
+     * reported properties are pending.
+     */
+    public synchronized void flushReportedProperties()
+    {
+        if (this.pendingFlush != null)
+        {
+            this.pendingFlush.cancel(false);
+            this.pendingFlush = null;
+        }
+
+        ReportedPropertiesBatch batch = this.pendingReportedProperties;
+        this.pendingReportedProperties = null;
+        if (batch != null)
+        {
+            try
+            {
+                sendReportedProperties(new TwinCollection(batch.properties), null, batch);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Failed to send the merged reported properties", e);
+                batch.complete(IotHubStatusCode.ERROR);
+            }
+        }
+    }
+
+    private void updateReportedProperties(Set<Property> reportedProperties, Integer version,
+                                          IotHubEventCallback reportedPropertiesCallback, Object reportedPropertiesCallbackContext) throws IOException
     {
         if (reportedProperties == null)
         {
@@ -349,6 +598,68 @@ public class DeviceTwin
 
             reportedPropertiesMap.putFinal(p.getKey(), p.getValue());
         }
+
+        if (this.coalescingWindowMillis > 0 && version == null)
+        {
+            if (this.pendingReportedProperties != null && !canMerge(this.pendingReportedProperties.properties, reportedPropertiesMap))
+            {
+                // a collection replacing a value cannot be expressed in the same merge patch as that value
+                this.flushReportedProperties();
+            }
+
+            if (this.pendingReportedProperties == null)
+            {
+                this.pendingReportedProperties = new ReportedPropertiesBatch();
+                if (this.coalescingScheduler == null)
+                {
+                    this.coalescingScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+                    {
+                        @Override
+                        public Thread newThread(Runnable runnable)
+                        {
+                            Thread thread = new Thread(runnable, "azure-iot-sdk-reported-properties-coalescing");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+
+                this.pendingFlush = this.coalescingScheduler.schedule(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        flushReportedProperties();
+                    }
+                }, this.coalescingWindowMillis, TimeUnit.MILLISECONDS);
+            }
+
+            merge(this.pendingReportedProperties.properties, reportedPropertiesMap);
+            this.pendingReportedProperties.addCallback(reportedPropertiesCallback, reportedPropertiesCallbackContext);
+
+            if (this.pendingReportedProperties.properties.size() >= this.coalescingMaxProperties)
+            {
+                this.flushReportedProperties();
+            }
+
+            return;
+        }
+
+        // keep the order of the updates if merged properties are pending
+        this.flushReportedProperties();
+
+        ReportedPropertiesBatch batch = null;
+        if (reportedPropertiesCallback != null)
+        {
+            batch = new ReportedPropertiesBatch();
+            batch.addCallback(reportedPropertiesCallback, reportedPropertiesCallbackContext);
+        }
+
+        sendReportedProperties(reportedPropertiesMap, version, batch);
+    }
+
+    private void sendReportedProperties(TwinCollection reportedPropertiesMap, Integer version, ReportedPropertiesBatch batch)
+    {
         String serializedReportedProperties = reportedPropertiesMap.toJsonElement().toString();
 
         if (serializedReportedProperties == null)
@@ -380,11 +691,104 @@ public class DeviceTwin
          */
         updateReportedPropertiesRequest.setDeviceOperationType(DeviceOperations.DEVICE_OPERATION_TWIN_UPDATE_REPORTED_PROPERTIES_REQUEST);
 
+        if (batch != null && batch.hasCallbacks())
+        {
+            // MQTT responses carry the request id and AMQP responses carry the correlation id of the request
+            batch.requestId = updateReportedPropertiesRequest.getRequestId();
+            batch.correlationId = updateReportedPropertiesRequest.getCorrelationId();
+            if (batch.requestId != null)
+            {
+                this.inFlightReportedProperties.put(batch.requestId, batch);
+            }
+            if (batch.correlationId != null)
+            {
+                this.inFlightReportedProperties.put(batch.correlationId, batch);
+            }
+        }
+        else
+        {
+            batch = null;
+        }
+
         /*
          **Codes_SRS_DEVICETWIN_25_015: [**This method shall send the message to the lower transport layers by calling sendEventAsync.**]**
          */
-        this.deviceIO.sendEventAsync(updateReportedPropertiesRequest, new deviceTwinRequestMessageCallback(), null, this.config.getDeviceId());
+        try
+        {
+            this.deviceIO.sendEventAsync(updateReportedPropertiesRequest, new deviceTwinRequestMessageCallback(), batch, this.config.getDeviceId());
+        }
+        catch (RuntimeException e)
+        {
+            if (batch != null)
+            {
+                removeInFlightBatch(batch.requestId, batch.correlationId);
+            }
+            throw e;
+        }
+    }
+
+    private ReportedPropertiesBatch removeInFlightBatch(String requestId, String correlationId)
+    {
+        ReportedPropertiesBatch batch = requestId == null ? null : this.inFlightReportedProperties.get(requestId);
+        if (batch == null && correlationId != null)
+        {
+            batch = this.inFlightReportedProperties.get(correlationId);
+        }
+
+        if (batch != null)
+        {
+            if (batch.requestId != null)
+            {
+                this.inFlightReportedProperties.remove(batch.requestId);
+            }
+            if (batch.correlationId != null)
+            {
+                this.inFlightReportedProperties.remove(batch.correlationId);
+            }
+        }
+
+        return batch;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean canMerge(Map<String, Object> pending, Map<String, Object> update)
+    {
+        for (Map.Entry<String, Object> entry : update.entrySet())
+        {
+            if (entry.getValue() instanceof Map && pending.containsKey(entry.getKey()))
+            {
+                Object pendingValue = pending.get(entry.getKey());
+                if (!(pendingValue instanceof Map) || !canMerge((Map<String, Object>) pendingValue, (Map<String, Object>) entry.getValue()))
+                {
+                    return false;
+                }
+            }
+        }
 
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void merge(Map<String, Object> pending, Map<String, Object> update)
+    {
+        for (Map.Entry<String, Object> entry : update.entrySet())
+        {
+            Object pendingValue = pending.get(entry.getKey());
+            if (entry.getValue() instanceof Map && pendingValue instanceof Map)
+            {
+                merge((Map<String, Object>) pendingValue, (Map<String, Object>) entry.getValue());
+            }
+            else if (entry.getValue() instanceof Map)
+            {
+                Map<String, Object> copy = new HashMap<>();
+                merge(copy, (Map<String, Object>) entry.getValue());
+                pending.put(entry.getKey(), copy);
+            }
+            else
+            {
+                pending.put(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
     public void subscribeDesiredPropertiesNotification(Map<Property, Pair<PropertyCallBack<String, Object>, Object>> onDesiredPropertyChange)
@@ -490,4 +894,61 @@ public class DeviceTwin
 
         return false;
     }
+
+    /*
+        Get twin request sent to recover missed desired properties patches. MQTT responses carry the request id and AMQP
+        responses carry the correlation id of the request. A request not answered in time is given up on, so that a
+        lost response does not prevent recovering from later gaps.
+     */
+    private static final class ResyncRequest
+    {
+        private static final long RESPONSE_TIMEOUT_MILLISECONDS = 60000;
+
+        private final long sentAtMillis = System.currentTimeMillis();
+        private String requestId;
+        private String correlationId;
+
+        private boolean isAnsweredBy(IotHubTransportMessage response)
+        {
+            return (this.requestId != null && this.requestId.equals(response.getRequestId()))
+                    || (this.correlationId != null && this.correlationId.equals(response.getCorrelationId()));
+        }
+
+        private boolean isExpired()
+        {
+            return System.currentTimeMillis() - this.sentAtMillis > RESPONSE_TIMEOUT_MILLISECONDS;
+        }
+    }
+
+    /*
+        Reported properties sent, or to be sent, in a single patch and the callbacks of the callers that reported them
+     */
+    private static final class ReportedPropertiesBatch
+    {
+        private final Map<String, Object> properties = new HashMap<>();
+        private final List<Pair<IotHubEventCallback, Object>> callbacks = new ArrayList<>();
+        private String requestId;
+        private String correlationId;
+
+        private void addCallback(IotHubEventCallback callback, Object callbackContext)
+        {
+            if (callback != null)
+            {
+                this.callbacks.add(new Pair<>(callback, callbackContext));
+            }
+        }
+
+        private boolean hasCallbacks()
+        {
+            return !this.callbacks.isEmpty();
+        }
+
+        private void complete(IotHubStatusCode status)
+        {
+            for (Pair<IotHubEventCallback, Object> callback : this.callbacks)
+            {
+                callback.getKey().execute(status, callback.getValue());
+            }
+        }
+    }
 }
@@ -147,6 +147,12 @@ public class InternalClient
 
     public void close() throws IOException
     {
+        if (this.twin != null)
+        {
+            // send any merged reported properties before draining the outgoing queue
+            this.twin.stopReportedPropertiesCoalescing(true);
+        }
+
         while (!this.deviceIO.isEmpty())
         {
             // Don't do anything, can be infinite.
@@ -158,6 +164,11 @@ public class InternalClient
 
     public void closeNow() throws IOException
     {
+        if (this.twin != null)
+        {
+            this.twin.stopReportedPropertiesCoalescing(false);
+        }
+
         //Codes_SRS_INTERNALCLIENT_21_008: [The closeNow shall closeNow the deviceIO connection.]
         this.deviceIO.close();
     }
@@ -308,6 +319,75 @@ public class InternalClient
         this.twin.updateReportedProperties(reportedProperties, version);
     }
 
+    /**
+     * Sends reported properties, and notifies the provided callback with the status of the response to the patch
+     * that carried them.
+     *
+     * @param reportedProperties the Set for desired properties and their corresponding callback and context. Cannot be {@code null}.
+     * @param reportedPropertiesCallback the callback to notify with the status of the patch. Can be {@code null}.
+     * @param reportedPropertiesCallbackContext the context to be passed to the callback. Can be {@code null}.
+     *
+     * @throws IOException if called when client is not opened or called before starting twin.
+     * @throws IllegalArgumentException if reportedProperties is null or empty.
+     */
+    public void sendReportedProperties(Set<Property> reportedProperties, IotHubEventCallback reportedPropertiesCallback,
+                                       Object reportedPropertiesCallbackContext) throws IOException, IllegalArgumentException
+    {
+        if (this.twin == null)
+        {
+            throw new IOException("Start twin before using it");
+        }
+
+        if (!this.deviceIO.isOpen())
+        {
+            throw new IOException("Open the client connection before using it.");
+        }
+
+        if (reportedProperties == null || reportedProperties.isEmpty())
+        {
+            throw new IllegalArgumentException("Reported properties set cannot be null or empty.");
+        }
+
+        this.twin.updateReportedProperties(reportedProperties, reportedPropertiesCallback, reportedPropertiesCallbackContext);
+    }
+
+    /**
+     * Merges the reported properties sent within a time window into a single patch, to reduce the number of patches
+     * sent by devices that report frequently changing state. Later values of a property replace earlier ones. Each
+     * caller of {@link #sendReportedProperties(Set, IotHubEventCallback, Object)} is notified with the status of the
+     * patch that carried its properties. Reported properties sent with a version are never merged.
+     *
+     * @param windowInMilliseconds the maximum time a reported property waits to be sent. Must be positive.
+     * @param maxPropertiesPerPatch the maximum number of top level properties in a merged patch. Must be positive.
+     *
+     * @throws IOException if called before starting twin.
+     * @throws IllegalArgumentException if the window or the maximum number of properties is not positive.
+     */
+    public void enableReportedPropertiesCoalescing(long windowInMilliseconds, int maxPropertiesPerPatch) throws IOException, IllegalArgumentException
+    {
+        if (this.twin == null)
+        {
+            throw new IOException("Start twin before using it");
+        }
+
+        this.twin.enableReportedPropertiesCoalescing(windowInMilliseconds, maxPropertiesPerPatch);
+    }
+
+    /**
+     * Sends any pending merged reported properties and stops merging reported properties.
+     *
+     * @throws IOException if called before starting twin.
+     */
+    public void disableReportedPropertiesCoalescing() throws IOException
+    {
+        if (this.twin == null)
+        {
+            throw new IOException("Start twin before using it");
+        }
+
+        this.twin.disableReportedPropertiesCoalescing();
+    }
+
     /**
      * Registers a callback to be executed when the connection status of the device changes. The callback will be fired
      * with a status and a reason why the device's status changed. When the callback is fired, the provided context will
@@ -6,6 +6,7 @@
 package com.microsoft.azure.sdk.iot.device.auth;
 
 import com.microsoft.azure.sdk.iot.deps.auth.IotHubSSLContext;
+import com.microsoft.azure.sdk.iot.deps.auth.IotHubSSLContextCache;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
 
 import javax.net.ssl.SSLContext;
@@ -169,7 +170,8 @@ public abstract class IotHubAuthenticationProvider
         if (this.iotHubTrustedCert != null)
         {
             // Codes_SRS_AUTHENTICATIONPROVIDER_34_019: [If this has a saved iotHubTrustedCert, this function shall generate a new IotHubSSLContext object with that saved cert as the trusted cert.]
-            return new IotHubSSLContext(this.iotHubTrustedCert, false);
+            // the SSLContext is shared by all the clients that trust the same certificates, so that they resume their TLS sessions
+            return new IotHubSSLContext(IotHubSSLContextCache.getSSLContext(this.iotHubTrustedCert));
         }
         else if (this.pathToIotHubTrustedCert != null)
         {
@@ -179,7 +181,7 @@ public abstract class IotHubAuthenticationProvider
         else
         {
             // Codes_SRS_AUTHENTICATIONPROVIDER_34_021: [If this has no saved iotHubTrustedCert or path, This function shall create and save a new default IotHubSSLContext object.]
-            return new IotHubSSLContext();
+            return new IotHubSSLContext(IotHubSSLContextCache.getDefaultSSLContext());
         }
     }
 }
@@ -0,0 +1,160 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.device.DeviceTwin;
+
+import com.microsoft.azure.sdk.iot.device.DeviceTwin.DesiredPropertiesCache;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/* Unit tests for DesiredPropertiesCache
+ * 100% methods covered
+ */
+public class DesiredPropertiesCacheTest
+{
+    private static Map<String, Object> map(Object... keysAndValues)
+    {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void applyPatchThrowsOnNullPatch()
+    {
+        new DesiredPropertiesCache().applyPatch(null, 1);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void replaceThrowsOnNullProperties()
+    {
+        new DesiredPropertiesCache().replace(null, 1);
+    }
+
+    @Test
+    public void applyPatchMergesInPlace()
+    {
+        //arrange
+        DesiredPropertiesCache cache = new DesiredPropertiesCache();
+        cache.replace(map("fw", "1.0", "range", map("min", 1, "max", 2), "obsolete", "x"), 3);
+
+        //act
+        DesiredPropertiesCache.PatchResult result = cache.applyPatch(map("fw", "2.0", "range", map("max", 5), "obsolete", null), 4);
+
+        //assert
+        assertEquals(DesiredPropertiesCache.PatchResult.APPLIED, result);
+        assertEquals(4, (int) cache.getVersion());
+        Map<String, Object> properties = cache.getProperties();
+        assertEquals(2, properties.size());
+        assertEquals("2.0", properties.get("fw"));
+        assertEquals(map("min", 1, "max", 5), properties.get("range"));
+    }
+
+    @Test
+    public void applyPatchIgnoresStaleAndDuplicatePatches()
+    {
+        //arrange
+        DesiredPropertiesCache cache = new DesiredPropertiesCache();
+        cache.replace(map("fw", "1.0"), 5);
+
+        //act
+        DesiredPropertiesCache.PatchResult duplicate = cache.applyPatch(map("fw", "2.0"), 5);
+        DesiredPropertiesCache.PatchResult stale = cache.applyPatch(map("fw", "3.0"), 4);
+
+        //assert
+        assertEquals(DesiredPropertiesCache.PatchResult.STALE, duplicate);
+        assertEquals(DesiredPropertiesCache.PatchResult.STALE, stale);
+        assertEquals("1.0", cache.getProperties().get("fw"));
+        assertEquals(5, (int) cache.getVersion());
+    }
+
+    @Test
+    public void applyPatchReportsVersionGap()
+    {
+        //arrange
+        DesiredPropertiesCache cache = new DesiredPropertiesCache();
+        cache.replace(map("fw", "1.0"), 5);
+
+        //act
+        DesiredPropertiesCache.PatchResult result = cache.applyPatch(map("interval", 10), 8);
+
+        //assert
+        assertEquals(DesiredPropertiesCache.PatchResult.APPLIED_WITH_GAP, result);
+        assertEquals(8, (int) cache.getVersion());
+        assertEquals(10, cache.getProperties().get("interval"));
+    }
+
+    @Test
+    public void applyPatchWithUnknownVersionIsApplied()
+    {
+        //arrange
+        DesiredPropertiesCache cache = new DesiredPropertiesCache();
+
+        //act
+        DesiredPropertiesCache.PatchResult first = cache.applyPatch(map("fw", "1.0"), null);
+        DesiredPropertiesCache.PatchResult second = cache.applyPatch(map("fw", "2.0"), 7);
+
+        //assert
+        assertEquals(DesiredPropertiesCache.PatchResult.APPLIED, first);
+        assertEquals(DesiredPropertiesCache.PatchResult.APPLIED, second);
+        assertEquals(7, (int) cache.getVersion());
+    }
+
+    @Test
+    public void applyPatchDoesNotKeepReferencesToThePatch()
+    {
+        //arrange
+        DesiredPropertiesCache cache = new DesiredPropertiesCache();
+        Map<String, Object> nested = map("min", 1);
+        cache.applyPatch(map("range", nested), 1);
+
+        //act
+        nested.put("min", 2);
+
+        //assert
+        assertEquals(map("min", 1), cache.getProperties().get("range"));
+    }
+
+    @Test
+    public void replaceReturnsAddedChangedAndRemovedKeys()
+    {
+        //arrange
+        DesiredPropertiesCache cache = new DesiredPropertiesCache();
+        cache.replace(map("fw", "1.0", "interval", 10, "obsolete", "x", "range", map("min", 1)), 3);
+
+        //act
+        Set<String> changedKeys = cache.replace(map("fw", "1.0", "interval", 20, "added", true, "range", map("min", 1)), 6);
+
+        //assert
+        assertEquals(3, changedKeys.size());
+        assertTrue(changedKeys.contains("interval"));
+        assertTrue(changedKeys.contains("added"));
+        assertTrue(changedKeys.contains("obsolete"));
+        assertEquals(6, (int) cache.getVersion());
+        assertFalse(cache.getProperties().containsKey("obsolete"));
+    }
+
+    @Test
+    public void replaceIgnoresOlderTwin()
+    {
+        //arrange
+        DesiredPropertiesCache cache = new DesiredPropertiesCache();
+        cache.replace(map("fw", "2.0"), 6);
+
+        //act
+        Set<String> changedKeys = cache.replace(map("fw", "1.0"), 5);
+
+        //assert
+        assertTrue(changedKeys.isEmpty());
+        assertEquals("2.0", cache.getProperties().get("fw"));
+        assertEquals(6, (int) cache.getVersion());
+    }
+}
@@ -13,11 +13,16 @@ import mockit.*;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 
 import static org.junit.Assert.*;
 
@@ -1368,4 +1373,529 @@ public class DeviceTwinTest
 
         // assert
     }
+
+    private static IotHubTransportMessage twinMessage(String json, DeviceOperations operation)
+    {
+        IotHubTransportMessage message = new IotHubTransportMessage(json.getBytes(), MessageType.DEVICE_TWIN);
+        message.setStatus(String.valueOf(200));
+        message.setDeviceOperationType(operation);
+        return message;
+    }
+
+    @Test
+    public void desiredPatchWithStaleVersionIsIgnored()
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig,
+                mockedStatusCB, null, mockedGenericPropertyCB, null);
+        MessageCallback deviceTwinResponseMessageCallback = Deencapsulation.newInnerInstance("deviceTwinResponseMessageCallback", testTwin);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"desired\":{\"fw\":\"1.0\",\"$version\":5}}", DeviceOperations.DEVICE_OPERATION_TWIN_GET_RESPONSE), null);
+
+        // act
+        IotHubMessageResult result = deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"fw\":\"0.9\",\"$version\":5}", DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE), null);
+
+        // assert
+        assertEquals(IotHubMessageResult.COMPLETE, result);
+        new Verifications()
+        {
+            {
+                mockedGenericPropertyCB.PropertyCall("fw", "1.0", null);
+                times = 1;
+                mockedGenericPropertyCB.PropertyCall("fw", "0.9", null);
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void desiredPatchWithVersionGapRequestsFullTwinOnce()
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig,
+                mockedStatusCB, null, mockedGenericPropertyCB, null);
+        MessageCallback deviceTwinResponseMessageCallback = Deencapsulation.newInnerInstance("deviceTwinResponseMessageCallback", testTwin);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"desired\":{\"fw\":\"1.0\",\"$version\":5}}", DeviceOperations.DEVICE_OPERATION_TWIN_GET_RESPONSE), null);
+
+        // act
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"fw\":\"3.0\",\"$version\":8}", DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE), null);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"fw\":\"4.0\",\"$version\":10}", DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE), null);
+
+        // assert
+        new Verifications()
+        {
+            {
+                mockedGenericPropertyCB.PropertyCall("fw", "3.0", null);
+                times = 1;
+                mockedGenericPropertyCB.PropertyCall("fw", "4.0", null);
+                times = 1;
+            }
+        };
+
+        assertEquals(1, sentGetTwinRequests().size());
+    }
+
+    @Test
+    public void fullTwinAfterVersionGapReportsOnlyChangedProperties()
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig,
+                mockedStatusCB, null, mockedGenericPropertyCB, null);
+        MessageCallback deviceTwinResponseMessageCallback = Deencapsulation.newInnerInstance("deviceTwinResponseMessageCallback", testTwin);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"desired\":{\"a\":\"1\",\"b\":\"2\",\"gone\":\"x\",\"$version\":5}}", DeviceOperations.DEVICE_OPERATION_TWIN_GET_RESPONSE), null);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"b\":\"3\",\"$version\":7}", DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE), null);
+        IotHubTransportMessage resyncResponse = twinMessage("{\"desired\":{\"a\":\"1\",\"b\":\"3\",\"c\":\"4\",\"$version\":7}}", DeviceOperations.DEVICE_OPERATION_TWIN_GET_RESPONSE);
+        resyncResponse.setRequestId(sentGetTwinRequests().get(0).getRequestId());
+
+        // act
+        deviceTwinResponseMessageCallback.execute(resyncResponse, null);
+
+        // assert
+        new Verifications()
+        {
+            {
+                mockedGenericPropertyCB.PropertyCall("a", "1", null);
+                times = 1;
+                mockedGenericPropertyCB.PropertyCall("b", "3", null);
+                times = 1;
+                mockedGenericPropertyCB.PropertyCall("c", "4", null);
+                times = 1;
+                mockedGenericPropertyCB.PropertyCall("gone", null, null);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void resyncResponseIsNotReportedToStatusCallback()
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig,
+                mockedStatusCB, null, mockedGenericPropertyCB, null);
+        MessageCallback deviceTwinResponseMessageCallback = Deencapsulation.newInnerInstance("deviceTwinResponseMessageCallback", testTwin);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"desired\":{\"fw\":\"1.0\",\"$version\":5}}", DeviceOperations.DEVICE_OPERATION_TWIN_GET_RESPONSE), null);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"fw\":\"3.0\",\"$version\":8}", DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE), null);
+        IotHubTransportMessage resyncResponse = twinMessage("{\"desired\":{\"fw\":\"3.0\",\"$version\":8}}", DeviceOperations.DEVICE_OPERATION_TWIN_GET_RESPONSE);
+        resyncResponse.setRequestId(sentGetTwinRequests().get(0).getRequestId());
+
+        // act
+        deviceTwinResponseMessageCallback.execute(resyncResponse, null);
+
+        // assert
+        new Verifications()
+        {
+            {
+                // only for the twin requested before the gap
+                mockedStatusCB.execute(IotHubStatusCode.OK, any);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void failedResyncResponseAllowsNextGapToRequestTwinAgain()
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig,
+                mockedStatusCB, null, mockedGenericPropertyCB, null);
+        MessageCallback deviceTwinResponseMessageCallback = Deencapsulation.newInnerInstance("deviceTwinResponseMessageCallback", testTwin);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"desired\":{\"fw\":\"1.0\",\"$version\":5}}", DeviceOperations.DEVICE_OPERATION_TWIN_GET_RESPONSE), null);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"fw\":\"3.0\",\"$version\":8}", DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE), null);
+        IotHubTransportMessage resyncResponse = twinMessage("", DeviceOperations.DEVICE_OPERATION_TWIN_GET_RESPONSE);
+        resyncResponse.setStatus(String.valueOf(500));
+        resyncResponse.setRequestId(sentGetTwinRequests().get(0).getRequestId());
+
+        // act
+        deviceTwinResponseMessageCallback.execute(resyncResponse, null);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"fw\":\"5.0\",\"$version\":10}", DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE), null);
+
+        // assert
+        assertEquals(2, sentGetTwinRequests().size());
+        new Verifications()
+        {
+            {
+                mockedStatusCB.execute(IotHubStatusCode.INTERNAL_SERVER_ERROR, any);
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void failedResyncSendAllowsNextGapToRequestTwinAgain()
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig,
+                mockedStatusCB, null, mockedGenericPropertyCB, null);
+        MessageCallback deviceTwinResponseMessageCallback = Deencapsulation.newInnerInstance("deviceTwinResponseMessageCallback", testTwin);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"desired\":{\"fw\":\"1.0\",\"$version\":5}}", DeviceOperations.DEVICE_OPERATION_TWIN_GET_RESPONSE), null);
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"fw\":\"3.0\",\"$version\":8}", DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE), null);
+        final List<IotHubEventCallback> sendCallbacks = new ArrayList<>();
+        final List<Object> sendContexts = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedDeviceIO.sendEventAsync((Message) any, withCapture(sendCallbacks), withCapture(sendContexts), anyString);
+            }
+        };
+
+        // act
+        sendCallbacks.get(0).execute(IotHubStatusCode.MESSAGE_EXPIRED, sendContexts.get(0));
+        deviceTwinResponseMessageCallback.execute(
+                twinMessage("{\"fw\":\"5.0\",\"$version\":10}", DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE), null);
+
+        // assert
+        assertEquals(2, sentGetTwinRequests().size());
+        new Verifications()
+        {
+            {
+                mockedStatusCB.execute(IotHubStatusCode.MESSAGE_EXPIRED, any);
+                times = 0;
+            }
+        };
+    }
+
+    private List<IotHubTransportMessage> sentGetTwinRequests()
+    {
+        final List<Message> sentMessages = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedDeviceIO.sendEventAsync(withCapture(sentMessages), (IotHubEventCallback) any, any, anyString);
+            }
+        };
+
+        List<IotHubTransportMessage> requests = new ArrayList<>();
+        for (Message sentMessage : sentMessages)
+        {
+            IotHubTransportMessage request = (IotHubTransportMessage) sentMessage;
+            if (request.getDeviceOperationType() == DeviceOperations.DEVICE_OPERATION_TWIN_GET_REQUEST)
+            {
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    private static Set<Property> reported(Object... keysAndValues)
+    {
+        Set<Property> properties = new HashSet<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            properties.add(new Property((String) keysAndValues[i], keysAndValues[i + 1]));
+        }
+        return properties;
+    }
+
+    private List<IotHubTransportMessage> sentReportedPropertiesRequests()
+    {
+        final List<Message> sentMessages = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedDeviceIO.sendEventAsync(withCapture(sentMessages), (IotHubEventCallback) any, any, anyString);
+            }
+        };
+
+        List<IotHubTransportMessage> requests = new ArrayList<>();
+        for (Message sentMessage : sentMessages)
+        {
+            IotHubTransportMessage request = (IotHubTransportMessage) sentMessage;
+            if (request.getDeviceOperationType() == DeviceOperations.DEVICE_OPERATION_TWIN_UPDATE_REPORTED_PROPERTIES_REQUEST)
+            {
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void enableReportedPropertiesCoalescingThrowsOnNonPositiveWindow()
+    {
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(0, 10);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void enableReportedPropertiesCoalescingThrowsOnNonPositiveMaxProperties()
+    {
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(1000, 0);
+    }
+
+    @Test
+    public void coalescedUpdatesAreSentAsSinglePatchAndNotifyEveryCaller() throws IOException
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        MessageCallback deviceTwinResponseMessageCallback = Deencapsulation.newInnerInstance("deviceTwinResponseMessageCallback", testTwin);
+        testTwin.enableReportedPropertiesCoalescing(60000, 100);
+        testTwin.updateReportedProperties(reported("count", 1), mockedStatusCB, "first");
+        testTwin.updateReportedProperties(reported("health", "ok"), mockedStatusCB, "second");
+        testTwin.updateReportedProperties(reported("count", 3), mockedStatusCB, "third");
+
+        // act
+        testTwin.flushReportedProperties();
+
+        // assert
+        List<IotHubTransportMessage> requests = sentReportedPropertiesRequests();
+        assertEquals(1, requests.size());
+        String payload = new String(requests.get(0).getBytes());
+        assertTrue(payload.contains("\"count\":3"));
+        assertTrue(payload.contains("\"health\":\"ok\""));
+
+        IotHubTransportMessage response = new IotHubTransportMessage(new byte[0], MessageType.DEVICE_TWIN);
+        response.setStatus(String.valueOf(200));
+        response.setRequestId(requests.get(0).getRequestId());
+        response.setDeviceOperationType(DeviceOperations.DEVICE_OPERATION_TWIN_UPDATE_REPORTED_PROPERTIES_RESPONSE);
+        deviceTwinResponseMessageCallback.execute(response, null);
+
+        new Verifications()
+        {
+            {
+                mockedStatusCB.execute(IotHubStatusCode.OK, "first");
+                times = 1;
+                mockedStatusCB.execute(IotHubStatusCode.OK, "second");
+                times = 1;
+                mockedStatusCB.execute(IotHubStatusCode.OK, "third");
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void coalescedUpdatesAreMatchedByCorrelationId() throws IOException
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        MessageCallback deviceTwinResponseMessageCallback = Deencapsulation.newInnerInstance("deviceTwinResponseMessageCallback", testTwin);
+        testTwin.updateReportedProperties(reported("count", 1), mockedStatusCB, "first");
+        IotHubTransportMessage request = sentReportedPropertiesRequests().get(0);
+
+        IotHubTransportMessage response = new IotHubTransportMessage(new byte[0], MessageType.DEVICE_TWIN);
+        response.setStatus(String.valueOf(412));
+        response.setCorrelationId(request.getCorrelationId());
+        response.setDeviceOperationType(DeviceOperations.DEVICE_OPERATION_TWIN_UPDATE_REPORTED_PROPERTIES_RESPONSE);
+
+        // act
+        deviceTwinResponseMessageCallback.execute(response, null);
+        deviceTwinResponseMessageCallback.execute(response, null);
+
+        // assert
+        new Verifications()
+        {
+            {
+                mockedStatusCB.execute(IotHubStatusCode.PRECONDITION_FAILED, "first");
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void coalescedUpdatesAreSentWhenMaxPropertiesIsReached() throws IOException
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(60000, 2);
+
+        // act
+        testTwin.updateReportedProperties(reported("a", 1));
+        testTwin.updateReportedProperties(reported("a", 2));
+        testTwin.updateReportedProperties(reported("b", 1));
+
+        // assert
+        List<IotHubTransportMessage> requests = sentReportedPropertiesRequests();
+        assertEquals(1, requests.size());
+        String payload = new String(requests.get(0).getBytes());
+        assertTrue(payload.contains("\"a\":2"));
+        assertTrue(payload.contains("\"b\":1"));
+    }
+
+    @Test
+    public void coalescedUpdatesAreSentWhenWindowElapses() throws IOException, InterruptedException
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(50, 100);
+
+        // act
+        testTwin.updateReportedProperties(reported("a", 1));
+        Thread.sleep(1000);
+
+        // assert
+        assertEquals(1, sentReportedPropertiesRequests().size());
+        testTwin.disableReportedPropertiesCoalescing();
+    }
+
+    @Test
+    public void versionedUpdateIsSentAfterPendingCoalescedUpdates() throws IOException
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(60000, 100);
+        testTwin.updateReportedProperties(reported("a", 1));
+
+        // act
+        testTwin.updateReportedProperties(reported("b", 2), 5);
+
+        // assert
+        List<IotHubTransportMessage> requests = sentReportedPropertiesRequests();
+        assertEquals(2, requests.size());
+        assertTrue(new String(requests.get(0).getBytes()).contains("\"a\":1"));
+        assertNull(requests.get(0).getVersion());
+        assertTrue(new String(requests.get(1).getBytes()).contains("\"b\":2"));
+        assertEquals("5", requests.get(1).getVersion());
+    }
+
+    @Test
+    public void coalescedCollectionReplacingValueIsSentInSeparatePatch() throws IOException
+    {
+        // arrange
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("x", 1);
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(60000, 100);
+        testTwin.updateReportedProperties(reported("a", null));
+
+        // act
+        testTwin.updateReportedProperties(reported("a", nested));
+        testTwin.flushReportedProperties();
+
+        // assert
+        List<IotHubTransportMessage> requests = sentReportedPropertiesRequests();
+        assertEquals(2, requests.size());
+        assertTrue(new String(requests.get(0).getBytes()).contains("\"a\":null"));
+        assertTrue(new String(requests.get(1).getBytes()).contains("\"x\":1"));
+    }
+
+    @Test
+    public void coalescedNestedCollectionsAreMergedKeyByKey() throws IOException
+    {
+        // arrange
+        Map<String, Object> first = new HashMap<>();
+        first.put("x", 1);
+        Map<String, Object> second = new HashMap<>();
+        second.put("y", 2);
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(60000, 100);
+        testTwin.updateReportedProperties(reported("a", first));
+        testTwin.updateReportedProperties(reported("a", second));
+
+        // act
+        testTwin.disableReportedPropertiesCoalescing();
+
+        // assert
+        List<IotHubTransportMessage> requests = sentReportedPropertiesRequests();
+        assertEquals(1, requests.size());
+        String payload = new String(requests.get(0).getBytes());
+        assertTrue(payload.contains("\"x\":1"));
+        assertTrue(payload.contains("\"y\":2"));
+    }
+
+    @Test
+    public void stopCoalescingSendsPendingPatchAndStopsScheduler() throws IOException
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(60000, 100);
+        testTwin.updateReportedProperties(reported("a", 1));
+        ScheduledExecutorService scheduler = Deencapsulation.getField(testTwin, "coalescingScheduler");
+
+        // act
+        testTwin.stopReportedPropertiesCoalescing(true);
+
+        // assert
+        assertEquals(1, sentReportedPropertiesRequests().size());
+        assertTrue(scheduler.isShutdown());
+        assertNull(Deencapsulation.getField(testTwin, "coalescingScheduler"));
+        assertNull(Deencapsulation.getField(testTwin, "pendingFlush"));
+    }
+
+    @Test
+    public void stopCoalescingWithoutSendingCancelsPendingPatch() throws IOException
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(60000, 100);
+        testTwin.updateReportedProperties(reported("a", 1), mockedStatusCB, "first");
+        ScheduledExecutorService scheduler = Deencapsulation.getField(testTwin, "coalescingScheduler");
+        ScheduledFuture<?> pendingFlush = Deencapsulation.getField(testTwin, "pendingFlush");
+
+        // act
+        testTwin.stopReportedPropertiesCoalescing(false);
+
+        // assert
+        assertTrue(pendingFlush.isCancelled());
+        assertTrue(scheduler.isShutdown());
+        new Verifications()
+        {
+            {
+                mockedDeviceIO.sendEventAsync((Message) any, (IotHubEventCallback) any, any, anyString);
+                times = 0;
+                mockedStatusCB.execute(IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE, "first");
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void coalescingRestartsSchedulerAfterStop() throws IOException
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        testTwin.enableReportedPropertiesCoalescing(60000, 100);
+        testTwin.updateReportedProperties(reported("a", 1));
+        testTwin.stopReportedPropertiesCoalescing(true);
+
+        // act
+        testTwin.updateReportedProperties(reported("b", 2));
+        testTwin.updateReportedProperties(reported("c", 3));
+
+        // assert
+        ScheduledExecutorService scheduler = Deencapsulation.getField(testTwin, "coalescingScheduler");
+        assertNotNull(scheduler);
+        assertEquals(1, sentReportedPropertiesRequests().size());
+        testTwin.disableReportedPropertiesCoalescing();
+        assertEquals(2, sentReportedPropertiesRequests().size());
+    }
+
+    @Test
+    public void failedDeliveryNotifiesReportedPropertiesCallback() throws IOException
+    {
+        // arrange
+        DeviceTwin testTwin = new DeviceTwin(mockedDeviceIO, mockedConfig, mockedStatusCB, null, mockedGenericPropertyCB, null);
+        IotHubEventCallback deviceTwinRequestMessageCallback = Deencapsulation.newInnerInstance("deviceTwinRequestMessageCallback", testTwin);
+        testTwin.updateReportedProperties(reported("a", 1), mockedStatusCB, "first");
+        final List<Object> contexts = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedDeviceIO.sendEventAsync((Message) any, (IotHubEventCallback) any, withCapture(contexts), anyString);
+            }
+        };
+
+        // act
+        deviceTwinRequestMessageCallback.execute(IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE, contexts.get(contexts.size() - 1));
+
+        // assert
+        new Verifications()
+        {
+            {
+                mockedStatusCB.execute(IotHubStatusCode.MESSAGE_CANCELLED_ONCLOSE, "first");
+                times = 1;
+            }
+        };
+    }
 }
@@ -974,6 +974,121 @@ public class InternalClientTest
         };
     }
 
+    @Test
+    public void sendRPWithCallbackSucceeds(@Mocked final DeviceTwin mockedDeviceTwin,
+                                           @Mocked final IotHubEventCallback mockedStatusCB,
+                                           @Mocked final PropertyCallBack mockedPropertyCB,
+                                           @Mocked final Set<Property> mockSet) throws IOException, URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.MQTT;
+        final Object context = new Object();
+        new NonStrictExpectations()
+        {
+            {
+                mockDeviceIO.isOpen();
+                result = true;
+            }
+        };
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class, ClientOptions.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD, null);
+        Deencapsulation.invoke(client, "open");
+        Deencapsulation.invoke(client, "startTwinInternal", new Class[] {IotHubEventCallback.class, Object.class, PropertyCallBack.class, Object.class}, mockedStatusCB, NULL_OBJECT, mockedPropertyCB, NULL_OBJECT);
+
+        //act
+        client.sendReportedProperties(mockSet, mockedStatusCB, context);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedDeviceTwin.updateReportedProperties(mockSet, mockedStatusCB, context);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void enableReportedPropertiesCoalescingDelegatesToTwin(@Mocked final DeviceTwin mockedDeviceTwin,
+                                                                  @Mocked final IotHubEventCallback mockedStatusCB,
+                                                                  @Mocked final PropertyCallBack mockedPropertyCB) throws IOException, URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.MQTT;
+        new NonStrictExpectations()
+        {
+            {
+                mockDeviceIO.isOpen();
+                result = true;
+                mockDeviceIO.isEmpty();
+                result = true;
+            }
+        };
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class, ClientOptions.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD, null);
+        Deencapsulation.invoke(client, "open");
+        Deencapsulation.invoke(client, "startTwinInternal", new Class[] {IotHubEventCallback.class, Object.class, PropertyCallBack.class, Object.class}, mockedStatusCB, NULL_OBJECT, mockedPropertyCB, NULL_OBJECT);
+
+        //act
+        client.enableReportedPropertiesCoalescing(100, 10);
+        client.close();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedDeviceTwin.enableReportedPropertiesCoalescing(100, 10);
+                times = 1;
+                mockedDeviceTwin.stopReportedPropertiesCoalescing(true);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void closeNowStopsReportedPropertiesCoalescingWithoutSending(@Mocked final DeviceTwin mockedDeviceTwin,
+                                                                        @Mocked final IotHubEventCallback mockedStatusCB,
+                                                                        @Mocked final PropertyCallBack mockedPropertyCB) throws IOException, URISyntaxException
+    {
+        //arrange
+        final IotHubClientProtocol protocol = IotHubClientProtocol.MQTT;
+        new NonStrictExpectations()
+        {
+            {
+                mockDeviceIO.isOpen();
+                result = true;
+            }
+        };
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class, ClientOptions.class}, mockIotHubConnectionString, protocol, SEND_PERIOD, RECEIVE_PERIOD, null);
+        Deencapsulation.invoke(client, "open");
+        Deencapsulation.invoke(client, "startTwinInternal", new Class[] {IotHubEventCallback.class, Object.class, PropertyCallBack.class, Object.class}, mockedStatusCB, NULL_OBJECT, mockedPropertyCB, NULL_OBJECT);
+        client.enableReportedPropertiesCoalescing(100, 10);
+
+        //act
+        client.closeNow();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedDeviceTwin.stopReportedPropertiesCoalescing(false);
+                times = 1;
+                mockedDeviceTwin.flushReportedProperties();
+                times = 0;
+                mockDeviceIO.close();
+                times = 1;
+            }
+        };
+    }
+
+    @Test (expected = IOException.class)
+    public void enableReportedPropertiesCoalescingThrowsIfCalledBeforeStartingTwin() throws IOException, URISyntaxException
+    {
+        //arrange
+        InternalClient client = Deencapsulation.newInstance(InternalClient.class, new Class[] {IotHubConnectionString.class, IotHubClientProtocol.class, long.class, long.class, ClientOptions.class}, mockIotHubConnectionString, IotHubClientProtocol.MQTT, SEND_PERIOD, RECEIVE_PERIOD, null);
+
+        //act
+        client.enableReportedPropertiesCoalescing(100, 10);
+    }
+
     /*
      **Tests_SRS_INTERNALCLIENT_25_032: [**If the client has not started twin before calling this method, the function shall throw an IOException.**]**
      */
@@ -6,6 +6,7 @@
 package tests.unit.com.microsoft.azure.sdk.iot.device.auth;
 
 import com.microsoft.azure.sdk.iot.deps.auth.IotHubSSLContext;
+import com.microsoft.azure.sdk.iot.deps.auth.IotHubSSLContextCache;
 import com.microsoft.azure.sdk.iot.device.auth.IotHubAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.auth.IotHubX509SoftwareAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.exceptions.TransportException;
@@ -28,6 +29,9 @@ public class IotHubAuthenticationProviderTest
 
     @Mocked
     SSLContext mockedSSLContext;
+
+    @Mocked
+    IotHubSSLContextCache mockedIotHubSSLContextCache;
     
     private static String expectedHostname = "hostname";
     private static String expectedGatewayHostname = "gatewayhostname";
@@ -137,7 +141,7 @@ public class IotHubAuthenticationProviderTest
     //Codes_SRS_AUTHENTICATIONPROVIDER_34_012: [If a CertificateException, NoSuchAlgorithmException, KeyManagementException, or KeyStoreException is thrown during this function, this function shall throw an IOException.]
     //Codes_SRS_AUTHENTICATIONPROVIDER_34_010: [If this object's ssl context has not been generated yet or if it needs to be re-generated, this function shall regenerate the ssl context.]
     @Test (expected = IOException.class)
-    public void getSSLContextWrapsExceptions() throws IOException
+    public void getSSLContextWrapsExceptions() throws Exception
     {
         //arrange
         IotHubAuthenticationProvider sasAuth = new IotHubAuthenticationProviderMock(expectedHostname, expectedGatewayHostname, expectedDeviceId, expectedModuleId);
@@ -145,7 +149,7 @@ public class IotHubAuthenticationProviderTest
         new NonStrictExpectations()
         {
             {
-                Deencapsulation.newInstance(IotHubSSLContext.class);
+                IotHubSSLContextCache.getDefaultSSLContext();
                 result = new CertificateException();
             }
         };
@@ -156,7 +160,7 @@ public class IotHubAuthenticationProviderTest
 
     //Codes_SRS_AUTHENTICATIONPROVIDER_34_011: [This function shall return the generated IotHubSSLContext.]
     @Test
-    public void getSSLContextSuccess() throws IOException
+    public void getSSLContextSuccess() throws Exception
     {
         //arrange
         IotHubAuthenticationProvider sasAuth = new IotHubAuthenticationProviderMock(expectedHostname, expectedGatewayHostname, expectedDeviceId, expectedModuleId);
@@ -164,7 +168,10 @@ public class IotHubAuthenticationProviderTest
         new NonStrictExpectations()
         {
             {
-                Deencapsulation.newInstance(IotHubSSLContext.class);
+                IotHubSSLContextCache.getDefaultSSLContext();
+                result = mockedSSLContext;
+
+                new IotHubSSLContext(mockedSSLContext);
                 result = mockedIotHubSSLContext;
 
                 Deencapsulation.invoke(mockedIotHubSSLContext, "getSSLContext");
@@ -219,7 +226,7 @@ public class IotHubAuthenticationProviderTest
 
     // Tests_SRS_AUTHENTICATIONPROVIDER_34_019: [If this has a saved iotHubTrustedCert, this function shall generate a new IotHubSSLContext object with that saved cert as the trusted cert.]
     @Test
-    public void generateSSLContextUsesSavedTrustedCert()
+    public void generateSSLContextUsesSavedTrustedCert() throws Exception
     {
         //arrange
         final String expectedCert = "someTrustedCert";
@@ -233,7 +240,9 @@ public class IotHubAuthenticationProviderTest
         new Verifications()
         {
             {
-                Deencapsulation.newInstance(IotHubSSLContext.class, new Class[] {String.class, boolean.class}, expectedCert, false);
+                IotHubSSLContextCache.getSSLContext(expectedCert);
+                times = 1;
+                new IotHubSSLContext((SSLContext) any);
                 times = 1;
             }
         };
@@ -263,7 +272,7 @@ public class IotHubAuthenticationProviderTest
     
     // Tests_SRS_AUTHENTICATIONPROVIDER_34_021: [If this has no saved iotHubTrustedCert or path, This function shall create and save a new default IotHubSSLContext object.]
     @Test
-    public void generateSSLContextGeneratesDefaultIotHubSSLContext()
+    public void generateSSLContextGeneratesDefaultIotHubSSLContext() throws Exception
     {
         //arrange
         IotHubAuthenticationProvider auth = new IotHubAuthenticationProviderMock(expectedHostname, expectedGatewayHostname, expectedDeviceId, expectedModuleId);
@@ -275,7 +284,9 @@ public class IotHubAuthenticationProviderTest
         new Verifications()
         {
             {
-                Deencapsulation.newInstance(IotHubSSLContext.class);
+                IotHubSSLContextCache.getDefaultSSLContext();
+                times = 1;
+                new IotHubSSLContext((SSLContext) any);
                 times = 1;
             }
         };
@@ -0,0 +1,105 @@
+/*
+ *
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ *
+ */
+
+package com.microsoft.azure.sdk.iot.provisioning.device;
+
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ProvisioningDeviceClientContract;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.BatchProvisioningTask;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Registers many devices with the provisioning service, such as the devices of a factory line or of a simulation,
+ * over a small, fixed number of connections and threads instead of the connection and three threads that each
+ * {@link ProvisioningDeviceClient} uses.
+ *
+ * <p>HTTPS lets the registrations of all the devices share the connections, so it gives the highest throughput. AMQP
+ * and MQTT connections are authenticated as a single device, so over them at most {@code maxConnections} devices are
+ * registered at a time.</p>
+ */
+public class ProvisioningDeviceBatchClient
+{
+    private final BatchProvisioningTask batchProvisioningTask;
+
+    /**
+     * Creates an instance of ProvisioningDeviceBatchClient
+     * @param globalEndpoint global endpoint for the service to connect to. Cannot be {@code null}.
+     * @param idScope IdScope for the instance of the service hosted by you. Cannot be {@code null}.
+     * @param protocol Protocol to communicate with the service onto. Cannot be {@code null}.
+     * @param maxConnections the maximum number of connections to the service, which is also the number of threads
+     *                       that send the requests. Must be positive.
+     * @return An instance of ProvisioningDeviceBatchClient
+     * @throws ProvisioningDeviceClientException if any of the underlying API calls fail to process.
+     */
+    public static ProvisioningDeviceBatchClient create(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, int maxConnections) throws ProvisioningDeviceClientException
+    {
+        return new ProvisioningDeviceBatchClient(new BatchProvisioningTask(globalEndpoint, idScope, protocol, maxConnections, ProvisioningDeviceClientContract::createProvisioningContract));
+    }
+
+    private ProvisioningDeviceBatchClient(BatchProvisioningTask batchProvisioningTask)
+    {
+        this.batchProvisioningTask = batchProvisioningTask;
+    }
+
+    /**
+     * Queues the registration of a device with the service
+     * @param securityProvider Security Provider for X509, TPM or symmetric key flow of the device. Cannot be {@code null}.
+     * @return a future that completes with the iothub uri and the device id once the device is assigned, or
+     * exceptionally with the cause of the failure of the registration
+     */
+    public CompletableFuture<ProvisioningDeviceClientRegistrationResult> registerDevice(SecurityProvider securityProvider)
+    {
+        return this.batchProvisioningTask.register(securityProvider, null);
+    }
+
+    /**
+     * Queues the registration of a device with the service
+     * @param securityProvider Security Provider for X509, TPM or symmetric key flow of the device. Cannot be {@code null}.
+     * @param additionalData the custom payload of the registration. Can be {@code null}.
+     * @return a future that completes with the iothub uri and the device id once the device is assigned, or
+     * exceptionally with the cause of the failure of the registration
+     */
+    public CompletableFuture<ProvisioningDeviceClientRegistrationResult> registerDevice(SecurityProvider securityProvider, AdditionalData additionalData)
+    {
+        return this.batchProvisioningTask.register(securityProvider, additionalData == null ? null : additionalData.getProvisioningPayload());
+    }
+
+    /**
+     * Queues the registration of many devices with the service
+     * @param securityProviders the Security Providers of the devices. Cannot be {@code null} or contain {@code null}.
+     * @return the futures of the registrations, in the order of the security providers
+     */
+    public List<CompletableFuture<ProvisioningDeviceClientRegistrationResult>> registerDevices(Collection<? extends SecurityProvider> securityProviders)
+    {
+        if (securityProviders == null)
+        {
+            throw new IllegalArgumentException("security providers cannot be null");
+        }
+
+        List<CompletableFuture<ProvisioningDeviceClientRegistrationResult>> results = new ArrayList<>(securityProviders.size());
+        for (SecurityProvider securityProvider : securityProviders)
+        {
+            results.add(this.batchProvisioningTask.register(securityProvider, null));
+        }
+
+        return results;
+    }
+
+    /**
+     * Closes the connections and stops the threads of the client. The registrations that have not completed complete
+     * exceptionally.
+     */
+    public void closeNow()
+    {
+        this.batchProvisioningTask.close();
+    }
+}
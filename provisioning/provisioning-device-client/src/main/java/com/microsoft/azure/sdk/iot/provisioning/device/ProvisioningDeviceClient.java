@@ -13,8 +13,10 @@ import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.Provisi
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
 import com.microsoft.azure.sdk.iot.provisioning.device.AdditionalData;
+import com.microsoft.azure.sdk.iot.provisioning.security.exceptions.SecurityProviderException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -26,6 +28,8 @@ public class ProvisioningDeviceClient
     private ProvisioningDeviceClientConfig provisioningDeviceClientConfig;
     private ProvisioningDeviceClientContract provisioningDeviceClientContract;
     private ExecutorService executor;
+    private ProvisioningDeviceClientRegistrationCache registrationCache;
+    private volatile ProvisioningTask provisioningTask;
 
     /**
      * Creates an instance of ProvisioningDeviceClient
@@ -41,6 +45,31 @@ public class ProvisioningDeviceClient
         return new ProvisioningDeviceClient(globalEndpoint, idScope, protocol, securityProvider);
     }
 
+    /**
+     * Creates an instance of ProvisioningDeviceClient that registers the device with the service only if its last
+     * successful registration is not in the registration cache
+     * @param globalEndpoint global endpoint for the service to connect to. Cannot be {@code null}.
+     * @param idScope IdScope for the instance of the service hosted by you. Cannot be {@code null}.
+     * @param protocol Protocol to communicate with the service onto. Cannot be {@code null}.
+     * @param securityProvider Security Provider for X509 or TPM flow. Cannot be {@code null}.
+     * @param registrationCache the cache of the registrations, which can be shared by the clients of many devices.
+     *                          Cannot be {@code null}.
+     * @return An instance of ProvisioningDeviceClient
+     * @throws ProvisioningDeviceClientException if any of the underlying API calls fail to process.
+     */
+    public static ProvisioningDeviceClient create(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider,
+                                                  ProvisioningDeviceClientRegistrationCache registrationCache) throws ProvisioningDeviceClientException
+    {
+        if (registrationCache == null)
+        {
+            throw new IllegalArgumentException("registration cache cannot be null");
+        }
+
+        ProvisioningDeviceClient provisioningDeviceClient = new ProvisioningDeviceClient(globalEndpoint, idScope, protocol, securityProvider);
+        provisioningDeviceClient.registrationCache = registrationCache;
+        return provisioningDeviceClient;
+    }
+
     private ProvisioningDeviceClient(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider) throws ProvisioningDeviceClientException
     {
         if (globalEndpoint == null || globalEndpoint.isEmpty())
@@ -96,13 +125,7 @@ public class ProvisioningDeviceClient
             throw new IllegalArgumentException("registration callback cannot be null");
         }
 
-        //SRS_ProvisioningDeviceClient_25_009: [ This method shall set the config with the callback. ]
-        this.provisioningDeviceClientConfig.setRegistrationCallback(provisioningDeviceClientRegistrationCallback, context);
-
-        //SRS_ProvisioningDeviceClient_25_010: [ This method shall start the executor with the ProvisioningTask. ]
-        log.debug("Starting provisioning thread...");
-        ProvisioningTask provisioningTask = new ProvisioningTask(this.provisioningDeviceClientConfig, this.provisioningDeviceClientContract);
-        executor.submit(provisioningTask);
+        this.startRegistration(provisioningDeviceClientRegistrationCallback, context);
     }
 
     /**
@@ -122,20 +145,84 @@ public class ProvisioningDeviceClient
 
         this.provisioningDeviceClientConfig.setPayload(additionalData.getProvisioningPayload());
 
+        this.startRegistration(provisioningDeviceClientRegistrationCallback, context);
+    }
+
+    private void startRegistration(ProvisioningDeviceClientRegistrationCallback provisioningDeviceClientRegistrationCallback, Object context) throws ProvisioningDeviceClientException
+    {
+        ProvisioningDeviceClientRegistrationCallback registrationCallback = provisioningDeviceClientRegistrationCallback;
+        if (this.registrationCache != null)
+        {
+            ProvisioningDeviceClientRegistrationResult cachedResult = this.getCachedRegistration();
+            if (cachedResult != null)
+            {
+                log.info("Device was registered with hub {} before, skipping the registration with the device provisioning service", cachedResult.getIothubUri());
+                executor.submit(() -> provisioningDeviceClientRegistrationCallback.run(cachedResult, null, context));
+                return;
+            }
+
+            registrationCallback = this.cachingRegistrationCallback(provisioningDeviceClientRegistrationCallback);
+        }
+
         //SRS_ProvisioningDeviceClient_25_009: [ This method shall set the config with the callback. ]
-        this.provisioningDeviceClientConfig.setRegistrationCallback(provisioningDeviceClientRegistrationCallback, context);
+        this.provisioningDeviceClientConfig.setRegistrationCallback(registrationCallback, context);
 
         //SRS_ProvisioningDeviceClient_25_010: [ This method shall start the executor with the ProvisioningTask. ]
         log.debug("Starting provisioning thread...");
-        ProvisioningTask provisioningTask = new ProvisioningTask(this.provisioningDeviceClientConfig, this.provisioningDeviceClientContract);
-        executor.submit(provisioningTask);
+        this.provisioningTask = new ProvisioningTask(this.provisioningDeviceClientConfig, this.provisioningDeviceClientContract);
+        executor.submit(this.provisioningTask);
+    }
+
+    private ProvisioningDeviceClientRegistrationResult getCachedRegistration()
+    {
+        try
+        {
+            return this.registrationCache.get(this.provisioningDeviceClientConfig.getIdScope(),
+                                              this.provisioningDeviceClientConfig.getSecurityProvider(),
+                                              this.provisioningDeviceClientConfig.getPayload());
+        }
+        catch (SecurityProviderException e)
+        {
+            log.warn("Could not look up the cached registration of the device, registering with the device provisioning service", e);
+            return null;
+        }
+    }
+
+    private ProvisioningDeviceClientRegistrationCallback cachingRegistrationCallback(ProvisioningDeviceClientRegistrationCallback provisioningDeviceClientRegistrationCallback)
+    {
+        final String idScope = this.provisioningDeviceClientConfig.getIdScope();
+        final SecurityProvider securityProvider = this.provisioningDeviceClientConfig.getSecurityProvider();
+        final String requestPayload = this.provisioningDeviceClientConfig.getPayload();
+        return (result, exception, context) ->
+        {
+            if (exception == null && result != null)
+            {
+                try
+                {
+                    this.registrationCache.put(idScope, securityProvider, requestPayload, result);
+                }
+                catch (SecurityProviderException | IOException e)
+                {
+                    log.warn("Could not cache the registration of the device", e);
+                }
+            }
+
+            provisioningDeviceClientRegistrationCallback.run(result, exception, context);
+        };
     }
 
     /**
-     * Closes all the executors opened by the client if they have not already closed.
+     * Closes all the executors opened by the client if they have not already closed, and cancels the registration in
+     * progress, whose callback is then not invoked.
      */
     public void closeNow()
     {
+        ProvisioningTask provisioningTask = this.provisioningTask;
+        if (provisioningTask != null)
+        {
+            provisioningTask.cancel();
+        }
+
         //SRS_ProvisioningDeviceClient_25_011: [ This method shall check if executor is terminated and if not shall shutdown the executor. ]
         if (executor != null && !executor.isTerminated())
         {
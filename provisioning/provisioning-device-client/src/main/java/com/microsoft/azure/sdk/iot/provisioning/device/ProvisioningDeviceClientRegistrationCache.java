@@ -0,0 +1,263 @@
+/*
+ *
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ *
+ */
+
+package com.microsoft.azure.sdk.iot.provisioning.device;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.microsoft.azure.sdk.iot.deps.util.Base64;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderSymmetricKey;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderX509;
+import com.microsoft.azure.sdk.iot.provisioning.security.exceptions.SecurityProviderException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.PROVISIONING_DEVICE_STATUS_ASSIGNED;
+
+/**
+ * Local file that keeps the last successful registration of each device, so that a device that restarts can connect
+ * to the IoT hub it was assigned to without registering with the provisioning service again, and many devices
+ * restarting at once do not get throttled by the service.
+ *
+ * <p>A cached registration is only used by a device with the same registration id, id scope, custom payload and
+ * attestation, that is the same X509 client certificate or symmetric key, and until its time to live expires.
+ * Registrations of TPM devices are not cached, as their identity key is activated from the response of the service.
+ * If the IoT hub rejects the credentials of a device, {@link #invalidate(SecurityProvider)} its registration and
+ * register it again.</p>
+ */
+@Slf4j
+public class ProvisioningDeviceClientRegistrationCache
+{
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final Type CACHE_TYPE = new TypeToken<HashMap<String, CachedRegistration>>() {}.getType();
+
+    private final File cacheFile;
+    private final long timeToLiveInMs;
+    private final Map<String, CachedRegistration> cachedRegistrations;
+
+    /**
+     * Creates a registration cache saved in the given file, and loads the registrations already saved in it
+     * @param cacheFile the file of the cache, created on the first successful registration. Cannot be {@code null}.
+     * @param timeToLiveInMs the time after a registration after which the device registers again with the
+     *                       provisioning service. Must be positive.
+     */
+    public ProvisioningDeviceClientRegistrationCache(File cacheFile, long timeToLiveInMs)
+    {
+        if (cacheFile == null)
+        {
+            throw new IllegalArgumentException("cache file cannot be null");
+        }
+
+        if (timeToLiveInMs <= 0)
+        {
+            throw new IllegalArgumentException("time to live must be positive");
+        }
+
+        this.cacheFile = cacheFile;
+        this.timeToLiveInMs = timeToLiveInMs;
+        this.cachedRegistrations = load(cacheFile);
+    }
+
+    /**
+     * Removes the cached registration of a device, such as after the IoT hub rejected its credentials, so that its
+     * next registration goes to the provisioning service
+     * @param securityProvider the Security Provider of the device. Cannot be {@code null}.
+     * @throws SecurityProviderException if the registration id of the device could not be retrieved
+     * @throws IOException if the cache file could not be written
+     */
+    public synchronized void invalidate(SecurityProvider securityProvider) throws SecurityProviderException, IOException
+    {
+        if (securityProvider == null)
+        {
+            throw new IllegalArgumentException("security provider cannot be null");
+        }
+
+        if (this.cachedRegistrations.remove(securityProvider.getRegistrationId()) != null)
+        {
+            this.save();
+        }
+    }
+
+    /**
+     * Retrieves the cached registration of a device
+     * @return the cached registration, or {@code null} if there is none for the device, or it expired
+     */
+    synchronized ProvisioningDeviceClientRegistrationResult get(String idScope, SecurityProvider securityProvider, String requestPayload) throws SecurityProviderException
+    {
+        String fingerprint = getAttestationFingerprint(securityProvider);
+        if (fingerprint == null)
+        {
+            return null;
+        }
+
+        CachedRegistration cachedRegistration = this.cachedRegistrations.get(securityProvider.getRegistrationId());
+        if (cachedRegistration == null
+                || !idScope.equals(cachedRegistration.idScope)
+                || !fingerprint.equals(cachedRegistration.attestationFingerprint)
+                || !Objects.equals(requestPayload, cachedRegistration.requestPayload))
+        {
+            return null;
+        }
+
+        // the clock of a device may go back when it restarts, so a registration from the future is not trusted either
+        long age = System.currentTimeMillis() - cachedRegistration.registeredAtMs;
+        if (age < 0 || age >= this.timeToLiveInMs)
+        {
+            return null;
+        }
+
+        ProvisioningDeviceClientRegistrationResult result = new ProvisioningDeviceClientRegistrationResult();
+        result.iothubUri = cachedRegistration.iothubUri;
+        result.deviceId = cachedRegistration.deviceId;
+        result.payload = cachedRegistration.responsePayload;
+        result.provisioningDeviceClientStatus = PROVISIONING_DEVICE_STATUS_ASSIGNED;
+        return result;
+    }
+
+    /**
+     * Saves the registration of a device, if the device was assigned and its attestation can be cached
+     */
+    synchronized void put(String idScope, SecurityProvider securityProvider, String requestPayload, ProvisioningDeviceClientRegistrationResult result)
+            throws SecurityProviderException, IOException
+    {
+        String fingerprint = getAttestationFingerprint(securityProvider);
+        if (fingerprint == null || result.getProvisioningDeviceClientStatus() != PROVISIONING_DEVICE_STATUS_ASSIGNED)
+        {
+            return;
+        }
+
+        CachedRegistration cachedRegistration = new CachedRegistration();
+        cachedRegistration.idScope = idScope;
+        cachedRegistration.attestationFingerprint = fingerprint;
+        cachedRegistration.requestPayload = requestPayload;
+        cachedRegistration.iothubUri = result.getIothubUri();
+        cachedRegistration.deviceId = result.getDeviceId();
+        cachedRegistration.responsePayload = result.getProvisioningPayload();
+        cachedRegistration.registeredAtMs = System.currentTimeMillis();
+        this.cachedRegistrations.put(securityProvider.getRegistrationId(), cachedRegistration);
+        this.save();
+    }
+
+    private void save() throws IOException
+    {
+        // written to a temporary file first, so that a power loss while saving does not leave a truncated cache
+        Path cachePath = this.cacheFile.toPath();
+        Path temporaryPath = cachePath.resolveSibling(cachePath.getFileName() + TEMPORARY_FILE_SUFFIX);
+        Files.write(temporaryPath, GSON.toJson(this.cachedRegistrations, CACHE_TYPE).getBytes(StandardCharsets.UTF_8));
+        try
+        {
+            Files.move(temporaryPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temporaryPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Map<String, CachedRegistration> load(File cacheFile)
+    {
+        if (!cacheFile.exists())
+        {
+            return new HashMap<>();
+        }
+
+        try
+        {
+            Map<String, CachedRegistration> cachedRegistrations = GSON.fromJson(new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8), CACHE_TYPE);
+            return cachedRegistrations == null ? new HashMap<String, CachedRegistration>() : cachedRegistrations;
+        }
+        catch (IOException | JsonParseException e)
+        {
+            log.warn("Could not read the registration cache {}, all the devices will register with the provisioning service", cacheFile, e);
+            return new HashMap<>();
+        }
+    }
+
+    private static String getAttestationFingerprint(SecurityProvider securityProvider) throws SecurityProviderException
+    {
+        byte[] attestation;
+        if (securityProvider instanceof SecurityProviderX509)
+        {
+            X509Certificate clientCertificate = ((SecurityProviderX509) securityProvider).getClientCertificate();
+            try
+            {
+                attestation = clientCertificate == null ? null : clientCertificate.getEncoded();
+            }
+            catch (CertificateEncodingException e)
+            {
+                throw new SecurityProviderException(e);
+            }
+        }
+        else if (securityProvider instanceof SecurityProviderSymmetricKey)
+        {
+            attestation = ((SecurityProviderSymmetricKey) securityProvider).getSymmetricKey();
+        }
+        else
+        {
+            attestation = null;
+        }
+
+        if (attestation == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return Base64.encodeBase64StringLocal(MessageDigest.getInstance(FINGERPRINT_ALGORITHM).digest(attestation));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new SecurityProviderException(e);
+        }
+    }
+
+    private static class CachedRegistration
+    {
+        @SerializedName("idScope")
+        private String idScope;
+
+        @SerializedName("attestationFingerprint")
+        private String attestationFingerprint;
+
+        @SerializedName("requestPayload")
+        private String requestPayload;
+
+        @SerializedName("assignedHub")
+        private String iothubUri;
+
+        @SerializedName("deviceId")
+        private String deviceId;
+
+        @SerializedName("responsePayload")
+        private String responsePayload;
+
+        @SerializedName("registeredAtMs")
+        private long registeredAtMs;
+    }
+}
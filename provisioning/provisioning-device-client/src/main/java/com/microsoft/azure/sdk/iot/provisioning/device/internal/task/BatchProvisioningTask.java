@@ -0,0 +1,450 @@
+/*
+ *
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ *
+ */
+
+package com.microsoft.azure.sdk.iot.provisioning.device.internal.task;
+
+import com.microsoft.azure.sdk.iot.deps.util.Base64;
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientRegistrationResult;
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientTransportProtocol;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.ProvisioningDeviceClientConfig;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ProvisioningDeviceClientContract;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientAuthenticationException;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceHubException;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.parser.DeviceRegistrationResultParser;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.parser.RegistrationOperationStatusParser;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderTpm;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderX509;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.PROVISIONING_DEVICE_STATUS_ASSIGNED;
+
+/**
+ * Registers many devices with the provisioning service using a fixed number of connections and threads.
+ *
+ * <p>Over HTTPS, which has no connection state, all the registrations share a pool of {@code maxConnections}
+ * contracts, so a contract is only held for the duration of a single request. Over AMQP and MQTT, a connection is
+ * authenticated as a single device, so at most {@code maxConnections} registrations are in flight, each on its own
+ * connection. In both cases the registrations run on {@code maxConnections} worker threads, and the status polls are
+ * scheduled on a single shared timer after the retry-after value of the service, so that no thread sleeps while a
+ * registration is being assigned.</p>
+ */
+@Slf4j
+public class BatchProvisioningTask
+{
+    private static final int REGISTRATIONS_IN_FLIGHT_PER_HTTP_CONNECTION = 32;
+
+    private final String globalEndpoint;
+    private final String idScope;
+    private final ProvisioningDeviceClientTransportProtocol protocol;
+    private final ContractFactory contractFactory;
+    private final boolean isConnectionPerRegistration;
+    private final int maxRegistrationsInFlight;
+
+    private final BlockingQueue<ProvisioningDeviceClientContract> sharedContracts;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timer;
+
+    private final Queue<Registration> pendingRegistrations = new ArrayDeque<>();
+    private final Set<Registration> registrationsInFlight = Collections.newSetFromMap(new ConcurrentHashMap<Registration, Boolean>());
+    private boolean isClosed;
+
+    /**
+     * Creates the contract of a connection with the provisioning service
+     */
+    @FunctionalInterface
+    public interface ContractFactory
+    {
+        /**
+         * Creates the contract
+         * @param provisioningDeviceClientConfig the config of the registration, or of the batch for the shared HTTPS contracts
+         * @return the contract over the protocol of the config
+         * @throws ProvisioningDeviceClientException if the contract could not be created
+         */
+        ProvisioningDeviceClientContract create(ProvisioningDeviceClientConfig provisioningDeviceClientConfig) throws ProvisioningDeviceClientException;
+    }
+
+    @FunctionalInterface
+    private interface ContractCall
+    {
+        RegistrationOperationStatusParser call(ProvisioningDeviceClientContract contract) throws Exception;
+    }
+
+    /**
+     * Constructor for the batch provisioning task
+     * @param globalEndpoint global endpoint for the service to connect to. Cannot be {@code null} or empty.
+     * @param idScope IdScope for the instance of the service hosted by you. Cannot be {@code null} or empty.
+     * @param protocol Protocol to communicate with the service onto. Cannot be {@code null}.
+     * @param maxConnections the maximum number of connections and worker threads. Must be positive.
+     * @param contractFactory creates the contracts with the service. Cannot be {@code null}.
+     * @throws ProvisioningDeviceClientException if the shared contracts could not be created
+     */
+    public BatchProvisioningTask(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol,
+                                 int maxConnections, ContractFactory contractFactory) throws ProvisioningDeviceClientException
+    {
+        if (globalEndpoint == null || globalEndpoint.isEmpty())
+        {
+            throw new IllegalArgumentException("global endpoint cannot be null or empty");
+        }
+
+        if (idScope == null || idScope.isEmpty())
+        {
+            throw new IllegalArgumentException("scope id cannot be null or empty");
+        }
+
+        if (protocol == null)
+        {
+            throw new IllegalArgumentException("protocol cannot be null");
+        }
+
+        if (maxConnections < 1)
+        {
+            throw new IllegalArgumentException("maxConnections must be positive");
+        }
+
+        if (contractFactory == null)
+        {
+            throw new IllegalArgumentException("contract factory cannot be null");
+        }
+
+        this.globalEndpoint = globalEndpoint;
+        this.idScope = idScope;
+        this.protocol = protocol;
+        this.contractFactory = contractFactory;
+        this.isConnectionPerRegistration = protocol != ProvisioningDeviceClientTransportProtocol.HTTPS;
+        this.sharedContracts = new ArrayBlockingQueue<>(maxConnections);
+        if (this.isConnectionPerRegistration)
+        {
+            this.maxRegistrationsInFlight = maxConnections;
+        }
+        else
+        {
+            this.maxRegistrationsInFlight = maxConnections * REGISTRATIONS_IN_FLIGHT_PER_HTTP_CONNECTION;
+            for (int i = 0; i < maxConnections; i++)
+            {
+                this.sharedContracts.add(contractFactory.create(createConfig(null, null)));
+            }
+        }
+
+        this.workers = Executors.newFixedThreadPool(maxConnections);
+        this.timer = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * Queues the registration of a device
+     * @param securityProvider Security Provider for X509, TPM or symmetric key flow of the device. Cannot be {@code null}.
+     * @param payload custom json payload of the registration. Can be {@code null}.
+     * @return a future that completes with the registration result once the device is assigned, or exceptionally with
+     * a {@link ProvisioningDeviceHubException} if the service failed or disabled the registration, or with the
+     * {@link ProvisioningDeviceClientException} that stopped it
+     */
+    public CompletableFuture<ProvisioningDeviceClientRegistrationResult> register(SecurityProvider securityProvider, String payload)
+    {
+        if (securityProvider == null)
+        {
+            throw new IllegalArgumentException("Security provider cannot be null");
+        }
+
+        Registration registration = new Registration(securityProvider, payload);
+        synchronized (this)
+        {
+            if (this.isClosed)
+            {
+                registration.result.completeExceptionally(new ProvisioningDeviceClientException("The batch provisioning task is closed"));
+                return registration.result;
+            }
+
+            this.pendingRegistrations.add(registration);
+            this.admitRegistrations();
+        }
+
+        return registration.result;
+    }
+
+    /**
+     * Getter for the number of registrations that are queued or in flight
+     * @return the number of registrations that have not completed
+     */
+    public synchronized int getIncompleteRegistrationCount()
+    {
+        return this.pendingRegistrations.size() + this.registrationsInFlight.size();
+    }
+
+    /**
+     * Stops the threads and closes the shared contracts once the calls already sent on them returned. The registrations
+     * that have not completed complete exceptionally.
+     */
+    public void close()
+    {
+        synchronized (this)
+        {
+            this.isClosed = true;
+        }
+
+        this.timer.shutdownNow();
+        this.workers.shutdownNow();
+
+        ProvisioningDeviceClientException closed = new ProvisioningDeviceClientException("The batch provisioning task was closed before the registration completed");
+        synchronized (this)
+        {
+            for (Registration registration : this.pendingRegistrations)
+            {
+                registration.result.completeExceptionally(closed);
+            }
+
+            this.pendingRegistrations.clear();
+        }
+
+        for (Registration registration : this.registrationsInFlight)
+        {
+            registration.finish(null, closed);
+        }
+
+        // a worker may still be sending on a shared contract, which would be closed under it
+        awaitTermination(this.timer);
+        awaitTermination(this.workers);
+
+        for (ProvisioningDeviceClientContract contract : this.sharedContracts)
+        {
+            closeContract(contract);
+        }
+    }
+
+    private synchronized void admitRegistrations()
+    {
+        while (!this.isClosed && !this.pendingRegistrations.isEmpty() && this.registrationsInFlight.size() < this.maxRegistrationsInFlight)
+        {
+            final Registration registration = this.pendingRegistrations.poll();
+            this.registrationsInFlight.add(registration);
+            this.workers.execute(registration::register);
+        }
+    }
+
+    private synchronized void onRegistrationFinished(Registration registration)
+    {
+        if (this.registrationsInFlight.remove(registration))
+        {
+            this.admitRegistrations();
+        }
+    }
+
+    private ProvisioningDeviceClientConfig createConfig(SecurityProvider securityProvider, String payload)
+    {
+        ProvisioningDeviceClientConfig config = new ProvisioningDeviceClientConfig();
+        config.setProvisioningServiceGlobalEndpoint(this.globalEndpoint);
+        config.setIdScope(this.idScope);
+        config.setProtocol(this.protocol);
+        config.setSecurityProvider(securityProvider);
+        config.setPayload(payload);
+        return config;
+    }
+
+    private static void awaitTermination(ExecutorService executor)
+    {
+        try
+        {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+            {
+                log.debug("Waiting for the calls to the device provisioning service to return");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeContract(ProvisioningDeviceClientContract contract)
+    {
+        try
+        {
+            contract.close();
+        }
+        catch (ProvisioningDeviceClientException e)
+        {
+            log.warn("Failed to close the connection to the device provisioning service", e);
+        }
+    }
+
+    /**
+     * State of the registration of a single device
+     */
+    private final class Registration
+    {
+        private final SecurityProvider securityProvider;
+        private final ProvisioningDeviceClientConfig config;
+        private final Authorization authorization = new Authorization();
+        private final CompletableFuture<ProvisioningDeviceClientRegistrationResult> result = new CompletableFuture<>();
+
+        // only used over AMQP and MQTT, where the connection is authenticated as this device
+        private ProvisioningDeviceClientContract ownContract;
+        private String operationId;
+
+        private Registration(SecurityProvider securityProvider, String payload)
+        {
+            this.securityProvider = securityProvider;
+            this.config = createConfig(securityProvider, payload);
+        }
+
+        private void register()
+        {
+            try
+            {
+                if (isConnectionPerRegistration)
+                {
+                    this.ownContract = contractFactory.create(this.config);
+                    this.ownContract.open(new RequestData(this.securityProvider.getRegistrationId(), this.securityProvider.getSSLContext(),
+                            this.securityProvider instanceof SecurityProviderX509, this.config.getPayload()));
+                }
+
+                execute(contract -> new RegisterTask(this.config, this.securityProvider, contract, this.authorization).call());
+            }
+            catch (Exception e)
+            {
+                finish(null, e);
+            }
+        }
+
+        private void pollStatus()
+        {
+            execute(contract -> new StatusTask(this.securityProvider, contract, this.operationId, this.authorization).call());
+        }
+
+        private void execute(ContractCall contractCall)
+        {
+            try
+            {
+                ProvisioningDeviceClientContract contract = this.ownContract != null ? this.ownContract : sharedContracts.take();
+                RegistrationOperationStatusParser response;
+                long retryAfterMillis;
+                try
+                {
+                    response = contractCall.call(contract);
+                    retryAfterMillis = contract.getRetryValue();
+                }
+                finally
+                {
+                    if (contract != this.ownContract)
+                    {
+                        sharedContracts.add(contract);
+                    }
+                }
+
+                onResponse(response, retryAfterMillis);
+            }
+            catch (InterruptedException e)
+            {
+                // interrupted while waiting for a shared contract, when the task is closed
+                Thread.currentThread().interrupt();
+                finish(null, new ProvisioningDeviceClientException("The batch provisioning task was closed before the registration completed", e));
+            }
+            catch (Exception e)
+            {
+                finish(null, e);
+            }
+        }
+
+        private void onResponse(RegistrationOperationStatusParser response, long retryAfterMillis) throws Exception
+        {
+            if (response == null || response.getStatus() == null)
+            {
+                throw new ProvisioningDeviceClientAuthenticationException("Registration status could not be retrieved, authentication failure");
+            }
+
+            if (this.operationId == null)
+            {
+                this.operationId = response.getOperationId();
+                if (this.operationId == null)
+                {
+                    throw new ProvisioningDeviceClientAuthenticationException("operation id could not be retrieved, authentication failure");
+                }
+            }
+
+            ProvisioningStatus status = ProvisioningStatus.fromString(response.getStatus());
+            if (status == null)
+            {
+                throw new ProvisioningDeviceClientException("Did not receive a valid status");
+            }
+
+            switch (status)
+            {
+                case UNASSIGNED:
+                    //intended fall through
+                case ASSIGNING:
+                    timer.schedule(() -> workers.execute(this::pollStatus), retryAfterMillis, TimeUnit.MILLISECONDS);
+                    break;
+
+                case ASSIGNED:
+                    finish(assignedResult(response.getRegistrationState()), null);
+                    break;
+
+                case FAILED:
+                    //intended fall through
+                case DISABLED:
+                    String errorMessage = response.getRegistrationState() == null ? null : response.getRegistrationState().getErrorMessage();
+                    log.error("Device provisioning service failed to provision the device, finished with status {}: {}", status, errorMessage);
+                    finish(null, new ProvisioningDeviceHubException(errorMessage));
+                    break;
+            }
+        }
+
+        private ProvisioningDeviceClientRegistrationResult assignedResult(DeviceRegistrationResultParser registrationState) throws Exception
+        {
+            if (registrationState == null
+                    || registrationState.getAssignedHub() == null
+                    || registrationState.getAssignedHub().isEmpty()
+                    || registrationState.getDeviceId() == null
+                    || registrationState.getDeviceId().isEmpty())
+            {
+                throw new ProvisioningDeviceClientException("Could not retrieve Assigned Hub or Device ID and status changed to Assigned");
+            }
+
+            if (this.securityProvider instanceof SecurityProviderTpm)
+            {
+                if (registrationState.getTpm() == null
+                        || registrationState.getTpm().getAuthenticationKey() == null
+                        || registrationState.getTpm().getAuthenticationKey().isEmpty())
+                {
+                    throw new ProvisioningDeviceClientException("Could not retrieve Authentication key when status was assigned");
+                }
+
+                String authenticationKey = registrationState.getTpm().getAuthenticationKey();
+                ((SecurityProviderTpm) this.securityProvider).activateIdentityKey(Base64.decodeBase64Local(authenticationKey.getBytes()));
+            }
+
+            return new RegistrationResult(registrationState.getAssignedHub(), registrationState.getDeviceId(),
+                    registrationState.getPayload(), PROVISIONING_DEVICE_STATUS_ASSIGNED);
+        }
+
+        private void finish(ProvisioningDeviceClientRegistrationResult registrationResult, Exception exception)
+        {
+            if (this.ownContract != null)
+            {
+                closeContract(this.ownContract);
+            }
+
+            // free the slot first, so that the registration is no longer counted once its future completes
+            onRegistrationFinished(this);
+
+            if (exception == null)
+            {
+                this.result.complete(registrationResult);
+            }
+            else
+            {
+                this.result.completeExceptionally(exception);
+            }
+        }
+    }
+}
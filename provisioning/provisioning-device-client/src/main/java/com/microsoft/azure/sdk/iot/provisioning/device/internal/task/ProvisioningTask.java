@@ -25,16 +25,15 @@ import com.microsoft.azure.sdk.iot.provisioning.security.exceptions.SecurityProv
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.*;
 
 @Slf4j
 public class ProvisioningTask implements Callable
 {
-    private static final int MAX_THREADS_TO_RUN = 2;
     private static final int MAX_TIME_TO_WAIT_FOR_REGISTRATION = 1000000;
     private static final int MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE = 10000;
-    private static final int DEFAULT_DELAY_BETWEEN_STATUS_CHECKS = 2 * 1000; //2 seconds
     private static final String THREAD_NAME = "azure-iot-sdk-ProvisioningTask";
 
     private SecurityProvider securityProvider = null;
@@ -46,8 +45,12 @@ public class ProvisioningTask implements Callable
 
     private Authorization authorization = null;
     private ProvisioningDeviceClientStatus dpsStatus = null;
+    private volatile boolean isRegistrationCallbackInvoked = false;
 
-    private ExecutorService executor;
+    // the step of the state machine in progress, so that a cancellation can stop it
+    private boolean isCancelled = false;
+    private CompletableFuture<?> pendingStep = null;
+    private Future<?> pendingExecution = null;
 
     /**
      * Constructor for creating a provisioning task
@@ -89,14 +92,17 @@ public class ProvisioningTask implements Callable
         }
 
         this.authorization = new Authorization();
-        //SRS_ProvisioningTask_25_015: [ Constructor shall start the executor with a fixed thread pool of size 2.]
-        this.executor = Executors.newFixedThreadPool(MAX_THREADS_TO_RUN);
     }
 
     private void invokeRegistrationCallback(RegistrationResult registrationInfo, Exception e) throws ProvisioningDeviceClientException
     {
-        if (this.provisioningDeviceClientRegistrationCallback != null)
+        if (this.isCancelled())
         {
+            log.debug("The registration was cancelled, the registration callback is not invoked");
+        }
+        else if (this.provisioningDeviceClientRegistrationCallback != null)
+        {
+            this.isRegistrationCallbackInvoked = true;
             this.provisioningDeviceClientRegistrationCallback.run(registrationInfo, e, this.dpsRegistrationCallbackContext);
         }
         else
@@ -105,81 +111,94 @@ public class ProvisioningTask implements Callable
         }
     }
 
-    private RegistrationOperationStatusParser invokeRegister() throws InterruptedException, ExecutionException, TimeoutException,
-                                                                      ProvisioningDeviceClientException
+    private CompletableFuture<RegistrationOperationStatusParser> invokeRegister()
     {
-        RegisterTask registerTask = new RegisterTask(this.provisioningDeviceClientConfig, securityProvider,
-                                                     provisioningDeviceClientContract, authorization);
-        FutureTask<RegistrationOperationStatusParser> futureRegisterTask = new FutureTask<RegistrationOperationStatusParser>(registerTask);
-        executor.submit(futureRegisterTask);
-        RegistrationOperationStatusParser registrationOperationStatusParser =  futureRegisterTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION,
-                                                                                                      TimeUnit.MILLISECONDS);
-       if (registrationOperationStatusParser == null)
+        RegisterTask registerTask;
+        try
         {
-            this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
-            throw new ProvisioningDeviceClientAuthenticationException("Registration response could not be retrieved, " +
-                    "authentication failure");
+            registerTask = new RegisterTask(this.provisioningDeviceClientConfig, securityProvider, provisioningDeviceClientContract, authorization);
         }
-
-        ProvisioningStatus status = ProvisioningStatus.fromString(registrationOperationStatusParser.getStatus());
-        if (status == null)
+        catch (ProvisioningDeviceClientException e)
         {
-            this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
-            throw new ProvisioningDeviceClientAuthenticationException("Received null status for registration, " +
-                    "authentication failure");
+            return failedFuture(e);
         }
 
-        if (registrationOperationStatusParser.getOperationId() == null)
-        {
-            throw new ProvisioningDeviceClientAuthenticationException("operation id could not be retrieved, " +
-                    "authentication failure");
-        }
+        return runStep(registerTask::call, MAX_TIME_TO_WAIT_FOR_REGISTRATION)
+                .thenApply(registrationOperationStatusParser ->
+                {
+                    if (registrationOperationStatusParser == null)
+                    {
+                        this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
+                        throw new CompletionException(new ProvisioningDeviceClientAuthenticationException("Registration response could not be retrieved, " +
+                                "authentication failure"));
+                    }
 
-        return registrationOperationStatusParser;
+                    ProvisioningStatus status = ProvisioningStatus.fromString(registrationOperationStatusParser.getStatus());
+                    if (status == null)
+                    {
+                        this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
+                        throw new CompletionException(new ProvisioningDeviceClientAuthenticationException("Received null status for registration, " +
+                                "authentication failure"));
+                    }
+
+                    if (registrationOperationStatusParser.getOperationId() == null)
+                    {
+                        throw new CompletionException(new ProvisioningDeviceClientAuthenticationException("operation id could not be retrieved, " +
+                                "authentication failure"));
+                    }
+
+                    return registrationOperationStatusParser;
+                });
     }
 
-    private RegistrationOperationStatusParser invokeStatus(String operationId) throws TimeoutException, InterruptedException, ExecutionException,
-                                                                                      ProvisioningDeviceClientException
+    private CompletableFuture<RegistrationOperationStatusParser> invokeStatus(String operationId)
     {
-        Thread.sleep(provisioningDeviceClientContract.getRetryValue());
-        StatusTask statusTask = new StatusTask(securityProvider, provisioningDeviceClientContract, operationId,
-                                               this.authorization);
-        FutureTask<RegistrationOperationStatusParser> futureStatusTask = new FutureTask<RegistrationOperationStatusParser>(statusTask);
-        executor.submit(futureStatusTask);
-        RegistrationOperationStatusParser statusRegistrationOperationStatusParser =  futureStatusTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
-
-        if (statusRegistrationOperationStatusParser == null)
-        {
-            this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
-            throw new ProvisioningDeviceClientAuthenticationException("Status response could not be retrieved, " +
-                    "authentication failure");
-        }
-        if (statusRegistrationOperationStatusParser.getStatus() == null)
-        {
-            this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
-            throw new ProvisioningDeviceClientAuthenticationException("Status could not be retrieved, " +
-                    "authentication failure");
-        }
+        CompletableFuture<Void> retryAfter = new CompletableFuture<>();
+        ScheduledFuture<?> poll = SharedExecutors.TIMER.schedule(() -> retryAfter.complete(null), provisioningDeviceClientContract.getRetryValue(), TimeUnit.MILLISECONDS);
+
+        return this.track(retryAfter, poll)
+                .thenCompose(ignored ->
+                {
+                    StatusTask statusTask;
+                    try
+                    {
+                        statusTask = new StatusTask(securityProvider, provisioningDeviceClientContract, operationId, this.authorization);
+                    }
+                    catch (ProvisioningDeviceClientException e)
+                    {
+                        return failedFuture(e);
+                    }
 
-        if (ProvisioningStatus.fromString(statusRegistrationOperationStatusParser.getStatus()) == null)
-        {
-            this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
-            throw new ProvisioningDeviceClientAuthenticationException("Status could not be retrieved, " +
-                    "authentication failure");
-        }
-        return statusRegistrationOperationStatusParser;
-    }
+                    return runStep(statusTask::call, MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE);
+                })
+                .thenApply(statusRegistrationOperationStatusParser ->
+                {
+                    if (statusRegistrationOperationStatusParser == null)
+                    {
+                        this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
+                        throw new CompletionException(new ProvisioningDeviceClientAuthenticationException("Status response could not be retrieved, " +
+                                "authentication failure"));
+                    }
+
+                    if (statusRegistrationOperationStatusParser.getStatus() == null
+                            || ProvisioningStatus.fromString(statusRegistrationOperationStatusParser.getStatus()) == null)
+                    {
+                        this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
+                        throw new CompletionException(new ProvisioningDeviceClientAuthenticationException("Status could not be retrieved, " +
+                                "authentication failure"));
+                    }
 
-    private void executeStateMachineForStatus(RegistrationOperationStatusParser registrationOperationStatusParser)
-            throws TimeoutException, InterruptedException, ExecutionException, ProvisioningDeviceClientException, SecurityProviderException
+                    return statusRegistrationOperationStatusParser;
+                });
+    }
 
+    private CompletableFuture<Void> executeStateMachineForStatus(RegistrationOperationStatusParser registrationOperationStatusParser,
+                                                                 RegistrationOperationStatusParser statusRegistrationOperationStatusParser)
     {
-        boolean isContinue = false;
-        RegistrationOperationStatusParser statusRegistrationOperationStatusParser = registrationOperationStatusParser;
-        ProvisioningStatus nextStatus = ProvisioningStatus.fromString(registrationOperationStatusParser.getStatus());
+        ProvisioningStatus nextStatus = ProvisioningStatus.fromString(statusRegistrationOperationStatusParser.getStatus());
         log.info("Current provisioning status: {}", nextStatus);
-        // continue invoking for status until a terminal state is reached
-        do
+
+        try
         {
             if (nextStatus == null)
             {
@@ -191,48 +210,18 @@ public class ProvisioningTask implements Callable
                 case UNASSIGNED:
                     //intended fall through
                 case ASSIGNING:
+                    // continue invoking for status until a terminal state is reached, without holding a thread in between
                     log.trace("Polling device provisioning service for status of registration...");
-                    statusRegistrationOperationStatusParser = this.invokeStatus(registrationOperationStatusParser.getOperationId());
-                    nextStatus = ProvisioningStatus.fromString(statusRegistrationOperationStatusParser.getStatus());
-                    isContinue = true;
-                    break;
+                    return this.invokeStatus(registrationOperationStatusParser.getOperationId())
+                            .thenCompose(status -> this.executeStateMachineForStatus(registrationOperationStatusParser, status));
+
                 case ASSIGNED:
                     this.dpsStatus = PROVISIONING_DEVICE_STATUS_ASSIGNED;
-                    DeviceRegistrationResultParser registrationStatus = statusRegistrationOperationStatusParser.getRegistrationState();
-
-                    if (registrationStatus == null
-                            || registrationStatus.getAssignedHub() == null
-                            || registrationStatus.getAssignedHub().isEmpty()
-                            || registrationStatus.getDeviceId() == null
-                            || registrationStatus.getDeviceId().isEmpty())
-                    {
-                        //Codes_SRS_ProvisioningTask_34_018: [Upon reaching the terminal state ASSIGNED, if the registration status json is missing an assigned hub or device id, this function shall throw a ProvisioningDeviceClientException.]
-                        throw new ProvisioningDeviceClientException("Could not retrieve Assigned Hub or Device ID and status changed to Assigned");
-                    }
-
-                    RegistrationResult registrationInfo = new RegistrationResult(
-                                                            registrationStatus.getAssignedHub(),
-                                                            registrationStatus.getDeviceId(),
-                                                            registrationStatus.getPayload(), PROVISIONING_DEVICE_STATUS_ASSIGNED);
-
-                    if (this.securityProvider instanceof SecurityProviderTpm)
-                    {
-                        if (registrationStatus.getTpm() == null
-                                || registrationStatus.getTpm().getAuthenticationKey() == null
-                                || registrationStatus.getTpm().getAuthenticationKey().isEmpty())
-                        {
-                            //Codes_SRS_ProvisioningTask_34_017: [Upon reaching the terminal state ASSIGNED, if the saved security client is an instance of SecurityClientTpm and if the registration status json does not contain an authentication key, this function shall throw a ProvisioningDeviceClientException.]
-                            throw new ProvisioningDeviceClientException("Could not retrieve Authentication key when status was assigned");
-                        }
-
-                        //Codes_SRS_ProvisioningTask_34_016: [Upon reaching the terminal state ASSIGNED, if the saved security client is an instance of SecurityClientTpm, the security client shall decrypt and store the authentication key from the statusResponseParser.]
-                        String authenticationKey = registrationStatus.getTpm().getAuthenticationKey();
-                        ((SecurityProviderTpm) this.securityProvider).activateIdentityKey(Base64.decodeBase64Local(authenticationKey.getBytes()));
-                    }
+                    RegistrationResult registrationInfo = createAssignedResult(statusRegistrationOperationStatusParser.getRegistrationState(), this.securityProvider);
                     log.info("Device provisioning service assigned the device successfully");
                     this.invokeRegistrationCallback(registrationInfo, null);
-                    isContinue = false;
                     break;
+
                 case FAILED:
                     this.dpsStatus = PROVISIONING_DEVICE_STATUS_FAILED;
                     String errorMessage = statusRegistrationOperationStatusParser.getRegistrationState().getErrorMessage();
@@ -240,8 +229,8 @@ public class ProvisioningTask implements Callable
                     registrationInfo = new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_FAILED);
                     log.error("Device provisioning service failed to provision the device, finished with status FAILED: {}", errorMessage);
                     this.invokeRegistrationCallback(registrationInfo, dpsHubException);
-                    isContinue = false;
                     break;
+
                 case DISABLED:
                     this.dpsStatus = PROVISIONING_DEVICE_STATUS_DISABLED;
                     String disabledErrorMessage = statusRegistrationOperationStatusParser.getRegistrationState().getErrorMessage();
@@ -249,77 +238,296 @@ public class ProvisioningTask implements Callable
                     registrationInfo = new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_DISABLED);
                     log.error("Device provisioning service failed to provision the device, finished with status DISABLED: {}", disabledErrorMessage);
                     this.invokeRegistrationCallback(registrationInfo, dpsHubException);
-                    isContinue = false;
                     break;
             }
         }
-        while (isContinue);
+        catch (ProvisioningDeviceClientException | SecurityProviderException e)
+        {
+            return failedFuture(e);
+        }
+
+        return CompletableFuture.completedFuture(null);
     }
 
-    // this thread will continue to run until DPS status is assigned and registered or exit on error
-    // DPS State machine
+    /**
+     * Creates the result of a registration that reached the terminal state ASSIGNED
+     * @param registrationStatus the registration state sent by the service
+     * @param securityProvider the security provider of the device, whose identity key is activated for TPM
+     * @return the result with the iothub uri and the device id
+     * @throws ProvisioningDeviceClientException if the registration state is incomplete
+     * @throws SecurityProviderException if the TPM identity key could not be activated
+     */
+    private static RegistrationResult createAssignedResult(DeviceRegistrationResultParser registrationStatus, SecurityProvider securityProvider)
+            throws ProvisioningDeviceClientException, SecurityProviderException
+    {
+        if (registrationStatus == null
+                || registrationStatus.getAssignedHub() == null
+                || registrationStatus.getAssignedHub().isEmpty()
+                || registrationStatus.getDeviceId() == null
+                || registrationStatus.getDeviceId().isEmpty())
+        {
+            //Codes_SRS_ProvisioningTask_34_018: [Upon reaching the terminal state ASSIGNED, if the registration status json is missing an assigned hub or device id, this function shall throw a ProvisioningDeviceClientException.]
+            throw new ProvisioningDeviceClientException("Could not retrieve Assigned Hub or Device ID and status changed to Assigned");
+        }
+
+        RegistrationResult registrationInfo = new RegistrationResult(
+                registrationStatus.getAssignedHub(),
+                registrationStatus.getDeviceId(),
+                registrationStatus.getPayload(), PROVISIONING_DEVICE_STATUS_ASSIGNED);
 
+        if (securityProvider instanceof SecurityProviderTpm)
+        {
+            if (registrationStatus.getTpm() == null
+                    || registrationStatus.getTpm().getAuthenticationKey() == null
+                    || registrationStatus.getTpm().getAuthenticationKey().isEmpty())
+            {
+                //Codes_SRS_ProvisioningTask_34_017: [Upon reaching the terminal state ASSIGNED, if the saved security client is an instance of SecurityClientTpm and if the registration status json does not contain an authentication key, this function shall throw a ProvisioningDeviceClientException.]
+                throw new ProvisioningDeviceClientException("Could not retrieve Authentication key when status was assigned");
+            }
+
+            //Codes_SRS_ProvisioningTask_34_016: [Upon reaching the terminal state ASSIGNED, if the saved security client is an instance of SecurityClientTpm, the security client shall decrypt and store the authentication key from the statusResponseParser.]
+            String authenticationKey = registrationStatus.getTpm().getAuthenticationKey();
+            ((SecurityProviderTpm) securityProvider).activateIdentityKey(Base64.decodeBase64Local(authenticationKey.getBytes()));
+        }
+
+        return registrationInfo;
+    }
+
+    // DPS State machine
     /**
-     * This method executes the State machine with the device goes through during registration.
+     * This method starts the State machine with the device goes through during registration, and returns without
+     * waiting for it. The registration callback is invoked once a terminal state is reached or the registration failed.
      * @return Returns {@code null}
      * @throws Exception This exception is thrown if any of the exception during execution is not handled.
      */
     @Override
     public Object call() throws Exception
     {
-        Thread.currentThread().setName(THREAD_NAME);
+        this.start();
+        return null;
+    }
 
-        try
+    /**
+     * This method starts the State machine with the device goes through during registration. No thread is held while
+     * the state machine waits for the retry-after interval of the service between two status polls.
+     * @return a future that completes once the registration callback has been invoked and the contract closed
+     */
+    public CompletableFuture<Void> start()
+    {
+        return this.supplyAsync(() ->
         {
             //SRS_ProvisioningTask_25_015: [ This method shall invoke open call on the contract.]
             log.info("Opening the connection to device provisioning service...");
             provisioningDeviceClientContract.open(new RequestData(securityProvider.getRegistrationId(), securityProvider.getSSLContext(), securityProvider instanceof SecurityProviderX509, provisioningDeviceClientConfig.getPayload()));
-            //SRS_ProvisioningTask_25_007: [ This method shall invoke Register task and status task to execute the state machine of the service as per below rules.]
-            /*
-            Service State Machine Rules
-
-            SRS_ProvisioningTask_25_008: [ This method shall invoke register task and wait for it to complete.]
-            SRS_ProvisioningTask_25_009: [ This method shall invoke status callback with status PROVISIONING_DEVICE_STATUS_AUTHENTICATED if register task completes successfully.]
-            SRS_ProvisioningTask_25_010: [ This method shall invoke status task to get the current state of the device registration and wait until a terminal state is reached.]
-            SRS_ProvisioningTask_25_011: [ Upon reaching one of the terminal state i.e ASSIGNED, this method shall invoke registration callback with the information retrieved from service for IotHub Uri and DeviceId. Also if status callback is defined then it shall be invoked with status PROVISIONING_DEVICE_STATUS_ASSIGNED.]
-            SRS_ProvisioningTask_25_012: [ Upon reaching one of the terminal states i.e FAILED or DISABLED, this method shall invoke registration callback with error message received from service. Also if status callback is defined then it shall be invoked with status PROVISIONING_DEVICE_STATUS_ERROR.]
-            SRS_ProvisioningTask_25_013: [ Upon reaching intermediate state i.e UNASSIGNED or ASSIGNING, this method shall continue to query for status until a terminal state is reached. Also if status callback is defined then it shall be invoked with status PROVISIONING_DEVICE_STATUS_ASSIGNING.]
-            State diagram :
-
-            One of the following states can be reached from register or status task - (A) Unassigned (B) Assigning (C) Assigned (D) Fail (E) Disable
-
-                Return-State	A	            B	        C	        D	        E
-                Register-State	B, C, D, E	    C, D, E	    terminal	terminal	terminal
-                Status-State	B, C, D, E	    C, D, E	    terminal	terminal	terminal
-             */
+            return null;
+        })
+        //SRS_ProvisioningTask_25_007: [ This method shall invoke Register task and status task to execute the state machine of the service as per below rules.]
+        /*
+        Service State Machine Rules
+
+        SRS_ProvisioningTask_25_008: [ This method shall invoke register task and wait for it to complete.]
+        SRS_ProvisioningTask_25_009: [ This method shall invoke status callback with status PROVISIONING_DEVICE_STATUS_AUTHENTICATED if register task completes successfully.]
+        SRS_ProvisioningTask_25_010: [ This method shall invoke status task to get the current state of the device registration and wait until a terminal state is reached.]
+        SRS_ProvisioningTask_25_011: [ Upon reaching one of the terminal state i.e ASSIGNED, this method shall invoke registration callback with the information retrieved from service for IotHub Uri and DeviceId. Also if status callback is defined then it shall be invoked with status PROVISIONING_DEVICE_STATUS_ASSIGNED.]
+        SRS_ProvisioningTask_25_012: [ Upon reaching one of the terminal states i.e FAILED or DISABLED, this method shall invoke registration callback with error message received from service. Also if status callback is defined then it shall be invoked with status PROVISIONING_DEVICE_STATUS_ERROR.]
+        SRS_ProvisioningTask_25_013: [ Upon reaching intermediate state i.e UNASSIGNED or ASSIGNING, this method shall continue to query for status until a terminal state is reached. Also if status callback is defined then it shall be invoked with status PROVISIONING_DEVICE_STATUS_ASSIGNING.]
+        State diagram :
+
+        One of the following states can be reached from register or status task - (A) Unassigned (B) Assigning (C) Assigned (D) Fail (E) Disable
+            Return-State	A	            B	        C	        D	        E
+            Register-State	B, C, D, E	    C, D, E	    terminal	terminal	terminal
+            Status-State	B, C, D, E	    C, D, E	    terminal	terminal	terminal
+         */
+        .thenCompose(ignored ->
+        {
             log.info("Connection to device provisioning service opened successfully, sending initial device registration message");
-            RegistrationOperationStatusParser registrationOperationStatusParser = this.invokeRegister();
-
+            return this.invokeRegister();
+        })
+        .thenCompose(registrationOperationStatusParser ->
+        {
             log.info("Waiting for device provisioning service to provision this device...");
-            this.executeStateMachineForStatus(registrationOperationStatusParser);
-            this.close();
-        }
-        catch (ExecutionException | TimeoutException | ProvisioningDeviceClientException | SecurityProviderException e)
+            return this.executeStateMachineForStatus(registrationOperationStatusParser, registrationOperationStatusParser);
+        })
+        .handle((ignored, throwable) ->
         {
-            //SRS_ProvisioningTask_25_006: [ This method shall invoke the status callback, if any of the task fail or throw any exception. ]
-            this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
-            invokeRegistrationCallback(new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_ERROR), e);
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (this.isCancelled())
+            {
+                log.info("Device provisioning was cancelled");
+            }
+            else if (cause instanceof Exception && !this.isRegistrationCallbackInvoked)
+            {
+                //SRS_ProvisioningTask_25_006: [ This method shall invoke the status callback, if any of the task fail or throw any exception. ]
+                this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
+                try
+                {
+                    invokeRegistrationCallback(new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_ERROR), (Exception) cause);
+                }
+                catch (ProvisioningDeviceClientException e)
+                {
+                    log.error("Failed to invoke the registration callback", e);
+                }
+            }
+            else if (cause != null)
+            {
+                log.error("Device provisioning failed after the registration callback was invoked", cause);
+            }
+
             //SRS_ProvisioningTask_25_015: [ This method shall invoke close call on the contract and close the threads started.]
             this.close();
+            return null;
+        });
+    }
+
+    /**
+     * Cancels the registration: the step in progress or the scheduled status poll is stopped, no other step is
+     * started, the contract is closed and the registration callback is not invoked, unless it already was.
+     */
+    public void cancel()
+    {
+        CompletableFuture<?> step;
+        Future<?> execution;
+        synchronized (this)
+        {
+            if (this.isCancelled)
+            {
+                return;
+            }
+
+            this.isCancelled = true;
+            step = this.pendingStep;
+            execution = this.pendingExecution;
         }
-        return null;
+
+        if (execution != null)
+        {
+            execution.cancel(true);
+        }
+
+        if (step != null)
+        {
+            step.completeExceptionally(new CancellationException("The registration was cancelled"));
+        }
+    }
+
+    private synchronized boolean isCancelled()
+    {
+        return this.isCancelled;
+    }
+
+    /**
+     * Makes the given step the one that {@link #cancel()} stops, or stops it right away if the registration was
+     * already cancelled
+     */
+    private <T> CompletableFuture<T> track(CompletableFuture<T> step, Future<?> execution)
+    {
+        synchronized (this)
+        {
+            if (!this.isCancelled)
+            {
+                // a step completed on another thread may be tracked after the step that follows it
+                if (!step.isDone())
+                {
+                    this.pendingStep = step;
+                    this.pendingExecution = execution;
+                }
+                return step;
+            }
+        }
+
+        execution.cancel(true);
+        step.completeExceptionally(new CancellationException("The registration was cancelled"));
+        return step;
     }
 
     /**
-     * This method shall shutdown the existing threads if not already done so.
+     * This method shall close the contract with the service.
      */
-    private void close() throws ProvisioningDeviceConnectionException
+    private void close()
     {
-        provisioningDeviceClientContract.close();
-        //SRS_ProvisioningTask_25_014: [ This method shall shutdown the executors if they have not already shutdown. ]
-        if (executor != null && !executor.isShutdown())
+        try
         {
-            executor.shutdownNow();
+            provisioningDeviceClientContract.close();
         }
+        catch (ProvisioningDeviceConnectionException e)
+        {
+            log.warn("Failed to close the connection to device provisioning service", e);
+        }
+    }
+
+    /**
+     * Runs a register or status task on the shared executor. As when the task was run as a {@link FutureTask}, its
+     * failure is reported as an {@link ExecutionException}, and a {@link TimeoutException} is reported if it did not
+     * complete in time.
+     */
+    private <T> CompletableFuture<T> runStep(Callable<T> task, long timeoutInMs)
+    {
+        CompletableFuture<T> step = new CompletableFuture<>();
+        Future<?> execution = SharedExecutors.STEP_EXECUTOR.submit(() ->
+        {
+            try
+            {
+                step.complete(task.call());
+            }
+            catch (Exception e)
+            {
+                step.completeExceptionally(new ExecutionException(e));
+            }
+        });
+
+        ScheduledFuture<?> timeout = SharedExecutors.TIMER.schedule(() ->
+        {
+            if (step.completeExceptionally(new TimeoutException()))
+            {
+                execution.cancel(true);
+            }
+        }, timeoutInMs, TimeUnit.MILLISECONDS);
+        step.whenComplete((result, throwable) -> timeout.cancel(false));
+
+        return this.track(step, execution);
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Callable<T> callable)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<?> execution = SharedExecutors.STEP_EXECUTOR.submit(() ->
+        {
+            try
+            {
+                future.complete(callable.call());
+            }
+            catch (Exception e)
+            {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return this.track(future, execution);
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Exception e)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    // shared by all the registrations, so that a registration waiting for its next status poll holds no thread. Created
+    // on first use.
+    private static final class SharedExecutors
+    {
+        private static final ExecutorService STEP_EXECUTOR = Executors.newCachedThreadPool(daemonThreadFactory(THREAD_NAME));
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory(THREAD_NAME + "-timer"));
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String name)
+    {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable ->
+        {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 }
@@ -0,0 +1,263 @@
+/*
+ *
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ *
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.provisioning.device;
+
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientRegistrationCache;
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientRegistrationResult;
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderSymmetricKey;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderTpm;
+import mockit.Deencapsulation;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.PROVISIONING_DEVICE_STATUS_ASSIGNED;
+import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.PROVISIONING_DEVICE_STATUS_FAILED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/*
+    Unit tests for ProvisioningDeviceClientRegistrationCache
+ */
+@RunWith(JMockit.class)
+public class ProvisioningDeviceClientRegistrationCacheTest
+{
+    private static final String SCOPE_ID = "testScopeId";
+    private static final String REGISTRATION_ID = "testRegistrationId";
+    private static final String IOTHUB_URI = "testHub.azure-devices.net";
+    private static final String DEVICE_ID = "testDeviceId";
+    private static final String REQUEST_PAYLOAD = "{ \"dpsCustomPayload\": \"dataValue\" }";
+    private static final String RESPONSE_PAYLOAD = "{ \"hubCustomPayload\": \"dataValue\" }";
+    private static final long TIME_TO_LIVE_IN_MS = TimeUnit.DAYS.toMillis(1);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullCacheFile()
+    {
+        //act
+        new ProvisioningDeviceClientRegistrationCache(null, TIME_TO_LIVE_IN_MS);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroTimeToLive()
+    {
+        //act
+        new ProvisioningDeviceClientRegistrationCache(cacheFile(), 0);
+    }
+
+    @Test
+    public void getReturnsRegistrationSavedBeforeRestart() throws Exception
+    {
+        //arrange
+        File cacheFile = cacheFile();
+        ProvisioningDeviceClientRegistrationCache cacheBeforeRestart = new ProvisioningDeviceClientRegistrationCache(cacheFile, TIME_TO_LIVE_IN_MS);
+        put(cacheBeforeRestart, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD, registrationResult(PROVISIONING_DEVICE_STATUS_ASSIGNED));
+
+        //act
+        ProvisioningDeviceClientRegistrationCache cacheAfterRestart = new ProvisioningDeviceClientRegistrationCache(cacheFile, TIME_TO_LIVE_IN_MS);
+        ProvisioningDeviceClientRegistrationResult result = get(cacheAfterRestart, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD);
+
+        //assert
+        assertNotNull(result);
+        assertEquals(IOTHUB_URI, result.getIothubUri());
+        assertEquals(DEVICE_ID, result.getDeviceId());
+        assertEquals(RESPONSE_PAYLOAD, result.getProvisioningPayload());
+        assertEquals(PROVISIONING_DEVICE_STATUS_ASSIGNED, result.getProvisioningDeviceClientStatus());
+    }
+
+    @Test
+    public void getReturnsRegistrationWithoutPayload() throws Exception
+    {
+        //arrange
+        ProvisioningDeviceClientRegistrationCache cache = new ProvisioningDeviceClientRegistrationCache(cacheFile(), TIME_TO_LIVE_IN_MS);
+        put(cache, SCOPE_ID, symmetricKeyDevice("key"), null, registrationResult(PROVISIONING_DEVICE_STATUS_ASSIGNED));
+
+        //act
+        ProvisioningDeviceClientRegistrationResult result = get(cache, SCOPE_ID, symmetricKeyDevice("key"), null);
+
+        //assert
+        assertNotNull(result);
+        assertEquals(DEVICE_ID, result.getDeviceId());
+    }
+
+    @Test
+    public void getReturnsNullForOtherAttestation() throws Exception
+    {
+        //arrange
+        ProvisioningDeviceClientRegistrationCache cache = new ProvisioningDeviceClientRegistrationCache(cacheFile(), TIME_TO_LIVE_IN_MS);
+        put(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD, registrationResult(PROVISIONING_DEVICE_STATUS_ASSIGNED));
+
+        //act
+        ProvisioningDeviceClientRegistrationResult result = get(cache, SCOPE_ID, symmetricKeyDevice("rotatedKey"), REQUEST_PAYLOAD);
+
+        //assert
+        assertNull(result);
+    }
+
+    @Test
+    public void getReturnsNullForOtherScopeOrPayload() throws Exception
+    {
+        //arrange
+        ProvisioningDeviceClientRegistrationCache cache = new ProvisioningDeviceClientRegistrationCache(cacheFile(), TIME_TO_LIVE_IN_MS);
+        put(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD, registrationResult(PROVISIONING_DEVICE_STATUS_ASSIGNED));
+
+        //act
+        ProvisioningDeviceClientRegistrationResult otherScopeResult = get(cache, "otherScopeId", symmetricKeyDevice("key"), REQUEST_PAYLOAD);
+        ProvisioningDeviceClientRegistrationResult otherPayloadResult = get(cache, SCOPE_ID, symmetricKeyDevice("key"), "{}");
+
+        //assert
+        assertNull(otherScopeResult);
+        assertNull(otherPayloadResult);
+    }
+
+    @Test
+    public void getReturnsNullAfterTimeToLive() throws Exception
+    {
+        //arrange
+        ProvisioningDeviceClientRegistrationCache cache = new ProvisioningDeviceClientRegistrationCache(cacheFile(), 1);
+        put(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD, registrationResult(PROVISIONING_DEVICE_STATUS_ASSIGNED));
+        Thread.sleep(10);
+
+        //act
+        ProvisioningDeviceClientRegistrationResult result = get(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD);
+
+        //assert
+        assertNull(result);
+    }
+
+    @Test
+    public void invalidateRemovesSavedRegistration() throws Exception
+    {
+        //arrange
+        File cacheFile = cacheFile();
+        ProvisioningDeviceClientRegistrationCache cache = new ProvisioningDeviceClientRegistrationCache(cacheFile, TIME_TO_LIVE_IN_MS);
+        put(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD, registrationResult(PROVISIONING_DEVICE_STATUS_ASSIGNED));
+
+        //act
+        cache.invalidate(symmetricKeyDevice("key"));
+
+        //assert
+        assertNull(get(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD));
+        assertNull(get(new ProvisioningDeviceClientRegistrationCache(cacheFile, TIME_TO_LIVE_IN_MS), SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD));
+    }
+
+    @Test
+    public void putIgnoresFailedRegistration() throws Exception
+    {
+        //arrange
+        File cacheFile = cacheFile();
+        ProvisioningDeviceClientRegistrationCache cache = new ProvisioningDeviceClientRegistrationCache(cacheFile, TIME_TO_LIVE_IN_MS);
+
+        //act
+        put(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD, registrationResult(PROVISIONING_DEVICE_STATUS_FAILED));
+
+        //assert
+        assertNull(get(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD));
+        assertFalse(cacheFile.exists());
+    }
+
+    @Test
+    public void putIgnoresTpmDevices(@Mocked final SecurityProviderTpm mockedSecurityProviderTpm) throws Exception
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedSecurityProviderTpm.getRegistrationId();
+                result = REGISTRATION_ID;
+            }
+        };
+        File cacheFile = cacheFile();
+        ProvisioningDeviceClientRegistrationCache cache = new ProvisioningDeviceClientRegistrationCache(cacheFile, TIME_TO_LIVE_IN_MS);
+
+        //act
+        put(cache, SCOPE_ID, mockedSecurityProviderTpm, REQUEST_PAYLOAD, registrationResult(PROVISIONING_DEVICE_STATUS_ASSIGNED));
+
+        //assert
+        assertNull(get(cache, SCOPE_ID, mockedSecurityProviderTpm, REQUEST_PAYLOAD));
+        assertFalse(cacheFile.exists());
+    }
+
+    @Test
+    public void putReplacesCacheFileWithoutTemporaryFile() throws Exception
+    {
+        //arrange
+        File cacheFile = cacheFile();
+        ProvisioningDeviceClientRegistrationCache cache = new ProvisioningDeviceClientRegistrationCache(cacheFile, TIME_TO_LIVE_IN_MS);
+
+        //act
+        put(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD, registrationResult(PROVISIONING_DEVICE_STATUS_ASSIGNED));
+
+        //assert
+        assertTrue(cacheFile.exists());
+        assertEquals(1, temporaryFolder.getRoot().list().length);
+        assertFalse(new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8).contains("key"));
+    }
+
+    @Test
+    public void constructorIgnoresCorruptCacheFile() throws Exception
+    {
+        //arrange
+        File cacheFile = cacheFile();
+        Files.write(cacheFile.toPath(), "{ \"testRegistrationId\": ".getBytes(StandardCharsets.UTF_8));
+
+        //act
+        ProvisioningDeviceClientRegistrationCache cache = new ProvisioningDeviceClientRegistrationCache(cacheFile, TIME_TO_LIVE_IN_MS);
+
+        //assert
+        assertNull(get(cache, SCOPE_ID, symmetricKeyDevice("key"), REQUEST_PAYLOAD));
+    }
+
+    private File cacheFile()
+    {
+        return new File(temporaryFolder.getRoot(), "registrations.json");
+    }
+
+    private static SecurityProvider symmetricKeyDevice(String key)
+    {
+        return new SecurityProviderSymmetricKey(key.getBytes(StandardCharsets.UTF_8), REGISTRATION_ID);
+    }
+
+    private static ProvisioningDeviceClientRegistrationResult registrationResult(ProvisioningDeviceClientStatus status)
+    {
+        ProvisioningDeviceClientRegistrationResult result = new ProvisioningDeviceClientRegistrationResult();
+        Deencapsulation.setField(result, "iothubUri", IOTHUB_URI);
+        Deencapsulation.setField(result, "deviceId", DEVICE_ID);
+        Deencapsulation.setField(result, "payload", RESPONSE_PAYLOAD);
+        Deencapsulation.setField(result, "provisioningDeviceClientStatus", status);
+        return result;
+    }
+
+    private static ProvisioningDeviceClientRegistrationResult get(ProvisioningDeviceClientRegistrationCache cache, String idScope,
+                                                                  SecurityProvider securityProvider, String requestPayload)
+    {
+        return Deencapsulation.invoke(cache, "get", idScope, securityProvider, requestPayload == null ? String.class : requestPayload);
+    }
+
+    private static void put(ProvisioningDeviceClientRegistrationCache cache, String idScope, SecurityProvider securityProvider,
+                            String requestPayload, ProvisioningDeviceClientRegistrationResult result)
+    {
+        Deencapsulation.invoke(cache, "put", idScope, securityProvider, requestPayload == null ? String.class : requestPayload, result);
+    }
+}
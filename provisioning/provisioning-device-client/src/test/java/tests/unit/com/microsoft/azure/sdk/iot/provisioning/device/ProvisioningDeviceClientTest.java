@@ -8,13 +8,17 @@
 package tests.unit.com.microsoft.azure.sdk.iot.provisioning.device;
 
 import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClient;
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientRegistrationCache;
 import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientRegistrationCallback;
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientRegistrationResult;
 import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientTransportProtocol;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.ProvisioningDeviceClientConfig;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ProvisioningDeviceClientContract;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
 import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.ProvisioningTask;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
+import mockit.Mock;
+import mockit.MockUp;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import mockit.Verifications;
@@ -22,6 +26,9 @@ import mockit.integration.junit4.JMockit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -61,6 +68,9 @@ public class ProvisioningDeviceClientTest
     @Mocked
     ProvisioningTask mockedProvisioningTask;
 
+    @Mocked
+    ProvisioningDeviceClientRegistrationResult mockedRegistrationResult;
+
     //SRS_ProvisioningDeviceClient_25_005: [ The constructor shall create provisioningDeviceClientConfig and set all the provided values to it.. ]
     //SRS_ProvisioningDeviceClient_25_006: [ The constructor shall create provisioningDeviceClientContract with the given config. ]
     //SRS_ProvisioningDeviceClient_25_007: [ The constructor shall create an executor service with fixed thread pool of size 1. ]
@@ -159,6 +169,99 @@ public class ProvisioningDeviceClientTest
         };
     }
 
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullRegistrationCache() throws ProvisioningDeviceClientException
+    {
+        //act
+        ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, null);
+    }
+
+    @Test
+    public void registerWithCachedRegistrationSkipsProvisioningTask() throws ProvisioningDeviceClientException
+    {
+        //arrange
+        new MockUp<ProvisioningDeviceClientRegistrationCache>()
+        {
+            @Mock
+            ProvisioningDeviceClientRegistrationResult get(String idScope, SecurityProvider securityProvider, String requestPayload)
+            {
+                return mockedRegistrationResult;
+            }
+        };
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider,
+                new ProvisioningDeviceClientRegistrationCache(new File("testRegistrations.json"), 1000));
+
+        //act
+        testProvisioningDeviceClient.registerDevice(mockedRegistrationCB, null);
+
+        //assert
+        final List<Runnable> submittedCallbacks = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedExecutorService.submit(withCapture(submittedCallbacks));
+                times = 1;
+                new ProvisioningTask((ProvisioningDeviceClientConfig) any, (ProvisioningDeviceClientContract) any);
+                times = 0;
+            }
+        };
+        submittedCallbacks.get(0).run();
+        new Verifications()
+        {
+            {
+                mockedRegistrationCB.run(mockedRegistrationResult, null, null);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void registerWithoutCachedRegistrationCachesTheResult() throws ProvisioningDeviceClientException
+    {
+        //arrange
+        final List<ProvisioningDeviceClientRegistrationResult> cachedResults = new ArrayList<>();
+        new MockUp<ProvisioningDeviceClientRegistrationCache>()
+        {
+            @Mock
+            ProvisioningDeviceClientRegistrationResult get(String idScope, SecurityProvider securityProvider, String requestPayload)
+            {
+                return null;
+            }
+
+            @Mock
+            void put(String idScope, SecurityProvider securityProvider, String requestPayload, ProvisioningDeviceClientRegistrationResult result)
+            {
+                cachedResults.add(result);
+            }
+        };
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider,
+                new ProvisioningDeviceClientRegistrationCache(new File("testRegistrations.json"), 1000));
+
+        //act
+        testProvisioningDeviceClient.registerDevice(mockedRegistrationCB, null);
+
+        //assert
+        final List<ProvisioningDeviceClientRegistrationCallback> registrationCallbacks = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockedProvisioningDeviceClientConfig.setRegistrationCallback(withCapture(registrationCallbacks), any);
+                times = 1;
+                mockedExecutorService.submit((ProvisioningTask) any);
+                times = 1;
+            }
+        };
+        registrationCallbacks.get(0).run(mockedRegistrationResult, null, null);
+        assertEquals(1, cachedResults.size());
+        new Verifications()
+        {
+            {
+                mockedRegistrationCB.run(mockedRegistrationResult, null, null);
+                times = 1;
+            }
+        };
+    }
+
     //SRS_ProvisioningDeviceClient_25_008: [ This method shall throw IllegalArgumentException if provisioningDeviceClientRegistrationCallback is null. ]
     @Test (expected = IllegalArgumentException.class)
     public void registerThrowsOnNullCB() throws ProvisioningDeviceClientException
@@ -219,4 +322,24 @@ public class ProvisioningDeviceClientTest
             }
         };
     }
+
+    @Test
+    public void closeNowCancelsRegistrationInProgress() throws ProvisioningDeviceClientException
+    {
+        //arrange
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider);
+        testProvisioningDeviceClient.registerDevice(mockedRegistrationCB, null);
+
+        //act
+        testProvisioningDeviceClient.closeNow();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedProvisioningTask.cancel();
+                times = 1;
+            }
+        };
+    }
 }
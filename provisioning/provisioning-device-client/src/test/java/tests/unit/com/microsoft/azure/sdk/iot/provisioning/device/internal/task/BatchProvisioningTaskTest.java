@@ -0,0 +1,355 @@
+/*
+ *
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ *
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.provisioning.device.internal.task;
+
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientRegistrationResult;
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ProvisioningDeviceClientContract;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ResponseCallback;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceHubException;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.BatchProvisioningTask;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.ContractState;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.RequestData;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.task.ResponseData;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderSymmetricKey;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientTransportProtocol.AMQPS;
+import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientTransportProtocol.HTTPS;
+import static org.junit.Assert.*;
+
+/* Unit tests for the batch provisioning task, against an in memory stand-in of the provisioning service
+ * Coverage 100% method
+ */
+public class BatchProvisioningTaskTest
+{
+    private static final String GLOBAL_ENDPOINT = "global.azure-devices-provisioning.net";
+    private static final String ID_SCOPE = "0ne00000000";
+    private static final byte[] SYMMETRIC_KEY = "MTIzNDU2Nzg5MDEyMzQ1Njc4OTA=".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Stand-in of the provisioning service, which answers every registration with "assigning" and assigns the device
+     * on the first status poll, unless its registration id starts with "failed"
+     */
+    private static class FakeProvisioningService
+    {
+        private final Map<String, Integer> pollsByOperationId = new ConcurrentHashMap<>();
+        private final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+        private final AtomicInteger contractsCreated = new AtomicInteger();
+        private final AtomicInteger openConnections = new AtomicInteger();
+        private final AtomicInteger maxOpenConnections = new AtomicInteger();
+        private final AtomicInteger callsInProgress = new AtomicInteger();
+        private final CountDownLatch callStarted = new CountDownLatch(1);
+        private volatile CountDownLatch releaseCalls;
+        private volatile boolean closedDuringCall;
+        private int retryValueMillis = 1;
+
+        private ProvisioningDeviceClientContract createContract()
+        {
+            this.contractsCreated.incrementAndGet();
+            return new ProvisioningDeviceClientContract()
+            {
+                @Override
+                public void open(RequestData requestData)
+                {
+                    int open = openConnections.incrementAndGet();
+                    maxOpenConnections.accumulateAndGet(open, Math::max);
+                }
+
+                @Override
+                public void close()
+                {
+                    if (callsInProgress.get() > 0)
+                    {
+                        closedDuringCall = true;
+                    }
+                    openConnections.decrementAndGet();
+                }
+
+                @Override
+                public void requestNonceForTPM(RequestData requestData, ResponseCallback responseCallback, Object context)
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void authenticateWithProvisioningService(RequestData requestData, ResponseCallback responseCallback, Object context) throws ProvisioningDeviceClientException
+                {
+                    threads.add(Thread.currentThread());
+                    String operationId = "op-" + requestData.getRegistrationId();
+                    pollsByOperationId.put(operationId, 0);
+                    awaitRelease();
+                    respond(responseCallback, context, "{\"operationId\":\"" + operationId + "\",\"status\":\"assigning\"}");
+                }
+
+                @Override
+                public void getRegistrationStatus(RequestData requestData, ResponseCallback responseCallback, Object context) throws ProvisioningDeviceClientException
+                {
+                    threads.add(Thread.currentThread());
+                    pollsByOperationId.merge(requestData.getOperationId(), 1, Integer::sum);
+                    String registrationId = requestData.getRegistrationId();
+                    String status = registrationId.startsWith("failed") ? "failed" : "assigned";
+                    respond(responseCallback, context, "{\"operationId\":\"" + requestData.getOperationId() + "\",\"status\":\"" + status + "\"," +
+                            "\"registrationState\":{\"registrationId\":\"" + registrationId + "\",\"status\":\"" + status + "\"," +
+                            "\"assignedHub\":\"hub.azure-devices.net\",\"deviceId\":\"" + registrationId + "\",\"errorMessage\":\"enrollment failed\"}}");
+                }
+
+                @Override
+                public int getRetryValue()
+                {
+                    return retryValueMillis;
+                }
+            };
+        }
+
+        // blocks like a call on the network, which does not return when the calling thread is interrupted
+        private void awaitRelease()
+        {
+            if (this.releaseCalls == null)
+            {
+                return;
+            }
+
+            this.callsInProgress.incrementAndGet();
+            this.callStarted.countDown();
+            boolean released = false;
+            while (!released)
+            {
+                try
+                {
+                    released = this.releaseCalls.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    // keep waiting
+                }
+            }
+            this.callsInProgress.decrementAndGet();
+        }
+
+        private static void respond(ResponseCallback responseCallback, Object context, String json) throws ProvisioningDeviceClientException
+        {
+            responseCallback.run(new ResponseData(json.getBytes(StandardCharsets.UTF_8), ContractState.DPS_REGISTRATION_RECEIVED, 0), context);
+        }
+    }
+
+    private static SecurityProvider device(String registrationId) throws Exception
+    {
+        final SSLContext sslContext = SSLContext.getDefault();
+        return new SecurityProviderSymmetricKey(SYMMETRIC_KEY, registrationId)
+        {
+            @Override
+            public SSLContext getSSLContext()
+            {
+                return sslContext;
+            }
+        };
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroConnections() throws Exception
+    {
+        new BatchProvisioningTask(GLOBAL_ENDPOINT, ID_SCOPE, HTTPS, 0, config -> null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullContractFactory() throws Exception
+    {
+        new BatchProvisioningTask(GLOBAL_ENDPOINT, ID_SCOPE, HTTPS, 1, null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void registerThrowsOnNullSecurityProvider() throws Exception
+    {
+        BatchProvisioningTask task = new BatchProvisioningTask(GLOBAL_ENDPOINT, ID_SCOPE, HTTPS, 1, config -> new FakeProvisioningService().createContract());
+        try
+        {
+            task.register(null, null);
+        }
+        finally
+        {
+            task.close();
+        }
+    }
+
+    @Test
+    public void registerCompletesWithAssignedResult() throws Exception
+    {
+        //arrange
+        FakeProvisioningService service = new FakeProvisioningService();
+        BatchProvisioningTask task = new BatchProvisioningTask(GLOBAL_ENDPOINT, ID_SCOPE, HTTPS, 2, config -> service.createContract());
+
+        try
+        {
+            //act
+            ProvisioningDeviceClientRegistrationResult result = task.register(device("device1"), null).get(10, TimeUnit.SECONDS);
+
+            //assert
+            assertEquals(ProvisioningDeviceClientStatus.PROVISIONING_DEVICE_STATUS_ASSIGNED, result.getProvisioningDeviceClientStatus());
+            assertEquals("hub.azure-devices.net", result.getIothubUri());
+            assertEquals("device1", result.getDeviceId());
+            assertEquals(1, (int) service.pollsByOperationId.get("op-device1"));
+            assertEquals(0, task.getIncompleteRegistrationCount());
+        }
+        finally
+        {
+            task.close();
+        }
+    }
+
+    @Test
+    public void registerCompletesExceptionallyWhenServiceFailsRegistration() throws Exception
+    {
+        //arrange
+        FakeProvisioningService service = new FakeProvisioningService();
+        BatchProvisioningTask task = new BatchProvisioningTask(GLOBAL_ENDPOINT, ID_SCOPE, HTTPS, 1, config -> service.createContract());
+
+        try
+        {
+            //act
+            task.register(device("failed1"), null).get(10, TimeUnit.SECONDS);
+            fail("expected the registration to fail");
+        }
+        catch (ExecutionException e)
+        {
+            //assert
+            assertTrue(e.getCause() instanceof ProvisioningDeviceHubException);
+            assertEquals("enrollment failed", e.getCause().getMessage());
+        }
+        finally
+        {
+            task.close();
+        }
+    }
+
+    @Test
+    public void registerOverAmqpUsesOneConnectionPerDeviceUpToMaxConnections() throws Exception
+    {
+        //arrange
+        FakeProvisioningService service = new FakeProvisioningService();
+        BatchProvisioningTask task = new BatchProvisioningTask(GLOBAL_ENDPOINT, ID_SCOPE, AMQPS, 3, config -> service.createContract());
+        List<CompletableFuture<ProvisioningDeviceClientRegistrationResult>> results = new ArrayList<>();
+
+        try
+        {
+            //act
+            for (int i = 0; i < 30; i++)
+            {
+                results.add(task.register(device("device" + i), null));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            //assert
+            assertEquals(30, service.contractsCreated.get());
+            assertTrue(service.maxOpenConnections.get() <= 3);
+            assertEquals(0, service.openConnections.get());
+        }
+        finally
+        {
+            task.close();
+        }
+    }
+
+    @Test
+    public void closeCompletesIncompleteRegistrationsExceptionally() throws Exception
+    {
+        //arrange
+        FakeProvisioningService service = new FakeProvisioningService();
+        service.retryValueMillis = 60000;
+        BatchProvisioningTask task = new BatchProvisioningTask(GLOBAL_ENDPOINT, ID_SCOPE, HTTPS, 1, config -> service.createContract());
+        CompletableFuture<ProvisioningDeviceClientRegistrationResult> result = task.register(device("device1"), null);
+
+        //act
+        task.close();
+
+        //assert
+        try
+        {
+            result.get(10, TimeUnit.SECONDS);
+            fail("expected the registration to fail");
+        }
+        catch (ExecutionException e)
+        {
+            assertTrue(e.getCause() instanceof ProvisioningDeviceClientException);
+        }
+        assertTrue(task.register(device("device2"), null).isCompletedExceptionally());
+    }
+
+    @Test
+    public void registerOverHttpsSharesMaxConnectionsBetweenManyDevices() throws Exception
+    {
+        //arrange
+        FakeProvisioningService service = new FakeProvisioningService();
+        BatchProvisioningTask task = new BatchProvisioningTask(GLOBAL_ENDPOINT, ID_SCOPE, HTTPS, 2, config -> service.createContract());
+        List<CompletableFuture<ProvisioningDeviceClientRegistrationResult>> results = new ArrayList<>();
+
+        try
+        {
+            //act
+            for (int i = 0; i < 100; i++)
+            {
+                results.add(task.register(device("device" + i), null));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            //assert
+            for (int i = 0; i < 100; i++)
+            {
+                assertEquals("device" + i, results.get(i).get().getDeviceId());
+            }
+            assertEquals(2, service.contractsCreated.get());
+            assertTrue(service.threads.size() <= 2);
+            assertEquals(0, task.getIncompleteRegistrationCount());
+        }
+        finally
+        {
+            task.close();
+        }
+    }
+
+    @Test
+    public void closeWaitsForCallInProgressBeforeClosingSharedContract() throws Exception
+    {
+        //arrange
+        FakeProvisioningService service = new FakeProvisioningService();
+        service.releaseCalls = new CountDownLatch(1);
+        BatchProvisioningTask task = new BatchProvisioningTask(GLOBAL_ENDPOINT, ID_SCOPE, HTTPS, 1, config -> service.createContract());
+        CompletableFuture<ProvisioningDeviceClientRegistrationResult> result = task.register(device("device1"), null);
+        assertTrue(service.callStarted.await(10, TimeUnit.SECONDS));
+        Thread closer = new Thread(task::close);
+
+        //act
+        closer.start();
+        closer.join(500);
+        boolean closeWaitedForCall = closer.isAlive();
+        service.releaseCalls.countDown();
+        closer.join(10000);
+
+        //assert
+        assertTrue(closeWaitedForCall);
+        assertFalse(closer.isAlive());
+        assertFalse(service.closedDuringCall);
+        assertTrue(result.isCompletedExceptionally());
+    }
+}
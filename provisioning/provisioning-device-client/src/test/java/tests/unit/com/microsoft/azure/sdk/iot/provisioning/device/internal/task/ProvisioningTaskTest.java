@@ -32,6 +32,7 @@ import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDevice
 import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.PROVISIONING_DEVICE_STATUS_ERROR;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 /*
   Unit test for ProvisioningTask
@@ -42,8 +43,6 @@ import static org.junit.Assert.assertNotNull;
 public class ProvisioningTaskTest
 {
     private static final String TEST_OPERATION_ID = "testOperationId";
-    private static final int MAX_TIME_TO_WAIT_FOR_REGISTRATION = 1000000;
-    private static final int MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE = 10000;
     private static final String TEST_HUB = "TestHub";
     private static final String TEST_DEVICE_ID = "testDeviceId";
 
@@ -64,28 +63,18 @@ public class ProvisioningTaskTest
     @Mocked
     Authorization mockedAuthorization;
     @Mocked
-    ExecutorService mockedExecutorService;
-    @Mocked
-    Executors mockedExecutors;
-    @Mocked
     RegisterTask mockedRegisterTask;
     @Mocked
     StatusTask mockedStatusTask;
     @Mocked
-    FutureTask mockedFutureTask;
-    @Mocked
     RegistrationOperationStatusParser mockedRegistrationOperationStatusParser;
     @Mocked
     DeviceRegistrationResultParser mockedDeviceRegistrationResultParser;
     @Mocked
-    Future<?> mockedFuture;
-    @Mocked
     RequestData mockedRequestData;
     @Mocked
     RegistrationResult mockedRegistrationData;
     @Mocked
-    Thread mockedThread;
-    @Mocked
     ProvisioningDeviceClientException mockProvisioningDeviceClientException;
     @Mocked
     SecurityProviderException mockSecurityProviderException;
@@ -104,7 +93,6 @@ public class ProvisioningTaskTest
     }
 
     //SRS_provisioningtask_25_001: [ Constructor shall save provisioningDeviceClientConfig , securityProvider, provisioningDeviceClientContract, provisioningDeviceClientStatusCallback, dpsStatusCallbackContext.]
-    //SRS_ProvisioningTask_25_015: [ Constructor shall start the executor with a fixed thread pool of size 2.]
     //SRS_provisioningtask_25_003: [ Constructor shall trigger status callback if provided with status PROVISIONING_DEVICE_STATUS_UNAUTHENTICATED.]
     @Test
     public void constructorSucceeds() throws ProvisioningDeviceClientException
@@ -114,13 +102,6 @@ public class ProvisioningTaskTest
         //act
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
         //assert
-        new Verifications()
-        {
-            {
-                Executors.newFixedThreadPool(2);
-                times = 1;
-            }
-        };
         assertEquals(mockedProvisioningDeviceClientConfig, Deencapsulation.getField(testProvisioningTask, "provisioningDeviceClientConfig"));
         assertEquals(mockedSecurityProvider, Deencapsulation.getField(testProvisioningTask, "securityProvider"));
         assertEquals(mockedProvisioningDeviceClientContract, Deencapsulation.getField(testProvisioningTask, "provisioningDeviceClientContract"));
@@ -163,7 +144,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig,
                 mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -213,7 +194,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig,
                 mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -263,7 +244,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig,
                 mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -307,7 +288,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -354,7 +335,7 @@ public class ProvisioningTaskTest
                 mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -397,7 +378,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -442,7 +423,7 @@ public class ProvisioningTaskTest
                 mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -485,7 +466,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -530,7 +511,7 @@ public class ProvisioningTaskTest
                 mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -571,7 +552,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -612,7 +593,7 @@ public class ProvisioningTaskTest
                 mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -655,7 +636,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -703,7 +684,7 @@ public class ProvisioningTaskTest
                 mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -746,7 +727,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -794,7 +775,7 @@ public class ProvisioningTaskTest
                 mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -862,7 +843,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig,
                 mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -904,7 +885,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = null;
                 Deencapsulation.newInstance(RegistrationResult.class, new Class[] {String.class, String.class, String.class, ProvisioningDeviceClientStatus.class},
                         null, null, any, PROVISIONING_DEVICE_STATUS_ERROR);
@@ -916,7 +897,7 @@ public class ProvisioningTaskTest
                 mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -959,7 +940,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
                 Deencapsulation.newInstance(RegistrationResult.class, new Class[] {String.class, String.class, String.class, ProvisioningDeviceClientStatus.class},
                         null, null, any, PROVISIONING_DEVICE_STATUS_ERROR);
@@ -969,7 +950,7 @@ public class ProvisioningTaskTest
 
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1014,7 +995,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
                 Deencapsulation.newInstance(RegistrationResult.class, new Class[] {String.class, String.class, String.class, ProvisioningDeviceClientStatus.class},
                         null, null, any, PROVISIONING_DEVICE_STATUS_ERROR);
@@ -1024,7 +1005,7 @@ public class ProvisioningTaskTest
 
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1049,7 +1030,7 @@ public class ProvisioningTaskTest
         new NonStrictExpectations()
         {
             {
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION, TimeUnit.MILLISECONDS);
+                mockedRegisterTask.call();
                 result = mockedRegistrationOperationStatusParser;
                 Deencapsulation.newInstance(RegistrationResult.class, new Class[] {String.class, String.class, String.class, ProvisioningDeviceClientStatus.class},
                                             null, null, null, PROVISIONING_DEVICE_STATUS_ERROR);
@@ -1068,7 +1049,7 @@ public class ProvisioningTaskTest
 
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1095,7 +1076,7 @@ public class ProvisioningTaskTest
         new NonStrictExpectations()
         {
             {
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION, TimeUnit.MILLISECONDS);
+                mockedRegisterTask.call();
                 result = null;
                 Deencapsulation.newInstance(RegistrationResult.class, new Class[] {String.class, String.class, String.class, ProvisioningDeviceClientStatus.class},
                         null, null, any, PROVISIONING_DEVICE_STATUS_ERROR);
@@ -1106,7 +1087,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1131,7 +1112,7 @@ public class ProvisioningTaskTest
         new NonStrictExpectations()
         {
             {
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION, TimeUnit.MILLISECONDS);
+                mockedRegisterTask.call();
                 result = mockedRegistrationOperationStatusParser;
                 Deencapsulation.newInstance(RegistrationResult.class, new Class[] {String.class, String.class, String.class, ProvisioningDeviceClientStatus.class},
                                             null, null, any, PROVISIONING_DEVICE_STATUS_ERROR);
@@ -1150,7 +1131,7 @@ public class ProvisioningTaskTest
 
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1175,7 +1156,7 @@ public class ProvisioningTaskTest
         new NonStrictExpectations()
         {
             {
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION, TimeUnit.MILLISECONDS);
+                mockedRegisterTask.call();
                 result = mockedRegistrationOperationStatusParser;
                 mockedRegistrationOperationStatusParser.getStatus();
                 result = "assigned";
@@ -1189,7 +1170,7 @@ public class ProvisioningTaskTest
 
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1216,7 +1197,7 @@ public class ProvisioningTaskTest
 
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1234,62 +1215,113 @@ public class ProvisioningTaskTest
 
     //SRS_provisioningtask_25_014: [ This method shall shutdown the executors if they have not already shutdown. ]
     @Test
-    public void closeShutsDownExecutorNow() throws Exception
+    public void openFailureTriggersCallbackAndClosesContract() throws Exception
     {
         //arrange
         constructorExpectations();
         new NonStrictExpectations()
         {
             {
-                mockedExecutorService.isShutdown();
-                result = false;
+                mockedProvisioningDeviceClientContract.open((RequestData) any);
+                result = mockProvisioningDeviceClientException;
             }
         };
 
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
+
         //act
-        Deencapsulation.invoke(testProvisioningTask, "close");
+        testProvisioningTask.start().get();
 
+        //assert
         new Verifications()
         {
             {
-                mockedProvisioningDeviceClientContract.close();
+                mockedProvisioningDeviceClientRegistrationCallback.run((RegistrationResult) any, mockProvisioningDeviceClientException, any);
                 times = 1;
-                mockedExecutorService.shutdownNow();
+                mockedRegisterTask.call();
+                times = 0;
+                mockedProvisioningDeviceClientContract.close();
                 times = 1;
             }
         };
     }
 
+    // the status of the registration is polled after the retry interval of the service, without holding the calling thread
     @Test
-    public void closeShutsDownExecutor() throws Exception
+    public void callReturnsWithoutWaitingForTheRetryInterval() throws Exception
     {
         //arrange
         constructorExpectations();
+        registerExpectations();
         new NonStrictExpectations()
         {
             {
-                mockedExecutorService.isShutdown();
-                result = true;
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigning";
+                mockedProvisioningDeviceClientContract.getRetryValue();
+                result = 60000;
             }
         };
 
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        Deencapsulation.invoke(testProvisioningTask, "close");
+        Object result = testProvisioningTask.call();
 
+        //assert
+        assertNull(result);
+        Thread.sleep(200);
         new Verifications()
         {
             {
+                mockedStatusTask.call();
+                times = 0;
+                mockedProvisioningDeviceClientRegistrationCallback.run((RegistrationResult) any, (Exception) any, any);
+                times = 0;
                 mockedProvisioningDeviceClientContract.close();
-                times = 1;
-                mockedExecutorService.shutdownNow();
                 times = 0;
             }
         };
     }
 
+    @Test
+    public void cancelStopsScheduledStatusPollAndSuppressesCallback() throws Exception
+    {
+        //arrange
+        constructorExpectations();
+        registerExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedRegistrationOperationStatusParser.getStatus();
+                result = "assigning";
+                mockedProvisioningDeviceClientContract.getRetryValue();
+                result = 60000;
+            }
+        };
+
+        ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
+        CompletableFuture<Void> registration = testProvisioningTask.start();
+        Thread.sleep(200);
+
+        //act
+        testProvisioningTask.cancel();
+
+        //assert
+        registration.get(10, TimeUnit.SECONDS);
+        new Verifications()
+        {
+            {
+                mockedStatusTask.call();
+                times = 0;
+                mockedProvisioningDeviceClientRegistrationCallback.run((RegistrationResult) any, (Exception) any, any);
+                times = 0;
+                mockedProvisioningDeviceClientContract.close();
+                times = 1;
+            }
+        };
+    }
+
     //SRS_provisioningtask_25_002: [ Constructor throw ProvisioningDeviceClientException if provisioningDeviceClientConfig , securityProvider or provisioningDeviceClientContract is null.]
     @Test (expected = ProvisioningDeviceClientException.class)
     public void constructorThrowsOnNullConfig() throws ProvisioningDeviceClientException
@@ -1361,7 +1393,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -1396,7 +1428,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1441,7 +1473,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -1480,7 +1512,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1529,7 +1561,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -1568,7 +1600,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1615,7 +1647,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -1644,7 +1676,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1685,7 +1717,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -1714,7 +1746,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1755,7 +1787,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -1784,7 +1816,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1824,7 +1856,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -1851,7 +1883,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1892,7 +1924,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -1919,7 +1951,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -1960,7 +1992,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -1987,7 +2019,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -2027,7 +2059,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -2054,7 +2086,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -2095,7 +2127,7 @@ public class ProvisioningTaskTest
             {
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+                mockedStatusTask.call();
                 result = mockedRegistrationOperationStatusParser;
             }
         };
@@ -2134,7 +2166,7 @@ public class ProvisioningTaskTest
         ProvisioningTask testProvisioningTask = new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract);
 
         //act
-        testProvisioningTask.call();
+        testProvisioningTask.start().get();
 
         //assert
         new Verifications()
@@ -2146,12 +2178,12 @@ public class ProvisioningTaskTest
         };
     }
 
-    private void registerExpectations() throws InterruptedException, ExecutionException, TimeoutException
+    private void registerExpectations() throws Exception
     {
         new NonStrictExpectations()
         {
             {
-                mockedFutureTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION, TimeUnit.MILLISECONDS);
+                mockedRegisterTask.call();
                 result = mockedRegistrationOperationStatusParser;
                 mockedRegistrationOperationStatusParser.getOperationId();
                 result = TEST_OPERATION_ID;
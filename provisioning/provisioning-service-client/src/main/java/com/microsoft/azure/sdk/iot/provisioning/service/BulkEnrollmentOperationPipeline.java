@@ -0,0 +1,240 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.microsoft.azure.sdk.iot.deps.transport.http.HttpMethod;
+import com.microsoft.azure.sdk.iot.deps.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkEnrollmentOperation;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkEnrollmentOperationResult;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkOperationMode;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.IndividualEnrollment;
+import com.microsoft.azure.sdk.iot.provisioning.service.contract.ContractApiHttp;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientServiceException;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientTooManyRequestsException;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientTransportException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk Enrollment Operation Pipeline
+ *
+ * <p> This is the inner class that runs a bulk operation over more individualEnrollments than the Device
+ *     Provisioning Service accepts in a single request. For the public API, please see
+ *     {@link ProvisioningServiceClient#runBulkEnrollmentOperation(BulkOperationMode, Iterator, int)}.
+ *
+ * <p> The individualEnrollments are read from the iterator in chunks of up to
+ *     {@link #MAX_ENROLLMENTS_PER_BULK_OPERATION}. Each chunk is serialized and sent on one of the pipeline
+ *     threads, and the iterator is only read ahead while a thread is free, so no more than
+ *     {@code maxConcurrentRequests} chunks are held in memory at a time. A chunk throttled by the service
+ *     is sent again after an exponential backoff, and the results of all the chunks are aggregated in a
+ *     single {@link BulkEnrollmentOperationResult}.
+ *
+ * @see <a href="https://docs.microsoft.com/en-us/azure/iot-dps/about-iot-dps#quotas">Device Provisioning Service quotas</a>
+ */
+public class BulkEnrollmentOperationPipeline
+{
+    /**
+     * The maximum number of individualEnrollments that the Device Provisioning Service accepts in a single bulk operation.
+     */
+    public static final int MAX_ENROLLMENTS_PER_BULK_OPERATION = 10;
+
+    private static final int MAX_THROTTLED_RETRIES = 5;
+    private static final long INITIAL_THROTTLED_BACKOFF_MILLIS = 1000;
+    private static final long MAX_THROTTLED_BACKOFF_MILLIS = 30000;
+    private static final String THREAD_NAME_PREFIX = "azure-iot-sdk-bulk-enrollment-";
+
+    private final ContractApiHttp contractApiHttp;
+    private final String bulkEnrollmentPath;
+    private final int maxConcurrentRequests;
+
+    /**
+     * PRIVATE CONSTRUCTOR
+     *
+     * @param contractApiHttp is the class that cares the Http communication.
+     * @param bulkEnrollmentPath is the path of the bulk operation in the Device Provisioning Service.
+     * @param maxConcurrentRequests is the maximum number of bulk requests in flight at a time.
+     * @throws IllegalArgumentException if one of the parameters is not correct.
+     */
+    private BulkEnrollmentOperationPipeline(ContractApiHttp contractApiHttp, String bulkEnrollmentPath, int maxConcurrentRequests)
+    {
+        /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_001: [The constructor shall throw IllegalArgumentException if the provided contractApiHttp is null.] */
+        if(contractApiHttp == null)
+        {
+            throw new IllegalArgumentException("ContractApiHttp cannot be null");
+        }
+        /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_002: [The constructor shall throw IllegalArgumentException if the provided maxConcurrentRequests is smaller than 1.] */
+        if(maxConcurrentRequests < 1)
+        {
+            throw new IllegalArgumentException("maxConcurrentRequests cannot be smaller than 1");
+        }
+        this.contractApiHttp = contractApiHttp;
+        this.bulkEnrollmentPath = bulkEnrollmentPath;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * Create a new instance of the BulkEnrollmentOperationPipeline.
+     *
+     * @param contractApiHttp is the class that cares the Http communication.
+     * @param bulkEnrollmentPath is the path of the bulk operation in the Device Provisioning Service.
+     * @param maxConcurrentRequests is the maximum number of bulk requests in flight at a time. It cannot be smaller than 1.
+     * @return The {@code BulkEnrollmentOperationPipeline} with the new instance of this class.
+     * @throws IllegalArgumentException if one of the parameters is not correct.
+     */
+    static BulkEnrollmentOperationPipeline createFromContractApiHttp(ContractApiHttp contractApiHttp, String bulkEnrollmentPath, int maxConcurrentRequests)
+    {
+        /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_003: [The factory shall create a new instance of this.] */
+        return new BulkEnrollmentOperationPipeline(contractApiHttp, bulkEnrollmentPath, maxConcurrentRequests);
+    }
+
+    /**
+     * Run the bulk operation over all the individualEnrollments in the iterator.
+     *
+     * <p> If one of the chunks fails with an error other than throttling, or is still throttled after all
+     *     the retries, no more individualEnrollments are read from the iterator, the chunks in flight are
+     *     abandoned, and the failure is thrown. The chunks that were already sent are not reverted.
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the iterator of {@link IndividualEnrollment}. It cannot be {@code null} or empty.
+     * @return An {@link BulkEnrollmentOperationResult} with the aggregated result of all the bulk requests.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientTransportException if the SDK failed to send one of the requests to the Device Provisioning Service.
+     * @throws ProvisioningServiceClientException if the Device Provisioning Service was not able to execute one of the bulk requests.
+     */
+    BulkEnrollmentOperationResult run(BulkOperationMode bulkOperationMode, Iterator<IndividualEnrollment> individualEnrollments)
+            throws ProvisioningServiceClientException
+    {
+        /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_004: [The run shall throw IllegalArgumentException if the provided bulkOperationMode is null.] */
+        if(bulkOperationMode == null)
+        {
+            throw new IllegalArgumentException("bulkOperationMode cannot be null.");
+        }
+        /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_005: [The run shall throw IllegalArgumentException if the provided individualEnrollments is null or empty.] */
+        if((individualEnrollments == null) || !individualEnrollments.hasNext())
+        {
+            throw new IllegalArgumentException("individualEnrollments cannot be null or empty.");
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(maxConcurrentRequests, runnable ->
+        {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<BulkEnrollmentOperationResult> completionService = new ExecutorCompletionService<>(executor);
+
+        List<BulkEnrollmentOperationResult> results = new ArrayList<>();
+        int requestsInFlight = 0;
+        try
+        {
+            while (individualEnrollments.hasNext())
+            {
+                /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_006: [The run shall not read the next chunk of individualEnrollments while maxConcurrentRequests chunks are in flight.] */
+                if(requestsInFlight == maxConcurrentRequests)
+                {
+                    results.add(takeResult(completionService));
+                    requestsInFlight--;
+                }
+
+                /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_007: [The run shall split the individualEnrollments in chunks of up to MAX_ENROLLMENTS_PER_BULK_OPERATION.] */
+                final List<IndividualEnrollment> chunk = new ArrayList<>(MAX_ENROLLMENTS_PER_BULK_OPERATION);
+                while (individualEnrollments.hasNext() && (chunk.size() < MAX_ENROLLMENTS_PER_BULK_OPERATION))
+                {
+                    chunk.add(individualEnrollments.next());
+                }
+
+                completionService.submit(() -> sendChunk(bulkOperationMode, chunk));
+                requestsInFlight++;
+            }
+
+            while (requestsInFlight > 0)
+            {
+                results.add(takeResult(completionService));
+                requestsInFlight--;
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_008: [The run shall return the aggregation of the BulkEnrollmentOperationResult of all the chunks.] */
+        return BulkEnrollmentOperationResult.aggregate(results);
+    }
+
+    private BulkEnrollmentOperationResult sendChunk(BulkOperationMode bulkOperationMode, List<IndividualEnrollment> chunk)
+            throws ProvisioningServiceClientException, InterruptedException
+    {
+        /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_009: [The run shall send each chunk in a Http request with a Http verb `POST` and a body with the chunk content in JSON format.] */
+        String bulkEnrollmentPayload = BulkEnrollmentOperation.toJson(bulkOperationMode, chunk);
+
+        HttpResponse httpResponse = null;
+        long backoffMillis = INITIAL_THROTTLED_BACKOFF_MILLIS;
+        for (int attempt = 0; httpResponse == null; attempt++)
+        {
+            try
+            {
+                httpResponse = contractApiHttp.request(HttpMethod.POST, bulkEnrollmentPath, null, bulkEnrollmentPayload);
+            }
+            catch (ProvisioningServiceClientTooManyRequestsException e)
+            {
+                /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_010: [If the request is throttled, the run shall send it again after an exponential backoff with jitter, up to MAX_THROTTLED_RETRIES times.] */
+                if(attempt == MAX_THROTTLED_RETRIES)
+                {
+                    throw e;
+                }
+                Thread.sleep(backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1));
+                backoffMillis = Math.min(backoffMillis * 2, MAX_THROTTLED_BACKOFF_MILLIS);
+            }
+        }
+
+        /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_011: [The run shall throw ProvisioningServiceClientServiceException if one of the httpResponses contains a null body.] */
+        byte[] body = httpResponse.getBody();
+        if(body == null)
+        {
+            throw new ProvisioningServiceClientServiceException("Http response for BulkEnrollmentOperation cannot contains a null body");
+        }
+
+        return new BulkEnrollmentOperationResult(new String(body));
+    }
+
+    private static BulkEnrollmentOperationResult takeResult(CompletionService<BulkEnrollmentOperationResult> completionService)
+            throws ProvisioningServiceClientException
+    {
+        try
+        {
+            return completionService.take().get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ProvisioningServiceClientException("Interrupted while waiting for the bulk operation", e);
+        }
+        catch (ExecutionException e)
+        {
+            /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_012: [The run shall throw the failure of the first chunk that failed.] */
+            Throwable cause = e.getCause();
+            if(cause instanceof ProvisioningServiceClientException)
+            {
+                throw (ProvisioningServiceClientException)cause;
+            }
+            if(cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new ProvisioningServiceClientException(cause);
+        }
+    }
+}
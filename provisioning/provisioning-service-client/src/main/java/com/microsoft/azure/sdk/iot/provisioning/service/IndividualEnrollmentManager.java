@@ -11,6 +11,7 @@ import com.microsoft.azure.sdk.iot.provisioning.service.configs.*;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -163,6 +164,29 @@ public class IndividualEnrollmentManager
         return new BulkEnrollmentOperationResult(new String(body));
     }
 
+    /**
+     * Run a bulk individualEnrollment operation over any number of individualEnrollments.
+     *
+     * @see ProvisioningServiceClient#runBulkEnrollmentOperation(BulkOperationMode, Iterator, int)
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the iterator of {@link IndividualEnrollment} that contains the description of each individualEnrollment. It cannot be {@code null} or empty.
+     * @param maxConcurrentRequests the maximum number of bulk requests in flight at a time. It cannot be smaller than 1.
+     * @return An {@link BulkEnrollmentOperationResult} with the aggregated result of the bulk requests.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientTransportException if the SDK failed to send one of the requests to the Device Provisioning Service.
+     * @throws ProvisioningServiceClientException if the Device Provisioning Service was not able to execute one of the bulk requests.
+     */
+    BulkEnrollmentOperationResult bulkOperation(
+            BulkOperationMode bulkOperationMode, Iterator<IndividualEnrollment> individualEnrollments, int maxConcurrentRequests)
+            throws ProvisioningServiceClientException
+    {
+        /* SRS_INDIVIDUAL_ENROLLMENT_MANAGER_21_046: [The bulkOperation shall run the BulkEnrollmentOperationPipeline for the path `enrollments` with the provided maxConcurrentRequests.] */
+        return BulkEnrollmentOperationPipeline
+                .createFromContractApiHttp(contractApiHttp, IndividualEnrollmentManager.getEnrollmentsPath(), maxConcurrentRequests)
+                .run(bulkOperationMode, individualEnrollments);
+    }
+
     /**
      * Get individualEnrollment information.
      *
@@ -13,6 +13,8 @@ import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningS
 import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientTransportException;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 /**
  * Device Provisioning Service Client.
@@ -309,6 +311,78 @@ public final class ProvisioningServiceClient
         return individualEnrollmentManager.bulkOperation(bulkOperationMode, individualEnrollments);
     }
 
+    /**
+     * Create, update or delete any number of individual Device Enrollments.
+     *
+     * <p> The Device Provisioning Service accepts up to
+     *     {@link BulkEnrollmentOperationPipeline#MAX_ENROLLMENTS_PER_BULK_OPERATION} individualEnrollments in a
+     *     single bulk operation. This API reads the individualEnrollments from the iterator in chunks of that size,
+     *     and runs up to {@code maxConcurrentRequests} bulk operations at a time. The iterator is only read while a
+     *     request can be sent, so the individualEnrollments can be produced on demand instead of being all held in
+     *     memory. A bulk operation throttled by the service is sent again after an exponential backoff.
+     *
+     * <p> The returned {@link BulkEnrollmentOperationResult} is successful only if all the bulk operations are
+     *     successful, and contains the errors reported by the service for each registrationId of all of them.
+     *
+     * <p> If a bulk operation fails, no more individualEnrollments are read from the iterator and this method
+     *     throws the failure. The bulk operations that already succeeded are not reverted.
+     *
+     * <p> <b>Sample:</b>
+     * <p> The follow code will create the enrollments for one hundred thousand devices, with up to 8 bulk
+     *     operations in flight.
+     * <pre>
+     * {@code
+     * Iterator<IndividualEnrollment> individualEnrollments = IntStream.range(0, 100000)
+     *         .mapToObj(i -> new IndividualEnrollment("registrationId-" + i, new TpmAttestation(TPM_ENDORSEMENT_KEY)))
+     *         .iterator();
+     * BulkEnrollmentOperationResult bulkEnrollmentOperationResult =
+     *         provisioningServiceClient.runBulkEnrollmentOperation(BulkOperationMode.CREATE, individualEnrollments, 8);
+     * }
+     * </pre>
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the iterator of {@link IndividualEnrollment} that contains the description of each individualEnrollment. It cannot be {@code null} or empty.
+     * @param maxConcurrentRequests the maximum number of bulk operations in flight at a time. It cannot be smaller than 1.
+     * @return A {@link BulkEnrollmentOperationResult} object with the result of operation for each enrollment.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientTransportException if the SDK failed to send one of the requests to the Device Provisioning Service.
+     * @throws ProvisioningServiceClientException if the Device Provisioning Service was not able to execute one of the bulk operations.
+     */
+    public BulkEnrollmentOperationResult runBulkEnrollmentOperation(
+            BulkOperationMode bulkOperationMode, Iterator<IndividualEnrollment> individualEnrollments, int maxConcurrentRequests)
+            throws ProvisioningServiceClientException
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_029: [The runBulkEnrollmentOperation shall do a Provisioning operation over the iterator of individualEnrollment by calling the bulkOperation in the individualEnrollmentManager.] */
+        return individualEnrollmentManager.bulkOperation(bulkOperationMode, individualEnrollments, maxConcurrentRequests);
+    }
+
+    /**
+     * Create, update or delete any number of individual Device Enrollments.
+     *
+     * @see #runBulkEnrollmentOperation(BulkOperationMode, Iterator, int)
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the stream of {@link IndividualEnrollment} that contains the description of each individualEnrollment. It cannot be {@code null} or empty.
+     * @param maxConcurrentRequests the maximum number of bulk operations in flight at a time. It cannot be smaller than 1.
+     * @return A {@link BulkEnrollmentOperationResult} object with the result of operation for each enrollment.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientTransportException if the SDK failed to send one of the requests to the Device Provisioning Service.
+     * @throws ProvisioningServiceClientException if the Device Provisioning Service was not able to execute one of the bulk operations.
+     */
+    public BulkEnrollmentOperationResult runBulkEnrollmentOperation(
+            BulkOperationMode bulkOperationMode, Stream<IndividualEnrollment> individualEnrollments, int maxConcurrentRequests)
+            throws ProvisioningServiceClientException
+    {
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_030: [The runBulkEnrollmentOperation shall throw IllegalArgumentException if the provided stream is null.] */
+        if(individualEnrollments == null)
+        {
+            throw new IllegalArgumentException("individualEnrollments cannot be null.");
+        }
+
+        /* SRS_PROVISIONING_SERVICE_CLIENT_21_031: [The runBulkEnrollmentOperation shall do a Provisioning operation over the iterator of the provided stream.] */
+        return runBulkEnrollmentOperation(bulkOperationMode, individualEnrollments.iterator(), maxConcurrentRequests);
+    }
+
     /**
      * Retrieve the individualEnrollment information.
      *
@@ -3,14 +3,29 @@
 
 package com.microsoft.azure.sdk.iot.provisioning.service;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import com.microsoft.azure.sdk.iot.deps.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.deps.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.DeviceRegistrationState;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.EnrollmentGroup;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.IndividualEnrollment;
 import com.microsoft.azure.sdk.iot.provisioning.service.configs.QueryResult;
 import com.microsoft.azure.sdk.iot.provisioning.service.configs.QuerySpecification;
 import com.microsoft.azure.sdk.iot.provisioning.service.contract.ContractApiHttp;
 import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientException;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -50,6 +65,9 @@ import java.util.*;
  *     What happened, when you call the {@code next()}, it will return a valid {@code QueryResult}, but the
  *     {@link QueryResult#getItems()} will return a empty list.
  *
+ * <p> To go over a large query, {@link #stream(int)} and {@link #streamItems(Class, int)} return a {@code Stream} over
+ *     the remaining pages or items, that requests the next pages in background while the current one is processed.
+ *
  * <p> You can also store a query context (QuerySpecification + ContinuationToken) and restart it in the future, from
  *     the point where you stopped.
  *
@@ -176,52 +194,15 @@ public class Query implements Iterator
             throw new NoSuchElementException("There are no more pending elements");
         }
 
-        /* SRS_QUERY_21_012: [If the pageSize is not 0, the next shall send the Http request with `x-ms-max-item-count=[pageSize]` in the header.] */
-        Map<String, String> headerParameters = new HashMap<>();
-        if(pageSize != 0)
-        {
-            headerParameters.put(PAGE_SIZE_KEY, Integer.toString(pageSize));
-        }
-        /* SRS_QUERY_21_013: [If the continuationToken is not null or empty, the next shall send the Http request with `x-ms-continuation=[continuationToken]` in the header.] */
-        if(!Tools.isNullOrEmpty(this.continuationToken))
-        {
-            headerParameters.put(CONTINUATION_TOKEN_KEY, this.continuationToken);
-        }
+        QueryPage page = requestPage(this.continuationToken);
 
-        /* SRS_QUERY_21_014: [The next shall send a Http request with a Http verb `POST`.] */
-        HttpResponse httpResponse;
-        try
-        {
-            httpResponse =
-                    contractApiHttp.request(
-                            HttpMethod.POST,
-                            queryPath,
-                            headerParameters,
-                            querySpecificationJson);
-        }
-        catch (ProvisioningServiceClientException e)
-        {
-            /* SRS_QUERY_21_015: [The next shall throw IllegalArgumentException if the Http request throws any ProvisioningServiceClientException.] */
-            // Because Query implements the iterator interface, the next cannot throws ProvisioningServiceClientException.
-            throw new IllegalArgumentException(e);
-        }
-
-        /* SRS_QUERY_21_024: [The next shall throw IllegalArgumentException if the heepResponse contains a null body.] */
-        byte[] body = httpResponse.getBody();
-        if(body == null)
-        {
-            throw new IllegalArgumentException("Http response for next cannot contains a null body");
-        }
         /* SRS_QUERY_21_016: [The next shall create and return a new instance of the QueryResult using the `x-ms-item-type` as type, `x-ms-continuation` as the next continuationToken, and the message body.] */
-        String bodyStr = new String(body);
-        Map<String, String> headers = httpResponse.getHeaderFields();
-        String type = headers.get(ITEM_TYPE_KEY);
-        this.continuationToken = headers.get(CONTINUATION_TOKEN_KEY);
+        this.continuationToken = page.continuationToken;
 
         /* SRS_QUERY_21_017: [The next shall set hasNext as true if the continuationToken is not null, or false if it is null.] */
         hasNext = (this.continuationToken != null);
 
-        return new QueryResult(type, bodyStr, this.continuationToken);
+        return new QueryResult(page.type, page.body, this.continuationToken);
     }
 
     /**
@@ -246,6 +227,65 @@ public class Query implements Iterator
         return next();
     }
 
+    /**
+     * Return a stream over the remaining pages of the query, that prefetches the next pages while the current one is processed.
+     *
+     * <p> The pages are requested in sequence, because each request needs the continuationToken of the previous
+     *     page, but the requests and the deserialization of the pages run in background, up to
+     *     {@code maxPrefetchedPages} pages ahead of the page that the stream is processing. The stream starts from
+     *     the current position of this query and does not move it. It can be made {@code parallel()} to process the
+     *     pages in parallel while they are fetched.
+     *
+     * <p> Close the stream if it is not consumed to the end, so the pending requests are abandoned.
+     *
+     * @param maxPrefetchedPages the {@code int} with the maximum number of pages fetched ahead of the consumer. It cannot be smaller than 1.
+     * @return A {@code Stream} of {@link QueryResult} with the remaining pages of the query.
+     * @throws IllegalArgumentException if the provided maxPrefetchedPages is smaller than 1. A failure to
+     *         request a page is thrown as IllegalArgumentException when the stream reaches that page.
+     */
+    public Stream<QueryResult> stream(int maxPrefetchedPages)
+    {
+        /* SRS_QUERY_21_025: [The stream shall throw IllegalArgumentException if the provided maxPrefetchedPages is smaller than 1.] */
+        /* SRS_QUERY_21_026: [The stream shall return the QueryResult of each remaining page, in order, deserialized in background up to maxPrefetchedPages pages ahead of the consumer.] */
+        return toStream(new PrefetchingIterator<>(maxPrefetchedPages,
+                page -> new QueryResult(page.type, page.body, page.continuationToken)));
+    }
+
+    /**
+     * Return a stream over the items in the remaining pages of the query, that decodes each item only when the stream
+     * reaches it.
+     *
+     * <p> The pages are prefetched as in {@link #stream(int)}, but each item stays as a JSON tree until the stream
+     *     processes it, so an operation that stops early, filters or limits the items does not pay for the
+     *     deserialization of the items that it does not use, and a {@code parallel()} stream decodes the items in
+     *     parallel.
+     *
+     * <p> Close the stream if it is not consumed to the end, so the pending requests are abandoned.
+     *
+     * @param itemClass the {@code Class} of the items in the query, for instance {@link IndividualEnrollment},
+     *                  {@link EnrollmentGroup}, or {@link DeviceRegistrationState}. It cannot be {@code null}.
+     * @param maxPrefetchedPages the {@code int} with the maximum number of pages fetched ahead of the consumer. It cannot be smaller than 1.
+     * @param <T> the type of the items in the query.
+     * @return A {@code Stream} with the items in the remaining pages of the query.
+     * @throws IllegalArgumentException if one of the parameters is invalid. A failure to request a page is
+     *         thrown as IllegalArgumentException when the stream reaches that page.
+     */
+    public <T> Stream<T> streamItems(Class<T> itemClass, int maxPrefetchedPages)
+    {
+        /* SRS_QUERY_21_027: [The streamItems shall throw IllegalArgumentException if the provided itemClass is null.] */
+        if(itemClass == null)
+        {
+            throw new IllegalArgumentException("itemClass cannot be null.");
+        }
+
+        /* SRS_QUERY_21_028: [The streamItems shall throw IllegalArgumentException if the provided maxPrefetchedPages is smaller than 1.] */
+        /* SRS_QUERY_21_029: [The streamItems shall parse each page in background up to maxPrefetchedPages pages ahead of the consumer, and deserialize each item as itemClass when the stream reaches it.] */
+        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+        return toStream(new PrefetchingIterator<>(maxPrefetchedPages, page -> parseItems(page.body)))
+                .flatMap(items -> StreamSupport.stream(items.spliterator(), false))
+                .map(item -> gson.fromJson(item, itemClass));
+    }
+
     /**
      * Getter for the pageSize.
      *
@@ -278,4 +318,212 @@ public class Query implements Iterator
         /* SRS_QUERY_21_023: [The setPageSize shall store the new pageSize value.] */
         this.pageSize = pageSize;
     }
+
+    private QueryPage requestPage(String continuationToken)
+    {
+        /* SRS_QUERY_21_012: [If the pageSize is not 0, the next shall send the Http request with `x-ms-max-item-count=[pageSize]` in the header.] */
+        Map<String, String> headerParameters = new HashMap<>();
+        if(pageSize != 0)
+        {
+            headerParameters.put(PAGE_SIZE_KEY, Integer.toString(pageSize));
+        }
+        /* SRS_QUERY_21_013: [If the continuationToken is not null or empty, the next shall send the Http request with `x-ms-continuation=[continuationToken]` in the header.] */
+        if(!Tools.isNullOrEmpty(continuationToken))
+        {
+            headerParameters.put(CONTINUATION_TOKEN_KEY, continuationToken);
+        }
+
+        /* SRS_QUERY_21_014: [The next shall send a Http request with a Http verb `POST`.] */
+        HttpResponse httpResponse;
+        try
+        {
+            httpResponse =
+                    contractApiHttp.request(
+                            HttpMethod.POST,
+                            queryPath,
+                            headerParameters,
+                            querySpecificationJson);
+        }
+        catch (ProvisioningServiceClientException e)
+        {
+            /* SRS_QUERY_21_015: [The next shall throw IllegalArgumentException if the Http request throws any ProvisioningServiceClientException.] */
+            // Because Query implements the iterator interface, the next cannot throws ProvisioningServiceClientException.
+            throw new IllegalArgumentException(e);
+        }
+
+        /* SRS_QUERY_21_024: [The next shall throw IllegalArgumentException if the heepResponse contains a null body.] */
+        byte[] body = httpResponse.getBody();
+        if(body == null)
+        {
+            throw new IllegalArgumentException("Http response for next cannot contains a null body");
+        }
+        Map<String, String> headers = httpResponse.getHeaderFields();
+        return new QueryPage(headers.get(ITEM_TYPE_KEY), new String(body), headers.get(CONTINUATION_TOKEN_KEY));
+    }
+
+    private static JsonArray parseItems(String body)
+    {
+        if(Tools.isNullOrEmpty(body))
+        {
+            return new JsonArray();
+        }
+
+        JsonElement items = new JsonParser().parse(body);
+        if(items.isJsonArray())
+        {
+            return items.getAsJsonArray();
+        }
+
+        JsonArray singleItem = new JsonArray();
+        singleItem.add(items);
+        return singleItem;
+    }
+
+    private static <T> Stream<T> toStream(PrefetchingIterator<T> pages)
+    {
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pages::close);
+    }
+
+    /**
+     * The raw content of one page of the query.
+     */
+    private static final class QueryPage
+    {
+        private final String type;
+        private final String body;
+        private final String continuationToken;
+
+        private QueryPage(String type, String body, String continuationToken)
+        {
+            this.type = type;
+            this.body = body;
+            this.continuationToken = continuationToken;
+        }
+    }
+
+    /**
+     * One page of the query after the decoder processed it, with the continuationToken for the next page.
+     */
+    private static final class DecodedPage<T>
+    {
+        private final T value;
+        private final String continuationToken;
+
+        private DecodedPage(T value, String continuationToken)
+        {
+            this.value = value;
+            this.continuationToken = continuationToken;
+        }
+    }
+
+    /**
+     * Iterator over the remaining pages of the query, that keeps up to maxPrefetchedPages pages requested ahead of
+     * the consumer. Each page is a future chained on the previous one, because its request needs the previous
+     * continuationToken, so an abandoned iterator does not hold any thread once its prefetched pages arrive.
+     */
+    private final class PrefetchingIterator<T> implements Iterator<T>
+    {
+        private final int maxPrefetchedPages;
+        private final Function<QueryPage, T> decoder;
+        private final Deque<CompletableFuture<DecodedPage<T>>> pages = new ArrayDeque<>();
+        private CompletableFuture<DecodedPage<T>> lastPage;
+
+        private PrefetchingIterator(int maxPrefetchedPages, Function<QueryPage, T> decoder)
+        {
+            if(maxPrefetchedPages < 1)
+            {
+                throw new IllegalArgumentException("maxPrefetchedPages cannot be smaller than 1.");
+            }
+            this.maxPrefetchedPages = maxPrefetchedPages;
+            this.decoder = decoder;
+
+            if(hasNext)
+            {
+                lastPage = fetch(continuationToken);
+                pages.add(lastPage);
+                prefetch();
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return !pages.isEmpty() && (join(pages.peekFirst()) != null);
+        }
+
+        @Override
+        public T next()
+        {
+            if(!hasNext())
+            {
+                throw new NoSuchElementException("There are no more pending elements");
+            }
+            DecodedPage<T> page = join(pages.removeFirst());
+            prefetch();
+            return page.value;
+        }
+
+        private void prefetch()
+        {
+            while((lastPage != null) && (pages.size() < maxPrefetchedPages))
+            {
+                // a null page marks the end of the query
+                lastPage = lastPage.thenCompose(previous ->
+                        ((previous == null) || (previous.continuationToken == null)) ?
+                                CompletableFuture.completedFuture(null) :
+                                fetch(previous.continuationToken));
+                pages.add(lastPage);
+            }
+        }
+
+        private CompletableFuture<DecodedPage<T>> fetch(String pageContinuationToken)
+        {
+            return CompletableFuture.supplyAsync(() ->
+            {
+                QueryPage page = requestPage(pageContinuationToken);
+                return new DecodedPage<>(decoder.apply(page), page.continuationToken);
+            }, PrefetchExecutor.INSTANCE);
+        }
+
+        private DecodedPage<T> join(CompletableFuture<DecodedPage<T>> page)
+        {
+            try
+            {
+                return page.join();
+            }
+            catch (CompletionException e)
+            {
+                if(e.getCause() instanceof RuntimeException)
+                {
+                    throw (RuntimeException)e.getCause();
+                }
+                throw new IllegalArgumentException(e.getCause());
+            }
+        }
+
+        private void close()
+        {
+            for (CompletableFuture<DecodedPage<T>> page : pages)
+            {
+                page.cancel(false);
+            }
+            pages.clear();
+            lastPage = null;
+        }
+    }
+
+    /**
+     * Lazily created pool of daemon threads shared by the prefetching streams of all the queries.
+     */
+    private static final class PrefetchExecutor
+    {
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(runnable ->
+        {
+            Thread thread = new Thread(runnable, "azure-iot-sdk-query-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
@@ -123,6 +123,17 @@ public final class ProvisioningSasToken
         return expiresOnDate / ONE_SECOND_IN_MILLISECONDS;
     }
 
+    /**
+     * Getter for the expiry time of the SAS token.
+     *
+     * @return The time, as a UNIX timestamp in seconds, before which the token is valid.
+     */
+    public long getExpiryTime()
+    {
+        // Codes_SRS_PROVISIONING_SERVICE_SASTOKEN_21_009: [The getExpiryTime shall return the expiry time of the token, in seconds since the epoch]
+        return this.expiryTime;
+    }
+
     /**
      * Returns the string representation of the SAS token.
      *
@@ -11,6 +11,7 @@ import com.microsoft.azure.sdk.iot.deps.serializer.ParserUtility;
 import com.microsoft.azure.sdk.iot.provisioning.service.Tools;
 import com.microsoft.azure.sdk.iot.provisioning.service.ProvisioningServiceClient;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -98,6 +99,44 @@ public class BulkEnrollmentOperationResult
         this.errors = result.errors;
     }
 
+    /**
+     * Aggregator
+     *
+     * <p> Creates a single result for the bulk operations that were sent for the parts of a larger set of
+     *     enrollments. The aggregated result is successful only if all the provided results are successful,
+     *     and it contains the errors of all of them.
+     *
+     * @param results the collection of {@link BulkEnrollmentOperationResult} to aggregate. It cannot be {@code null} or empty.
+     * @return The {@code BulkEnrollmentOperationResult} with the aggregated content.
+     * @throws IllegalArgumentException If the provided collection is null or empty.
+     */
+    public static BulkEnrollmentOperationResult aggregate(Collection<BulkEnrollmentOperationResult> results)
+    {
+        /* SRS_BULK_OPERATION_RESULT_21_012: [The aggregate shall throw IllegalArgumentException if the collection of results is null or empty.] */
+        if((results == null) || results.isEmpty())
+        {
+            throw new IllegalArgumentException("results cannot be null or empty");
+        }
+
+        /* SRS_BULK_OPERATION_RESULT_21_013: [The aggregate shall store isSuccessful as true only if all the provided results are successful.] */
+        /* SRS_BULK_OPERATION_RESULT_21_014: [The aggregate shall store the errors of all the provided results.] */
+        boolean allSuccessful = true;
+        List<BulkEnrollmentOperationError> allErrors = new ArrayList<>();
+        for (BulkEnrollmentOperationResult result : results)
+        {
+            allSuccessful &= result.isSuccessful;
+            if(result.errors != null)
+            {
+                allErrors.addAll(Arrays.asList(result.errors));
+            }
+        }
+
+        BulkEnrollmentOperationResult aggregated = new BulkEnrollmentOperationResult();
+        aggregated.isSuccessful = allSuccessful;
+        aggregated.errors = allErrors.toArray(new BulkEnrollmentOperationError[0]);
+        return aggregated;
+    }
+
     /**
      * Getter for the Bulk Operation successful.
      *
@@ -28,6 +28,11 @@ import java.util.Map;
  *     Service Client public APIs. To access the public APIs, please see the
  *     {@link ProvisioningServiceClient}.
  *
+ * <p> The SAS token that authorizes the requests is created once, and reused by the next requests until
+ *     it is close to its expiration. The responses are always read to their end, so the Java HTTP stack
+ *     returns the connection to its keep-alive cache, and the next request to the same Device Provisioning
+ *     Service reuses it instead of opening a new connection with a new TLS handshake.
+ *
  * <p> The follow diagram describe the relation between these 3 layers of the Service Client:
  *
  * <pre>
@@ -58,6 +63,8 @@ import java.util.Map;
 public class ContractApiHttp
 {
     private static final Integer DEFAULT_HTTP_TIMEOUT_MS = 24000;
+    private static final long SAS_TOKEN_RENEWAL_MARGIN_SECS = 60 * 60;
+    private static final long ONE_SECOND_IN_MILLISECONDS = 1000;
     private static final String URL_SEPARATOR_0 = "/";
     private static final String URL_SEPARATOR_1 = "?";
     private static final String URL_HTTPS = "https:" + URL_SEPARATOR_0 + URL_SEPARATOR_0;
@@ -76,6 +83,7 @@ public class ContractApiHttp
     private static final String HEADER_FIELD_VALUE_CHARSET = "utf-8";
 
     private ProvisioningConnectionString provisioningConnectionString;
+    private volatile ProvisioningSasToken sasToken;
 
     /**
      * PRIVATE CONSTRUCTOR
@@ -128,16 +136,14 @@ public class ContractApiHttp
      * @throws ProvisioningServiceClientException if the Provisioning Service response contains an error message.
      * @throws IllegalArgumentException if the provided parameters are not correct.
      */
-    public synchronized HttpResponse request(
+    public HttpResponse request(
             HttpMethod httpMethod,
             String path,
             Map<String, String> headerParameters,
             String payload)
             throws ProvisioningServiceClientException
     {
-        /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_005: [The request shall create a SAS token based on the connection string.*/
-        /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_006: [If the request get problem to create the SAS token, it shall throw IllegalArgumentException.*/
-        String sasTokenString = new ProvisioningSasToken(this.provisioningConnectionString).toString();
+        String sasTokenString = getSasToken();
 
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_007: [The request shall create a HTTP URL based on the Device Registration path.*/
         URL url = getUrlForPath(path);
@@ -163,6 +169,22 @@ public class ContractApiHttp
         return httpResponse;
     }
 
+    private String getSasToken()
+    {
+        /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_017: [The request shall reuse the SAS token created by a previous request, until it is less than one hour from its expiration.] */
+        ProvisioningSasToken currentSasToken = this.sasToken;
+        long nowSecs = System.currentTimeMillis() / ONE_SECOND_IN_MILLISECONDS;
+        if ((currentSasToken == null) || (currentSasToken.getExpiryTime() - nowSecs <= SAS_TOKEN_RENEWAL_MARGIN_SECS))
+        {
+            // concurrent requests may both renew the token, any of the new tokens is valid.
+            /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_005: [The request shall create a SAS token based on the connection string.*/
+            /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_006: [If the request get problem to create the SAS token, it shall throw IllegalArgumentException.*/
+            currentSasToken = new ProvisioningSasToken(this.provisioningConnectionString);
+            this.sasToken = currentSasToken;
+        }
+        return currentSasToken.toString();
+    }
+
     private HttpRequest createRequest(URL url, HttpMethod method, Map<String, String> headerParameters, byte[] payload, String sasToken) throws ProvisioningServiceClientTransportException
     {
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_011: [If the request get problem creating the HttpRequest, it shall throw ProvisioningServiceClientTransportException.*/
@@ -0,0 +1,324 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.azure.sdk.iot.deps.transport.http.HttpMethod;
+import com.microsoft.azure.sdk.iot.deps.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.provisioning.service.BulkEnrollmentOperationPipeline;
+import com.microsoft.azure.sdk.iot.provisioning.service.auth.ProvisioningConnectionString;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.*;
+import com.microsoft.azure.sdk.iot.provisioning.service.contract.ContractApiHttp;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientBadFormatException;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientTooManyRequestsException;
+import mockit.Deencapsulation;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.Mocked;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the Bulk Enrollment Operation Pipeline.
+ * 100% methods, 100% lines covered
+ */
+public class BulkEnrollmentOperationPipelineTest
+{
+    private static final String BULK_ENROLLMENT_PATH = "enrollments";
+    private static final String VALID_ENDORSEMENT_KEY = "76cadbbd-67af-49ab-b112-0c2e6a8445b0";
+
+    @Mocked
+    private ProvisioningConnectionString mockedProvisioningConnectionString;
+
+    /**
+     * In memory stand-in of the Device Provisioning Service bulk operation, that reports one error entry for each
+     * registrationId in the request, and keeps track of the requests in flight.
+     */
+    private static final class FakeBulkOperationService extends MockUp<ContractApiHttp>
+    {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger requestsInFlight = new AtomicInteger();
+        final AtomicInteger maxRequestsInFlight = new AtomicInteger();
+        final Set<String> throttleOnce = ConcurrentHashMap.newKeySet();
+        final Set<String> rejectedRegistrationIds = ConcurrentHashMap.newKeySet();
+        volatile String failOnRegistrationId;
+
+        @Mock
+        HttpResponse request(HttpMethod httpMethod, String path, Map<String, String> headerParameters, String payload)
+                throws ProvisioningServiceClientException, InterruptedException
+        {
+            assertEquals(HttpMethod.POST, httpMethod);
+            assertEquals(BULK_ENROLLMENT_PATH, path);
+            requests.incrementAndGet();
+
+            JsonObject bulkOperation = new JsonParser().parse(payload).getAsJsonObject();
+            List<String> registrationIds = new ArrayList<>();
+            for (JsonElement enrollment : bulkOperation.getAsJsonArray("enrollments"))
+            {
+                registrationIds.add(enrollment.getAsJsonObject().get("registrationId").getAsString());
+            }
+            assertTrue(registrationIds.size() <= BulkEnrollmentOperationPipeline.MAX_ENROLLMENTS_PER_BULK_OPERATION);
+
+            if (registrationIds.contains(failOnRegistrationId))
+            {
+                throw new ProvisioningServiceClientBadFormatException("invalid enrollment");
+            }
+            if (throttleOnce.remove(registrationIds.get(0)))
+            {
+                throw new ProvisioningServiceClientTooManyRequestsException("throttled");
+            }
+
+            int inFlight = requestsInFlight.incrementAndGet();
+            maxRequestsInFlight.accumulateAndGet(inFlight, Math::max);
+            try
+            {
+                Thread.sleep(20);
+            }
+            finally
+            {
+                requestsInFlight.decrementAndGet();
+            }
+
+            boolean isSuccessful = true;
+            StringBuilder json = new StringBuilder("{\"isSuccessful\":%s,\"errors\":[");
+            for (String registrationId : registrationIds)
+            {
+                boolean rejected = rejectedRegistrationIds.contains(registrationId);
+                isSuccessful &= !rejected;
+                json.append("{\"registrationId\":\"").append(registrationId)
+                        .append("\",\"errorCode\":").append(rejected ? 409 : 200)
+                        .append(",\"errorStatus\":\"").append(rejected ? "Conflict" : "Succeeded").append("\"},");
+            }
+            json.setLength(json.length() - 1);
+            json.append("]}");
+            return new HttpResponse(200, String.format(json.toString(), isSuccessful).getBytes(), new HashMap<>(), new byte[0]);
+        }
+    }
+
+    /**
+     * Iterator that produces the enrollments on demand and keeps track of how far it was read.
+     */
+    private static final class EnrollmentGenerator implements Iterator<IndividualEnrollment>
+    {
+        private final int count;
+        final AtomicInteger produced = new AtomicInteger();
+
+        EnrollmentGenerator(int count)
+        {
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return produced.get() < count;
+        }
+
+        @Override
+        public IndividualEnrollment next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return new IndividualEnrollment("registrationId-" + produced.getAndIncrement(), new TpmAttestation(VALID_ENDORSEMENT_KEY));
+        }
+    }
+
+    private BulkEnrollmentOperationPipeline createPipeline(int maxConcurrentRequests)
+    {
+        ContractApiHttp contractApiHttp = Deencapsulation.newInstance(
+                ContractApiHttp.class, new Class[]{ProvisioningConnectionString.class}, mockedProvisioningConnectionString);
+        return Deencapsulation.invoke(
+                BulkEnrollmentOperationPipeline.class, "createFromContractApiHttp",
+                new Class[]{ContractApiHttp.class, String.class, int.class}, contractApiHttp, BULK_ENROLLMENT_PATH, maxConcurrentRequests);
+    }
+
+    private static BulkEnrollmentOperationResult run(BulkEnrollmentOperationPipeline pipeline, BulkOperationMode mode, Iterator<IndividualEnrollment> individualEnrollments)
+    {
+        return Deencapsulation.invoke(pipeline, "run", new Class[]{BulkOperationMode.class, Iterator.class}, mode, individualEnrollments);
+    }
+
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_001: [The constructor shall throw IllegalArgumentException if the provided contractApiHttp is null.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void factoryThrowsOnNullContractApiHttp()
+    {
+        // arrange
+        // act
+        Deencapsulation.invoke(
+                BulkEnrollmentOperationPipeline.class, "createFromContractApiHttp",
+                new Class[]{ContractApiHttp.class, String.class, int.class}, null, BULK_ENROLLMENT_PATH, 1);
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_002: [The constructor shall throw IllegalArgumentException if the provided maxConcurrentRequests is smaller than 1.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void factoryThrowsOnZeroMaxConcurrentRequests()
+    {
+        // arrange
+        // act
+        createPipeline(0);
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_003: [The factory shall create a new instance of this.] */
+    @Test
+    public void factoryCreatesNewInstanceSucceed()
+    {
+        // arrange
+        // act
+        BulkEnrollmentOperationPipeline pipeline = createPipeline(1);
+
+        // assert
+        assertNotNull(pipeline);
+    }
+
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_004: [The run shall throw IllegalArgumentException if the provided bulkOperationMode is null.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void runThrowsOnNullBulkOperationMode()
+    {
+        // arrange
+        BulkEnrollmentOperationPipeline pipeline = createPipeline(1);
+
+        // act
+        run(pipeline, null, new EnrollmentGenerator(1));
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_005: [The run shall throw IllegalArgumentException if the provided individualEnrollments is null or empty.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void runThrowsOnEmptyIndividualEnrollments()
+    {
+        // arrange
+        BulkEnrollmentOperationPipeline pipeline = createPipeline(1);
+
+        // act
+        run(pipeline, BulkOperationMode.CREATE, new EnrollmentGenerator(0));
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_006: [The run shall not read the next chunk of individualEnrollments while maxConcurrentRequests chunks are in flight.] */
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_007: [The run shall split the individualEnrollments in chunks of up to MAX_ENROLLMENTS_PER_BULK_OPERATION.] */
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_008: [The run shall return the aggregation of the BulkEnrollmentOperationResult of all the chunks.] */
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_009: [The run shall send each chunk in a Http request with a Http verb `POST` and a body with the chunk content in JSON format.] */
+    @Test
+    public void runSendsChunksConcurrentlyAndAggregatesErrors()
+    {
+        // arrange
+        final int enrollments = 995;
+        final int maxConcurrentRequests = 4;
+        FakeBulkOperationService service = new FakeBulkOperationService();
+        service.rejectedRegistrationIds.add("registrationId-7");
+        service.rejectedRegistrationIds.add("registrationId-994");
+        BulkEnrollmentOperationPipeline pipeline = createPipeline(maxConcurrentRequests);
+
+        // act
+        BulkEnrollmentOperationResult result = run(pipeline, BulkOperationMode.CREATE, new EnrollmentGenerator(enrollments));
+
+        // assert
+        assertEquals(100, service.requests.get());
+        assertEquals(maxConcurrentRequests, service.maxRequestsInFlight.get());
+        assertFalse(result.getSuccessful());
+        assertEquals(enrollments, result.getErrors().size());
+        Map<String, Integer> errorCodes = new HashMap<>();
+        for (BulkEnrollmentOperationError error : result.getErrors())
+        {
+            assertNull(errorCodes.put(error.getRegistrationId(), error.getErrorCode()));
+        }
+        assertEquals(Integer.valueOf(409), errorCodes.get("registrationId-7"));
+        assertEquals(Integer.valueOf(409), errorCodes.get("registrationId-994"));
+        assertEquals(Integer.valueOf(200), errorCodes.get("registrationId-500"));
+    }
+
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_010: [If the request is throttled, the run shall send it again after an exponential backoff with jitter, up to MAX_THROTTLED_RETRIES times.] */
+    @Test
+    public void runRetriesThrottledChunk()
+    {
+        // arrange
+        FakeBulkOperationService service = new FakeBulkOperationService();
+        service.throttleOnce.add("registrationId-10");
+        BulkEnrollmentOperationPipeline pipeline = createPipeline(2);
+
+        // act
+        BulkEnrollmentOperationResult result = run(pipeline, BulkOperationMode.CREATE, new EnrollmentGenerator(30));
+
+        // assert
+        assertEquals(4, service.requests.get());
+        assertTrue(result.getSuccessful());
+        assertEquals(30, result.getErrors().size());
+    }
+
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_011: [The run shall throw ProvisioningServiceClientServiceException if one of the httpResponses contains a null body.] */
+    @Test (expected = ProvisioningServiceClientException.class)
+    public void runThrowsOnNullBody()
+    {
+        // arrange
+        new MockUp<ContractApiHttp>()
+        {
+            @Mock
+            HttpResponse request(HttpMethod httpMethod, String path, Map<String, String> headerParameters, String payload)
+            {
+                return new HttpResponse(200, new byte[0], new HashMap<>(), new byte[0]);
+            }
+        };
+        new MockUp<HttpResponse>()
+        {
+            @Mock
+            byte[] getBody()
+            {
+                return null;
+            }
+        };
+        BulkEnrollmentOperationPipeline pipeline = createPipeline(1);
+
+        // act
+        run(pipeline, BulkOperationMode.CREATE, new EnrollmentGenerator(1));
+
+        // assert
+    }
+
+    /* SRS_BULK_ENROLLMENT_OPERATION_PIPELINE_21_012: [The run shall throw the failure of the first chunk that failed.] */
+    @Test
+    public void runStopsReadingEnrollmentsAfterFailure()
+    {
+        // arrange
+        final int enrollments = 10000;
+        final int maxConcurrentRequests = 2;
+        FakeBulkOperationService service = new FakeBulkOperationService();
+        service.failOnRegistrationId = "registrationId-25";
+        BulkEnrollmentOperationPipeline pipeline = createPipeline(maxConcurrentRequests);
+        EnrollmentGenerator generator = new EnrollmentGenerator(enrollments);
+
+        // act
+        try
+        {
+            run(pipeline, BulkOperationMode.DELETE, generator);
+            fail("the bulk operation should fail");
+        }
+        catch (Exception e)
+        {
+            // assert
+            assertTrue(e instanceof ProvisioningServiceClientBadFormatException);
+        }
+        assertTrue(generator.produced.get() <= 30 + maxConcurrentRequests * BulkEnrollmentOperationPipeline.MAX_ENROLLMENTS_PER_BULK_OPERATION);
+    }
+}
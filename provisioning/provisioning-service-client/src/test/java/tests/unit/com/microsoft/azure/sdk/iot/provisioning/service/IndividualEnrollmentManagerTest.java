@@ -14,6 +14,7 @@ import org.junit.Test;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 
@@ -458,6 +459,41 @@ public class IndividualEnrollmentManagerTest
         // assert
     }
 
+    /* SRS_INDIVIDUAL_ENROLLMENT_MANAGER_21_046: [The bulkOperation shall run the BulkEnrollmentOperationPipeline for the path `enrollments` with the provided maxConcurrentRequests.] */
+    @Test
+    public void bulkOperationWithIteratorRunsPipeline(
+            @Mocked final IndividualEnrollment mockedIndividualEnrollment,
+            @Mocked final BulkEnrollmentOperationPipeline mockedPipeline,
+            @Mocked final BulkEnrollmentOperationResult mockedBulkEnrollmentOperationResult) throws ProvisioningServiceClientException
+    {
+        // arrange
+        final String bulkEnrollmentPath = "enrollments";
+        final Collection<IndividualEnrollment> individualEnrollments = new LinkedList<>();
+        individualEnrollments.add(mockedIndividualEnrollment);
+        final Iterator<IndividualEnrollment> iterator = individualEnrollments.iterator();
+        IndividualEnrollmentManager individualEnrollmentManager = createIndividualEnrollmentManager();
+        new StrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(BulkEnrollmentOperationPipeline.class, "createFromContractApiHttp",
+                        new Class[] {ContractApiHttp.class, String.class, int.class}, mockedContractApiHttp, bulkEnrollmentPath, 8);
+                result = mockedPipeline;
+                times = 1;
+                Deencapsulation.invoke(mockedPipeline, "run", BulkOperationMode.DELETE, iterator);
+                result = mockedBulkEnrollmentOperationResult;
+                times = 1;
+            }
+        };
+
+        // act
+        BulkEnrollmentOperationResult bulkEnrollmentOperationResult = Deencapsulation.invoke(
+                individualEnrollmentManager, "bulkOperation",
+                new Class[] {BulkOperationMode.class, Iterator.class, int.class}, BulkOperationMode.DELETE, iterator, 8);
+
+        // assert
+        assertNotNull(bulkEnrollmentOperationResult);
+    }
+
     /* SRS_INDIVIDUAL_ENROLLMENT_MANAGER_21_020: [The get shall throw IllegalArgumentException if the provided registrationId is null or empty.] */
     @Test (expected = IllegalArgumentException.class)
     public void getThrowsOnNullRegistrationId() throws ProvisioningServiceClientException
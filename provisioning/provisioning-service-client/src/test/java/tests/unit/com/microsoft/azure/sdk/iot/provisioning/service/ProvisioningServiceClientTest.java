@@ -14,8 +14,10 @@ import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import org.junit.Test;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -311,6 +313,75 @@ public class ProvisioningServiceClientTest
         assertNotNull(result);
     }
 
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_029: [The runBulkEnrollmentOperation shall do a Provisioning operation over the iterator of individualEnrollment by calling the bulkOperation in the individualEnrollmentManager.] */
+    @Test
+    public void runBulkEnrollmentOperationWithIteratorSucceed(
+            @Mocked final IndividualEnrollment mockedIndividualEnrollment,
+            @Mocked final BulkEnrollmentOperationResult mockedBulkEnrollmentOperationResult)
+            throws ProvisioningServiceClientException
+    {
+        // arrange
+        final List<IndividualEnrollment> individualEnrollments = new LinkedList<>();
+        individualEnrollments.add(mockedIndividualEnrollment);
+        final Iterator<IndividualEnrollment> iterator = individualEnrollments.iterator();
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedIndividualEnrollmentManager, "bulkOperation", BulkOperationMode.CREATE, iterator, 4);
+                result = mockedBulkEnrollmentOperationResult;
+                times = 1;
+            }
+        };
+
+        // act
+        BulkEnrollmentOperationResult result = provisioningServiceClient.runBulkEnrollmentOperation(BulkOperationMode.CREATE, iterator, 4);
+
+        // assert
+        assertNotNull(result);
+    }
+
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_030: [The runBulkEnrollmentOperation shall throw IllegalArgumentException if the provided stream is null.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void runBulkEnrollmentOperationThrowsOnNullStream() throws ProvisioningServiceClientException
+    {
+        // arrange
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+
+        // act
+        provisioningServiceClient.runBulkEnrollmentOperation(BulkOperationMode.CREATE, (Stream<IndividualEnrollment>)null, 4);
+
+        // assert
+    }
+
+    /* SRS_PROVISIONING_SERVICE_CLIENT_21_031: [The runBulkEnrollmentOperation shall do a Provisioning operation over the iterator of the provided stream.] */
+    @Test
+    public void runBulkEnrollmentOperationWithStreamSucceed(
+            @Mocked final IndividualEnrollment mockedIndividualEnrollment,
+            @Mocked final BulkEnrollmentOperationResult mockedBulkEnrollmentOperationResult)
+            throws ProvisioningServiceClientException
+    {
+        // arrange
+        final List<IndividualEnrollment> individualEnrollments = new LinkedList<>();
+        individualEnrollments.add(mockedIndividualEnrollment);
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedIndividualEnrollmentManager, "bulkOperation",
+                        new Class[] {BulkOperationMode.class, Iterator.class, int.class}, BulkOperationMode.CREATE, (Iterator)any, 4);
+                result = mockedBulkEnrollmentOperationResult;
+                times = 1;
+            }
+        };
+
+        // act
+        BulkEnrollmentOperationResult result = provisioningServiceClient.runBulkEnrollmentOperation(BulkOperationMode.CREATE, individualEnrollments.stream(), 4);
+
+        // assert
+        assertNotNull(result);
+    }
+
     /* SRS_PROVISIONING_SERVICE_CLIENT_21_010: [The getIndividualEnrollment shall retrieve the individualEnrollment information for the provided registrationId by calling the get in the individualEnrollmentManager.] */
     @Test
     public void getIndividualEnrollmentSucceed(
@@ -12,9 +12,16 @@ import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.*;
 import mockit.*;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -788,4 +795,215 @@ public class QueryTest
         // assert
         assertEquals(20, (int)Deencapsulation.getField(query, "pageSize"));
     }
+
+    private Query createQueryOverPages(final int pages, final String body, final List<String> sentContinuationTokens, final AtomicInteger requests)
+            throws ProvisioningServiceClientException
+    {
+        final String querySpecificationJson = "validJson";
+        new NonStrictExpectations()
+        {
+            {
+                mockedQuerySpecification.toJson();
+                result = querySpecificationJson;
+                mockedContractApiHttp.request(HttpMethod.POST, "enrollments/query", (Map)any, querySpecificationJson);
+                result = new Delegate()
+                {
+                    HttpResponse request(HttpMethod httpMethod, String path, Map<String, String> headerParameters, String payload)
+                    {
+                        sentContinuationTokens.add(headerParameters.get("x-ms-continuation"));
+                        requests.incrementAndGet();
+                        return mockedHttpResponse;
+                    }
+                };
+                mockedHttpResponse.getBody();
+                result = body.getBytes();
+                mockedHttpResponse.getHeaderFields();
+                result = new Delegate()
+                {
+                    Map<String, String> getHeaderFields()
+                    {
+                        Map<String, String> headers = new HashMap<>();
+                        headers.put("x-ms-item-type", "enrollment");
+                        if (requests.get() < pages)
+                        {
+                            headers.put("x-ms-continuation", "token-" + requests.get());
+                        }
+                        return headers;
+                    }
+                };
+            }
+        };
+        return Deencapsulation.newInstance(Query.class, new Class[]{ContractApiHttp.class, String.class, QuerySpecification.class, Integer.class},
+                mockedContractApiHttp, "enrollments", mockedQuerySpecification, 0);
+    }
+
+    /* SRS_QUERY_21_025: [The stream shall throw IllegalArgumentException if the provided maxPrefetchedPages is smaller than 1.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void streamThrowsOnZeroMaxPrefetchedPages() throws ProvisioningServiceClientException
+    {
+        // arrange
+        Query query = createQueryOverPages(1, "[]", new LinkedList<String>(), new AtomicInteger());
+
+        // act
+        query.stream(0);
+
+        // assert
+    }
+
+    /* SRS_QUERY_21_026: [The stream shall return the QueryResult of each remaining page, in order, deserialized in background up to maxPrefetchedPages pages ahead of the consumer.] */
+    @Test
+    public void streamReturnsAllPagesInOrder() throws ProvisioningServiceClientException
+    {
+        // arrange
+        final List<String> sentContinuationTokens = new LinkedList<>();
+        final AtomicInteger requests = new AtomicInteger();
+        Query query = createQueryOverPages(5, "[]", sentContinuationTokens, requests);
+
+        // act
+        List<QueryResult> pages;
+        try (Stream<QueryResult> stream = query.stream(2))
+        {
+            pages = stream.collect(Collectors.toList());
+        }
+
+        // assert
+        assertEquals(5, pages.size());
+        assertEquals(Arrays.asList(null, "token-1", "token-2", "token-3", "token-4"), sentContinuationTokens);
+        assertTrue(query.hasNext());
+    }
+
+    /* SRS_QUERY_21_026: [The stream shall return the QueryResult of each remaining page, in order, deserialized in background up to maxPrefetchedPages pages ahead of the consumer.] */
+    @Test
+    public void streamPrefetchesUpToMaxPrefetchedPages() throws Exception
+    {
+        // arrange
+        final AtomicInteger requests = new AtomicInteger();
+        Query query = createQueryOverPages(10, "[]", new LinkedList<String>(), requests);
+
+        // act
+        Iterator<QueryResult> pages = query.stream(3).iterator();
+        pages.next();
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((requests.get() < 4) && (System.currentTimeMillis() < deadline))
+        {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+
+        // assert
+        assertEquals(4, requests.get());
+        int remainingPages = 0;
+        while (pages.hasNext())
+        {
+            pages.next();
+            remainingPages++;
+        }
+        assertEquals(9, remainingPages);
+        assertEquals(10, requests.get());
+    }
+
+    /* SRS_QUERY_21_026: [The stream shall return the QueryResult of each remaining page, in order, deserialized in background up to maxPrefetchedPages pages ahead of the consumer.] */
+    @Test
+    public void streamIsEmptyForFinishedQuery() throws ProvisioningServiceClientException
+    {
+        // arrange
+        final AtomicInteger requests = new AtomicInteger();
+        Query query = createQueryOverPages(1, "[]", new LinkedList<String>(), requests);
+        query.next();
+
+        // act
+        long pages = query.stream(1).count();
+
+        // assert
+        assertEquals(0, pages);
+        assertEquals(1, requests.get());
+    }
+
+    /* SRS_QUERY_21_015: [The next shall throw IllegalArgumentException if the Http request throws any ProvisioningServiceClientException.] */
+    @Test
+    public void streamThrowsWhenItReachesFailedPage() throws ProvisioningServiceClientException
+    {
+        // arrange
+        final String querySpecificationJson = "validJson";
+        final Map<String, String> headersResult = new HashMap<>();
+        headersResult.put("x-ms-item-type", "enrollment");
+        headersResult.put("x-ms-continuation", "token-1");
+        new NonStrictExpectations()
+        {
+            {
+                mockedQuerySpecification.toJson();
+                result = querySpecificationJson;
+                mockedContractApiHttp.request(HttpMethod.POST, "enrollments/query", (Map)any, querySpecificationJson);
+                result = mockedHttpResponse;
+                result = new ProvisioningServiceClientTransportException("failed to send");
+                mockedHttpResponse.getBody();
+                result = "[]".getBytes();
+                mockedHttpResponse.getHeaderFields();
+                result = headersResult;
+            }
+        };
+        Query query = Deencapsulation.newInstance(Query.class, new Class[]{ContractApiHttp.class, String.class, QuerySpecification.class, Integer.class},
+                mockedContractApiHttp, "enrollments", mockedQuerySpecification, 0);
+        Iterator<QueryResult> pages = query.stream(1).iterator();
+
+        // act
+        assertNotNull(pages.next());
+        try
+        {
+            pages.next();
+            fail("the failed page should throw");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // assert
+            assertTrue(e.getCause() instanceof ProvisioningServiceClientTransportException);
+        }
+    }
+
+    /* SRS_QUERY_21_027: [The streamItems shall throw IllegalArgumentException if the provided itemClass is null.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void streamItemsThrowsOnNullItemClass() throws ProvisioningServiceClientException
+    {
+        // arrange
+        Query query = createQueryOverPages(1, "[]", new LinkedList<String>(), new AtomicInteger());
+
+        // act
+        query.streamItems(null, 1);
+
+        // assert
+    }
+
+    /* SRS_QUERY_21_028: [The streamItems shall throw IllegalArgumentException if the provided maxPrefetchedPages is smaller than 1.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void streamItemsThrowsOnZeroMaxPrefetchedPages() throws ProvisioningServiceClientException
+    {
+        // arrange
+        Query query = createQueryOverPages(1, "[]", new LinkedList<String>(), new AtomicInteger());
+
+        // act
+        query.streamItems(IndividualEnrollment.class, 0);
+
+        // assert
+    }
+
+    /* SRS_QUERY_21_029: [The streamItems shall parse each page in background up to maxPrefetchedPages pages ahead of the consumer, and deserialize each item as itemClass when the stream reaches it.] */
+    @Test
+    public void streamItemsReturnsItemsOfAllPages() throws ProvisioningServiceClientException
+    {
+        // arrange
+        final String body = "[{\"registrationId\":\"registrationId-1\"},{\"registrationId\":\"registrationId-2\"}]";
+        Query query = createQueryOverPages(3, body, new LinkedList<String>(), new AtomicInteger());
+
+        // act
+        List<IndividualEnrollment> items;
+        try (Stream<IndividualEnrollment> stream = query.streamItems(IndividualEnrollment.class, 2))
+        {
+            items = stream.collect(Collectors.toList());
+        }
+
+        // assert
+        assertEquals(6, items.size());
+        assertEquals("registrationId-1", items.get(0).getRegistrationId());
+        assertEquals("registrationId-2", items.get(5).getRegistrationId());
+    }
 }
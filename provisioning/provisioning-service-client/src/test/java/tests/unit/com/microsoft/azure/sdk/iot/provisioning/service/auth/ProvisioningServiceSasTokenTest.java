@@ -19,6 +19,7 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit test for Provisioning Service SasToken
@@ -122,4 +123,27 @@ public class ProvisioningServiceSasTokenTest
         Deencapsulation.setField(provisioningConnectionString, "hostName", null);
         ProvisioningSasToken provisioningServiceSasToken = new ProvisioningSasToken(provisioningConnectionString);
     }
+
+    // Tests_SRS_PROVISIONING_SERVICE_SASTOKEN_21_009: [The getExpiryTime shall return the expiry time of the token, in seconds since the epoch]
+    @Test
+    public void getExpiryTimeReturnsOneYearFromNow() throws Exception
+    {
+        // Arrange
+        String hostName = "HOSTNAME.b.c.d";
+        String sharedAccessKey = Base64.encodeBase64StringLocal("key".getBytes());
+        String connectionString = "HostName=" + hostName + ";SharedAccessKeyName=ACCESSKEYNAME;SharedAccessKey=" + sharedAccessKey;
+        ProvisioningConnectionString provisioningConnectionString = ProvisioningConnectionStringBuilder.createConnectionString(connectionString);
+        long oneYearSecs = 365L * 24 * 60 * 60;
+        long beforeSecs = System.currentTimeMillis() / 1000;
+
+        // Act
+        ProvisioningSasToken provisioningServiceSasToken = new ProvisioningSasToken(provisioningConnectionString);
+
+        // Assert
+        long afterSecs = System.currentTimeMillis() / 1000;
+        long expiryTime = provisioningServiceSasToken.getExpiryTime();
+        assertTrue(expiryTime >= beforeSecs + oneYearSecs);
+        assertTrue(expiryTime <= afterSecs + oneYearSecs);
+        assertTrue(provisioningServiceSasToken.toString().contains("&se=" + expiryTime + "&"));
+    }
 }
@@ -13,6 +13,7 @@ import mockit.Verifications;
 import org.junit.Test;
 import tests.unit.com.microsoft.azure.sdk.iot.provisioning.service.Helpers;
 
+import java.util.LinkedList;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -233,4 +234,58 @@ public class BulkEnrollmentOperationResultTest
         // assert
         assertNotNull(bulkEnrollmentOperationResult);
     }
+
+    /* SRS_BULK_OPERATION_RESULT_21_012: [The aggregate shall throw IllegalArgumentException if the collection of results is null or empty.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void aggregateThrowsOnNullResults()
+    {
+        // arrange
+
+        // act
+        BulkEnrollmentOperationResult.aggregate(null);
+
+        // assert
+    }
+
+    /* SRS_BULK_OPERATION_RESULT_21_012: [The aggregate shall throw IllegalArgumentException if the collection of results is null or empty.] */
+    @Test (expected = IllegalArgumentException.class)
+    public void aggregateThrowsOnEmptyResults()
+    {
+        // arrange
+
+        // act
+        BulkEnrollmentOperationResult.aggregate(new LinkedList<BulkEnrollmentOperationResult>());
+
+        // assert
+    }
+
+    /* SRS_BULK_OPERATION_RESULT_21_013: [The aggregate shall store isSuccessful as true only if all the provided results are successful.] */
+    /* SRS_BULK_OPERATION_RESULT_21_014: [The aggregate shall store the errors of all the provided results.] */
+    @Test
+    public void aggregateMergesSuccessAndErrors()
+    {
+        // arrange
+        final String failedJson =
+                "{\n" +
+                "  \"isSuccessful\":false,\n" +
+                "  \"errors\": [\n" +
+                VALID_ERROR_JSON_2 +
+                "  ]\n" +
+                "}";
+        List<BulkEnrollmentOperationResult> results = new LinkedList<>();
+        results.add(new BulkEnrollmentOperationResult(VALID_JSON));
+        results.add(new BulkEnrollmentOperationResult(failedJson));
+
+        // act
+        BulkEnrollmentOperationResult aggregated = BulkEnrollmentOperationResult.aggregate(results);
+
+        // assert
+        assertFalse(aggregated.getSuccessful());
+        List<BulkEnrollmentOperationError> errors = aggregated.getErrors();
+        assertEquals(3, errors.size());
+        assertEquals(VALID_REGISTRATION_ID_1, errors.get(0).getRegistrationId());
+        assertEquals(VALID_REGISTRATION_ID_2, errors.get(1).getRegistrationId());
+        assertEquals(VALID_REGISTRATION_ID_2, errors.get(2).getRegistrationId());
+        assertTrue(BulkEnrollmentOperationResult.aggregate(results.subList(0, 1)).getSuccessful());
+    }
 }
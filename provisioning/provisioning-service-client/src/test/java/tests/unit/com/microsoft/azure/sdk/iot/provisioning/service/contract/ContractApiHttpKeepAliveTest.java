@@ -0,0 +1,190 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.provisioning.service.contract;
+
+import com.microsoft.azure.sdk.iot.deps.transport.http.HttpMethod;
+import com.microsoft.azure.sdk.iot.deps.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.deps.util.Base64;
+import com.microsoft.azure.sdk.iot.provisioning.service.auth.ProvisioningConnectionString;
+import com.microsoft.azure.sdk.iot.provisioning.service.auth.ProvisioningConnectionStringBuilder;
+import com.microsoft.azure.sdk.iot.provisioning.service.contract.ContractApiHttp;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import mockit.Deencapsulation;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Unit tests of the reuse of the SAS token and of the connection by the ContractApiHttp, against a local HTTPS
+ * stand-in of the Device Provisioning Service.
+ */
+public class ContractApiHttpKeepAliveTest
+{
+    private static final char[] SERVER_KEY_PASSWORD = "password".toCharArray();
+    private static final int REQUESTS = 20;
+    private static final byte[] RESPONSE_BODY = enrollmentJson().getBytes();
+
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+    private final List<String> authorizations = Collections.synchronizedList(new ArrayList<String>());
+    private HttpsServer server;
+    private SSLSocketFactory defaultSocketFactory;
+
+    @Before
+    public void startServer() throws Exception
+    {
+        KeyPair keyPair = generateKeyPair();
+        X509Certificate certificate = selfSignedCertificate(keyPair);
+
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null);
+        keyStore.setKeyEntry("server", keyPair.getPrivate(), SERVER_KEY_PASSWORD, new Certificate[] { certificate });
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, SERVER_KEY_PASSWORD);
+        SSLContext serverContext = SSLContext.getInstance("TLSv1.2");
+        serverContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+        // without it the stand-in sends the response headers and body in separate delayed segments
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 50);
+        server.setHttpsConfigurator(new HttpsConfigurator(serverContext));
+        server.createContext("/", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                authorizations.add(exchange.getRequestHeaders().getFirst("authorization"));
+                try (InputStream requestBody = exchange.getRequestBody())
+                {
+                    while (requestBody.read() > -1)
+                    {
+                        // drain the request
+                    }
+                }
+                exchange.sendResponseHeaders(200, RESPONSE_BODY.length);
+                try (OutputStream responseBody = exchange.getResponseBody())
+                {
+                    responseBody.write(RESPONSE_BODY);
+                }
+            }
+        });
+        server.start();
+
+        // the ContractApiHttp uses the default socket factory, so the test makes it trust the stand-in
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null);
+        trustStore.setCertificateEntry("server", certificate);
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        SSLContext clientContext = SSLContext.getInstance("TLSv1.2");
+        clientContext.init(null, trustManagerFactory.getTrustManagers(), null);
+        defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        HttpsURLConnection.setDefaultSSLSocketFactory(clientContext.getSocketFactory());
+    }
+
+    @After
+    public void stopServer()
+    {
+        HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        server.stop(0);
+    }
+
+    @Test
+    public void requestsReuseTheSasTokenAndTheConnection() throws Exception
+    {
+        //arrange
+        ProvisioningConnectionString connectionString = ProvisioningConnectionStringBuilder.createConnectionString(
+                "HostName=localhost;SharedAccessKeyName=provisioningserviceowner;SharedAccessKey="
+                        + Base64.encodeBase64StringLocal("test-key".getBytes()));
+        Deencapsulation.setField(connectionString, "hostName", "localhost:" + server.getAddress().getPort());
+        ContractApiHttp contractApiHttp = ContractApiHttp.createFromConnectionString(connectionString);
+        sendRequest(contractApiHttp, 0);
+        Object sasToken = Deencapsulation.getField(contractApiHttp, "sasToken");
+
+        //act
+        for (int i = 1; i < REQUESTS; i++)
+        {
+            sendRequest(contractApiHttp, i);
+        }
+
+        //assert
+        assertSame(sasToken, Deencapsulation.getField(contractApiHttp, "sasToken"));
+        assertEquals(REQUESTS, authorizations.size());
+        assertEquals(1, new HashSet<>(authorizations).size());
+        assertEquals(1, clientPorts.size());
+    }
+
+    private static void sendRequest(ContractApiHttp contractApiHttp, int device) throws Exception
+    {
+        HttpResponse response = contractApiHttp.request(HttpMethod.PUT, "enrollments/device" + device, null, "{\"registrationId\":\"device" + device + "\"}");
+        assertTrue(Arrays.equals(RESPONSE_BODY, response.getBody()));
+    }
+
+    private static String enrollmentJson()
+    {
+        StringBuilder json = new StringBuilder("{\"registrationId\":\"device\",\"initialTwin\":{\"tags\":{");
+        for (int i = 0; i < 100; i++)
+        {
+            json.append(i == 0 ? "" : ",").append("\"tag").append(i).append("\":\"value").append(i).append("\"");
+        }
+        return json.append("}}}").toString();
+    }
+
+    private static KeyPair generateKeyPair() throws Exception
+    {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        return keyPairGenerator.generateKeyPair();
+    }
+
+    private static X509Certificate selfSignedCertificate(KeyPair keyPair) throws Exception
+    {
+        X500Name name = new X500Name("CN=localhost");
+        Date notBefore = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+        Date notAfter = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.valueOf(System.nanoTime()), notBefore, notAfter, name, keyPair.getPublic());
+        builder.addExtension(Extension.subjectAlternativeName, false, new GeneralNames(new GeneralName(GeneralName.dNSName, "localhost")));
+        return new JcaX509CertificateConverter()
+                .getCertificate(builder.build(new JcaContentSignerBuilder("SHA256WithRSA").build(keyPair.getPrivate())));
+    }
+}
@@ -182,6 +182,93 @@ public class ContractApiHttpTest
                 VALID_PAYLOAD);
     }
 
+    /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_017: [The request shall reuse the SAS token created by a previous request, until it is less than one hour from its expiration.] */
+    @Test
+    public void requestReusesSasTokenBeforeItsExpiration() throws ProvisioningServiceClientException, IOException
+    {
+        // arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedProvisioningSasToken.getExpiryTime();
+                result = System.currentTimeMillis() / 1000 + 24 * 60 * 60;
+                mockedProvisioningSasToken.toString();
+                result = VALID_SASTOKEN;
+                mockedProvisioningConnectionString.getHostName();
+                result = VALID_HOST_NAME;
+                new URL((String)any);
+                result = mockedURL;
+                new HttpRequest(mockedURL, HttpMethod.PUT, VALID_PAYLOAD.getBytes());
+                result = mockedHttpRequest;
+                mockedHttpRequest.send();
+                result = mockedHttpResponse;
+                mockedHttpResponse.getStatus();
+                result = VALID_SUCCESS_STATUS;
+                mockedHttpResponse.getErrorReason();
+                result = VALID_SUCCESS_MESSAGE.getBytes();
+            }
+        };
+        ContractApiHttp contractApiHttp = ContractApiHttp.createFromConnectionString(mockedProvisioningConnectionString);
+
+        // act
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+
+        // assert
+        new Verifications()
+        {
+            {
+                new ProvisioningSasToken(mockedProvisioningConnectionString);
+                times = 1;
+                mockedHttpRequest.setHeaderField("authorization", VALID_SASTOKEN);
+                times = 3;
+            }
+        };
+    }
+
+    /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_017: [The request shall reuse the SAS token created by a previous request, until it is less than one hour from its expiration.] */
+    @Test
+    public void requestRenewsSasTokenCloseToItsExpiration() throws ProvisioningServiceClientException, IOException
+    {
+        // arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedProvisioningSasToken.getExpiryTime();
+                result = System.currentTimeMillis() / 1000 + 30 * 60;
+                mockedProvisioningSasToken.toString();
+                result = VALID_SASTOKEN;
+                mockedProvisioningConnectionString.getHostName();
+                result = VALID_HOST_NAME;
+                new URL((String)any);
+                result = mockedURL;
+                new HttpRequest(mockedURL, HttpMethod.PUT, VALID_PAYLOAD.getBytes());
+                result = mockedHttpRequest;
+                mockedHttpRequest.send();
+                result = mockedHttpResponse;
+                mockedHttpResponse.getStatus();
+                result = VALID_SUCCESS_STATUS;
+                mockedHttpResponse.getErrorReason();
+                result = VALID_SUCCESS_MESSAGE.getBytes();
+            }
+        };
+        ContractApiHttp contractApiHttp = ContractApiHttp.createFromConnectionString(mockedProvisioningConnectionString);
+
+        // act
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+
+        // assert
+        new Verifications()
+        {
+            {
+                new ProvisioningSasToken(mockedProvisioningConnectionString);
+                times = 2;
+            }
+        };
+    }
+
     /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_006: [If the request get problem to create the SAS token, it shall throw IllegalArgumentException.*/
     @Test (expected = IllegalArgumentException.class)
     public void requestThrowsOnSasToken() throws ProvisioningServiceClientException, IOException
@@ -0,0 +1,182 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tools.com.microsoft.azure.sdk.iot;
+
+import com.microsoft.azure.sdk.iot.provisioning.security.hsm.SecurityProviderTPMEmulator;
+import tss.Tpm;
+import tss.TpmHelpers;
+import tss.tpm.*;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the SecurityProviderTPMEmulator signatures against the TPM simulator listening on localhost:2321 and
+ * localhost:2322. It signs SAS token data as it was signed before, with a TPM2_GetCapability round trip before each
+ * TPM2_HMAC, then through signWithIdentity, sequentially and from concurrent threads.
+ *
+ * <p>The benchmark replaces the ID key of the simulator, so do not run it against a TPM that holds a provisioned
+ * device.</p>
+ */
+public class TpmEmulatorSignatureBenchmark
+{
+    private static final String SIMULATOR_HOST = "localhost";
+    private static final int SIMULATOR_COMMAND_PORT = 2321;
+    private static final int SIMULATOR_PLATFORM_PORT = 2322;
+    private static final TPM_HANDLE SRK_PERSISTENT_HANDLE = TPM_HANDLE.persistent(0x00000001);
+    private static final TPM_HANDLE ID_KEY_PERSISTENT_HANDLE = TPM_HANDLE.persistent(0x00000100);
+    private static final int DEFAULT_SIGNATURES = 200;
+    private static final int DEFAULT_THREADS = 4;
+
+    /**
+     * Runs the benchmark
+     * @param args optionally, the number of signatures and the number of concurrent threads, by default 200 and 4
+     * @throws Exception if the simulator failed or a signature did not match
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int signatures = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIGNATURES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_THREADS;
+
+        if (!isListening(SIMULATOR_COMMAND_PORT) || !isListening(SIMULATOR_PLATFORM_PORT))
+        {
+            System.out.println("The TPM simulator is not listening on " + SIMULATOR_HOST + ":" + SIMULATOR_COMMAND_PORT
+                    + " and " + SIMULATOR_HOST + ":" + SIMULATOR_PLATFORM_PORT + ", start it and run the benchmark again");
+            return;
+        }
+
+        SecurityProviderTPMEmulator securityProviderTPMEmulator = new SecurityProviderTPMEmulator("benchmark-device");
+        try
+        {
+            Tpm tpm = (Tpm) getField(securityProviderTPMEmulator, "tpm");
+            TPMT_PUBLIC idKeyPublic = persistHmacIdKey(tpm);
+            setField(securityProviderTPMEmulator, "idKeyPub", new TPM2B_PUBLIC(idKeyPublic));
+            byte[][] tokenData = new byte[signatures][];
+            for (int i = 0; i < signatures; i++)
+            {
+                tokenData[i] = ("benchmark-hub.azure-devices.net/devices/module" + i + "\n" + (1600000000 + i)).getBytes();
+            }
+
+            byte[][] expectedSignatures = new byte[signatures][];
+            long start = System.nanoTime();
+            for (int i = 0; i < signatures; i++)
+            {
+                TpmHelpers.getTpmProperty(tpm, TPM_PT.INPUT_BUFFER);
+                expectedSignatures[i] = tpm.HMAC(ID_KEY_PERSISTENT_HANDLE, tokenData[i], TPM_ALG_ID.SHA256);
+            }
+            long perSignatureCapabilityNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < signatures; i++)
+            {
+                verifySignature(i, expectedSignatures[i], securityProviderTPMEmulator.signWithIdentity(tokenData[i]));
+            }
+            long sequentialNanos = System.nanoTime() - start;
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<byte[]>> futures = new ArrayList<>();
+            start = System.nanoTime();
+            try
+            {
+                for (int i = 0; i < signatures; i++)
+                {
+                    final byte[] data = tokenData[i];
+                    futures.add(executor.submit(() -> securityProviderTPMEmulator.signWithIdentity(data)));
+                }
+
+                for (int i = 0; i < signatures; i++)
+                {
+                    verifySignature(i, expectedSignatures[i], futures.get(i).get());
+                }
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+            long concurrentNanos = System.nanoTime() - start;
+
+            System.out.println(signatures + " TPM simulator signatures: "
+                    + signaturesPerSecond(signatures, perSignatureCapabilityNanos) + "/s reading the input buffer size for each, "
+                    + signaturesPerSecond(signatures, sequentialNanos) + "/s with signWithIdentity, "
+                    + signaturesPerSecond(signatures, concurrentNanos) + "/s with signWithIdentity from " + threads + " threads");
+        }
+        finally
+        {
+            securityProviderTPMEmulator.shutDown();
+        }
+    }
+
+    // stands in for the key that activateIdentityKey imports from the provisioning service
+    private static TPMT_PUBLIC persistHmacIdKey(Tpm tpm)
+    {
+        TPMT_PUBLIC hmacTemplate = new TPMT_PUBLIC(
+                TPM_ALG_ID.SHA256,
+                new TPMA_OBJECT(TPMA_OBJECT.sign, TPMA_OBJECT.fixedTPM, TPMA_OBJECT.fixedParent,
+                                TPMA_OBJECT.userWithAuth, TPMA_OBJECT.sensitiveDataOrigin),
+                new byte[0],
+                new TPMS_KEYEDHASH_PARMS(new TPMS_SCHEME_HMAC(TPM_ALG_ID.SHA256)),
+                new TPM2B_DIGEST_Keyedhash());
+        CreateResponse idKey = tpm.Create(SRK_PERSISTENT_HANDLE, new TPMS_SENSITIVE_CREATE(new byte[0], new byte[0]),
+                                          hmacTemplate, new byte[0], new TPMS_PCR_SELECTION[0]);
+        TPM_HANDLE hIdKey = tpm.Load(SRK_PERSISTENT_HANDLE, idKey.outPrivate, idKey.outPublic);
+
+        tpm._allowErrors().ReadPublic(ID_KEY_PERSISTENT_HANDLE);
+        if (tpm._getLastResponseCode() == TPM_RC.SUCCESS)
+        {
+            tpm.EvictControl(TPM_HANDLE.from(TPM_RH.OWNER), ID_KEY_PERSISTENT_HANDLE, ID_KEY_PERSISTENT_HANDLE);
+        }
+        tpm.EvictControl(TPM_HANDLE.from(TPM_RH.OWNER), hIdKey, ID_KEY_PERSISTENT_HANDLE);
+        tpm.FlushContext(hIdKey);
+        return idKey.outPublic;
+    }
+
+    private static void verifySignature(int index, byte[] expected, byte[] actual)
+    {
+        if (!Arrays.equals(expected, actual))
+        {
+            throw new IllegalStateException("Signature " + index + " of signWithIdentity does not match the TPM2_HMAC signature");
+        }
+    }
+
+    private static Object getField(Object target, String name) throws ReflectiveOperationException
+    {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    private static void setField(Object target, String name, Object value) throws ReflectiveOperationException
+    {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static boolean isListening(int port)
+    {
+        try (Socket socket = new Socket())
+        {
+            socket.connect(new InetSocketAddress(SIMULATOR_HOST, port), 500);
+            return true;
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+    }
+
+    private static long signaturesPerSecond(int signatures, long nanos)
+    {
+        return signatures * TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,135 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tools.com.microsoft.azure.sdk.iot;
+
+import com.microsoft.azure.sdk.iot.provisioning.security.exceptions.SecurityProviderException;
+import com.microsoft.azure.sdk.iot.provisioning.security.hsm.SecurityProviderX509Cert;
+import com.microsoft.azure.sdk.iot.provisioning.security.hsm.SecurityProviderX509CertGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch mode of the Provisioning X509 Cert generator, issuing the leaf certificates of many devices from the
+ * intermediate certificate of an X509 enrollment group, for load tests.
+ *
+ * <p> The identities are written in shards of {@value #SHARD_SIZE} devices, each shard directory holding the PEM
+ * formatted certificate and private key of its devices and a PKCS12 key store with all of them. The manifest lists
+ * the registration id and the files of each device.
+ */
+public class ProvisioningX509BatchCertGen
+{
+    static final String BATCH_ARGUMENT = "batch";
+    private static final String USAGE = "Usage: java -jar provisioning-x509-cert-generator-{version}-with-deps.jar batch "
+            + "<signer cert PEM file> <signer private key PEM file> <device count> <output directory> [registration id prefix]";
+    private static final int SHARD_SIZE = 1000;
+    private static final String DEFAULT_REGISTRATION_ID_PREFIX = "x509-load-device";
+    private static final String MANIFEST_FILE = "manifest.csv";
+    private static final String KEY_STORE_FILE = "identities.p12";
+    private static final String CERT_FILE_SUFFIX = ".cert.pem";
+    private static final String KEY_FILE_SUFFIX = ".key.pem";
+
+    private ProvisioningX509BatchCertGen()
+    {
+    }
+
+    /**
+     * Runs the batch mode with the arguments that follow {@value #BATCH_ARGUMENT}
+     * @param args The command line arguments, starting with {@value #BATCH_ARGUMENT}
+     * @param keyStorePassword The password of the PKCS12 key stores
+     * @throws IOException If the files could not be written
+     * @throws SecurityProviderException If the signer could not be read or the certificates could not be issued
+     */
+    static void run(String[] args, char[] keyStorePassword) throws IOException, SecurityProviderException
+    {
+        if (args.length < 5 || args.length > 6)
+        {
+            throw new IllegalArgumentException(USAGE);
+        }
+
+        String signerCertificatePem = readFile(args[1]);
+        String signerPrivateKeyPem = readFile(args[2]);
+        int deviceCount;
+        try
+        {
+            deviceCount = Integer.parseInt(args[3]);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException(USAGE, e);
+        }
+        if (deviceCount < 1)
+        {
+            throw new IllegalArgumentException("device count shall be greater than zero");
+        }
+        File outputDirectory = new File(args[4]);
+        String registrationIdPrefix = args.length == 6 ? args[5] : DEFAULT_REGISTRATION_ID_PREFIX;
+
+        SecurityProviderX509CertGenerator generator = new SecurityProviderX509CertGenerator(signerCertificatePem, signerPrivateKeyPem, null);
+        Files.createDirectories(outputDirectory.toPath());
+
+        int shardCount = (deviceCount + SHARD_SIZE - 1) / SHARD_SIZE;
+        int digits = String.valueOf(deviceCount - 1).length();
+        long issueNanos = 0;
+        long start = System.nanoTime();
+        try (PrintWriter manifest = new PrintWriter(Files.newBufferedWriter(new File(outputDirectory, MANIFEST_FILE).toPath(), StandardCharsets.UTF_8)))
+        {
+            manifest.println("registrationId,certificate,privateKey,keyStore");
+            for (int shard = 0; shard < shardCount; shard++)
+            {
+                List<String> registrationIds = new ArrayList<>(SHARD_SIZE);
+                for (int device = shard * SHARD_SIZE; device < Math.min(deviceCount, (shard + 1) * SHARD_SIZE); device++)
+                {
+                    registrationIds.add(String.format("%s-%0" + digits + "d", registrationIdPrefix, device));
+                }
+
+                long issueStart = System.nanoTime();
+                List<SecurityProviderX509Cert> identities = generator.generate(registrationIds);
+                issueNanos += System.nanoTime() - issueStart;
+
+                String shardName = String.format("shard-%04d", shard);
+                File shardDirectory = new File(outputDirectory, shardName);
+                Files.createDirectories(shardDirectory.toPath());
+                for (SecurityProviderX509Cert identity : identities)
+                {
+                    String registrationId = identity.getClientCertificateCommonName();
+                    writeFile(new File(shardDirectory, registrationId + CERT_FILE_SUFFIX), identity.getLeafCertPem());
+                    writeFile(new File(shardDirectory, registrationId + KEY_FILE_SUFFIX), identity.getLeafPrivateKeyPem());
+                    manifest.println(registrationId + ","
+                            + shardName + "/" + registrationId + CERT_FILE_SUFFIX + ","
+                            + shardName + "/" + registrationId + KEY_FILE_SUFFIX + ","
+                            + shardName + "/" + KEY_STORE_FILE);
+                }
+                SecurityProviderX509CertGenerator.saveToKeyStore(identities, new File(shardDirectory, KEY_STORE_FILE), keyStorePassword);
+                System.out.println("Wrote " + shardName + " with " + identities.size() + " devices");
+            }
+        }
+        long totalNanos = System.nanoTime() - start;
+
+        System.out.println("Issued " + deviceCount + " device certificates on " + Runtime.getRuntime().availableProcessors()
+                + " cores: " + perSecond(deviceCount, issueNanos) + " keys per second, "
+                + perSecond(deviceCount, totalNanos) + " devices per second written to " + outputDirectory.getAbsolutePath());
+    }
+
+    private static String readFile(String path) throws IOException
+    {
+        return new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void writeFile(File file, String content) throws IOException
+    {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long perSecond(int count, long nanos)
+    {
+        return count * TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+    }
+}
@@ -9,12 +9,30 @@ import com.microsoft.azure.sdk.iot.provisioning.security.hsm.SecurityProviderDic
 import java.util.Scanner;
 
 /**
- * Provisioning X509 Cert generator to generate X509 certificates using DICE emulator
+ * Provisioning X509 Cert generator to generate X509 certificates using DICE emulator, or the certificates of many
+ * devices from an enrollment group signer in batch mode
  */
 public class ProvisioningX509CertGen
 {
     public static void main(String[] args)
     {
+        if (args.length > 0 && args[0].equalsIgnoreCase(ProvisioningX509BatchCertGen.BATCH_ARGUMENT))
+        {
+            try
+            {
+                Scanner scanner = new Scanner(System.in);
+                System.out.println("Input key store password :");
+                ProvisioningX509BatchCertGen.run(args, scanner.next().toCharArray());
+                scanner.close();
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+                System.out.println("Shutting down...");
+            }
+            return;
+        }
+
         try
         {
             String aliasCertCnName, rootCertCnName, signerCertCnName = null;
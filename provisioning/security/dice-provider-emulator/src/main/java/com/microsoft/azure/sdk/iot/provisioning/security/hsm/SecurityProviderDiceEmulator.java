@@ -14,7 +14,7 @@ import com.microsoft.msr.RiotEmulator.RIoT;
 import java.security.*;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
 
 public class SecurityProviderDiceEmulator extends SecurityProviderX509
 {
@@ -37,6 +37,7 @@ public class SecurityProviderDiceEmulator extends SecurityProviderX509
                                         };
 
     private RIoT.DeviceAuthBundle diceBundle;
+    private Collection<X509Certificate> intermediateCertificatesChain;
 
     /**
      * Constructor to build the DICE certs from the simulator
@@ -54,6 +55,7 @@ public class SecurityProviderDiceEmulator extends SecurityProviderX509
                 FWID,
                 false,
                 commonNameRoot, commonNameSigner, commonNameAlias);
+        this.intermediateCertificatesChain = Collections.singletonList(this.diceBundle.DeviceIDCert);
     }
 
     /**
@@ -96,6 +98,7 @@ public class SecurityProviderDiceEmulator extends SecurityProviderX509
                 FWID,
                 false,
                 this.commonNameRoot, this.commonNameSigner, this.commonNameAlias);
+        this.intermediateCertificatesChain = Collections.singletonList(this.diceBundle.DeviceIDCert);
     }
 
     /**
@@ -131,12 +134,15 @@ public class SecurityProviderDiceEmulator extends SecurityProviderX509
         return this.diceBundle.AliasPrivateKey;
     }
 
+    /**
+     * Getter for the Signer cert chain, built once with the DICE bundle
+     * @return An unmodifiable collection with the Signer cert
+     */
     @Override
     public Collection<X509Certificate> getIntermediateCertificatesChain()
     {
-        Collection<X509Certificate> certificateCollection = new LinkedList<>();
-        certificateCollection.add(this.diceBundle.DeviceIDCert);
-        return certificateCollection;
+        //SRS_SecurityClientDiceEmulator_25_008: [ This method shall return Signer certificates generated by DICE ]
+        return this.intermediateCertificatesChain;
     }
 
 
@@ -195,12 +201,6 @@ public class SecurityProviderDiceEmulator extends SecurityProviderX509
         //SRS_SecurityClientDiceEmulator_25_012: [ This method shall return Leaf certificate generated by DICE with unique ID as common Name in PEM Format ]
         RIoT.CreateLeafCert(this.diceBundle, uniqueId);
 
-        RIoT.DeviceAuthBundle diceBundleVerifier = RIoT.CreateDeviceAuthBundle(
-                SEED,
-                FWID,
-                false,
-                this.commonNameRoot, uniqueId, this.commonNameAlias);
-
         return this.diceBundle.LeafCertPem;
     }
 }
@@ -210,6 +210,23 @@ public class SecurityProviderDiceEmulatorTest
         assertFalse(cert.isEmpty());
     }
 
+    //SRS_SecurityClientDiceEmulator_25_008: [ This method shall return Signer certificates generated by DICE ]
+    @Test
+    public void getterForDeviceSignerCertificatesReturnsTheChainBuiltOnce() throws Exception
+    {
+        //arrange
+        SecurityProviderDiceEmulator testSecurityClientDiceEmulator = new SecurityProviderDiceEmulator(TEST_ALIAS,
+                                                                                                       TEST_SIGNER,
+                                                                                                       TEST_ROOT);
+        //act
+        Collection<X509Certificate> firstChain = testSecurityClientDiceEmulator.getIntermediateCertificatesChain();
+        Collection<X509Certificate> secondChain = testSecurityClientDiceEmulator.getIntermediateCertificatesChain();
+
+        //assert
+        assertSame(firstChain, secondChain);
+        assertEquals(1, firstChain.size());
+    }
+
     //SRS_SecurityClientDiceEmulator_25_009: [ This method shall return Alias certificate generated by DICE as PEM string]
     @Test
     public void getterForAliasCertPemSucceeds() throws Exception
@@ -20,6 +20,7 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.UUID;
 
 public abstract class SecurityProvider
@@ -100,6 +101,9 @@ public abstract class SecurityProvider
                     "R9I4LtD+gdwyah617jzV/OeBHRnDJELqYzmp\r\n" +
                     "-----END CERTIFICATE-----\r\n";
 
+    // certificates are immutable, so the default trusted certificates are parsed once and shared by all the providers
+    private static volatile Collection<? extends Certificate> defaultTrustedCertificates = null;
+
     /**
      * Unique id required for registration
      * @return Returns the registration Id used needed for the service
@@ -122,15 +126,7 @@ public abstract class SecurityProvider
         KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
         keyStore.load(null);
 
-        //SRS_SecurityClient_25_002: [ This method shall retrieve the default CertificateFactory instance. ]
-        CertificateFactory certFactory = CertificateFactory.getInstance(DEFAULT_CERT_INSTANCE);
-        Collection<? extends Certificate> trustedCert;
-        try (InputStream certStreamArray = new ByteArrayInputStream(DEFAULT_TRUSTED_CERT.getBytes()))
-        {
-            trustedCert =  certFactory.generateCertificates(certStreamArray);
-        }
-
-        for (Certificate c : trustedCert)
+        for (Certificate c : getDefaultTrustedCertificates())
         {
             //SRS_SecurityClient_25_003: [ This method shall load all the trusted certificates to the keystore. ]
             keyStore.setCertificateEntry(TRUSTED_CERT_ALIAS + UUID.randomUUID(), c);
@@ -138,4 +134,22 @@ public abstract class SecurityProvider
 
         return keyStore;
     }
+
+    private static Collection<? extends Certificate> getDefaultTrustedCertificates() throws CertificateException, IOException
+    {
+        Collection<? extends Certificate> trustedCert = defaultTrustedCertificates;
+        if (trustedCert == null)
+        {
+            //SRS_SecurityClient_25_002: [ This method shall retrieve the default CertificateFactory instance. ]
+            CertificateFactory certFactory = CertificateFactory.getInstance(DEFAULT_CERT_INSTANCE);
+            try (InputStream certStreamArray = new ByteArrayInputStream(DEFAULT_TRUSTED_CERT.getBytes()))
+            {
+                trustedCert = Collections.unmodifiableCollection(certFactory.generateCertificates(certStreamArray));
+            }
+
+            defaultTrustedCertificates = trustedCert;
+        }
+
+        return trustedCert;
+    }
 }
@@ -24,6 +24,9 @@ public class SecurityProviderSymmetricKey extends SecurityProvider
     private byte[] secondaryKey;
     private String registrationId;
 
+    // reused by every connection of this device, so that its reconnects can resume their TLS sessions
+    private volatile SSLContext sslContext;
+
     /**
      * Constructor for Symmetric key security provider
      * @param symmetricKey Symmetric key to be used
@@ -95,7 +98,7 @@ public class SecurityProviderSymmetricKey extends SecurityProvider
 
     /**
      * Retrieves the SSL context loaded with trusted certs. In case of X509 SSL context shall be loaded with complete chain
-     * all the way till the leaf along with its private key.
+     * all the way till the leaf along with its private key. The context is created on the first call and reused.
      *
      * @return The SSLContext relevant to the flow
      * @throws SecurityProviderException If ssl context could not be generated for any of the reason
@@ -105,8 +108,15 @@ public class SecurityProviderSymmetricKey extends SecurityProvider
     {
         try
         {
-            //SRS_SecurityClientTpm_25_004: [ This method shall generate SSLContext for this flow. ]
-            return this.generateSSLContext();
+            SSLContext cachedSSLContext = this.sslContext;
+            if (cachedSSLContext == null)
+            {
+                //SRS_SecurityClientTpm_25_004: [ This method shall generate SSLContext for this flow. ]
+                cachedSSLContext = this.generateSSLContext();
+                this.sslContext = cachedSSLContext;
+            }
+
+            return cachedSSLContext;
         }
         catch (NoSuchAlgorithmException | KeyStoreException | CertificateException | IOException | KeyManagementException e)
         {
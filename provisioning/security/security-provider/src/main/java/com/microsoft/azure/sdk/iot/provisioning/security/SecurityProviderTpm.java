@@ -21,6 +21,10 @@ public abstract class SecurityProviderTpm extends SecurityProvider
 {
     private static final String SHA_256 = "SHA-256";
     private static final String EQUALS = "=";
+
+    // reused by every connection of this device, so that its reconnects can resume their TLS sessions
+    private volatile SSLContext sslContext;
+
     abstract public byte[] activateIdentityKey(byte[] key) throws SecurityProviderException;
     abstract public byte[] getEndorsementKey() throws SecurityProviderException;
     abstract public byte[] getStorageRootKey() throws SecurityProviderException;
@@ -61,8 +65,15 @@ public abstract class SecurityProviderTpm extends SecurityProvider
     {
         try
         {
-            //SRS_SecurityClientTpm_25_004: [ This method shall generate SSLContext for this flow. ]
-            return this.generateSSLContext();
+            SSLContext cachedSSLContext = this.sslContext;
+            if (cachedSSLContext == null)
+            {
+                //SRS_SecurityClientTpm_25_004: [ This method shall generate SSLContext for this flow. ]
+                cachedSSLContext = this.generateSSLContext();
+                this.sslContext = cachedSSLContext;
+            }
+
+            return cachedSSLContext;
         }
         catch (NoSuchAlgorithmException | KeyStoreException | CertificateException | IOException | KeyManagementException e)
         {
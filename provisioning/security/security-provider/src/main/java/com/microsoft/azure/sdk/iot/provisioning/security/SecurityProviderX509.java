@@ -21,6 +21,10 @@ public abstract class SecurityProviderX509 extends SecurityProvider
 {
     private static final String ALIAS_CERT_ALIAS = "ALIAS_CERT";
 
+    // reused as long as the client certificate does not change, so that the reconnects can resume their TLS sessions
+    private volatile SSLContext sslContext;
+    private volatile X509Certificate sslContextCertificate;
+
     abstract public String getClientCertificateCommonName();
     abstract public X509Certificate getClientCertificate();
     abstract public Key getClientPrivateKey();
@@ -38,8 +42,17 @@ public abstract class SecurityProviderX509 extends SecurityProvider
     {
         try
         {
-            //SRS_SecurityClientX509_25_002: [ This method shall generate the SSL context. ]
-            return this.generateSSLContext(this.getClientCertificate(), this.getClientPrivateKey(), this.getIntermediateCertificatesChain());
+            X509Certificate clientCertificate = this.getClientCertificate();
+            SSLContext cachedSSLContext = this.sslContext;
+            if (cachedSSLContext == null || clientCertificate == null || !clientCertificate.equals(this.sslContextCertificate))
+            {
+                //SRS_SecurityClientX509_25_002: [ This method shall generate the SSL context. ]
+                cachedSSLContext = this.generateSSLContext(clientCertificate, this.getClientPrivateKey(), this.getIntermediateCertificatesChain());
+                this.sslContext = cachedSSLContext;
+                this.sslContextCertificate = clientCertificate;
+            }
+
+            return cachedSSLContext;
         }
         catch (NoSuchProviderException | UnrecoverableKeyException | NoSuchAlgorithmException | KeyStoreException | KeyManagementException | IOException | CertificateException e)
         {
@@ -295,6 +295,29 @@ public class SecurityProviderSymmetricKeyTest
         };
     }
 
+    @Test
+    public void getSSLContextReusesGeneratedContext() throws SecurityProviderException, KeyManagementException, KeyStoreException, CertificateException
+    {
+        //arrange
+        SecurityProviderSymmetricKey securityProviderSymmetricKey = new SecurityProviderSymmetricKey(testSymKey, testRegId);
+
+        //act
+        SSLContext first = securityProviderSymmetricKey.getSSLContext();
+        SSLContext second = securityProviderSymmetricKey.getSSLContext();
+
+        //assert
+        assertEquals(first, second);
+        new Verifications()
+        {
+            {
+                mockedKeyStore.setCertificateEntry(anyString, (Certificate) any);
+                times = 3;
+                mockedSslContext.init((KeyManager[]) any, (TrustManager[]) any, (SecureRandom) any);
+                times = 1;
+            }
+        };
+    }
+
     //SRS_SecurityClientSymmetricKey_25_005: [ This method shall throw SecurityProviderException if any of the underlying API's in generating SSL context fails. ]
     @Test (expected = SecurityProviderException.class)
     public void getSSLContextThrowsUnderlyingException() throws SecurityProviderException, KeyStoreException
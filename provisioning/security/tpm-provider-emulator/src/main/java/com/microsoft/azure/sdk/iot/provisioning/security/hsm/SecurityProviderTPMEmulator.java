@@ -55,6 +55,7 @@ public class SecurityProviderTPMEmulator extends SecurityProviderTpm
     private TPMT_PUBLIC ekPublic = null;
     private TPMT_PUBLIC srkPublic = null;
     private TPM2B_PUBLIC idKeyPub = null;
+    private int maxInputBufferSize = 0;
 
     private static final int MILLISECONDS_BETWEEN_TPM_CONNECTION_ATTEMPTS = 1000; //1 second
 
@@ -214,7 +215,7 @@ public class SecurityProviderTPMEmulator extends SecurityProviderTpm
      * Closes the simulator if it were running already
      * @throws SecurityProviderException if simulator could not be closed for any reason.
      */
-    public void shutDown() throws SecurityProviderException
+    public synchronized void shutDown() throws SecurityProviderException
     {
         if (tpm != null)
         {
@@ -296,11 +297,21 @@ public class SecurityProviderTPMEmulator extends SecurityProviderTpm
         }
     }
 
+    // The size of the TPM input buffer does not change, so it is read from the TPM once instead of before every signature.
+    private int getMaxInputBufferSize(Tpm tpm)
+    {
+        if (maxInputBufferSize <= 0)
+        {
+            maxInputBufferSize = TpmHelpers.getTpmProperty(tpm, TPM_PT.INPUT_BUFFER);
+        }
+        return maxInputBufferSize;
+    }
+
     // NOTE: For now only HMAC signing is supported.
     private byte[] signData(Tpm tpm, TPMT_PUBLIC idKeyPub, byte[] tokenData) throws SecurityProviderException
     {
         TPM_ALG_ID	idKeyHashAlg = ((TPMS_SCHEME_HMAC)((TPMS_KEYEDHASH_PARMS)idKeyPub.parameters).scheme).hashAlg;
-        int 		MaxInputBuffer = TpmHelpers.getTpmProperty(tpm, TPM_PT.INPUT_BUFFER);
+        int 		MaxInputBuffer = getMaxInputBufferSize(tpm);
 
         if (tokenData.length <= MaxInputBuffer)
         {
@@ -334,7 +345,7 @@ public class SecurityProviderTPMEmulator extends SecurityProviderTpm
      * @throws SecurityProviderException If activation was not successful.
      */
     @Override
-    public byte[] activateIdentityKey(byte[] key) throws SecurityProviderException
+    public synchronized byte[] activateIdentityKey(byte[] key) throws SecurityProviderException
     {
         InByteBuf actBlob = new InByteBuf(Arrays.copyOfRange(key, 0, key.length));
 
@@ -423,7 +434,7 @@ public class SecurityProviderTPMEmulator extends SecurityProviderTpm
         // A recommended alternative for the actual SDK code is to use the symmetric algorithm from a software crypto library
         //
 
-        int maxUriDataSize = TpmHelpers.getTpmProperty(tpm, TPM_PT.INPUT_BUFFER);
+        int maxUriDataSize = getMaxInputBufferSize(tpm);
 
         if (encUriData.buffer.length > maxUriDataSize)
         {
@@ -483,13 +494,15 @@ public class SecurityProviderTPMEmulator extends SecurityProviderTpm
     }
 
     /**
-     * This method signs the TPM with the provided device ID
+     * This method signs the TPM with the provided device ID. It may be called from multiple threads. The TPM executes
+     * one command at a time, so the signatures are computed one after the other on the connection opened by the
+     * constructor, with the persistent ID key that {@link #activateIdentityKey(byte[])} loaded.
      * @param deviceIdData A non {@code null} or empty value for the device ID
      * @return The signature after signing data.
      * @throws SecurityProviderException If signing was not successful
      */
     @Override
-    public byte[] signWithIdentity(byte[] deviceIdData) throws SecurityProviderException
+    public synchronized byte[] signWithIdentity(byte[] deviceIdData) throws SecurityProviderException
     {
         if (deviceIdData == null || deviceIdData.length == 0)
         {
@@ -973,6 +973,49 @@ public class SecurityProviderTPMEmulatorTest
         securityProviderTPMEmulator.signWithIdentity(deviceIdData);
     }
 
+    //SRS_SecurityProviderTPMEmulator_25_031: [ This method shall sign the device ID data. ]
+    @Test
+    public void signWithIdentityReadsInputBufferSizeOnce(@Mocked TPM_ALG_ID mockedTpmAlgId,
+            @Mocked TPMU_ASYM_SCHEME mockedTpmuAsymScheme,
+            @Mocked TPMU_PUBLIC_PARMS mockedTpmuPublicParms,
+            @Mocked TPMS_SCHEME_HMAC mockedTpmsSchemeHmac,
+            @Mocked TPMS_KEYEDHASH_PARMS mockedTpmsKeyedhashParms) throws Exception
+    {
+        //arrange
+        final byte[] deviceIdData = "less<10".getBytes();
+        clearPersistentExpectations();
+        clearPersistentExpectations();
+        createPersistentPrimaryExpectations();
+        createPersistentPrimaryExpectations();
+        final SecurityProviderTPMEmulator securityProviderTPMEmulator = new SecurityProviderTPMEmulator();
+        new NonStrictExpectations()
+        {
+            {
+                // idKeyPub
+                Deencapsulation.setField(securityProviderTPMEmulator, "idKeyPub", mockedTpm2BPublic);
+                // publicArea
+                Deencapsulation.setField(mockedTpm2BPublic, "publicArea", mockedTpmtPublic);
+                //parameters
+                Deencapsulation.setField(mockedTpmtPublic, "parameters",  mockedTpmsKeyedhashParms);
+                // scheme
+                Deencapsulation.setField(mockedTpmsKeyedhashParms, "scheme",  mockedTpmsSchemeHmac);
+                // hashAlg
+                Deencapsulation.setField(mockedTpmsSchemeHmac, "hashAlg",  mockedTpmAlgId);
+
+                TpmHelpers.getTpmProperty(mockedTpm, TPM_PT.INPUT_BUFFER);
+                result = 10;
+                times = 1;
+                mockedTpm.HMAC((TPM_HANDLE )any, (byte[] )any, mockedTpmAlgId);
+                times = 3;
+            }
+        };
+
+        //act
+        securityProviderTPMEmulator.signWithIdentity(deviceIdData);
+        securityProviderTPMEmulator.signWithIdentity(deviceIdData);
+        securityProviderTPMEmulator.signWithIdentity(deviceIdData);
+    }
+
     @Test (expected =  SecurityProviderException.class)
     public void signWithIdentityThrowsOnNullHandle(@Mocked TPM_ALG_ID mockedTpmAlgId,
                                                    @Mocked TPMU_ASYM_SCHEME mockedTpmuAsymScheme,
@@ -50,6 +50,7 @@ public class SecurityProviderTPMHsm extends SecurityProviderTpm
     private TPMT_PUBLIC ekPublic = null;
     private TPMT_PUBLIC srkPublic = null;
     private TPM2B_PUBLIC idKeyPub = null;
+    private int maxInputBufferSize = 0;
 
     /**
      * Constructor for creating a Security Provider on TPM hardware
@@ -162,11 +163,21 @@ public class SecurityProviderTPMHsm extends SecurityProviderTpm
         }
     }
 
+    // The size of the TPM input buffer does not change, so it is read from the TPM once instead of before every signature.
+    private int getMaxInputBufferSize(Tpm tpm)
+    {
+        if (maxInputBufferSize <= 0)
+        {
+            maxInputBufferSize = TpmHelpers.getTpmProperty(tpm, TPM_PT.INPUT_BUFFER);
+        }
+        return maxInputBufferSize;
+    }
+
     // NOTE: For now only HMAC signing is supported.
     private byte[] signData(Tpm tpm, TPMT_PUBLIC idKeyPub, byte[] tokenData) throws SecurityProviderException
     {
         TPM_ALG_ID	idKeyHashAlg = ((TPMS_SCHEME_HMAC)((TPMS_KEYEDHASH_PARMS)idKeyPub.parameters).scheme).hashAlg;
-        int 		MaxInputBuffer = TpmHelpers.getTpmProperty(tpm, TPM_PT.INPUT_BUFFER);
+        int 		MaxInputBuffer = getMaxInputBufferSize(tpm);
 
         if (tokenData.length <= MaxInputBuffer)
         {
@@ -200,7 +211,7 @@ public class SecurityProviderTPMHsm extends SecurityProviderTpm
      * @throws SecurityProviderException If activation was not successful.
      */
     @Override
-    public byte[] activateIdentityKey(byte[] key) throws SecurityProviderException
+    public synchronized byte[] activateIdentityKey(byte[] key) throws SecurityProviderException
     {
         InByteBuf actBlob = new InByteBuf(Arrays.copyOfRange(key, 0, key.length));
 
@@ -289,7 +300,7 @@ public class SecurityProviderTPMHsm extends SecurityProviderTpm
         // A recommended alternative for the actual SDK code is to use the symmetric algorithm from a software crypto library
         //
 
-        int maxUriDataSize = TpmHelpers.getTpmProperty(tpm, TPM_PT.INPUT_BUFFER);
+        int maxUriDataSize = getMaxInputBufferSize(tpm);
 
         if (encUriData.buffer.length > maxUriDataSize)
         {
@@ -349,13 +360,15 @@ public class SecurityProviderTPMHsm extends SecurityProviderTpm
     }
 
     /**
-     * This method signs the TPM with the provided device ID
+     * This method signs the TPM with the provided device ID. It may be called from multiple threads. The TPM executes
+     * one command at a time, so the signatures are computed one after the other on the connection opened by the
+     * constructor, with the persistent ID key that {@link #activateIdentityKey(byte[])} loaded.
      * @param deviceIdData A non {@code null} or empty value for the device ID
      * @return The signature after signing data.
      * @throws SecurityProviderException If signing was not successful
      */
     @Override
-    public byte[] signWithIdentity(byte[] deviceIdData) throws SecurityProviderException
+    public synchronized byte[] signWithIdentity(byte[] deviceIdData) throws SecurityProviderException
     {
         if (deviceIdData == null || deviceIdData.length == 0)
         {
@@ -15,13 +15,17 @@ import org.bouncycastle.openssl.PEMException;
 import org.bouncycastle.openssl.PEMKeyPair;
 import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.openssl.jcajce.JcaPKCS8Generator;
 import org.bouncycastle.util.io.pem.PemObject;
 import org.bouncycastle.util.io.pem.PemReader;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.security.Key;
+import java.security.PrivateKey;
 import java.security.Security;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
@@ -77,6 +81,47 @@ public class SecurityProviderX509Cert extends SecurityProviderX509
         }
     }
 
+    /**
+     * Constructor to build the identity from certificates and key already parsed, such as the ones issued by the
+     * {@link SecurityProviderX509CertGenerator} or read back from its key store
+     */
+    SecurityProviderX509Cert(X509Certificate leafCertificate, Key leafPrivateKey, Collection<X509Certificate> signerCertificates) throws SecurityProviderException
+    {
+        if (leafCertificate == null)
+        {
+            throw new IllegalArgumentException("leaf public certificate cannot be null");
+        }
+
+        if (!(leafPrivateKey instanceof PrivateKey))
+        {
+            throw new IllegalArgumentException("leaf private key cannot be null and shall be a private key");
+        }
+
+        if (signerCertificates == null)
+        {
+            throw new IllegalArgumentException("signer certificates cannot be null");
+        }
+
+        this.leafCertificatePublic = leafCertificate;
+        this.leafPrivateKey = leafPrivateKey;
+        this.signerCertificates = new LinkedList<>(signerCertificates);
+        this.signerCertificatesPem = new LinkedList<>();
+        try
+        {
+            this.leafCertificatePublicPem = SecurityProviderX509Cert.toPem(leafCertificate);
+            this.leafPrivateKeyPem = SecurityProviderX509Cert.toPem(new JcaPKCS8Generator((PrivateKey) leafPrivateKey, null));
+            for (X509Certificate cert : signerCertificates)
+            {
+                this.signerCertificatesPem.add(SecurityProviderX509Cert.toPem(cert));
+            }
+        }
+        catch (IOException e)
+        {
+            throw new SecurityProviderException(e);
+        }
+        this.commonNameLeaf = this.getCommonName(this.leafCertificatePublic);
+    }
+
     private String getCommonName(X509Certificate certificate) throws SecurityProviderException
     {
         //Expected format CN=<CNName>,O=<>,C=<US>
@@ -146,6 +191,15 @@ public class SecurityProviderX509Cert extends SecurityProviderX509
         return this.leafCertificatePublicPem;
     }
 
+    /**
+     * Getter for the Alias private key in PEM format
+     * @return Alias private key in PEM format
+     */
+    public String getLeafPrivateKeyPem()
+    {
+        return this.leafPrivateKeyPem;
+    }
+
     /**
      * Getter for the Signer cert in PEM format
      * @return Signer cert in PEM format
@@ -172,7 +226,7 @@ public class SecurityProviderX509Cert extends SecurityProviderX509
         throw new UnsupportedOperationException("This method is not supported, use other means to validate certificate");
     }
 
-    private static Key parsePrivateKey(String privateKeyString) throws CertificateException
+    static Key parsePrivateKey(String privateKeyString) throws CertificateException
     {
         try
         {
@@ -189,7 +243,7 @@ public class SecurityProviderX509Cert extends SecurityProviderX509
         }
     }
 
-    private static X509Certificate parsePublicKeyCertificate(String publicKeyCertificateString) throws CertificateException
+    static X509Certificate parsePublicKeyCertificate(String publicKeyCertificateString) throws CertificateException
     {
         try
         {
@@ -207,6 +261,16 @@ public class SecurityProviderX509Cert extends SecurityProviderX509
         }
     }
 
+    private static String toPem(Object certificateOrKey) throws IOException
+    {
+        StringWriter pem = new StringWriter();
+        try (JcaPEMWriter pemWriter = new JcaPEMWriter(pem))
+        {
+            pemWriter.writeObject(certificateOrKey);
+        }
+        return pem.toString();
+    }
+
     private static Key getPrivateKey(Object possiblePrivateKey) throws IOException
     {
         if (possiblePrivateKey instanceof  PEMKeyPair)
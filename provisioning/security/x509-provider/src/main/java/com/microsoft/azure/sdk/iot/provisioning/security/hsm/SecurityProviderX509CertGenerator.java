@@ -0,0 +1,383 @@
+/*
+ *
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ *
+ */
+
+package com.microsoft.azure.sdk.iot.provisioning.security.hsm;
+
+import com.microsoft.azure.sdk.iot.provisioning.security.exceptions.SecurityProviderException;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import javax.crypto.spec.PBEParameterSpec;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues X509 identities for many devices from one signer certificate, such as the intermediate certificate of an
+ * enrollment group, so simulators and load tests can provision thousands of devices without deriving each
+ * certificate chain on the provisioning path.
+ *
+ * <p> Each identity gets its own EC P-256 key pair and a leaf certificate with the registration id as common name,
+ * and the identities are issued in parallel across the available cores. They can be saved to a PKCS12 key store
+ * and loaded back on the next run, ready to be used as {@link SecurityProviderX509Cert}s.
+ */
+public class SecurityProviderX509CertGenerator
+{
+    private static final String KEY_ALGORITHM = "EC";
+    private static final String KEY_CURVE = "secp256r1";
+    private static final String KEY_STORE_TYPE = "PKCS12";
+    // the JDK protects each PKCS12 key with 10000 PBE iterations, which makes loading thousands of identities
+    // slower than issuing them, so the key store uses the 1024 iterations of the earlier JDK defaults
+    private static final String KEY_PROTECTION_ALGORITHM = "PBEWithHmacSHA256AndAES_256";
+    private static final int KEY_PROTECTION_ITERATIONS = 1024;
+    private static final int KEY_PROTECTION_SALT_BYTES = 20;
+    private static final int SERIAL_NUMBER_BITS = 64;
+    private static final long CLOCK_SKEW_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DEFAULT_VALIDITY_DAYS = 365;
+
+    private final X509Certificate signerCertificate;
+    private final PrivateKey signerPrivateKey;
+    private final Collection<X509Certificate> intermediateCertificatesChain;
+    private final String signatureAlgorithm;
+    private final SecureRandom serialNumberRandom = new SecureRandom();
+
+    /**
+     * Constructor for the generator of identities issued by the signer certificate
+     * @param signerCertificatePem The PEM formatted certificate that signs the leaf certificates. Cannot be {@code null} or empty
+     * @param signerPrivateKeyPem The PEM formatted RSA or EC private key of the signer certificate. Cannot be {@code null} or empty
+     * @param signerIssuerCertificatesPem The PEM formatted certificates that issued the signer certificate, up to the
+     *                                    root, if they shall be presented with the leaf certificates. Can be {@code null}
+     * @throws SecurityProviderException If the certificates or the key could not be parsed
+     */
+    public SecurityProviderX509CertGenerator(String signerCertificatePem, String signerPrivateKeyPem, Collection<String> signerIssuerCertificatesPem) throws SecurityProviderException
+    {
+        if (signerCertificatePem == null || signerCertificatePem.isEmpty())
+        {
+            throw new IllegalArgumentException("signer certificate cannot be null or empty");
+        }
+
+        if (signerPrivateKeyPem == null || signerPrivateKeyPem.isEmpty())
+        {
+            throw new IllegalArgumentException("signer private key cannot be null or empty");
+        }
+
+        Key signerKey;
+        List<X509Certificate> chain = new LinkedList<>();
+        try
+        {
+            this.signerCertificate = SecurityProviderX509Cert.parsePublicKeyCertificate(signerCertificatePem);
+            signerKey = SecurityProviderX509Cert.parsePrivateKey(signerPrivateKeyPem);
+            chain.add(this.signerCertificate);
+            if (signerIssuerCertificatesPem != null)
+            {
+                for (String cert : signerIssuerCertificatesPem)
+                {
+                    chain.add(SecurityProviderX509Cert.parsePublicKeyCertificate(cert));
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            throw new SecurityProviderException(e);
+        }
+
+        if (!(signerKey instanceof PrivateKey))
+        {
+            throw new SecurityProviderException("signer private key is not a private key");
+        }
+
+        this.signerPrivateKey = (PrivateKey) signerKey;
+        this.signatureAlgorithm = SecurityProviderX509CertGenerator.getSignatureAlgorithm(this.signerPrivateKey);
+        this.intermediateCertificatesChain = Collections.unmodifiableList(chain);
+    }
+
+    /**
+     * Issues an identity for each registration id, in parallel on all the available cores
+     * @param registrationIds The unique registration ids used as common names of the leaf certificates. Cannot be {@code null} or empty
+     * @return The identities, in the order of the registration ids
+     * @throws SecurityProviderException If any of the identities could not be issued
+     */
+    public List<SecurityProviderX509Cert> generate(List<String> registrationIds) throws SecurityProviderException
+    {
+        return this.generate(registrationIds, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Issues an identity for each registration id, on up to the given number of threads
+     * @param registrationIds The unique registration ids used as common names of the leaf certificates. Cannot be {@code null} or empty
+     * @param parallelism The maximum number of identities issued at the same time. Shall be greater than zero
+     * @return The identities, in the order of the registration ids
+     * @throws SecurityProviderException If any of the identities could not be issued
+     */
+    public List<SecurityProviderX509Cert> generate(List<String> registrationIds, int parallelism) throws SecurityProviderException
+    {
+        if (registrationIds == null || registrationIds.isEmpty())
+        {
+            throw new IllegalArgumentException("registration ids cannot be null or empty");
+        }
+
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism shall be greater than zero");
+        }
+
+        Set<String> uniqueIds = new HashSet<>();
+        for (String registrationId : registrationIds)
+        {
+            if (registrationId == null || registrationId.isEmpty())
+            {
+                throw new IllegalArgumentException("registration id cannot be null or empty");
+            }
+
+            if (!uniqueIds.add(registrationId))
+            {
+                throw new IllegalArgumentException("registration id " + registrationId + " is not unique");
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, registrationIds.size()));
+        try
+        {
+            List<Future<SecurityProviderX509Cert>> identities = new ArrayList<>(registrationIds.size());
+            for (final String registrationId : registrationIds)
+            {
+                identities.add(executor.submit(new Callable<SecurityProviderX509Cert>()
+                {
+                    @Override
+                    public SecurityProviderX509Cert call() throws Exception
+                    {
+                        return generateIdentity(registrationId);
+                    }
+                }));
+            }
+
+            List<SecurityProviderX509Cert> result = new ArrayList<>(registrationIds.size());
+            for (Future<SecurityProviderX509Cert> identity : identities)
+            {
+                result.add(identity.get());
+            }
+            return result;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SecurityProviderException(e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof SecurityProviderException)
+            {
+                throw (SecurityProviderException) e.getCause();
+            }
+            throw new SecurityProviderException(e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Saves the identities to a PKCS12 key store, each one under its common name with its leaf certificate first
+     * in the chain, replacing the key store file if it exists
+     * @param identities The identities to save. Cannot be {@code null} or empty
+     * @param keyStoreFile The key store file. Cannot be {@code null}
+     * @param password The password of the key store and of its keys. Cannot be {@code null}
+     * @throws SecurityProviderException If the key store could not be written
+     */
+    public static void saveToKeyStore(Collection<SecurityProviderX509Cert> identities, File keyStoreFile, char[] password) throws SecurityProviderException
+    {
+        if (identities == null || identities.isEmpty())
+        {
+            throw new IllegalArgumentException("identities cannot be null or empty");
+        }
+
+        if (keyStoreFile == null)
+        {
+            throw new IllegalArgumentException("key store file cannot be null");
+        }
+
+        if (password == null)
+        {
+            throw new IllegalArgumentException("password cannot be null");
+        }
+
+        try
+        {
+            KeyStore keyStore = KeyStore.getInstance(KEY_STORE_TYPE);
+            keyStore.load(null, null);
+            SecureRandom saltRandom = new SecureRandom();
+            for (SecurityProviderX509Cert identity : identities)
+            {
+                List<Certificate> chain = new ArrayList<>();
+                chain.add(identity.getClientCertificate());
+                chain.addAll(identity.getIntermediateCertificatesChain());
+                byte[] salt = new byte[KEY_PROTECTION_SALT_BYTES];
+                saltRandom.nextBytes(salt);
+                keyStore.setEntry(identity.getClientCertificateCommonName(),
+                                  new KeyStore.PrivateKeyEntry((PrivateKey) identity.getClientPrivateKey(), chain.toArray(new Certificate[chain.size()])),
+                                  new KeyStore.PasswordProtection(password, KEY_PROTECTION_ALGORITHM, new PBEParameterSpec(salt, KEY_PROTECTION_ITERATIONS)));
+            }
+
+            try (OutputStream keyStoreStream = new FileOutputStream(keyStoreFile))
+            {
+                keyStore.store(keyStoreStream, password);
+            }
+        }
+        catch (Exception e)
+        {
+            throw new SecurityProviderException(e);
+        }
+    }
+
+    /**
+     * Loads the identities saved by {@link #saveToKeyStore(Collection, File, char[])}
+     * @param keyStoreFile The key store file. Cannot be {@code null}
+     * @param password The password of the key store and of its keys. Cannot be {@code null}
+     * @return The identities, sorted by common name
+     * @throws SecurityProviderException If the key store could not be read
+     */
+    public static List<SecurityProviderX509Cert> loadFromKeyStore(File keyStoreFile, char[] password) throws SecurityProviderException
+    {
+        if (keyStoreFile == null)
+        {
+            throw new IllegalArgumentException("key store file cannot be null");
+        }
+
+        if (password == null)
+        {
+            throw new IllegalArgumentException("password cannot be null");
+        }
+
+        try
+        {
+            KeyStore keyStore = KeyStore.getInstance(KEY_STORE_TYPE);
+            try (InputStream keyStoreStream = new FileInputStream(keyStoreFile))
+            {
+                keyStore.load(keyStoreStream, password);
+            }
+
+            List<String> aliases = Collections.list(keyStore.aliases());
+            Collections.sort(aliases);
+            List<SecurityProviderX509Cert> identities = new ArrayList<>(aliases.size());
+            for (String alias : aliases)
+            {
+                Certificate[] chain = keyStore.getCertificateChain(alias);
+                if (chain == null || chain.length == 0)
+                {
+                    throw new SecurityProviderException("key store entry " + alias + " has no certificate chain");
+                }
+
+                List<X509Certificate> signerCertificates = new LinkedList<>();
+                for (Certificate cert : Arrays.asList(chain).subList(1, chain.length))
+                {
+                    signerCertificates.add((X509Certificate) cert);
+                }
+                identities.add(new SecurityProviderX509Cert((X509Certificate) chain[0], keyStore.getKey(alias, password), signerCertificates));
+            }
+            return identities;
+        }
+        catch (SecurityProviderException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new SecurityProviderException(e);
+        }
+    }
+
+    private SecurityProviderX509Cert generateIdentity(String registrationId) throws SecurityProviderException
+    {
+        try
+        {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+            keyPairGenerator.initialize(new ECGenParameterSpec(KEY_CURVE));
+            KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+            long now = System.currentTimeMillis();
+            X500Name subject = new X500NameBuilder(BCStyle.INSTANCE).addRDN(BCStyle.CN, registrationId).build();
+            X509v3CertificateBuilder leafBuilder = new JcaX509v3CertificateBuilder(
+                    this.signerCertificate,
+                    new BigInteger(SERIAL_NUMBER_BITS, this.serialNumberRandom),
+                    new Date(now - CLOCK_SKEW_MILLIS),
+                    new Date(now + TimeUnit.DAYS.toMillis(DEFAULT_VALIDITY_DAYS)),
+                    subject,
+                    keyPair.getPublic());
+            JcaX509ExtensionUtils extensionUtils = new JcaX509ExtensionUtils();
+            leafBuilder.addExtension(Extension.basicConstraints, true, new BasicConstraints(false));
+            leafBuilder.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.digitalSignature));
+            leafBuilder.addExtension(Extension.extendedKeyUsage, false, new ExtendedKeyUsage(KeyPurposeId.id_kp_clientAuth));
+            leafBuilder.addExtension(Extension.subjectKeyIdentifier, false, extensionUtils.createSubjectKeyIdentifier(keyPair.getPublic()));
+            leafBuilder.addExtension(Extension.authorityKeyIdentifier, false, extensionUtils.createAuthorityKeyIdentifier(this.signerCertificate));
+
+            X509Certificate leafCertificate = new JcaX509CertificateConverter().getCertificate(
+                    leafBuilder.build(new JcaContentSignerBuilder(this.signatureAlgorithm).build(this.signerPrivateKey)));
+            return new SecurityProviderX509Cert(leafCertificate, keyPair.getPrivate(), this.intermediateCertificatesChain);
+        }
+        catch (SecurityProviderException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new SecurityProviderException(e);
+        }
+    }
+
+    private static String getSignatureAlgorithm(PrivateKey signerPrivateKey) throws SecurityProviderException
+    {
+        switch (signerPrivateKey.getAlgorithm())
+        {
+            case "RSA":
+                return "SHA256withRSA";
+            case "EC":
+            case "ECDSA":
+                return "SHA256withECDSA";
+            default:
+                throw new SecurityProviderException("signer private key algorithm " + signerPrivateKey.getAlgorithm() + " is not supported");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service;
+
+import com.microsoft.azure.sdk.iot.deps.serializer.BulkRegistryOperationResultParser;
+import com.microsoft.azure.sdk.iot.deps.serializer.DeviceRegistryOperationErrorParser;
+import com.microsoft.azure.sdk.iot.deps.serializer.DeviceRegistryOperationWarningParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a bulk registry operation such as {@link RegistryManager#addDevices(java.util.Collection)}.
+ * Devices that are not listed in {@link #getErrors()} were processed successfully.
+ */
+public class BulkRegistryOperationResult
+{
+    private boolean isSuccessful;
+    private List<DeviceRegistryOperationError> errors;
+    private List<DeviceRegistryOperationWarning> warnings;
+
+    /**
+     * Constructor for an empty, successful result
+     */
+    BulkRegistryOperationResult()
+    {
+        this.isSuccessful = true;
+        this.errors = new ArrayList<>();
+        this.warnings = new ArrayList<>();
+    }
+
+    /**
+     * Constructs a BulkRegistryOperationResult based off of a BulkRegistryOperationResultParser object
+     * @param parser the object to base the constructed object on
+     */
+    BulkRegistryOperationResult(BulkRegistryOperationResultParser parser)
+    {
+        this();
+
+        if (parser == null)
+        {
+            throw new IllegalArgumentException("The parser may not be null");
+        }
+
+        this.isSuccessful = parser.getIsSuccessful();
+        for (DeviceRegistryOperationErrorParser errorParser : parser.getErrors())
+        {
+            this.errors.add(new DeviceRegistryOperationError(errorParser));
+        }
+
+        for (DeviceRegistryOperationWarningParser warningParser : parser.getWarnings())
+        {
+            this.warnings.add(new DeviceRegistryOperationWarning(warningParser));
+        }
+    }
+
+    /**
+     * Adds the errors and warnings of the provided result to this one
+     * @param other the result to merge into this one
+     */
+    void merge(BulkRegistryOperationResult other)
+    {
+        this.isSuccessful = this.isSuccessful && other.isSuccessful;
+        this.errors.addAll(other.errors);
+        this.warnings.addAll(other.warnings);
+    }
+
+    /**
+     * Records an error for a device that could not be processed
+     * @param error the error to record
+     */
+    void addError(DeviceRegistryOperationError error)
+    {
+        this.isSuccessful = false;
+        this.errors.add(error);
+    }
+
+    /**
+     * Getter for isSuccessful
+     * @return true if every device in the operation was processed without error
+     */
+    public boolean getIsSuccessful()
+    {
+        return isSuccessful;
+    }
+
+    /**
+     * Getter for the per device errors
+     * @return the errors reported for individual devices. Never null.
+     */
+    public List<DeviceRegistryOperationError> getErrors()
+    {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Getter for the per device warnings
+     * @return the warnings reported for individual devices. Never null.
+     */
+    public List<DeviceRegistryOperationWarning> getWarnings()
+    {
+        return Collections.unmodifiableList(warnings);
+    }
+}
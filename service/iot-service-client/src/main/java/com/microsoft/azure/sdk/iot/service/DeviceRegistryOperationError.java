@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service;
+
+import com.microsoft.azure.sdk.iot.deps.serializer.DeviceRegistryOperationErrorParser;
+
+/**
+ * Failure reported for a single device by one of the bulk registry operations on {@link RegistryManager}.
+ */
+public class DeviceRegistryOperationError
+{
+    private String deviceId;
+    private String errorCode;
+    private String errorStatus;
+
+    /**
+     * Constructor for a DeviceRegistryOperationError
+     * @param deviceId the id of the device the error applies to
+     * @param errorCode the error code
+     * @param errorStatus the description of the error
+     */
+    DeviceRegistryOperationError(String deviceId, String errorCode, String errorStatus)
+    {
+        this.deviceId = deviceId;
+        this.errorCode = errorCode;
+        this.errorStatus = errorStatus;
+    }
+
+    /**
+     * Constructs a DeviceRegistryOperationError based off of a DeviceRegistryOperationErrorParser object
+     * @param parser the object to base the constructed object on
+     */
+    DeviceRegistryOperationError(DeviceRegistryOperationErrorParser parser)
+    {
+        if (parser == null)
+        {
+            throw new IllegalArgumentException("The parser may not be null");
+        }
+
+        this.deviceId = parser.getDeviceId();
+        this.errorCode = parser.getErrorCode();
+        this.errorStatus = parser.getErrorStatus();
+    }
+
+    /**
+     * Getter for the device id
+     * @return the id of the device the error applies to
+     */
+    public String getDeviceId()
+    {
+        return deviceId;
+    }
+
+    /**
+     * Getter for the error code
+     * @return the error code reported for this device
+     */
+    public String getErrorCode()
+    {
+        return errorCode;
+    }
+
+    /**
+     * Getter for the error status
+     * @return the description of the error reported for this device
+     */
+    public String getErrorStatus()
+    {
+        return errorStatus;
+    }
+}
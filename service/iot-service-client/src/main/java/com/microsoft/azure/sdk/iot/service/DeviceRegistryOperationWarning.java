@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service;
+
+import com.microsoft.azure.sdk.iot.deps.serializer.DeviceRegistryOperationWarningParser;
+
+/**
+ * Warning reported for a single device by one of the bulk registry operations on {@link RegistryManager}.
+ */
+public class DeviceRegistryOperationWarning
+{
+    private String deviceId;
+    private String warningCode;
+    private String warningStatus;
+
+    /**
+     * Constructs a DeviceRegistryOperationWarning based off of a DeviceRegistryOperationWarningParser object
+     * @param parser the object to base the constructed object on
+     */
+    DeviceRegistryOperationWarning(DeviceRegistryOperationWarningParser parser)
+    {
+        if (parser == null)
+        {
+            throw new IllegalArgumentException("The parser may not be null");
+        }
+
+        this.deviceId = parser.getDeviceId();
+        this.warningCode = parser.getWarningCode();
+        this.warningStatus = parser.getWarningStatus();
+    }
+
+    /**
+     * Getter for the device id
+     * @return the id of the device the warning applies to
+     */
+    public String getDeviceId()
+    {
+        return deviceId;
+    }
+
+    /**
+     * Getter for the warning code
+     * @return the warning code reported for this device
+     */
+    public String getWarningCode()
+    {
+        return warningCode;
+    }
+
+    /**
+     * Getter for the warning status
+     * @return the description of the warning reported for this device
+     */
+    public String getWarningStatus()
+    {
+        return warningStatus;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service;
+
+import com.microsoft.azure.sdk.iot.deps.serializer.ExportImportDeviceParser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming reader for the newline delimited {@link ExportImportDevice} format used by the blobs of
+ * {@link RegistryManager#exportDevices(String, Boolean)} and {@link RegistryManager#importDevices(String, String)}.
+ *
+ * <p>Lines are read in chunks of {@code chunkSize} and each chunk is parsed as a separate task of a
+ * {@link ForkJoinPool}. Up to twice the parallelism of the pool chunks are read ahead of the consumer, so memory use
+ * is bounded by the chunk size rather than by the size of the file. Devices are returned in the order of the lines
+ * that they were parsed from, and empty lines are skipped.</p>
+ *
+ * <p>A line that is not a valid device is rethrown from {@link #hasNext()} or {@link #next()} as an
+ * {@link IllegalArgumentException} that names the line, and a failure to read the stream as an
+ * {@link UncheckedIOException}. This class is not thread safe.</p>
+ */
+public class ExportImportDeviceReader implements Iterator<ExportImportDevice>, Closeable
+{
+    static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final BufferedReader reader;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final Deque<CompletableFuture<List<ExportImportDevice>>> chunksInFlight = new ArrayDeque<>();
+
+    private Iterator<ExportImportDevice> currentChunk = Collections.emptyIterator();
+    private long linesRead;
+    private boolean isEndOfStream;
+
+    /**
+     * Creates a reader that parses on the common {@link ForkJoinPool} in chunks of {@value #DEFAULT_CHUNK_SIZE} lines
+     * @param inputStream the UTF-8 stream to read the devices from
+     * @throws IllegalArgumentException if the inputStream is null
+     */
+    public ExportImportDeviceReader(InputStream inputStream) throws IllegalArgumentException
+    {
+        this(inputStream, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a reader that parses on the provided pool
+     * @param inputStream the UTF-8 stream to read the devices from
+     * @param pool the pool to parse the chunks on
+     * @param chunkSize the number of lines parsed by each task
+     * @throws IllegalArgumentException if the inputStream or the pool is null, or if the chunkSize is less than 1
+     */
+    public ExportImportDeviceReader(InputStream inputStream, ForkJoinPool pool, int chunkSize) throws IllegalArgumentException
+    {
+        if (inputStream == null || pool == null)
+        {
+            throw new IllegalArgumentException("inputStream and pool cannot be null");
+        }
+
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("chunkSize cannot be less than 1");
+        }
+
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = 2 * pool.getParallelism();
+    }
+
+    /**
+     * Creates a reader over a local file that parses on the common {@link ForkJoinPool}
+     * @param file the UTF-8 file to read the devices from
+     * @return the reader, which must be closed to release the file
+     * @throws IOException if the file could not be opened
+     * @throws IllegalArgumentException if the file is null
+     */
+    public static ExportImportDeviceReader open(Path file) throws IOException, IllegalArgumentException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file cannot be null");
+        }
+
+        return new ExportImportDeviceReader(Files.newInputStream(file));
+    }
+
+    /**
+     * Returns the availability of the next device, waiting for its chunk to be parsed if needed
+     * @return the availability of the next device
+     * @throws IllegalArgumentException if a line could not be parsed into a device
+     * @throws UncheckedIOException if the stream could not be read
+     */
+    @Override
+    public boolean hasNext() throws IllegalArgumentException, UncheckedIOException
+    {
+        while (!this.currentChunk.hasNext())
+        {
+            submitChunks();
+            CompletableFuture<List<ExportImportDevice>> chunk = this.chunksInFlight.poll();
+            if (chunk == null)
+            {
+                return false;
+            }
+
+            this.currentChunk = joinChunk(chunk).iterator();
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the next device
+     * @return the next device
+     * @throws NoSuchElementException if no further devices are available
+     * @throws IllegalArgumentException if a line could not be parsed into a device
+     * @throws UncheckedIOException if the stream could not be read
+     */
+    @Override
+    public ExportImportDevice next() throws NoSuchElementException, IllegalArgumentException, UncheckedIOException
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+
+        return this.currentChunk.next();
+    }
+
+    /**
+     * Creates a sequential, ordered {@link Stream} over the remaining devices. Closing the stream closes this reader.
+     * @return a stream over the remaining devices
+     */
+    public Stream<ExportImportDevice> stream()
+    {
+        Spliterator<ExportImportDevice> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() ->
+        {
+            try
+            {
+                close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Cancels the chunks that are still being parsed and closes the underlying stream
+     * @throws IOException if the underlying stream could not be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        for (CompletableFuture<List<ExportImportDevice>> chunk : this.chunksInFlight)
+        {
+            chunk.cancel(false);
+        }
+
+        this.chunksInFlight.clear();
+        this.currentChunk = Collections.emptyIterator();
+        this.isEndOfStream = true;
+        this.reader.close();
+    }
+
+    static <T> T joinChunk(CompletableFuture<T> chunk)
+    {
+        try
+        {
+            return chunk.join();
+        }
+        catch (CompletionException e)
+        {
+            // rethrow the failure of the task itself rather than its wrapper
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private void submitChunks() throws UncheckedIOException
+    {
+        while (!this.isEndOfStream && this.chunksInFlight.size() < this.maxChunksInFlight)
+        {
+            final long firstLineNumber = this.linesRead + 1;
+            final List<String> lines = readLines();
+            if (!lines.isEmpty())
+            {
+                this.chunksInFlight.add(CompletableFuture.supplyAsync(() -> parseChunk(lines, firstLineNumber), this.pool));
+            }
+        }
+    }
+
+    private List<String> readLines() throws UncheckedIOException
+    {
+        List<String> lines = new ArrayList<>(this.chunkSize);
+        try
+        {
+            while (lines.size() < this.chunkSize)
+            {
+                String line = this.reader.readLine();
+                if (line == null)
+                {
+                    this.isEndOfStream = true;
+                    break;
+                }
+
+                // empty lines are kept so that the line numbers in the error messages are right
+                lines.add(line);
+                this.linesRead++;
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        return lines;
+    }
+
+    private static List<ExportImportDevice> parseChunk(List<String> lines, long firstLineNumber) throws IllegalArgumentException
+    {
+        List<ExportImportDevice> devices = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++)
+        {
+            String line = lines.get(i);
+            if (line.trim().isEmpty())
+            {
+                continue;
+            }
+
+            try
+            {
+                devices.add(new ExportImportDevice(new ExportImportDeviceParser(line)));
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IllegalArgumentException("Line " + (firstLineNumber + i) + " is not a valid device: " + e.getMessage(), e);
+            }
+        }
+
+        return devices;
+    }
+}
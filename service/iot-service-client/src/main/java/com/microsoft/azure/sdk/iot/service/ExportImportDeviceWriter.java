@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Streaming writer for the newline delimited {@link ExportImportDevice} format used by the blobs of
+ * {@link RegistryManager#importDevices(String, String)}.
+ *
+ * <p>Devices are collected in chunks of {@code chunkSize} and each chunk is serialized as a separate task of a
+ * {@link ForkJoinPool}. The serialized chunks are written to the stream in the order that their devices were written,
+ * and once twice the parallelism of the pool chunks are waiting, {@link #write(ExportImportDevice)} writes the oldest
+ * one before accepting more devices. Nothing is guaranteed to be in the stream until {@link #flush()} or
+ * {@link #close()} is called. This class is not thread safe.</p>
+ */
+public class ExportImportDeviceWriter implements Closeable, Flushable
+{
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final OutputStream outputStream;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final Deque<CompletableFuture<byte[]>> chunksInFlight = new ArrayDeque<>();
+
+    private List<ExportImportDevice> pendingDevices;
+
+    /**
+     * Creates a writer that serializes on the common {@link ForkJoinPool} in chunks of
+     * {@value ExportImportDeviceReader#DEFAULT_CHUNK_SIZE} devices
+     * @param outputStream the stream to write the devices to, in UTF-8
+     * @throws IllegalArgumentException if the outputStream is null
+     */
+    public ExportImportDeviceWriter(OutputStream outputStream) throws IllegalArgumentException
+    {
+        this(outputStream, ForkJoinPool.commonPool(), ExportImportDeviceReader.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a writer that serializes on the provided pool
+     * @param outputStream the stream to write the devices to, in UTF-8
+     * @param pool the pool to serialize the chunks on
+     * @param chunkSize the number of devices serialized by each task
+     * @throws IllegalArgumentException if the outputStream or the pool is null, or if the chunkSize is less than 1
+     */
+    public ExportImportDeviceWriter(OutputStream outputStream, ForkJoinPool pool, int chunkSize) throws IllegalArgumentException
+    {
+        if (outputStream == null || pool == null)
+        {
+            throw new IllegalArgumentException("outputStream and pool cannot be null");
+        }
+
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("chunkSize cannot be less than 1");
+        }
+
+        this.outputStream = outputStream;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = 2 * pool.getParallelism();
+        this.pendingDevices = new ArrayList<>(chunkSize);
+    }
+
+    /**
+     * Creates a writer over a local file that serializes on the common {@link ForkJoinPool}. The file is created, or
+     * truncated if it already exists.
+     * @param file the file to write the devices to
+     * @return the writer, which must be closed to complete the file
+     * @throws IOException if the file could not be opened
+     * @throws IllegalArgumentException if the file is null
+     */
+    public static ExportImportDeviceWriter create(Path file) throws IOException, IllegalArgumentException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file cannot be null");
+        }
+
+        return new ExportImportDeviceWriter(new BufferedOutputStream(Files.newOutputStream(file)));
+    }
+
+    /**
+     * Adds a device to the file
+     * @param device the device to write
+     * @throws IllegalArgumentException if the device is null
+     * @throws IOException if a previous chunk could not be written to the stream
+     */
+    public void write(ExportImportDevice device) throws IllegalArgumentException, IOException
+    {
+        if (device == null)
+        {
+            throw new IllegalArgumentException("device cannot be null");
+        }
+
+        this.pendingDevices.add(device);
+        if (this.pendingDevices.size() == this.chunkSize)
+        {
+            submitPendingDevices();
+            while (this.chunksInFlight.size() > this.maxChunksInFlight)
+            {
+                writeOldestChunk();
+            }
+        }
+    }
+
+    /**
+     * Waits for all the written devices to be serialized, writes them to the stream and flushes it
+     * @throws IOException if the stream could not be written or flushed
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        submitPendingDevices();
+        while (!this.chunksInFlight.isEmpty())
+        {
+            writeOldestChunk();
+        }
+
+        this.outputStream.flush();
+    }
+
+    /**
+     * Flushes all the written devices and closes the underlying stream
+     * @throws IOException if the stream could not be written or closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            this.outputStream.close();
+        }
+    }
+
+    private void submitPendingDevices()
+    {
+        if (!this.pendingDevices.isEmpty())
+        {
+            final List<ExportImportDevice> devices = this.pendingDevices;
+            this.chunksInFlight.add(CompletableFuture.supplyAsync(() -> serializeChunk(devices), this.pool));
+            this.pendingDevices = new ArrayList<>(this.chunkSize);
+        }
+    }
+
+    private void writeOldestChunk() throws IOException
+    {
+        this.outputStream.write(ExportImportDeviceReader.joinChunk(this.chunksInFlight.poll()));
+    }
+
+    private static byte[] serializeChunk(List<ExportImportDevice> devices)
+    {
+        StringBuilder lines = new StringBuilder();
+        for (ExportImportDevice device : devices)
+        {
+            lines.append(device.toExportImportDeviceParser().toJson()).append(LINE_SEPARATOR);
+        }
+
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
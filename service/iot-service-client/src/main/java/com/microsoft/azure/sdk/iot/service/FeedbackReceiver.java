@@ -5,13 +5,17 @@
 
 package com.microsoft.azure.sdk.iot.service;
 
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpFeedbackReceivedHandler;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpReceivedDelivery;
 import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpReceive;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpStreamingReceiver;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * FeedbackReceiver is a specialized receiver whose ReceiveAsync
@@ -26,6 +30,13 @@ public class FeedbackReceiver extends Receiver
     private String deviceId;
     private AmqpReceive amqpReceive;
 
+    private final String hostName;
+    private final String userName;
+    private final String sasToken;
+    private final IotHubServiceClientProtocol iotHubServiceClientProtocol;
+    private final ProxyOptions proxyOptions;
+    private AmqpStreamingReceiver amqpStreamingReceiver;
+
     /**
      * Constructor to verify initialization parameters
      * Create instance of AmqpReceive
@@ -60,6 +71,12 @@ public class FeedbackReceiver extends Receiver
         this.deviceId = deviceId;
         // Codes_SRS_SERVICE_SDK_JAVA_FEEDBACKRECEIVER_12_003: [The constructor shall create a new instance of AmqpReceive object]
         this.amqpReceive = new AmqpReceive(hostName, userName, sasToken, iotHubServiceClientProtocol);
+
+        this.hostName = hostName;
+        this.userName = userName;
+        this.sasToken = sasToken;
+        this.iotHubServiceClientProtocol = iotHubServiceClientProtocol;
+        this.proxyOptions = null;
     }
 
     /**
@@ -110,6 +127,12 @@ public class FeedbackReceiver extends Receiver
                 
         // Codes_SRS_SERVICE_SDK_JAVA_FEEDBACKRECEIVER_12_003: [The constructor shall create a new instance of AmqpReceive object]
         this.amqpReceive = new AmqpReceive(hostName, userName, sasToken, iotHubServiceClientProtocol, proxyOptions);
+
+        this.hostName = hostName;
+        this.userName = userName;
+        this.sasToken = sasToken;
+        this.iotHubServiceClientProtocol = iotHubServiceClientProtocol;
+        this.proxyOptions = proxyOptions;
     }
         
     /**
@@ -185,6 +208,131 @@ public class FeedbackReceiver extends Receiver
         return this.amqpReceive.receive(timeoutMs);
     }
 
+    /**
+     * Opens a long lived link to the feedback endpoint. Unlike {@link #receive(long)}, which opens a new connection
+     * for each feedback batch and acknowledges it as soon as it arrives, the link stays open until
+     * {@link #stopReceiving()} is called, and each feedback batch stays unacknowledged until its delivery is completed
+     * or abandoned. Received batches are buffered until they are taken by {@link #receiveDelivery(long)}.
+     *
+     * @param linkCredit the maximum number of feedback batches received ahead of their completion
+     * @throws IOException if the connection could not be set up
+     * @throws IllegalArgumentException if linkCredit is not positive
+     * @throws IllegalStateException if this receiver is already receiving
+     */
+    public void startReceiving(int linkCredit) throws IOException, IllegalArgumentException, IllegalStateException
+    {
+        startReceiving(linkCredit, null);
+    }
+
+    /**
+     * Opens a long lived link to the feedback endpoint and hands every received feedback batch to the callback, on a
+     * dedicated thread, until {@link #stopReceiving()} is called. Each feedback batch stays unacknowledged until its
+     * delivery is completed or abandoned. A delivery is abandoned if the callback throws. If the connection is lost,
+     * it is opened again after a backoff.
+     *
+     * @param linkCredit the maximum number of feedback batches received ahead of their completion
+     * @param callback the callback to hand received feedback batches to. If null, received batches are buffered until
+     * they are taken by {@link #receiveDelivery(long)}
+     * @throws IOException if the connection could not be set up
+     * @throws IllegalArgumentException if linkCredit is not positive
+     * @throws IllegalStateException if this receiver is already receiving
+     */
+    public synchronized void startReceiving(int linkCredit, Consumer<ReceivedDelivery<FeedbackBatch>> callback) throws IOException, IllegalArgumentException, IllegalStateException
+    {
+        if (this.amqpStreamingReceiver != null)
+        {
+            throw new IllegalStateException("Feedback receiver is already receiving");
+        }
+
+        AmqpStreamingReceiver streamingReceiver = new AmqpStreamingReceiver(this.hostName, this.userName, this.sasToken,
+                this.iotHubServiceClientProtocol, this.proxyOptions, AmqpFeedbackReceivedHandler.ENDPOINT,
+                AmqpFeedbackReceivedHandler.RECEIVE_TAG, linkCredit);
+
+        log.info("Starting to receive feedback with link credit {}", linkCredit);
+        streamingReceiver.open(callback == null ? null : amqpReceivedDelivery ->
+        {
+            ReceivedDelivery<FeedbackBatch> receivedDelivery = toReceivedDelivery(amqpReceivedDelivery);
+            if (receivedDelivery != null)
+            {
+                callback.accept(receivedDelivery);
+            }
+        });
+        this.amqpStreamingReceiver = streamingReceiver;
+    }
+
+    /**
+     * Waits for the next feedback batch received on the link opened by {@link #startReceiving(int)}
+     *
+     * @param timeoutMs The timeout in milliseconds
+     * @return the received feedback batch, to be completed or abandoned, or null if none was received before the timeout
+     * @throws IOException if this receiver is not receiving, or if its connection was lost
+     * @throws InterruptedException if the wait was interrupted
+     */
+    public ReceivedDelivery<FeedbackBatch> receiveDelivery(long timeoutMs) throws IOException, InterruptedException
+    {
+        AmqpStreamingReceiver streamingReceiver = this.amqpStreamingReceiver;
+        if (streamingReceiver == null)
+        {
+            throw new IOException("Feedback receiver is not receiving. Call startReceiving before receiveDelivery");
+        }
+
+        long endTime = System.currentTimeMillis() + timeoutMs;
+        long remainingTimeMs = timeoutMs;
+        do
+        {
+            AmqpReceivedDelivery amqpReceivedDelivery = streamingReceiver.receive(remainingTimeMs);
+            if (amqpReceivedDelivery == null)
+            {
+                return null;
+            }
+
+            ReceivedDelivery<FeedbackBatch> receivedDelivery = toReceivedDelivery(amqpReceivedDelivery);
+            if (receivedDelivery != null)
+            {
+                return receivedDelivery;
+            }
+
+            remainingTimeMs = endTime - System.currentTimeMillis();
+        }
+        while (remainingTimeMs > 0);
+
+        return null;
+    }
+
+    /**
+     * Closes the link opened by {@link #startReceiving(int)}. Feedback batches that were not completed yet are
+     * released so that the service sends them again later. Has no effect if this receiver is not receiving.
+     *
+     * @throws InterruptedException if interrupted while waiting for the connection to close
+     */
+    public synchronized void stopReceiving() throws InterruptedException
+    {
+        if (this.amqpStreamingReceiver != null)
+        {
+            log.info("Stopping to receive feedback");
+            this.amqpStreamingReceiver.close();
+            this.amqpStreamingReceiver = null;
+        }
+    }
+
+    private static ReceivedDelivery<FeedbackBatch> toReceivedDelivery(AmqpReceivedDelivery amqpReceivedDelivery)
+    {
+        FeedbackBatch feedbackBatch;
+        try
+        {
+            feedbackBatch = FeedbackBatchMessage.parse(amqpReceivedDelivery.getBody());
+        }
+        catch (Exception e)
+        {
+            // A poorly formed feedback batch would fail again on every redelivery, so it is acknowledged and dropped
+            log.warn("Service gave feedback message with poorly formed json, message dropped.");
+            amqpReceivedDelivery.complete();
+            return null;
+        }
+
+        return new ReceivedDelivery<>(feedbackBatch, amqpReceivedDelivery);
+    }
+
     /**
      * Async wrapper for open() operation
      *
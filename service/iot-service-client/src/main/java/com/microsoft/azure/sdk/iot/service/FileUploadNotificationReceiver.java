@@ -5,13 +5,18 @@
 
 package com.microsoft.azure.sdk.iot.service;
 
+import com.microsoft.azure.sdk.iot.deps.serializer.FileUploadNotificationParser;
 import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpFileUploadNotificationReceive;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpFileUploadNotificationReceivedHandler;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpReceivedDelivery;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpStreamingReceiver;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 @Slf4j
 public class FileUploadNotificationReceiver extends Receiver
@@ -20,6 +25,13 @@ public class FileUploadNotificationReceiver extends Receiver
     private final ExecutorService executor = Executors.newFixedThreadPool(3);
     private AmqpFileUploadNotificationReceive amqpFileUploadNotificationReceive;
 
+    private final String hostName;
+    private final String userName;
+    private final String sasToken;
+    private final IotHubServiceClientProtocol iotHubServiceClientProtocol;
+    private final ProxyOptions proxyOptions;
+    private AmqpStreamingReceiver amqpStreamingReceiver;
+
     /**
      * Constructor to verify initialization parameters
      * Create instance of AmqpReceive
@@ -63,6 +75,12 @@ public class FileUploadNotificationReceiver extends Receiver
 
         // Codes_SRS_SERVICE_SDK_JAVA_FILEUPLOADNOTIFICATIONRECEIVER_25_002: [** The constructor shall create a new instance of AmqpFileUploadNotificationReceive object **]**
         this.amqpFileUploadNotificationReceive = new AmqpFileUploadNotificationReceive(hostName, userName, sasToken, iotHubServiceClientProtocol, proxyOptions);
+
+        this.hostName = hostName;
+        this.userName = userName;
+        this.sasToken = sasToken;
+        this.iotHubServiceClientProtocol = iotHubServiceClientProtocol;
+        this.proxyOptions = proxyOptions;
     }
 
     /**
@@ -131,6 +149,141 @@ public class FileUploadNotificationReceiver extends Receiver
         return this.amqpFileUploadNotificationReceive.receive(timeoutMs);
     }
 
+    /**
+     * Opens a long lived link to the file upload notification endpoint. Unlike {@link #receive(long)}, which opens a
+     * new connection for each notification and acknowledges it as soon as it arrives, the link stays open until
+     * {@link #stopReceiving()} is called, and each notification stays unacknowledged until its delivery is completed
+     * or abandoned. Received notifications are buffered until they are taken by {@link #receiveDelivery(long)}.
+     *
+     * QoS for receiving file upload notifications is at least once
+     *
+     * @param linkCredit the maximum number of notifications received ahead of their completion
+     * @throws IOException if the connection could not be set up
+     * @throws IllegalArgumentException if linkCredit is not positive
+     * @throws IllegalStateException if this receiver is already receiving
+     */
+    public void startReceiving(int linkCredit) throws IOException, IllegalArgumentException, IllegalStateException
+    {
+        startReceiving(linkCredit, null);
+    }
+
+    /**
+     * Opens a long lived link to the file upload notification endpoint and hands every received notification to the
+     * callback, on a dedicated thread, until {@link #stopReceiving()} is called. Each notification stays
+     * unacknowledged until its delivery is completed or abandoned. A delivery is abandoned if the callback throws.
+     * If the connection is lost, it is opened again after a backoff.
+     *
+     * QoS for receiving file upload notifications is at least once
+     *
+     * @param linkCredit the maximum number of notifications received ahead of their completion
+     * @param callback the callback to hand received notifications to. If null, received notifications are buffered
+     * until they are taken by {@link #receiveDelivery(long)}
+     * @throws IOException if the connection could not be set up
+     * @throws IllegalArgumentException if linkCredit is not positive
+     * @throws IllegalStateException if this receiver is already receiving
+     */
+    public synchronized void startReceiving(int linkCredit, Consumer<ReceivedDelivery<FileUploadNotification>> callback) throws IOException, IllegalArgumentException, IllegalStateException
+    {
+        if (this.amqpStreamingReceiver != null)
+        {
+            throw new IllegalStateException("File upload notification receiver is already receiving");
+        }
+
+        AmqpStreamingReceiver streamingReceiver = new AmqpStreamingReceiver(this.hostName, this.userName, this.sasToken,
+                this.iotHubServiceClientProtocol, this.proxyOptions, AmqpFileUploadNotificationReceivedHandler.FILENOTIFICATION_ENDPOINT,
+                AmqpFileUploadNotificationReceivedHandler.FILE_NOTIFICATION_RECEIVE_TAG, linkCredit);
+
+        log.info("Starting to receive file upload notifications with link credit {}", linkCredit);
+        streamingReceiver.open(callback == null ? null : amqpReceivedDelivery ->
+        {
+            ReceivedDelivery<FileUploadNotification> receivedDelivery = toReceivedDelivery(amqpReceivedDelivery);
+            if (receivedDelivery != null)
+            {
+                callback.accept(receivedDelivery);
+            }
+        });
+        this.amqpStreamingReceiver = streamingReceiver;
+    }
+
+    /**
+     * Waits for the next notification received on the link opened by {@link #startReceiving(int)}
+     *
+     * QoS for receiving file upload notifications is at least once
+     *
+     * @param timeoutMs The timeout in milliseconds
+     * @return the received notification, to be completed or abandoned, or null if none was received before the timeout
+     * @throws IOException if this receiver is not receiving, or if its connection was lost
+     * @throws InterruptedException if the wait was interrupted
+     */
+    public ReceivedDelivery<FileUploadNotification> receiveDelivery(long timeoutMs) throws IOException, InterruptedException
+    {
+        AmqpStreamingReceiver streamingReceiver = this.amqpStreamingReceiver;
+        if (streamingReceiver == null)
+        {
+            throw new IOException("File upload notification receiver is not receiving. Call startReceiving before receiveDelivery");
+        }
+
+        long endTime = System.currentTimeMillis() + timeoutMs;
+        long remainingTimeMs = timeoutMs;
+        do
+        {
+            AmqpReceivedDelivery amqpReceivedDelivery = streamingReceiver.receive(remainingTimeMs);
+            if (amqpReceivedDelivery == null)
+            {
+                return null;
+            }
+
+            ReceivedDelivery<FileUploadNotification> receivedDelivery = toReceivedDelivery(amqpReceivedDelivery);
+            if (receivedDelivery != null)
+            {
+                return receivedDelivery;
+            }
+
+            remainingTimeMs = endTime - System.currentTimeMillis();
+        }
+        while (remainingTimeMs > 0);
+
+        return null;
+    }
+
+    /**
+     * Closes the link opened by {@link #startReceiving(int)}. Notifications that were not completed yet are released
+     * so that the service sends them again later. Has no effect if this receiver is not receiving.
+     *
+     * @throws InterruptedException if interrupted while waiting for the connection to close
+     */
+    public synchronized void stopReceiving() throws InterruptedException
+    {
+        if (this.amqpStreamingReceiver != null)
+        {
+            log.info("Stopping to receive file upload notifications");
+            this.amqpStreamingReceiver.close();
+            this.amqpStreamingReceiver = null;
+        }
+    }
+
+    private static ReceivedDelivery<FileUploadNotification> toReceivedDelivery(AmqpReceivedDelivery amqpReceivedDelivery)
+    {
+        FileUploadNotification fileUploadNotification;
+        try
+        {
+            FileUploadNotificationParser notificationParser = new FileUploadNotificationParser(amqpReceivedDelivery.getBody());
+
+            fileUploadNotification = new FileUploadNotification(notificationParser.getDeviceId(),
+                    notificationParser.getBlobUri(), notificationParser.getBlobName(), notificationParser.getLastUpdatedTime(),
+                    notificationParser.getBlobSizeInBytesTag(), notificationParser.getEnqueuedTimeUtc());
+        }
+        catch (Exception e)
+        {
+            // A poorly formed notification would fail again on every redelivery, so it is acknowledged and dropped
+            log.warn("Service gave file upload notification with poorly formed json, notification dropped.");
+            amqpReceivedDelivery.complete();
+            return null;
+        }
+
+        return new ReceivedDelivery<>(fileUploadNotification, amqpReceivedDelivery);
+    }
+
     /**
      * Async wrapper for open() operation
      *
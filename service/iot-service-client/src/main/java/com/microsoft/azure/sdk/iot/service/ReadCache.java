@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service;
+
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, client side cache of the responses to the reads of devices, modules and twins, keyed by the URL of the
+ * resource. Set it in {@link RegistryManagerOptions} or
+ * {@link com.microsoft.azure.sdk.iot.service.devicetwin.DeviceTwinClientOptions} to enable it. The same instance may be
+ * shared by several clients.
+ *
+ * <p>A response younger than the time to live is returned without contacting the IotHub. An older response is
+ * revalidated with an {@code If-None-Match} request on its ETag, which the IotHub answers with an empty
+ * {@code 304 Not Modified} if the resource did not change. Once the cache holds {@code maximumSize} responses, the
+ * least recently used one is evicted. Updates and removals made through the clients that use the cache invalidate
+ * the affected entries, but changes made by other clients are only seen once the time to live has passed.</p>
+ */
+public final class ReadCache
+{
+    private static final int NOT_MODIFIED = 304;
+    private static final String ETAG = "etag";
+
+    private final int maximumSize;
+    private final long timeToLiveMillis;
+    private final Map<String, Entry> entries;
+
+    // incremented by every invalidation, so that a read that raced with one does not cache its outdated response
+    private long invalidationCount;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder revalidationCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Sends the read request of a resource
+     */
+    @FunctionalInterface
+    public interface ConditionalGet
+    {
+        /**
+         * Sends the read request, with an {@code If-None-Match} header if an ETag is provided
+         * @param ifNoneMatch the ETag to revalidate, or null to read the resource unconditionally
+         * @return the verified response of the IotHub, which is either {@code 200 OK} or {@code 304 Not Modified}
+         * @throws IOException if the request could not be sent
+         * @throws IotHubException if the IotHub rejected the request
+         */
+        HttpResponse send(String ifNoneMatch) throws IOException, IotHubException;
+    }
+
+    /**
+     * Constructor for ReadCache
+     * @param maximumSize the maximum number of responses to keep
+     * @param timeToLiveMillis how long a response is returned without being revalidated, in milliseconds. Zero
+     *                         revalidates every read.
+     * @throws IllegalArgumentException if the maximumSize is less than 1 or the timeToLiveMillis is negative
+     */
+    public ReadCache(int maximumSize, long timeToLiveMillis) throws IllegalArgumentException
+    {
+        if (maximumSize < 1)
+        {
+            throw new IllegalArgumentException("maximumSize cannot be less than 1");
+        }
+
+        if (timeToLiveMillis < 0)
+        {
+            throw new IllegalArgumentException("timeToLiveMillis cannot be negative");
+        }
+
+        this.maximumSize = maximumSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+            {
+                if (size() > ReadCache.this.maximumSize)
+                {
+                    evictionCount.increment();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the body of the resource, from the cache if possible
+     * @param key the key of the resource, usually its URL
+     * @param conditionalGet sends the read request if the cached response is missing or too old
+     * @return the body of the resource as a UTF-8 string
+     * @throws IOException if the request could not be sent
+     * @throws IotHubException if the IotHub rejected the request, in which case the key is invalidated
+     * @throws IllegalArgumentException if the key or the conditionalGet is null
+     */
+    public String get(String key, ConditionalGet conditionalGet) throws IOException, IotHubException, IllegalArgumentException
+    {
+        if (key == null || conditionalGet == null)
+        {
+            throw new IllegalArgumentException("key and conditionalGet cannot be null");
+        }
+
+        Entry cached;
+        long invalidationCountBeforeRead;
+        synchronized (this.entries)
+        {
+            cached = this.entries.get(key);
+            invalidationCountBeforeRead = this.invalidationCount;
+        }
+
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.validatedAtMillis < this.timeToLiveMillis)
+        {
+            this.hitCount.increment();
+            return cached.body;
+        }
+
+        HttpResponse response;
+        try
+        {
+            response = conditionalGet.send(cached == null ? null : cached.eTag);
+        }
+        catch (IOException | IotHubException | RuntimeException e)
+        {
+            invalidate(key);
+            throw e;
+        }
+
+        Entry updated;
+        if (cached != null && cached.eTag != null && response.getStatus() == NOT_MODIFIED)
+        {
+            this.revalidationCount.increment();
+            updated = new Entry(cached.body, cached.eTag, now);
+        }
+        else
+        {
+            this.missCount.increment();
+            updated = new Entry(new String(response.getBody(), StandardCharsets.UTF_8), response.getHeaderFields().get(ETAG), now);
+        }
+
+        synchronized (this.entries)
+        {
+            if (this.invalidationCount == invalidationCountBeforeRead)
+            {
+                this.entries.put(key, updated);
+            }
+        }
+
+        return updated.body;
+    }
+
+    /**
+     * Removes a resource from the cache
+     * @param key the key of the resource, usually its URL
+     */
+    public void invalidate(String key)
+    {
+        synchronized (this.entries)
+        {
+            this.entries.remove(key);
+            this.invalidationCount++;
+        }
+    }
+
+    /**
+     * Removes all the resources from the cache. The statistics are kept.
+     */
+    public void invalidateAll()
+    {
+        synchronized (this.entries)
+        {
+            this.entries.clear();
+            this.invalidationCount++;
+        }
+    }
+
+    /**
+     * Getter for the number of cached responses
+     * @return the number of cached responses
+     */
+    public int size()
+    {
+        synchronized (this.entries)
+        {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * Getter for the number of reads served from the cache without contacting the IotHub
+     * @return the number of reads served from the cache
+     */
+    public long getHitCount()
+    {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * Getter for the number of reads that the IotHub answered with {@code 304 Not Modified}
+     * @return the number of successful revalidations
+     */
+    public long getRevalidationCount()
+    {
+        return this.revalidationCount.sum();
+    }
+
+    /**
+     * Getter for the number of reads that downloaded the resource, because it was not cached or had changed
+     * @return the number of misses
+     */
+    public long getMissCount()
+    {
+        return this.missCount.sum();
+    }
+
+    /**
+     * Getter for the number of responses evicted to keep the cache within its maximum size
+     * @return the number of evictions
+     */
+    public long getEvictionCount()
+    {
+        return this.evictionCount.sum();
+    }
+
+    /**
+     * Getter for the hit rate
+     * @return the ratio of the reads served from the cache, including revalidations, to all the reads. Zero if there
+     * were no reads.
+     */
+    public double getHitRate()
+    {
+        long hits = getHitCount() + getRevalidationCount();
+        long reads = hits + getMissCount();
+        return reads == 0 ? 0.0 : (double) hits / reads;
+    }
+
+    private static final class Entry
+    {
+        private final String body;
+        private final String eTag;
+        private final long validatedAtMillis;
+
+        private Entry(String body, String eTag, long validatedAtMillis)
+        {
+            this.body = body;
+            this.eTag = eTag;
+            this.validatedAtMillis = validatedAtMillis;
+        }
+    }
+}
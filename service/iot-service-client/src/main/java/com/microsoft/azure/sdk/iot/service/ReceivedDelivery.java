@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service;
+
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpReceivedDelivery;
+
+/**
+ * A value received by a long lived {@link FeedbackReceiver} or {@link FileUploadNotificationReceiver} that has not been
+ * acknowledged to the service yet.
+ *
+ * <p>Each delivery holds one credit of the receiver link until it is settled, so every delivery must eventually be
+ * completed or abandoned. Once all of the link credit is held by unsettled deliveries, the service stops sending.</p>
+ *
+ * @param <T> the type of the received value
+ */
+public class ReceivedDelivery<T>
+{
+    private final T value;
+    private final AmqpReceivedDelivery amqpReceivedDelivery;
+
+    ReceivedDelivery(T value, AmqpReceivedDelivery amqpReceivedDelivery)
+    {
+        this.value = value;
+        this.amqpReceivedDelivery = amqpReceivedDelivery;
+    }
+
+    /**
+     * Getter for the received value
+     * @return the received value
+     */
+    public T getValue()
+    {
+        return this.value;
+    }
+
+    /**
+     * Acknowledges this delivery so that the service does not send it again. Calls after the first completion or
+     * abandonment, or after the receiver stopped receiving or lost its connection, have no effect.
+     */
+    public void complete()
+    {
+        this.amqpReceivedDelivery.complete();
+    }
+
+    /**
+     * Releases this delivery so that the service sends it again later. Calls after the first completion or
+     * abandonment, or after the receiver stopped receiving or lost its connection, have no effect.
+     */
+    public void abandon()
+    {
+        this.amqpReceivedDelivery.abandon();
+    }
+}
@@ -6,31 +6,38 @@
 package com.microsoft.azure.sdk.iot.service;
 
 import com.google.gson.JsonSyntaxException;
+import com.microsoft.azure.sdk.iot.deps.serializer.BulkRegistryOperationResultParser;
 import com.microsoft.azure.sdk.iot.deps.serializer.ConfigurationParser;
 import com.microsoft.azure.sdk.iot.deps.serializer.DeviceParser;
 import com.microsoft.azure.sdk.iot.deps.serializer.JobPropertiesParser;
 import com.microsoft.azure.sdk.iot.deps.serializer.RegistryStatisticsParser;
+import com.microsoft.azure.sdk.iot.service.auth.AuthenticationType;
 import com.microsoft.azure.sdk.iot.service.auth.IotHubServiceSasToken;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubExceptionManager;
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubTooManyRequestsException;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequest;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
 
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonObject;
-import javax.json.JsonReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Use the RegistryManager class to manage the identity registry in IoT Hubs.
@@ -38,10 +45,15 @@ import java.util.concurrent.Executors;
 public class RegistryManager
 {
     private static final int EXECUTOR_THREAD_POOL_SIZE = 10;
+    private static final int MAX_DEVICES_PER_BULK_OPERATION = 100;
+    private static final int BULK_OPERATION_MAX_RETRIES = 5;
+    private static final long BULK_OPERATION_INITIAL_BACKOFF_MILLISECONDS = 1000;
+    private static final long BULK_OPERATION_MAX_BACKOFF_MILLISECONDS = 30000;
     private ExecutorService executor;
     private IotHubConnectionString iotHubConnectionString;
 
     private RegistryManagerOptions options;
+    private ThrottlingPolicy throttlingPolicy;
 
     /**
      * Previously was the java default constructor, should not be used.
@@ -109,6 +121,11 @@ public class RegistryManager
 
         iotHubRegistryManager.options = options;
 
+        if (options.getThrottlingPolicyOptions() != null)
+        {
+            iotHubRegistryManager.throttlingPolicy = new ThrottlingPolicy(options.getThrottlingPolicyOptions());
+        }
+
         return iotHubRegistryManager;
     }
 
@@ -124,7 +141,7 @@ public class RegistryManager
     /**
      * Gracefully close running threads, and then shutdown the underlying executor service
      */
-    public void close()
+    public synchronized void close()
     {
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_34_087: [The function shall tell this object's executor service to shutdown]
         if (executor != null && !executor.isTerminated())
@@ -225,7 +242,12 @@ public class RegistryManager
         }
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_015: [The function shall get the URL for the device]
-        URL url = iotHubConnectionString.getUrlDevice(deviceId);
+        final URL url = iotHubConnectionString.getUrlDevice(deviceId);
+        if (this.options.getReadCache() != null)
+        {
+            return new Device(new DeviceParser(this.options.getReadCache().get(url.toString(), ifNoneMatch -> sendReadRequest(url, ifNoneMatch))));
+        }
+
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_016: [The function shall create a new SAS token for the device]
         String sasTokenString = new IotHubServiceSasToken(this.iotHubConnectionString).toString();
 
@@ -313,17 +335,12 @@ public class RegistryManager
         IotHubExceptionManager.httpResponseVerification(response);
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_029: [The function shall create a new ArrayList<Device> object from the response and return with it]
-        String bodyStr = new String(response.getBody(), StandardCharsets.UTF_8);
-        try (JsonReader jsonReader = Json.createReader(new StringReader(bodyStr)))
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(response.getBody()), StandardCharsets.UTF_8))
         {
             ArrayList<Device> deviceList = new ArrayList<>();
-            JsonArray deviceArray = jsonReader.readArray();
-            
-            for (int i = 0; i < deviceArray.size(); i++)
+            for (DeviceParser deviceParser : DeviceParser.fromJsonArray(reader))
             {
-                JsonObject jsonObject = deviceArray.getJsonObject(i);
-                Device iotHubDevice = new Device(new DeviceParser(jsonObject.toString()));
-                deviceList.add(iotHubDevice);
+                deviceList.add(new Device(deviceParser));
             }
             return deviceList;
         }
@@ -451,6 +468,7 @@ public class RegistryManager
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_039: [The function shall send the created request and get the response]
         HttpResponse response = request.send();
+        invalidateCachedDevice(device.getDeviceId());
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_040: [The function shall verify the response status and throw proper Exception]
         IotHubExceptionManager.httpResponseVerification(response);
@@ -594,6 +612,7 @@ public class RegistryManager
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_050: [The function shall send the created request and get the response]
         HttpResponse response = request.send();
+        invalidateCachedDevice(deviceId);
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_12_051: [The function shall verify the response status and throw proper Exception]
         IotHubExceptionManager.httpResponseVerification(response);
@@ -633,6 +652,241 @@ public class RegistryManager
         return future;
     }
 
+    /**
+     * Create the given devices in the identity registry using the bulk registry API. The devices are sent in
+     * requests of up to 100 devices each, and up to
+     * {@link RegistryManagerOptions#getBulkOperationParallelism()} requests are in flight at once. Requests
+     * that are throttled by the service are retried with exponential backoff.
+     *
+     * @param devices The devices to create
+     * @return The aggregated result of all the requests. Devices that could not be created are listed in its errors.
+     * @throws IOException This exception is thrown if the bulk registry URL could not be built
+     * @throws IllegalArgumentException This exception is thrown if devices is null, empty or contains a null device
+     */
+    public BulkRegistryOperationResult addDevices(Collection<Device> devices) throws IOException, IllegalArgumentException
+    {
+        return bulkDeviceOperation(devices, ImportMode.Create);
+    }
+
+    /**
+     * Update the given devices in the identity registry using the bulk registry API, regardless of their etag.
+     * See {@link #addDevices(Collection)} for the chunking and retry behavior.
+     *
+     * @param devices The devices to update
+     * @return The aggregated result of all the requests. Devices that could not be updated are listed in its errors.
+     * @throws IOException This exception is thrown if the bulk registry URL could not be built
+     * @throws IllegalArgumentException This exception is thrown if devices is null, empty or contains a null device
+     */
+    public BulkRegistryOperationResult updateDevices(Collection<Device> devices) throws IOException, IllegalArgumentException
+    {
+        return bulkDeviceOperation(devices, ImportMode.Update);
+    }
+
+    /**
+     * Remove the given devices from the identity registry using the bulk registry API, regardless of their etag.
+     * See {@link #addDevices(Collection)} for the chunking and retry behavior.
+     *
+     * @param devices The devices to remove
+     * @return The aggregated result of all the requests. Devices that could not be removed are listed in its errors.
+     * @throws IOException This exception is thrown if the bulk registry URL could not be built
+     * @throws IllegalArgumentException This exception is thrown if devices is null, empty or contains a null device
+     */
+    public BulkRegistryOperationResult removeDevices(Collection<Device> devices) throws IOException, IllegalArgumentException
+    {
+        return bulkDeviceOperation(devices, ImportMode.Delete);
+    }
+
+    private BulkRegistryOperationResult bulkDeviceOperation(Collection<Device> devices, ImportMode importMode) throws IOException, IllegalArgumentException
+    {
+        if (devices == null || devices.isEmpty())
+        {
+            throw new IllegalArgumentException("devices cannot be null or empty");
+        }
+
+        final List<List<ExportImportDevice>> chunks = new ArrayList<>();
+        List<ExportImportDevice> chunk = null;
+        for (Device device : devices)
+        {
+            if (device == null)
+            {
+                throw new IllegalArgumentException("devices cannot contain a null device");
+            }
+
+            if (chunk == null || chunk.size() == MAX_DEVICES_PER_BULK_OPERATION)
+            {
+                chunk = new ArrayList<>(MAX_DEVICES_PER_BULK_OPERATION);
+                chunks.add(chunk);
+            }
+
+            chunk.add(toBulkExportImportDevice(device, importMode));
+        }
+
+        for (Device device : devices)
+        {
+            invalidateCachedDevice(device.getDeviceId());
+        }
+
+        final URL url = iotHubConnectionString.getUrlDevices();
+        final BulkRegistryOperationResult[] chunkResults = new BulkRegistryOperationResult[chunks.size()];
+
+        int parallelism = this.options.getBulkOperationParallelism() > 0
+                ? this.options.getBulkOperationParallelism()
+                : RegistryManagerOptions.DEFAULT_BULK_OPERATION_PARALLELISM;
+        final int laneCount = Math.min(Math.min(parallelism, EXECUTOR_THREAD_POOL_SIZE), chunks.size());
+
+        if (executor == null || laneCount == 1)
+        {
+            runBulkOperationLane(url, chunks, chunkResults, 0, 1);
+        }
+        else
+        {
+            ExecutorService bulkOperationExecutor = getOpenExecutor();
+
+            // Each lane sends every laneCount-th chunk sequentially, so no more than laneCount requests are in flight
+            List<Future<?>> lanes = new ArrayList<>(laneCount);
+            for (int lane = 0; lane < laneCount; lane++)
+            {
+                final int firstChunk = lane;
+                lanes.add(bulkOperationExecutor.submit(() -> runBulkOperationLane(url, chunks, chunkResults, firstChunk, laneCount)));
+            }
+
+            for (Future<?> lane : lanes)
+            {
+                try
+                {
+                    lane.get();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the bulk registry operation to finish", e);
+                }
+                catch (ExecutionException e)
+                {
+                    if (e.getCause() instanceof RuntimeException)
+                    {
+                        throw (RuntimeException) e.getCause();
+                    }
+
+                    throw new IOException(e.getCause());
+                }
+            }
+        }
+
+        BulkRegistryOperationResult result = new BulkRegistryOperationResult();
+        for (BulkRegistryOperationResult chunkResult : chunkResults)
+        {
+            result.merge(chunkResult);
+        }
+
+        return result;
+    }
+
+    // Like the other operations, a bulk operation still works after close(), the executor is started again for it
+    private synchronized ExecutorService getOpenExecutor()
+    {
+        if (executor.isShutdown())
+        {
+            executor = Executors.newFixedThreadPool(EXECUTOR_THREAD_POOL_SIZE);
+        }
+
+        return executor;
+    }
+
+    private void runBulkOperationLane(URL url, List<List<ExportImportDevice>> chunks, BulkRegistryOperationResult[] chunkResults, int firstChunk, int stride)
+    {
+        for (int i = firstChunk; i < chunks.size(); i += stride)
+        {
+            List<ExportImportDevice> chunk = chunks.get(i);
+            try
+            {
+                chunkResults[i] = sendBulkOperationChunk(url, chunk);
+            }
+            catch (IOException | IotHubException | IllegalArgumentException e)
+            {
+                // The whole request failed, so report every device in it as failed and carry on with the next chunk
+                chunkResults[i] = createFailedBulkOperationResult(chunk, e);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                for (int j = i; j < chunks.size(); j += stride)
+                {
+                    chunkResults[j] = createFailedBulkOperationResult(chunks.get(j), e);
+                }
+
+                return;
+            }
+        }
+    }
+
+    private BulkRegistryOperationResult sendBulkOperationChunk(URL url, List<ExportImportDevice> chunk) throws IOException, IotHubException, InterruptedException
+    {
+        StringBuilder payload = new StringBuilder("[");
+        for (int i = 0; i < chunk.size(); i++)
+        {
+            if (i > 0)
+            {
+                payload.append(',');
+            }
+
+            payload.append(chunk.get(i).toExportImportDeviceParser().toJson());
+        }
+        payload.append(']');
+        byte[] body = payload.toString().getBytes(StandardCharsets.UTF_8);
+
+        long backoffMilliseconds = BULK_OPERATION_INITIAL_BACKOFF_MILLISECONDS;
+        for (int attempt = 0; ; attempt++)
+        {
+            String sasTokenString = new IotHubServiceSasToken(this.iotHubConnectionString).toString();
+            HttpRequest request = CreateRequest(url, HttpMethod.POST, body, sasTokenString);
+            HttpResponse response = request.send();
+
+            try
+            {
+                IotHubExceptionManager.httpResponseVerification(response);
+            }
+            catch (IotHubTooManyRequestsException e)
+            {
+                // a throttling policy already retried the request, so retrying it here would multiply its attempts
+                if (this.throttlingPolicy != null || attempt >= BULK_OPERATION_MAX_RETRIES)
+                {
+                    throw e;
+                }
+
+                Thread.sleep(backoffMilliseconds + ThreadLocalRandom.current().nextLong(backoffMilliseconds / 2 + 1));
+                backoffMilliseconds = Math.min(backoffMilliseconds * 2, BULK_OPERATION_MAX_BACKOFF_MILLISECONDS);
+                continue;
+            }
+
+            String bodyStr = new String(response.getBody(), StandardCharsets.UTF_8);
+            return new BulkRegistryOperationResult(new BulkRegistryOperationResultParser(bodyStr));
+        }
+    }
+
+    private static BulkRegistryOperationResult createFailedBulkOperationResult(List<ExportImportDevice> chunk, Exception e)
+    {
+        BulkRegistryOperationResult result = new BulkRegistryOperationResult();
+        for (ExportImportDevice exportImportDevice : chunk)
+        {
+            result.addError(new DeviceRegistryOperationError(exportImportDevice.getId(), e.getClass().getSimpleName(), e.getMessage()));
+        }
+
+        return result;
+    }
+
+    private static ExportImportDevice toBulkExportImportDevice(Device device, ImportMode importMode)
+    {
+        // The authentication mechanism is copied from the device below, so start from one that does not generate keys
+        ExportImportDevice exportImportDevice = new ExportImportDevice(device.getDeviceId(), AuthenticationType.CERTIFICATE_AUTHORITY);
+        exportImportDevice.setAuthentication(device.authentication);
+        exportImportDevice.seteTag(device.geteTag());
+        exportImportDevice.setStatus(device.getStatus());
+        exportImportDevice.setStatusReason(device.getStatusReason());
+        exportImportDevice.setImportMode(importMode);
+        return exportImportDevice;
+    }
+
     /**
      * Get device statistics
      *
@@ -1110,7 +1364,12 @@ public class RegistryManager
         }
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_011: [The function shall get the URL for the device]
-        URL url = iotHubConnectionString.getUrlModule(deviceId, moduleId);
+        final URL url = iotHubConnectionString.getUrlModule(deviceId, moduleId);
+        if (this.options.getReadCache() != null)
+        {
+            return new Module(new DeviceParser(this.options.getReadCache().get(url.toString(), ifNoneMatch -> sendReadRequest(url, ifNoneMatch))));
+        }
+
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_012: [The function shall create a new SAS token for the device]
         String sasTokenString = new IotHubServiceSasToken(this.iotHubConnectionString).toString();
 
@@ -1161,17 +1420,12 @@ public class RegistryManager
         IotHubExceptionManager.httpResponseVerification(response);
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_023: [The function shall create a new List<Modules> object from the response and return with it]
-        String bodyStr = new String(response.getBody(), StandardCharsets.UTF_8);
-        try (JsonReader jsonReader = Json.createReader(new StringReader(bodyStr)))
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(response.getBody()), StandardCharsets.UTF_8))
         {
             List<Module> moduleList = new ArrayList<>();
-            JsonArray deviceArray = jsonReader.readArray();
-
-            for (int i = 0; i < deviceArray.size(); i++)
+            for (DeviceParser deviceParser : DeviceParser.fromJsonArray(reader))
             {
-                JsonObject jsonObject = deviceArray.getJsonObject(i);
-                Module iotHubModule = new Module(new DeviceParser(jsonObject.toString()));
-                moduleList.add(iotHubModule);
+                moduleList.add(new Module(deviceParser));
             }
             return moduleList;
         }
@@ -1227,6 +1481,7 @@ public class RegistryManager
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_031: [The function shall send the created request and get the response]
         HttpResponse response = request.send();
+        invalidateCachedModule(module.getDeviceId(), module.getId());
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_032: [The function shall verify the response status and throw proper Exception]
         IotHubExceptionManager.httpResponseVerification(response);
@@ -1313,6 +1568,7 @@ public class RegistryManager
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_039: [The function shall send the created request and get the response]
         HttpResponse response = request.send();
+        invalidateCachedModule(deviceId, moduleId);
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_040: [The function shall verify the response status and throw proper Exception]
         IotHubExceptionManager.httpResponseVerification(response);
@@ -1428,17 +1684,12 @@ public class RegistryManager
         IotHubExceptionManager.httpResponseVerification(response);
 
         // Codes_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_062: [The function shall create a new ArrayList<Configuration> object from the response and return with it]
-        String bodyStr = new String(response.getBody(), StandardCharsets.UTF_8);
-        try (JsonReader jsonReader = Json.createReader(new StringReader(bodyStr)))
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(response.getBody()), StandardCharsets.UTF_8))
         {
             List<Configuration> configurationList = new ArrayList<>();
-            JsonArray deviceArray = jsonReader.readArray();
-
-            for (int i = 0; i < deviceArray.size(); i++)
+            for (ConfigurationParser configurationParser : ConfigurationParser.fromJsonArray(reader))
             {
-                JsonObject jsonObject = deviceArray.getJsonObject(i);
-                Configuration iotHubConfiguration = new Configuration(new ConfigurationParser(jsonObject.toString()));
-                configurationList.add(iotHubConfiguration);
+                configurationList.add(new Configuration(configurationParser));
             }
             return configurationList;
         }
@@ -1631,7 +1882,51 @@ public class RegistryManager
         return resultJobProperties;
     }
 
+    private HttpResponse sendReadRequest(URL url, String ifNoneMatch) throws IOException, IotHubException
+    {
+        String sasTokenString = new IotHubServiceSasToken(this.iotHubConnectionString).toString();
+        HttpRequest request = CreateRequest(url, HttpMethod.GET, new byte[0], sasTokenString);
+        if (ifNoneMatch != null)
+        {
+            request.setHeaderField("If-None-Match", ifNoneMatch);
+        }
+
+        HttpResponse response = request.send();
+        IotHubExceptionManager.httpResponseVerification(response);
+        return response;
+    }
+
+    private void invalidateCachedDevice(String deviceId) throws MalformedURLException
+    {
+        ReadCache readCache = this.options.getReadCache();
+        if (readCache != null)
+        {
+            readCache.invalidate(iotHubConnectionString.getUrlDevice(deviceId).toString());
+            readCache.invalidate(iotHubConnectionString.getUrlTwin(deviceId).toString());
+        }
+    }
+
+    private void invalidateCachedModule(String deviceId, String moduleId) throws MalformedURLException
+    {
+        ReadCache readCache = this.options.getReadCache();
+        if (readCache != null)
+        {
+            readCache.invalidate(iotHubConnectionString.getUrlModule(deviceId, moduleId).toString());
+            readCache.invalidate(iotHubConnectionString.getUrlModuleTwin(deviceId, moduleId).toString());
+        }
+    }
+
     private HttpRequest CreateRequest(URL url, HttpMethod method, byte[] payload, String sasToken) throws IOException
+    {
+        if (this.throttlingPolicy != null)
+        {
+            return this.throttlingPolicy.createRequest(ThrottlingPolicy.OperationType.of(url, method), method, () -> CreateUnthrottledRequest(url, method, payload, sasToken));
+        }
+
+        return CreateUnthrottledRequest(url, method, payload, sasToken);
+    }
+
+    private HttpRequest CreateUnthrottledRequest(URL url, HttpMethod method, byte[] payload, String sasToken) throws IOException
     {
         Proxy proxy = null;
         if (this.options.getProxyOptions() != null)
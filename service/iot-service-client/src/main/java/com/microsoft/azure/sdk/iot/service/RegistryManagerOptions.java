@@ -1,5 +1,6 @@
 package com.microsoft.azure.sdk.iot.service;
 
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicyOptions;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -11,6 +12,7 @@ public class RegistryManagerOptions
 {
     protected static final Integer DEFAULT_HTTP_READ_TIMEOUT_MS = 24000; // 24 seconds
     protected static final Integer DEFAULT_HTTP_CONNECT_TIMEOUT_MS = 24000; // 24 seconds
+    protected static final int DEFAULT_BULK_OPERATION_PARALLELISM = 4;
 
     /**
      * The options that specify what proxy to tunnel through. If null, no proxy will be used
@@ -35,4 +37,28 @@ public class RegistryManagerOptions
      */
     @Getter
     private int httpConnectTimeout;
+
+    /**
+     * The maximum number of requests that a single bulk registry operation, such as
+     * {@link RegistryManager#addDevices(java.util.Collection)}, will have in flight at once. Values less than 1 are
+     * interpreted as {@link #DEFAULT_BULK_OPERATION_PARALLELISM}. The value is capped by the size of the registry
+     * manager's thread pool.
+     */
+    @Getter
+    private int bulkOperationParallelism;
+
+    /**
+     * The cache of the device and module reads of the registry manager, such as {@link RegistryManager#getDevice(String)}.
+     * If null, no cache will be used and every read is sent to the IotHub.
+     */
+    @Getter
+    private ReadCache readCache;
+
+    /**
+     * The client side rate limit and retry settings of the requests of the registry manager. If null, every request is
+     * sent once, without any rate limit. The registry manager paces its own requests only, so the rates of other
+     * clients of the same IotHub are not counted.
+     */
+    @Getter
+    private ThrottlingPolicyOptions throttlingPolicyOptions;
 }
@@ -0,0 +1,79 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.service.devicetwin;
+
+/**
+ * Limit on the number of requests in flight that adapts to throttling: the limit is halved every time a request is
+ * throttled, and grows by one after each limit's worth of successful requests, up to its maximum.
+ */
+final class AdaptiveConcurrencyLimit
+{
+    private final int maxLimit;
+    private int limit;
+    private int inFlight;
+    private int successesSinceLastChange;
+
+    AdaptiveConcurrencyLimit(int maxLimit)
+    {
+        if (maxLimit < 1)
+        {
+            throw new IllegalArgumentException("maxLimit must be positive");
+        }
+
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+        this.inFlight = 0;
+        this.successesSinceLastChange = 0;
+    }
+
+    /**
+     * Waits until fewer requests than the current limit are in flight, and counts one more.
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    synchronized void acquire() throws InterruptedException
+    {
+        while (this.inFlight >= this.limit)
+        {
+            this.wait();
+        }
+
+        this.inFlight++;
+    }
+
+    /**
+     * Counts one less request in flight.
+     */
+    synchronized void release()
+    {
+        this.inFlight--;
+        this.notifyAll();
+    }
+
+    /**
+     * Records a successful request, growing the limit after enough of them.
+     */
+    synchronized void onSuccess()
+    {
+        if (this.limit < this.maxLimit && ++this.successesSinceLastChange >= this.limit)
+        {
+            this.limit++;
+            this.successesSinceLastChange = 0;
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Records a throttled request, halving the limit.
+     */
+    synchronized void onThrottled()
+    {
+        this.limit = Math.max(1, this.limit / 2);
+        this.successesSinceLastChange = 0;
+    }
+
+    synchronized int getLimit()
+    {
+        return this.limit;
+    }
+}
@@ -3,17 +3,28 @@
 
 package com.microsoft.azure.sdk.iot.service.devicetwin;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import com.microsoft.azure.sdk.iot.deps.serializer.MethodParser;
 import com.microsoft.azure.sdk.iot.service.IotHubConnectionString;
 import com.microsoft.azure.sdk.iot.service.IotHubConnectionStringBuilder;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubTooManyRequestsException;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
 
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * DeviceMethod enables service client to directly invoke methods on various devices from service client.
@@ -21,10 +32,17 @@ import java.util.Date;
 public class DeviceMethod
 {
     private IotHubConnectionString iotHubConnectionString = null;
-    private Integer requestId = 0;
+    private final AtomicLong requestId = new AtomicLong();
     private static final int DEFAULT_RESPONSE_TIMEOUT = 30; // default response timeout is 30 seconds
     private static final int DEFAULT_CONNECT_TIMEOUT = 0;
     private static final int THOUSAND_MS = 1000;
+    private static final long FAN_OUT_INITIAL_BACKOFF_MILLISECONDS = 1000;
+    private static final long FAN_OUT_MAX_BACKOFF_MILLISECONDS = 30000;
+    private static final int QUERY_PAGE_SIZE = 1000;
+    private static final int QUERY_PREFETCH_DEPTH = 2;
+    private static final long QUERY_TIMEOUT = 0;
+    private static final String DEVICE_ID_FIELD = "deviceId";
+
     /**
      * Create a DeviceMethod instance from the information in the connection string.
      *
@@ -133,6 +151,13 @@ public class DeviceMethod
      * @throws IOException This exception is thrown if the IO operation failed
      */
     private synchronized MethodResult invokeMethod(URL url, String methodName, Long responseTimeoutInSeconds, Long connectTimeoutInSeconds, Object payload) throws IotHubException, IOException
+    {
+        // no request headers, so that the headers set through DeviceOperations.setHeaders are sent with this request
+        return invokeMethod(url, methodName, responseTimeoutInSeconds, connectTimeoutInSeconds, payload, nextRequestId(), null);
+    }
+
+    private MethodResult invokeMethod(URL url, String methodName, Long responseTimeoutInSeconds, Long connectTimeoutInSeconds, Object payload,
+                                      String requestId, Map<String, String> requestHeaders) throws IotHubException, IOException
     {
         /* Codes_SRS_DEVICEMETHOD_21_006: [The invoke shall throw IllegalArgumentException if the provided responseTimeoutInSeconds is negative.] */
         /* Codes_SRS_DEVICEMETHOD_21_007: [The invoke shall throw IllegalArgumentException if the provided connectTimeoutInSeconds is negative.] */
@@ -172,7 +197,15 @@ public class DeviceMethod
                
         /* Codes_SRS_DEVICEMETHOD_21_009: [The invoke shall send the created request and get the response using the HttpRequester.] */
         /* Codes_SRS_DEVICEMETHOD_21_010: [The invoke shall create a new HttpRequest with http method as `POST`.] */
-        HttpResponse response = DeviceOperations.request(this.iotHubConnectionString, url, HttpMethod.POST, json.getBytes(StandardCharsets.UTF_8), String.valueOf(requestId++), timeoutInMs);
+        HttpResponse response;
+        if (requestHeaders == null)
+        {
+            response = DeviceOperations.request(this.iotHubConnectionString, url, HttpMethod.POST, json.getBytes(StandardCharsets.UTF_8), requestId, timeoutInMs);
+        }
+        else
+        {
+            response = DeviceOperations.request(this.iotHubConnectionString, url, HttpMethod.POST, json.getBytes(StandardCharsets.UTF_8), requestId, timeoutInMs, requestHeaders);
+        }
 
         /* Codes_SRS_DEVICEMETHOD_21_013: [The invoke shall deserialize the payload using the `serializer.MethodParser`.] */
         MethodParser methodParserResponse = new MethodParser();
@@ -182,6 +215,216 @@ public class DeviceMethod
         return new MethodResult(methodParserResponse.getStatus(), methodParserResponse.getPayload());
     }
 
+    /**
+     * Directly invokes a method on each of the provided devices, with a bounded number of invocations in flight at once,
+     * and reports the result of each device to the provided callback as soon as it is available.
+     *
+     * <p>Invocations throttled by the IotHub are retried with exponential backoff, and every throttled invocation halves
+     * the number of invocations allowed in flight, which then grows back as invocations succeed. Any other failure is
+     * reported for its device without affecting the others. The callback is never executed concurrently, but it is
+     * executed from the threads that invoke the methods, in the order the devices respond.</p>
+     *
+     * @param deviceIds are the devices where the request is send to. They are read as the invocations are started, so
+     *                  they can be produced lazily.
+     * @param methodName is the name of the method that shall be invoked on the devices.
+     * @param payload is the the method parameter
+     * @param options the concurrency, timeout and retry options. If null, the defaults are used.
+     * @param resultCallback is executed with the result of each device.
+     * @throws InterruptedException This exception is thrown if the thread is interrupted before all devices responded
+     * @throws IllegalArgumentException This exception is thrown if deviceIds, methodName or resultCallback are null or empty
+     */
+    public void invokeOnDevices(Iterable<String> deviceIds, String methodName, Object payload, DeviceMethodFanOutOptions options,
+                                Consumer<DeviceMethodFanOutResult> resultCallback)
+            throws InterruptedException, IllegalArgumentException
+    {
+        if (deviceIds == null)
+        {
+            throw new IllegalArgumentException("deviceIds cannot be null.");
+        }
+
+        if ((methodName == null) || methodName.isEmpty())
+        {
+            throw new IllegalArgumentException("methodName is empty or null.");
+        }
+
+        if (resultCallback == null)
+        {
+            throw new IllegalArgumentException("resultCallback cannot be null.");
+        }
+
+        if (options == null)
+        {
+            options = DeviceMethodFanOutOptions.builder().build();
+        }
+
+        final int maxConcurrency = options.getMaxConcurrency() > 0
+                ? options.getMaxConcurrency()
+                : DeviceMethodFanOutOptions.DEFAULT_MAX_CONCURRENCY;
+        final int maxThrottleRetries = options.getMaxThrottleRetries() != null
+                ? options.getMaxThrottleRetries()
+                : DeviceMethodFanOutOptions.DEFAULT_MAX_THROTTLE_RETRIES;
+        final Long responseTimeoutInSeconds = options.getResponseTimeoutInSeconds();
+        final Long connectTimeoutInSeconds = options.getConnectTimeoutInSeconds();
+
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(maxConcurrency);
+        final Object callbackLock = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(maxConcurrency, runnable ->
+        {
+            Thread thread = new Thread(runnable, "azure-iot-sdk-method-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try
+        {
+            for (final String deviceId : deviceIds)
+            {
+                concurrencyLimit.acquire();
+                executor.execute(() ->
+                {
+                    try
+                    {
+                        DeviceMethodFanOutResult result = invokeWithThrottleRetries(deviceId, methodName,
+                                responseTimeoutInSeconds, connectTimeoutInSeconds, payload, maxThrottleRetries, concurrencyLimit);
+                        synchronized (callbackLock)
+                        {
+                            resultCallback.accept(result);
+                        }
+                    }
+                    finally
+                    {
+                        concurrencyLimit.release();
+                    }
+                });
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        finally
+        {
+            // Also reached when reading the device ids failed, in which case the invocations already started are
+            // interrupted and waited for, so that no result is reported after this method returned
+            executor.shutdownNow();
+            awaitTerminationUninterruptibly(executor);
+        }
+    }
+
+    private static void awaitTerminationUninterruptibly(ExecutorService executor)
+    {
+        boolean isInterrupted = false;
+        while (!executor.isTerminated())
+        {
+            try
+            {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                isInterrupted = true;
+            }
+        }
+
+        if (isInterrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Directly invokes a method on each device returned by the provided twin query. Devices are read from the query
+     * as the invocations are started, with the next page of the query prefetched in the background.
+     *
+     * @param sqlQuery is the sql query over devices that selects the devices to invoke the method on. It must select
+     *                 the deviceId of the devices.
+     * @param methodName is the name of the method that shall be invoked on the devices.
+     * @param payload is the the method parameter
+     * @param options the concurrency, timeout and retry options. If null, the defaults are used.
+     * @param resultCallback is executed with the result of each device.
+     * @throws IOException This exception is thrown if the query url cannot be built
+     * @throws InterruptedException This exception is thrown if the thread is interrupted before all devices responded
+     * @throws IllegalArgumentException This exception is thrown if any of the parameters is invalid
+     * @throws java.util.concurrent.CompletionException This exception is thrown if the query failed
+     * @see #invokeOnDevices(Iterable, String, Object, DeviceMethodFanOutOptions, Consumer)
+     */
+    public void invokeOnQuery(String sqlQuery, String methodName, Object payload, DeviceMethodFanOutOptions options,
+                              Consumer<DeviceMethodFanOutResult> resultCallback)
+            throws IOException, InterruptedException, IllegalArgumentException
+    {
+        if ((sqlQuery == null) || sqlQuery.isEmpty())
+        {
+            throw new IllegalArgumentException("sqlQuery is empty or null.");
+        }
+
+        try (final PrefetchingQueryIterator<String> deviceIds = new PrefetchingQueryIterator<>(sqlQuery, QUERY_PAGE_SIZE,
+                QueryType.TWIN, QUERY_PREFETCH_DEPTH, this.iotHubConnectionString, this.iotHubConnectionString.getUrlTwinQuery(),
+                HttpMethod.POST, QUERY_TIMEOUT, DeviceMethod::deviceIdFromQueryRow))
+        {
+            invokeOnDevices(() -> deviceIds, methodName, payload, options, resultCallback);
+        }
+    }
+
+    private DeviceMethodFanOutResult invokeWithThrottleRetries(String deviceId, String methodName, Long responseTimeoutInSeconds,
+                                                               Long connectTimeoutInSeconds, Object payload, int maxThrottleRetries,
+                                                               AdaptiveConcurrencyLimit concurrencyLimit)
+    {
+        if ((deviceId == null) || deviceId.isEmpty())
+        {
+            return new DeviceMethodFanOutResult(deviceId, null, new IllegalArgumentException("deviceId is empty or null."));
+        }
+
+        long backoffMilliseconds = FAN_OUT_INITIAL_BACKOFF_MILLISECONDS;
+        for (int attempt = 0; ; attempt++)
+        {
+            try
+            {
+                URL url = this.iotHubConnectionString.getUrlMethod(deviceId);
+                // explicit empty headers, as the headers set through DeviceOperations.setHeaders are read and cleared by the
+                // first request that uses them, which would make them apply to a random device of the fan out
+                MethodResult methodResult = invokeMethod(url, methodName, responseTimeoutInSeconds, connectTimeoutInSeconds,
+                        payload, nextRequestId(), Collections.<String, String>emptyMap());
+                concurrencyLimit.onSuccess();
+                return new DeviceMethodFanOutResult(deviceId, methodResult, null);
+            }
+            catch (IotHubTooManyRequestsException e)
+            {
+                concurrencyLimit.onThrottled();
+                if (attempt >= maxThrottleRetries)
+                {
+                    return new DeviceMethodFanOutResult(deviceId, null, e);
+                }
+            }
+            catch (IotHubException | IOException | RuntimeException e)
+            {
+                return new DeviceMethodFanOutResult(deviceId, null, e);
+            }
+
+            try
+            {
+                // Jittered, so that throttled invocations do not all retry at the same time
+                Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMilliseconds / 2, backoffMilliseconds + 1));
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return new DeviceMethodFanOutResult(deviceId, null, e);
+            }
+
+            backoffMilliseconds = Math.min(backoffMilliseconds * 2, FAN_OUT_MAX_BACKOFF_MILLISECONDS);
+        }
+    }
+
+    private String nextRequestId()
+    {
+        return String.valueOf(requestId.getAndIncrement());
+    }
+
+    private static String deviceIdFromQueryRow(String json)
+    {
+        JsonElement deviceId = new JsonParser().parse(json).getAsJsonObject().get(DEVICE_ID_FIELD);
+        return (deviceId == null || deviceId.isJsonNull()) ? null : deviceId.getAsString();
+    }
+
     /**
      * Creates a new Job to invoke method on one or multiple devices
      *
@@ -0,0 +1,47 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.service.devicetwin;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Configurable options for invoking a direct method on many devices at once with
+ * {@link DeviceMethod#invokeOnDevices(Iterable, String, Object, DeviceMethodFanOutOptions, java.util.function.Consumer)}
+ */
+@Builder
+public class DeviceMethodFanOutOptions
+{
+    protected static final int DEFAULT_MAX_CONCURRENCY = 32;
+    protected static final int DEFAULT_MAX_THROTTLE_RETRIES = 5;
+
+    /**
+     * The maximum number of method invocations in flight at once. Values less than 1 are interpreted as
+     * {@link #DEFAULT_MAX_CONCURRENCY}. When the IotHub throttles the invocations, the number in flight is halved and
+     * then grows back towards this value as invocations succeed.
+     */
+    @Getter
+    private int maxConcurrency;
+
+    /**
+     * The maximum time, in seconds, to wait for each device to respond. If null, the default of the
+     * {@link DeviceMethod#invoke(String, String, Long, Long, Object)} call is used.
+     */
+    @Getter
+    private Long responseTimeoutInSeconds;
+
+    /**
+     * The maximum time, in seconds, to wait for each device to connect. If null, the default of the
+     * {@link DeviceMethod#invoke(String, String, Long, Long, Object)} call is used.
+     */
+    @Getter
+    private Long connectTimeoutInSeconds;
+
+    /**
+     * The number of times an invocation throttled by the IotHub is retried before its failure is reported. If null,
+     * {@link #DEFAULT_MAX_THROTTLE_RETRIES} is used.
+     */
+    @Getter
+    private Integer maxThrottleRetries;
+}
@@ -0,0 +1,57 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.service.devicetwin;
+
+/**
+ * Result of invoking a direct method on a single device as part of a fan-out over many devices.
+ */
+public final class DeviceMethodFanOutResult
+{
+    private final String deviceId;
+    private final MethodResult methodResult;
+    private final Exception exception;
+
+    DeviceMethodFanOutResult(String deviceId, MethodResult methodResult, Exception exception)
+    {
+        this.deviceId = deviceId;
+        this.methodResult = methodResult;
+        this.exception = exception;
+    }
+
+    /**
+     * Getter for the device id
+     * @return the id of the device the method was invoked on
+     */
+    public String getDeviceId()
+    {
+        return this.deviceId;
+    }
+
+    /**
+     * Getter for the method result
+     * @return the status and payload returned by the device, or {@code null} if the invocation failed
+     */
+    public MethodResult getMethodResult()
+    {
+        return this.methodResult;
+    }
+
+    /**
+     * Getter for the exception
+     * @return the reason the invocation failed, or {@code null} if the device returned a result
+     */
+    public Exception getException()
+    {
+        return this.exception;
+    }
+
+    /**
+     * Returns whether the device returned a result
+     * @return true if the device returned a result, regardless of its status, and false otherwise
+     */
+    public boolean isSuccessful()
+    {
+        return this.exception == null;
+    }
+}
@@ -11,6 +11,7 @@ import com.microsoft.azure.sdk.iot.service.transport.TransportUtils;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequest;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
 
 import java.io.IOException;
 import java.net.URL;
@@ -55,6 +56,65 @@ public class DeviceOperations
             String requestId,
             long timeoutInMs) 
             throws IOException, IotHubException, IllegalArgumentException
+    {
+        return request(iotHubConnectionString, url, method, payload, requestId, timeoutInMs, null);
+    }
+
+    /**
+     * Send a http request to the IoTHub using the Twin/Method standard, and return its response. Unlike
+     * {@link #setHeaders(Map)}, the custom headers are scoped to this request, so this overload is safe to use
+     * concurrently from several threads.
+     *
+     * @param iotHubConnectionString is the connection string for the IoTHub
+     * @param url is the Twin URL for the device ID.
+     * @param method is the HTTP method (GET, POST, DELETE, PATCH, PUT).
+     * @param payload is the array of bytes that contains the payload.
+     * @param requestId is an unique number that identify the request.
+     * @param timeoutInMs is timeout in milliseconds.
+     * @param requestHeaders custom headers to add to this request only. May be null.
+     * @return the result of the request.
+     * @throws IotHubException This exception is thrown if the response verification failed
+     * @throws IOException This exception is thrown if the IO operation failed
+     */
+    public static HttpResponse request(
+            IotHubConnectionString iotHubConnectionString,
+            URL url,
+            HttpMethod method,
+            byte[] payload,
+            String requestId,
+            long timeoutInMs,
+            Map<String, String> requestHeaders)
+            throws IOException, IotHubException, IllegalArgumentException
+    {
+        return request(iotHubConnectionString, url, method, payload, requestId, timeoutInMs, requestHeaders, null);
+    }
+
+    /**
+     * Send a http request to the IoTHub using the Twin/Method standard through the throttling policy of the client,
+     * and return its response.
+     *
+     * @param iotHubConnectionString is the connection string for the IoTHub
+     * @param url is the Twin URL for the device ID.
+     * @param method is the HTTP method (GET, POST, DELETE, PATCH, PUT).
+     * @param payload is the array of bytes that contains the payload.
+     * @param requestId is an unique number that identify the request.
+     * @param timeoutInMs is timeout in milliseconds.
+     * @param requestHeaders custom headers to add to this request only. May be null.
+     * @param throttlingPolicy the rate limit and retry policy to send the request through. If null, the request is sent once.
+     * @return the result of the request.
+     * @throws IotHubException This exception is thrown if the response verification failed
+     * @throws IOException This exception is thrown if the IO operation failed
+     */
+    public static HttpResponse request(
+            IotHubConnectionString iotHubConnectionString,
+            URL url,
+            HttpMethod method,
+            byte[] payload,
+            String requestId,
+            long timeoutInMs,
+            Map<String, String> requestHeaders,
+            ThrottlingPolicy throttlingPolicy)
+            throws IOException, IotHubException, IllegalArgumentException
     {
         /* Codes_SRS_DEVICE_OPERATIONS_21_001: [The request shall throw IllegalArgumentException if the provided `iotHubConnectionString` is null.] */
         if(iotHubConnectionString == null)
@@ -95,7 +155,15 @@ public class DeviceOperations
         }
 
         /* Codes_SRS_DEVICE_OPERATIONS_21_008: [The request shall create a new HttpRequest with the provided `url`, http `method`, and `payload`.] */
-        HttpRequest request = new HttpRequest(url, method, payload);
+        HttpRequest request;
+        if (throttlingPolicy == null)
+        {
+            request = new HttpRequest(url, method, payload);
+        }
+        else
+        {
+            request = throttlingPolicy.createRequest(ThrottlingPolicy.OperationType.of(url, method), method, () -> new HttpRequest(url, method, payload));
+        }
 
         /* Codes_SRS_DEVICE_OPERATIONS_21_009: [The request shall add to the HTTP header the sum of timeout and default timeout in milliseconds.] */
         request.setReadTimeoutMillis((int)(timeoutInMs + DEFAULT_HTTP_TIMEOUT_MS));
@@ -119,7 +187,14 @@ public class DeviceOperations
         /* Codes_SRS_DEVICE_OPERATIONS_21_014: [The request shall add to the HTTP header a `Content-Type` key with `application/json; charset=utf-8`.] */
         request.setHeaderField(CONTENT_TYPE, ACCEPT_VALUE + "; " + ACCEPT_CHARSET);
 
-        if (headers != null)
+        if (requestHeaders != null)
+        {
+            for (Map.Entry<String, String> header : requestHeaders.entrySet())
+            {
+                request.setHeaderField(header.getKey(), header.getValue());
+            }
+        }
+        else if (headers != null)
         {
             //SRS_DEVICE_OPERATIONS_25_019: [The request shall add to the HTTP header all the additional custom headers set for this request.]
             for(Map.Entry<String, String> header : headers.entrySet())
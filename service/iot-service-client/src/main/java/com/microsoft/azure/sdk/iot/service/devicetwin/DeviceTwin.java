@@ -5,18 +5,28 @@
 
 package com.microsoft.azure.sdk.iot.service.devicetwin;
 
+import com.google.gson.JsonObject;
+import com.microsoft.azure.sdk.iot.deps.serializer.ParserUtility;
+import com.microsoft.azure.sdk.iot.deps.serializer.QueryResponseParser;
 import com.microsoft.azure.sdk.iot.deps.twin.*;
 import com.microsoft.azure.sdk.iot.service.IotHubConnectionString;
 import com.microsoft.azure.sdk.iot.service.IotHubConnectionStringBuilder;
+import com.microsoft.azure.sdk.iot.service.ReadCache;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class DeviceTwin
 {
@@ -24,6 +34,13 @@ public class DeviceTwin
     private Integer requestId = 0;
     private final long USE_DEFAULT_TIMEOUT = 0;
     private final int DEFAULT_PAGE_SIZE = 100;
+    private static final String TAGS_TAG = "tags";
+    private static final String PROPERTIES_TAG = "properties";
+    private static final String DESIRED_TAG = "desired";
+    private static final String IF_MATCH = "If-Match";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private DeviceTwinClientOptions options = DeviceTwinClientOptions.builder().build();
+    private ThrottlingPolicy throttlingPolicy;
 
     /**
      * Static constructor to create instance from connection string
@@ -52,6 +69,31 @@ public class DeviceTwin
         return deviceTwin;
     }
 
+    /**
+     * Static constructor to create instance from connection string
+     *
+     * @param connectionString The iot hub connection string
+     * @param options The options to use for the device twin operations. Cannot be null.
+     * @return The instance of DeviceTwin
+     * @throws IOException This exception is thrown if the object creation failed
+     */
+    public static DeviceTwin createFromConnectionString(String connectionString, DeviceTwinClientOptions options) throws IOException
+    {
+        if (options == null)
+        {
+            throw new IllegalArgumentException("DeviceTwinClientOptions cannot be null for this constructor");
+        }
+
+        DeviceTwin deviceTwin = createFromConnectionString(connectionString);
+        deviceTwin.options = options;
+        if (options.getThrottlingPolicyOptions() != null)
+        {
+            deviceTwin.throttlingPolicy = new ThrottlingPolicy(options.getThrottlingPolicyOptions());
+        }
+
+        return deviceTwin;
+    }
+
     /**
      * This method retrieves device twin for the specified device.
      *
@@ -104,8 +146,19 @@ public class DeviceTwin
          **Codes_SRS_DEVICETWIN_25_009: [** The function shall send the created request and get the response **]**
          **Codes_SRS_DEVICETWIN_25_010: [** The function shall verify the response status and throw proper Exception **]**
          */
-        HttpResponse response = DeviceOperations.request(this.iotHubConnectionString, url, HttpMethod.GET, new byte[0], String.valueOf(requestId++), USE_DEFAULT_TIMEOUT);
-        String twin = new String(response.getBody(), StandardCharsets.UTF_8);
+        String twin;
+        ReadCache readCache = this.options.getReadCache();
+        if (readCache == null)
+        {
+            HttpResponse response = DeviceOperations.request(this.iotHubConnectionString, url, HttpMethod.GET, new byte[0], String.valueOf(requestId++), USE_DEFAULT_TIMEOUT,
+                    null, this.throttlingPolicy);
+            twin = new String(response.getBody(), StandardCharsets.UTF_8);
+        }
+        else
+        {
+            twin = readCache.get(url.toString(), ifNoneMatch -> DeviceOperations.request(this.iotHubConnectionString, url, HttpMethod.GET, new byte[0],
+                    String.valueOf(requestId++), USE_DEFAULT_TIMEOUT, ifNoneMatch == null ? null : Collections.singletonMap(IF_NONE_MATCH, ifNoneMatch), this.throttlingPolicy));
+        }
 
         /*
         **Codes_SRS_DEVICETWIN_25_011: [** The function shall deserialize the payload by calling updateTwin Api on the twin object **]**
@@ -122,6 +175,7 @@ public class DeviceTwin
         device.setCapabilities(twinState.getCapabilities());
         device.setConfigurations(twinState.getConfigurations());
         device.setConnectionState(twinState.getConnectionState());
+        device.markAsBaseline();
     }
 
     /**
@@ -130,6 +184,8 @@ public class DeviceTwin
      * This API uses the IoT Hub PATCH API when sending updates, but it sends the full twin with each patch update.
      * As a result, devices subscribed to twin will receive notifications that each property is changed when this API is called, even
      * if only some of the properties were changed.
+     * Use {@link #updateTwin(DeviceTwinDevice, TwinUpdateMode)} with {@link TwinUpdateMode#CHANGES_ONLY} to send only the
+     * properties that changed.
      *
      * See <a href="https://docs.microsoft.com/en-us/rest/api/iothub/service/twin/updatedevicetwin">PATCH</a> for more details
      *
@@ -196,7 +252,120 @@ public class DeviceTwin
 
         **Codes_SRS_DEVICETWIN_25_020: [** The function shall verify the response status and throw proper Exception **]**
          */
-        HttpResponse response = DeviceOperations.request(this.iotHubConnectionString, url, HttpMethod.PATCH, twinJson.getBytes(StandardCharsets.UTF_8), String.valueOf(requestId++),0);
+        try
+        {
+            DeviceOperations.request(this.iotHubConnectionString, url, HttpMethod.PATCH, twinJson.getBytes(StandardCharsets.UTF_8), String.valueOf(requestId++), 0, null, this.throttlingPolicy);
+        }
+        finally
+        {
+            invalidateCachedTwin(url);
+        }
+    }
+
+    /**
+     * This method updates device twin for the specified device.
+     *
+     * In {@link TwinUpdateMode#FULL_TWIN} mode this behaves as {@link #updateTwin(DeviceTwinDevice)}. In
+     * {@link TwinUpdateMode#CHANGES_ONLY} mode only the tags and desired properties changed since the twin was last
+     * retrieved by {@link #getTwin(DeviceTwinDevice)} or updated by this method are sent, so devices are only notified
+     * of the properties that actually changed. A property set to {@code null} is removed from the twin. If the device
+     * has an ETag, the patch is only applied if the twin was not modified since, otherwise
+     * {@link com.microsoft.azure.sdk.iot.service.exceptions.IotHubPreconditionFailedException} is thrown. No request is
+     * sent if nothing changed. On success the device is refreshed with the twin returned by the IotHub.
+     *
+     * See <a href="https://docs.microsoft.com/en-us/rest/api/iothub/service/twin/updatedevicetwin">PATCH</a> for more details
+     *
+     * @param device The device with a valid id for which device twin is to be updated.
+     * @param mode The content of the patch to send.
+     * @throws IOException This exception is thrown if the IO operation failed
+     * @throws IotHubException This exception is thrown if the response verification failed
+     */
+    public synchronized void updateTwin(DeviceTwinDevice device, TwinUpdateMode mode) throws IotHubException, IOException
+    {
+        if (mode == null)
+        {
+            throw new IllegalArgumentException("Update mode cannot be null");
+        }
+
+        if (mode == TwinUpdateMode.FULL_TWIN)
+        {
+            updateTwin(device);
+            return;
+        }
+
+        if (device == null || device.getDeviceId() == null || device.getDeviceId().length() == 0)
+        {
+            throw new IllegalArgumentException("Instantiate a device and set device id to be used");
+        }
+
+        Map<String, Object> tagsChanges = device.getTagsChanges();
+        Map<String, Object> desiredPropertiesChanges = device.getDesiredPropertiesChanges();
+        if (tagsChanges.isEmpty() && desiredPropertiesChanges.isEmpty())
+        {
+            return;
+        }
+
+        URL url;
+        if ((device.getModuleId() == null) || device.getModuleId().length() == 0)
+        {
+            url = this.iotHubConnectionString.getUrlTwin(device.getDeviceId());
+        }
+        else
+        {
+            url = this.iotHubConnectionString.getUrlModuleTwin(device.getDeviceId(), device.getModuleId());
+        }
+
+        JsonObject patch = new JsonObject();
+        if (!tagsChanges.isEmpty())
+        {
+            patch.add(TAGS_TAG, ParserUtility.mapToJsonElement(tagsChanges));
+        }
+
+        if (!desiredPropertiesChanges.isEmpty())
+        {
+            JsonObject properties = new JsonObject();
+            properties.add(DESIRED_TAG, ParserUtility.mapToJsonElement(desiredPropertiesChanges));
+            patch.add(PROPERTIES_TAG, properties);
+        }
+
+        Map<String, String> requestHeaders = new HashMap<>();
+        requestHeaders.put(IF_MATCH, device.getETag() == null ? "*" : quoteETag(device.getETag()));
+
+        HttpResponse response;
+        try
+        {
+            response = DeviceOperations.request(this.iotHubConnectionString, url, HttpMethod.PATCH,
+                    patch.toString().getBytes(StandardCharsets.UTF_8), String.valueOf(requestId++), USE_DEFAULT_TIMEOUT, requestHeaders, this.throttlingPolicy);
+        }
+        finally
+        {
+            invalidateCachedTwin(url);
+        }
+
+        byte[] body = response.getBody();
+        if (body != null && body.length > 0)
+        {
+            TwinState twinState = TwinState.createFromTwinJson(new String(body, StandardCharsets.UTF_8));
+            device.setETag(twinState.getETag());
+            device.setTags(twinState.getTags());
+            device.setDesiredProperties(twinState.getDesiredProperty());
+            device.setReportedProperties(twinState.getReportedProperty());
+        }
+
+        device.markAsBaseline();
+    }
+
+    private void invalidateCachedTwin(URL url)
+    {
+        if (this.options.getReadCache() != null)
+        {
+            this.options.getReadCache().invalidate(url.toString());
+        }
+    }
+
+    private static String quoteETag(String eTag)
+    {
+        return eTag.startsWith("\"") ? eTag : "\"" + eTag + "\"";
     }
 
     /**
@@ -263,6 +432,7 @@ public class DeviceTwin
 
         //Codes_SRS_DEVICETWIN_25_050: [ The method shall create a new Query Object of Type TWIN. ]
         Query deviceTwinQuery = new Query(sqlQuery, pageSize, QueryType.TWIN);
+        deviceTwinQuery.setThrottlingPolicy(this.throttlingPolicy);
 
         //Codes_SRS_DEVICETWIN_25_049: [ The method shall build the URL for this operation by calling getUrlTwinQuery ]
         //Codes_SRS_DEVICETWIN_25_051: [ The method shall send a Query Request to IotHub as HTTP Method Post on the query Object by calling sendQueryRequest.]
@@ -283,6 +453,95 @@ public class DeviceTwin
         return this.queryTwin(sqlQuery, DEFAULT_PAGE_SIZE);
     }
 
+    /**
+     * Lazy sql style query for twin that fetches the following pages of the response in the background while the
+     * current one is being consumed. No request is sent until the returned iterator is first used.
+     * @param sqlQuery Sql query string to query IotHub for Twin
+     * @param pageSize Size to limit query response by
+     * @param prefetchDepth the maximum number of pages to buffer ahead of the consumer
+     * @return iterator over the twins matching this query. It should be closed if abandoned before it is exhausted.
+     * @throws IOException If the twin query url cannot be built
+     * @throws IllegalArgumentException If input parameters are invalid
+     */
+    public PrefetchingQueryIterator<DeviceTwinDevice> queryTwinPrefetching(String sqlQuery, Integer pageSize, int prefetchDepth)
+            throws IOException, IllegalArgumentException
+    {
+        if (sqlQuery == null || sqlQuery.length() == 0)
+        {
+            throw new IllegalArgumentException("Query cannot be null or empty");
+        }
+
+        if (pageSize == null || pageSize <= 0)
+        {
+            throw new IllegalArgumentException("pagesize cannot be negative or zero");
+        }
+
+        PrefetchingQueryIterator<DeviceTwinDevice> iterator = new PrefetchingQueryIterator<>(sqlQuery, pageSize, QueryType.TWIN, prefetchDepth,
+                this.iotHubConnectionString, this.iotHubConnectionString.getUrlTwinQuery(), HttpMethod.POST, USE_DEFAULT_TIMEOUT, json ->
+                {
+                    try
+                    {
+                        return jsonToDeviceTwinDevice(json);
+                    }
+                    catch (IOException e)
+                    {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        iterator.setThrottlingPolicy(this.throttlingPolicy);
+        return iterator;
+    }
+
+    /**
+     * Sql style query for twin that streams each row of the response to the provided callback as a {@link QueryRow}
+     * instead of building a {@link DeviceTwinDevice} for it. Rows are parsed one at a time as each page is received,
+     * and only into a json tree, so projection queries such as
+     * {@code SELECT deviceId, properties.reported.fw FROM devices} use memory in proportion to what they select.
+     * All pages are requested before this method returns.
+     * @param sqlQuery Sql query string to query IotHub for Twin
+     * @param pageSize Size to limit query response by
+     * @param rowCallback callback executed for each row of the response, in order
+     * @throws IotHubException If Query request was not successful at the IotHub
+     * @throws IOException If the response type does not match the query or the response could not be read
+     * @throws IllegalArgumentException If input parameters are invalid or the response is not valid json
+     */
+    public void queryTwinRows(String sqlQuery, Integer pageSize, final Consumer<QueryRow> rowCallback)
+            throws IotHubException, IOException, IllegalArgumentException
+    {
+        if (sqlQuery == null || sqlQuery.length() == 0)
+        {
+            throw new IllegalArgumentException("Query cannot be null or empty");
+        }
+
+        if (pageSize == null || pageSize <= 0)
+        {
+            throw new IllegalArgumentException("pagesize cannot be negative or zero");
+        }
+
+        if (rowCallback == null)
+        {
+            throw new IllegalArgumentException("rowCallback cannot be null");
+        }
+
+        ParserUtility.validateQuery(sqlQuery);
+
+        URL url = this.iotHubConnectionString.getUrlTwinQuery();
+        String continuationToken = null;
+        do
+        {
+            QueryPage queryPage = QueryPage.send(this.iotHubConnectionString, url, HttpMethod.POST, USE_DEFAULT_TIMEOUT,
+                    sqlQuery, pageSize, QueryType.TWIN, continuationToken, this.throttlingPolicy);
+
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(queryPage.getBody()), StandardCharsets.UTF_8))
+            {
+                QueryResponseParser.forEachJsonItem(reader, item -> rowCallback.accept(new QueryRow(item)));
+            }
+
+            continuationToken = queryPage.getContinuationToken();
+        }
+        while (continuationToken != null);
+    }
+
     /**
      * Create a QueryCollection object that can be used to query whole pages of results at a time. QueryCollection objects
      * also allow you to provide a continuation token for the query to pick up from
@@ -309,7 +568,9 @@ public class DeviceTwin
     public synchronized QueryCollection queryTwinCollection(String sqlQuery, Integer pageSize) throws MalformedURLException
     {
         //Codes_SRS_DEVICETWIN_34_070: [This function shall return a new QueryCollection object of type TWIN with the provided sql query and page size.]
-        return new QueryCollection(sqlQuery, pageSize, QueryType.TWIN, this.iotHubConnectionString, this.iotHubConnectionString.getUrlTwinQuery(), HttpMethod.POST, USE_DEFAULT_TIMEOUT);
+        QueryCollection queryCollection = new QueryCollection(sqlQuery, pageSize, QueryType.TWIN, this.iotHubConnectionString, this.iotHubConnectionString.getUrlTwinQuery(), HttpMethod.POST, USE_DEFAULT_TIMEOUT);
+        queryCollection.setThrottlingPolicy(this.throttlingPolicy);
+        return queryCollection;
     }
 
     /**
@@ -503,6 +764,7 @@ public class DeviceTwin
         deviceTwinDevice.setCapabilities(twinState.getCapabilities());
         deviceTwinDevice.setConnectionState(twinState.getConnectionState());
         deviceTwinDevice.setConfigurations(twinState.getConfigurations());
+        deviceTwinDevice.markAsBaseline();
 
         if (twinState.getModuleId() != null && !twinState.getModuleId().isEmpty())
         {
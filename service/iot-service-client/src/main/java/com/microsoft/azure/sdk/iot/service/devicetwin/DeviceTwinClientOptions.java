@@ -0,0 +1,33 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.service.devicetwin;
+
+import com.microsoft.azure.sdk.iot.service.ReadCache;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicyOptions;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Configurable options for all device twin client operations
+ */
+@Builder
+public class DeviceTwinClientOptions
+{
+    /**
+     * The cache of the twin reads of {@link DeviceTwin#getTwin(DeviceTwinDevice)}. If null, no cache will be used and
+     * every read is sent to the IotHub. The same cache may be set in the
+     * {@link com.microsoft.azure.sdk.iot.service.RegistryManagerOptions} so that removing a device also invalidates
+     * its twin.
+     */
+    @Getter
+    private ReadCache readCache;
+
+    /**
+     * The client side rate limit and retry settings of the twin reads, updates and queries of the device twin client.
+     * If null, every request is sent once, without any rate limit. The client paces its own requests only, so the
+     * rates of other clients of the same IotHub are not counted.
+     */
+    @Getter
+    private ThrottlingPolicyOptions throttlingPolicyOptions;
+}
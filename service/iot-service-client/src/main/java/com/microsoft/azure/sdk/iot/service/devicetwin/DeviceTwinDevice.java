@@ -10,7 +10,9 @@ import com.microsoft.azure.sdk.iot.deps.twin.TwinCollection;
 import com.microsoft.azure.sdk.iot.deps.twin.DeviceCapabilities;
 import com.microsoft.azure.sdk.iot.deps.util.Tools;
 
+import java.math.BigDecimal;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -34,6 +36,8 @@ public class DeviceTwinDevice
     private Map<String, ConfigurationInfo> configurations = null;
     private DeviceCapabilities capabilities = null;
     private String connectionState;
+    private TwinCollection tagBaseline = null;
+    private TwinCollection desiredPropertiesBaseline = null;
 
     /**
      * Constructor to create instance for a device
@@ -604,6 +608,95 @@ public class DeviceTwinDevice
         return thisDeviceDesProp.toString();
     }
 
+    /**
+     * Returns the availability of changes to the tags or desired properties since the twin was last retrieved from, or
+     * updated on, the IotHub. Only keys present in the current tags and desired properties are compared, so a key is
+     * removed by setting its value to {@code null} rather than by leaving it out.
+     * @return true if {@link DeviceTwin#updateTwin(DeviceTwinDevice, TwinUpdateMode)} would send a patch in
+     * {@link TwinUpdateMode#CHANGES_ONLY} mode, false otherwise
+     */
+    public boolean hasChanges()
+    {
+        return !getTagsChanges().isEmpty() || !getDesiredPropertiesChanges().isEmpty();
+    }
+
+    /**
+     * Records the current tags and desired properties as the state known by the IotHub. Later changes are computed
+     * against a deep copy of this state.
+     */
+    void markAsBaseline()
+    {
+        this.tagBaseline = this.tag == null ? null : new TwinCollection(this.tag);
+        this.desiredPropertiesBaseline = this.desiredProperties == null ? null : new TwinCollection(this.desiredProperties);
+    }
+
+    /**
+     * Getter for the tags changed since the last baseline
+     * @return a JSON merge-patch style map with the changed tags, where a {@code null} value removes the tag
+     */
+    Map<String, Object> getTagsChanges()
+    {
+        return diff(this.tagBaseline, this.tag);
+    }
+
+    /**
+     * Getter for the desired properties changed since the last baseline
+     * @return a JSON merge-patch style map with the changed desired properties, where a {@code null} value removes
+     * the property
+     */
+    Map<String, Object> getDesiredPropertiesChanges()
+    {
+        return diff(this.desiredPropertiesBaseline, this.desiredProperties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> diff(Map<String, Object> baseline, Map<String, Object> current)
+    {
+        Map<String, Object> changes = new LinkedHashMap<>();
+
+        if (current != null)
+        {
+            for (Map.Entry<String, Object> entry : current.entrySet())
+            {
+                Object oldValue = baseline == null ? null : baseline.get(entry.getKey());
+                Object newValue = entry.getValue();
+
+                if (newValue instanceof Map && oldValue instanceof Map)
+                {
+                    Map<String, Object> nestedChanges = diff((Map<String, Object>) oldValue, (Map<String, Object>) newValue);
+                    if (!nestedChanges.isEmpty())
+                    {
+                        changes.put(entry.getKey(), nestedChanges);
+                    }
+                }
+                else if (newValue == null ? oldValue != null : !isSameValue(oldValue, newValue))
+                {
+                    changes.put(entry.getKey(), newValue);
+                }
+            }
+        }
+
+        return changes;
+    }
+
+    private static boolean isSameValue(Object oldValue, Object newValue)
+    {
+        if (oldValue instanceof Number && newValue instanceof Number)
+        {
+            // the deserialized twin and the user may use different number types for the same value
+            try
+            {
+                return new BigDecimal(oldValue.toString()).compareTo(new BigDecimal(newValue.toString())) == 0;
+            }
+            catch (NumberFormatException e)
+            {
+                return oldValue.equals(newValue);
+            }
+        }
+
+        return newValue.equals(oldValue);
+    }
+
     private Set<Pair> mapToSet(TwinCollection map)
     {
         Set<Pair> setPair = new HashSet<>();
@@ -0,0 +1,306 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.devicetwin;
+
+import com.microsoft.azure.sdk.iot.deps.serializer.ParserUtility;
+import com.microsoft.azure.sdk.iot.deps.serializer.QueryResponseParser;
+import com.microsoft.azure.sdk.iot.service.IotHubConnectionString;
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy iterator over the results of a sql style query to the IotHub that fetches the following pages of the query
+ * in the background while the current page is being consumed.
+ *
+ * <p>No request is sent until the first call to {@link #hasNext()} or {@link #next()}. From then on a single
+ * background thread follows the {@code x-ms-continuation} token of each response and keeps up to
+ * {@code prefetchDepth} pages buffered ahead of the consumer. Once the buffer is full the background thread waits
+ * for the consumer to catch up, so memory use is bounded by {@code prefetchDepth * pageSize} results.</p>
+ *
+ * <p>Any failure while querying the IotHub or converting a result is rethrown from {@link #hasNext()} or
+ * {@link #next()} as a {@link CompletionException} whose cause is the original exception. The iterator should be
+ * closed if it is abandoned before it is exhausted so that the background thread is released.</p>
+ *
+ * @param <T> the type of the query results
+ */
+public class PrefetchingQueryIterator<T> implements Iterator<T>, Closeable
+{
+    private final String query;
+    private final int pageSize;
+    private final QueryType requestQueryType;
+    private final IotHubConnectionString iotHubConnectionString;
+    private final URL url;
+    private final HttpMethod httpMethod;
+    private final long timeout;
+    private final Function<String, T> converter;
+    private ThrottlingPolicy throttlingPolicy;
+
+    private final BlockingQueue<Page> prefetchedPages;
+    private ExecutorService prefetchExecutor;
+
+    private Iterator<String> currentPage;
+    private boolean isLastPageTaken;
+    private volatile boolean isClosed;
+
+    /**
+     * Constructor for PrefetchingQueryIterator
+     * @param query Sql style query to be sent to IotHub
+     * @param pageSize page size for the query response to request query over
+     * @param requestQueryType Type of query
+     * @param prefetchDepth maximum number of pages to buffer ahead of the consumer
+     * @param iotHubConnectionString Hub Connection String
+     * @param url URL to Query on
+     * @param httpMethod HTTP Method for the requesting a query
+     * @param timeoutInMs Maximum time to wait for the hub to respond to each page request
+     * @param converter function converting each json result into the type returned by this iterator
+     * @throws IllegalArgumentException if the input parameters are invalid
+     */
+    public PrefetchingQueryIterator(String query, int pageSize, QueryType requestQueryType, int prefetchDepth,
+                                    IotHubConnectionString iotHubConnectionString, URL url, HttpMethod httpMethod,
+                                    long timeoutInMs, Function<String, T> converter) throws IllegalArgumentException
+    {
+        ParserUtility.validateQuery(query);
+
+        if (pageSize <= 0)
+        {
+            throw new IllegalArgumentException("Page Size cannot be zero or negative");
+        }
+
+        if (prefetchDepth <= 0)
+        {
+            throw new IllegalArgumentException("Prefetch depth cannot be zero or negative");
+        }
+
+        if (requestQueryType == null || requestQueryType == QueryType.UNKNOWN)
+        {
+            throw new IllegalArgumentException("Cannot process a unknown type query");
+        }
+
+        if (iotHubConnectionString == null || url == null || httpMethod == null || converter == null)
+        {
+            throw new IllegalArgumentException("Input parameters cannot be null");
+        }
+
+        this.query = query;
+        this.pageSize = pageSize;
+        this.requestQueryType = requestQueryType;
+        this.iotHubConnectionString = iotHubConnectionString;
+        this.url = url;
+        this.httpMethod = httpMethod;
+        this.timeout = timeoutInMs;
+        this.converter = converter;
+        this.prefetchedPages = new ArrayBlockingQueue<>(prefetchDepth);
+        this.currentPage = Collections.emptyIterator();
+        this.isLastPageTaken = false;
+        this.isClosed = false;
+    }
+
+    /**
+     * Setter for the throttling policy of the client that created this iterator
+     * @param throttlingPolicy the rate limit and retry policy to send the page requests through. May be null.
+     */
+    void setThrottlingPolicy(ThrottlingPolicy throttlingPolicy)
+    {
+        this.throttlingPolicy = throttlingPolicy;
+    }
+
+    /**
+     * Returns the availability of next element in the query response, waiting for the next page to be fetched if the
+     * current one is exhausted.
+     * @return the availability of next element in the query response
+     * @throws CompletionException if the query to the IotHub failed
+     */
+    @Override
+    public boolean hasNext() throws CompletionException
+    {
+        while (!this.currentPage.hasNext())
+        {
+            if (this.isLastPageTaken || this.isClosed)
+            {
+                return false;
+            }
+
+            Page page = takeNextPage();
+            if (page.failure != null)
+            {
+                this.isLastPageTaken = true;
+                this.close();
+                throw new CompletionException(page.failure);
+            }
+
+            this.currentPage = page.items.iterator();
+            this.isLastPageTaken = page.isLast;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the next element in the query response
+     * @return the next element in the query response
+     * @throws NoSuchElementException if no further elements are available
+     * @throws CompletionException if the query to the IotHub or the conversion of the result failed
+     */
+    @Override
+    public T next() throws NoSuchElementException, CompletionException
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+
+        try
+        {
+            return this.converter.apply(this.currentPage.next());
+        }
+        catch (RuntimeException e)
+        {
+            this.close();
+            throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+        }
+    }
+
+    /**
+     * Creates a sequential, ordered {@link Stream} over the remaining results of this query. The stream may be turned
+     * into a parallel one, in which case results are handed to the worker threads in batches. Closing the stream
+     * closes this iterator.
+     * @return a stream over the remaining results of this query
+     */
+    public Stream<T> stream()
+    {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Stops prefetching and discards any buffered pages. Subsequent calls to {@link #hasNext()} return false, and a
+     * consumer waiting for the next page in another thread is released.
+     */
+    @Override
+    public synchronized void close()
+    {
+        this.isClosed = true;
+        if (this.prefetchExecutor != null)
+        {
+            this.prefetchExecutor.shutdownNow();
+        }
+
+        this.prefetchedPages.clear();
+        this.currentPage = Collections.emptyIterator();
+
+        // If the prefetch thread refilled the buffer before stopping, the waiting consumer takes that page instead
+        this.prefetchedPages.offer(Page.END_OF_STREAM);
+    }
+
+    private Page takeNextPage() throws CompletionException
+    {
+        startPrefetching();
+
+        try
+        {
+            Page page = this.prefetchedPages.take();
+            return this.isClosed ? Page.END_OF_STREAM : page;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new CompletionException(e);
+        }
+    }
+
+    private synchronized void startPrefetching()
+    {
+        if (this.prefetchExecutor == null && !this.isClosed)
+        {
+            this.prefetchExecutor = Executors.newSingleThreadExecutor(runnable ->
+            {
+                Thread thread = new Thread(runnable, "azure-iot-sdk-query-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            this.prefetchExecutor.submit(this::prefetchPages);
+        }
+    }
+
+    private void prefetchPages()
+    {
+        try
+        {
+            String continuationToken = null;
+            do
+            {
+                Page page = sendPageRequest(continuationToken);
+                continuationToken = page.continuationToken;
+                this.prefetchedPages.put(page);
+            }
+            while (continuationToken != null && !this.isClosed);
+        }
+        catch (InterruptedException e)
+        {
+            // close() was called, nobody is waiting for further pages
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException | IotHubException | RuntimeException e)
+        {
+            try
+            {
+                this.prefetchedPages.put(new Page(e));
+            }
+            catch (InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Page sendPageRequest(String continuationToken) throws IOException, IotHubException
+    {
+        QueryPage queryPage = QueryPage.send(this.iotHubConnectionString, this.url, this.httpMethod, this.timeout,
+                this.query, this.pageSize, this.requestQueryType, continuationToken, this.throttlingPolicy);
+
+        List<String> items = new QueryResponseParser(new String(queryPage.getBody(), StandardCharsets.UTF_8)).getJsonItems();
+        return new Page(items, queryPage.getContinuationToken());
+    }
+
+    private static final class Page
+    {
+        private static final Page END_OF_STREAM = new Page(Collections.<String>emptyList(), null);
+
+        private final List<String> items;
+        private final String continuationToken;
+        private final boolean isLast;
+        private final Exception failure;
+
+        private Page(List<String> items, String continuationToken)
+        {
+            this.items = items;
+            this.continuationToken = continuationToken;
+            this.isLast = continuationToken == null;
+            this.failure = null;
+        }
+
+        private Page(Exception failure)
+        {
+            this.items = Collections.emptyList();
+            this.continuationToken = null;
+            this.isLast = true;
+            this.failure = failure;
+        }
+    }
+}
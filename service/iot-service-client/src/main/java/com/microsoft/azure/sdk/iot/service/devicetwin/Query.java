@@ -11,6 +11,7 @@ import com.microsoft.azure.sdk.iot.service.IotHubConnectionString;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
 
 import java.io.IOException;
 import java.net.URL;
@@ -43,6 +44,7 @@ public class Query
     private URL url;
     private HttpMethod httpMethod;
     private long timeout;
+    private ThrottlingPolicy throttlingPolicy;
 
     /**
      * Constructor for Query
@@ -110,6 +112,15 @@ public class Query
         this.isSqlQuery = false;
     }
 
+    /**
+     * Setter for the throttling policy of the client that created this query
+     * @param throttlingPolicy the rate limit and retry policy to send the page requests through. May be null.
+     */
+    void setThrottlingPolicy(ThrottlingPolicy throttlingPolicy)
+    {
+        this.throttlingPolicy = throttlingPolicy;
+    }
+
     /**
      * Continuation token to be used for next query request
      * @param continuationToken token to be used for next query request. Can be {@code null}
@@ -196,7 +207,7 @@ public class Query
         }
 
         //Codes_SRS_QUERY_25_009: [The method shall use the provided HTTP Method and send request to IotHub with the serialized body over the provided URL.]
-        HttpResponse httpResponse = DeviceOperations.request(iotHubConnectionString, url, method, payload, null, timeoutInMs);
+        HttpResponse httpResponse = DeviceOperations.request(iotHubConnectionString, url, method, payload, null, timeoutInMs, null, this.throttlingPolicy);
 
         this.responseContinuationToken = null;
         Map<String, String> headers = httpResponse.getHeaderFields();
@@ -11,6 +11,7 @@ import com.microsoft.azure.sdk.iot.service.IotHubConnectionString;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
 
 import java.io.IOException;
 import java.net.URL;
@@ -36,6 +37,7 @@ public class QueryCollection
     private URL url;
     private HttpMethod httpMethod;
     private long timeout;
+    private ThrottlingPolicy throttlingPolicy;
 
     private boolean isInitialQuery;
 
@@ -116,6 +118,15 @@ public class QueryCollection
         this.isInitialQuery = true;
     }
 
+    /**
+     * Setter for the throttling policy of the client that created this query collection
+     * @param throttlingPolicy the rate limit and retry policy to send the page requests through. May be null.
+     */
+    void setThrottlingPolicy(ThrottlingPolicy throttlingPolicy)
+    {
+        this.throttlingPolicy = throttlingPolicy;
+    }
+
     /**
      * Retrieves a page of results for a query.
      *
@@ -147,7 +158,7 @@ public class QueryCollection
         }
 
         //Codes_SRS_QUERYCOLLECTION_34_017: [This function shall send an HTTPS request using DeviceOperations.]
-        HttpResponse httpResponse = DeviceOperations.request(this.iotHubConnectionString, this.url, this.httpMethod, payload, null, this.timeout);
+        HttpResponse httpResponse = DeviceOperations.request(this.iotHubConnectionString, this.url, this.httpMethod, payload, null, this.timeout, null, this.throttlingPolicy);
 
         //Codes_SRS_QUERYCOLLECTION_34_018: [The method shall read the continuation token (x-ms-continuation) and response type (x-ms-item-type) from the HTTP Headers and save it.]
         handleQueryResponse(httpResponse);
@@ -0,0 +1,117 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.devicetwin;
+
+import com.microsoft.azure.sdk.iot.deps.serializer.QueryRequestParser;
+import com.microsoft.azure.sdk.iot.service.IotHubConnectionString;
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single page of a sql style query response, fetched without using the headers shared through
+ * {@link DeviceOperations#setHeaders(Map)} so that pages can be requested from any thread.
+ */
+final class QueryPage
+{
+    private static final String CONTINUATION_TOKEN_KEY = "x-ms-continuation";
+    private static final String ITEM_TYPE_KEY = "x-ms-item-type";
+    private static final String PAGE_SIZE_KEY = "x-ms-max-item-count";
+
+    private final byte[] body;
+    private final String continuationToken;
+
+    private QueryPage(byte[] body, String continuationToken)
+    {
+        this.body = body;
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * Sends a request for a single page of the query to the IotHub
+     * @param iotHubConnectionString Hub Connection String
+     * @param url URL to Query on
+     * @param method HTTP Method for the requesting a query
+     * @param timeoutInMs Maximum time to wait for the hub to respond
+     * @param query Sql style query to be sent to IotHub
+     * @param pageSize page size for the query response
+     * @param requestQueryType Type of query
+     * @param continuationToken token returned with the previous page, or {@code null} for the first page
+     * @param throttlingPolicy the rate limit and retry policy to send the request through, or {@code null} to send it once
+     * @return the page returned by the IotHub
+     * @throws IOException If the response type is not defined or does not match the request type
+     * @throws IotHubException If HTTP response other then status ok is received
+     */
+    static QueryPage send(IotHubConnectionString iotHubConnectionString, URL url, HttpMethod method, long timeoutInMs,
+                          String query, int pageSize, QueryType requestQueryType, String continuationToken,
+                          ThrottlingPolicy throttlingPolicy)
+            throws IOException, IotHubException
+    {
+        Map<String, String> queryHeaders = new HashMap<>();
+        if (continuationToken != null)
+        {
+            queryHeaders.put(CONTINUATION_TOKEN_KEY, continuationToken);
+        }
+        queryHeaders.put(PAGE_SIZE_KEY, String.valueOf(pageSize));
+
+        byte[] payload = new QueryRequestParser(query).toJson().getBytes(StandardCharsets.UTF_8);
+        HttpResponse httpResponse = DeviceOperations.request(iotHubConnectionString, url, method, payload, null, timeoutInMs, queryHeaders, throttlingPolicy);
+
+        String responseContinuationToken = null;
+        QueryType responseQueryType = QueryType.UNKNOWN;
+        for (Map.Entry<String, String> header : httpResponse.getHeaderFields().entrySet())
+        {
+            switch (header.getKey())
+            {
+                case CONTINUATION_TOKEN_KEY:
+                    responseContinuationToken = header.getValue();
+                    break;
+                case ITEM_TYPE_KEY:
+                    responseQueryType = QueryType.fromString(header.getValue());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (responseQueryType == null || responseQueryType == QueryType.UNKNOWN)
+        {
+            throw new IOException("Query response type is not defined by IotHub");
+        }
+
+        if (requestQueryType != responseQueryType)
+        {
+            throw new IOException("Query response does not match query request");
+        }
+
+        return new QueryPage(httpResponse.getBody(), responseContinuationToken);
+    }
+
+    /**
+     * Getter for the body of this page
+     * @return the json array of the items of this page, as UTF-8 bytes
+     */
+    byte[] getBody()
+    {
+        return this.body;
+    }
+
+    /**
+     * Getter for the continuation token of this page
+     * @return the token to request the next page with, or {@code null} if this is the last page
+     */
+    String getContinuationToken()
+    {
+        return this.continuationToken;
+    }
+}
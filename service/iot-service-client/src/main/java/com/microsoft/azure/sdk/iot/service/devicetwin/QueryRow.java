@@ -0,0 +1,155 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.devicetwin;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * View over a single row of a query response. The row is parsed into a json tree when it is received, but unlike
+ * {@link DeviceTwinDevice} no typed object is built from it, so the memory used by a row is proportional to the
+ * fields selected by the query.
+ *
+ * <p>Fields are addressed by their name in the row or by a dot separated path, for example {@code "deviceId"} or
+ * {@code "properties.reported.fw"}. A name that matches a top level field of the row exactly, as returned for
+ * aliased projections, takes precedence over the dot separated path.</p>
+ */
+public class QueryRow
+{
+    private static final String PATH_SEPARATOR_REGEX = "\\.";
+
+    private final JsonObject row;
+
+    QueryRow(JsonObject row)
+    {
+        if (row == null)
+        {
+            throw new IllegalArgumentException("row cannot be null");
+        }
+
+        this.row = row;
+    }
+
+    /**
+     * Returns the availability of a field in this row
+     * @param path name or dot separated path of the field
+     * @return true if the field is present in this row, even if its value is null, and false otherwise
+     */
+    public boolean has(String path)
+    {
+        return find(path) != null;
+    }
+
+    /**
+     * Getter for a string field
+     * @param path name or dot separated path of the field
+     * @return the value of the field as string, or {@code null} if the field is absent or null
+     * @throws IllegalArgumentException if the path is null or empty
+     * @throws UnsupportedOperationException if the field is an object or an array
+     */
+    public String getString(String path) throws IllegalArgumentException, UnsupportedOperationException
+    {
+        JsonElement element = findValue(path);
+        return element == null ? null : element.getAsString();
+    }
+
+    /**
+     * Getter for a numeric field
+     * @param path name or dot separated path of the field
+     * @return the value of the field as long, or {@code null} if the field is absent or null
+     * @throws IllegalArgumentException if the path is null or empty
+     * @throws NumberFormatException if the value of the field is not a number
+     */
+    public Long getLong(String path) throws IllegalArgumentException, NumberFormatException
+    {
+        JsonElement element = findValue(path);
+        return element == null ? null : element.getAsLong();
+    }
+
+    /**
+     * Getter for a numeric field
+     * @param path name or dot separated path of the field
+     * @return the value of the field as double, or {@code null} if the field is absent or null
+     * @throws IllegalArgumentException if the path is null or empty
+     * @throws NumberFormatException if the value of the field is not a number
+     */
+    public Double getDouble(String path) throws IllegalArgumentException, NumberFormatException
+    {
+        JsonElement element = findValue(path);
+        return element == null ? null : element.getAsDouble();
+    }
+
+    /**
+     * Getter for a boolean field
+     * @param path name or dot separated path of the field
+     * @return the value of the field as boolean, or {@code null} if the field is absent or null
+     * @throws IllegalArgumentException if the path is null or empty
+     */
+    public Boolean getBoolean(String path) throws IllegalArgumentException
+    {
+        JsonElement element = findValue(path);
+        return element == null ? null : element.getAsBoolean();
+    }
+
+    /**
+     * Getter for the raw json of a field
+     * @param path name or dot separated path of the field
+     * @return the json of the field, or {@code null} if the field is absent
+     * @throws IllegalArgumentException if the path is null or empty
+     */
+    public String getJson(String path) throws IllegalArgumentException
+    {
+        JsonElement element = find(path);
+        return element == null ? null : element.toString();
+    }
+
+    /**
+     * Getter for the raw json of the whole row
+     * @return the json of this row
+     */
+    public String toJson()
+    {
+        return this.row.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toJson();
+    }
+
+    private JsonElement findValue(String path)
+    {
+        JsonElement element = find(path);
+        return element == null || element.isJsonNull() ? null : element;
+    }
+
+    private JsonElement find(String path)
+    {
+        if (path == null || path.isEmpty())
+        {
+            throw new IllegalArgumentException("path cannot be null or empty");
+        }
+
+        if (this.row.has(path))
+        {
+            return this.row.get(path);
+        }
+
+        JsonElement element = this.row;
+        for (String segment : path.split(PATH_SEPARATOR_REGEX))
+        {
+            if (!element.isJsonObject() || !element.getAsJsonObject().has(segment))
+            {
+                return null;
+            }
+
+            element = element.getAsJsonObject().get(segment);
+        }
+
+        return element;
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.devicetwin;
+
+/**
+ * Selects the content of the patch sent by {@link DeviceTwin#updateTwin(DeviceTwinDevice, TwinUpdateMode)}
+ */
+public enum TwinUpdateMode
+{
+    /**
+     * Send all the tags and desired properties of the twin. Devices are notified of every desired property, even if
+     * only some of them changed.
+     */
+    FULL_TWIN,
+
+    /**
+     * Send only the tags and desired properties changed since the twin was last retrieved or updated, as a JSON
+     * merge-patch guarded by the ETag of the twin. A property set to {@code null} is removed from the twin.
+     */
+    CHANGES_ONLY
+}
@@ -117,7 +117,8 @@ public class IotHubExceptionManager
             throw new IotHubGatewayTimeoutException(errorMessage, errorCode, errorCodeDescription);
         }
         // Codes_SRS_SERVICE_SDK_JAVA_IOTHUBEXCEPTIONMANAGER_12_011: [The function shall throw IotHubException if the Http response status none of them above and greater than 300 copying the error Http reason to the exception]
-        else if (responseStatus > 300)
+        // 304 Not Modified is the successful answer to a read with If-None-Match, and carries no error
+        else if ((responseStatus > 300) && (responseStatus != 304))
         {
             if(errorMessage.isEmpty())
             {
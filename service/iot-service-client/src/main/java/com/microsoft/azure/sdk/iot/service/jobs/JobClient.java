@@ -363,6 +363,34 @@ public class JobClient
         return deviceJobQuery;
     }
 
+    /**
+     * Lazy query for device Job that fetches the following pages of the response in the background while the
+     * current one is being consumed. No request is sent until the returned iterator is first used.
+     * @param sqlQuery sql style query over device.jobs
+     * @param pageSize the value per which to limit the size of query response by.
+     * @param prefetchDepth the maximum number of pages to buffer ahead of the consumer.
+     * @return iterator over the job results of this query. It should be closed if abandoned before it is exhausted.
+     * @throws IOException When the query url cannot be built
+     * @throws IllegalArgumentException When any of the parameters are incorrect
+     */
+    public PrefetchingQueryIterator<JobResult> queryDeviceJobPrefetching(String sqlQuery, Integer pageSize, int prefetchDepth)
+            throws IOException, IllegalArgumentException
+    {
+        if (sqlQuery == null || sqlQuery.length() == 0)
+        {
+            throw new IllegalArgumentException("Query cannot be null or empty");
+        }
+
+        if (pageSize == null || pageSize <= 0)
+        {
+            throw new IllegalArgumentException("pagesize cannot be negative or zero");
+        }
+
+        return new PrefetchingQueryIterator<>(sqlQuery, pageSize, QueryType.DEVICE_JOB, prefetchDepth,
+                iotHubConnectionString, iotHubConnectionString.getUrlTwinQuery(), HttpMethod.POST, MAX_TIMEOUT,
+                json -> new JobResult(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
     /**
      * Query for device Job limited by default page size of 100 for response
      * @param sqlQuery sql style query over device.jobs
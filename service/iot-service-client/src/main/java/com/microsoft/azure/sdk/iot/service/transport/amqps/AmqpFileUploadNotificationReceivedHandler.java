@@ -32,8 +32,8 @@ import java.util.Map;
 @Slf4j
 public class AmqpFileUploadNotificationReceivedHandler extends AmqpConnectionHandler
 {
-    private static final String FILE_NOTIFICATION_RECEIVE_TAG = "filenotificationreceiver";
-    private static final String FILENOTIFICATION_ENDPOINT = "/messages/serviceBound/filenotifications";
+    public static final String FILE_NOTIFICATION_RECEIVE_TAG = "filenotificationreceiver";
+    public static final String FILENOTIFICATION_ENDPOINT = "/messages/serviceBound/filenotifications";
 
     private AmqpFeedbackReceivedEvent amqpFeedbackReceivedEvent;
     private Receiver fileUploadNotificationReceiverLink;
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.transport.amqps;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A message received by an {@link AmqpStreamingReceiver} that has not been settled yet. Each unsettled delivery holds
+ * one credit of its receiver link, so every delivery must eventually be completed or abandoned.
+ */
+public class AmqpReceivedDelivery
+{
+    private final AmqpStreamingReceiver receiver;
+    private final int connectionGeneration;
+    private final long deliveryId;
+    private final String body;
+    private final AtomicBoolean isSettled;
+
+    AmqpReceivedDelivery(AmqpStreamingReceiver receiver, int connectionGeneration, long deliveryId, String body)
+    {
+        this.receiver = receiver;
+        this.connectionGeneration = connectionGeneration;
+        this.deliveryId = deliveryId;
+        this.body = body;
+        this.isSettled = new AtomicBoolean(false);
+    }
+
+    /**
+     * Getter for the body of the received message
+     * @return the body of the received message
+     */
+    public String getBody()
+    {
+        return this.body;
+    }
+
+    /**
+     * Getter for the settlement state of this delivery
+     * @return true if this delivery was already completed or abandoned
+     */
+    public boolean isSettled()
+    {
+        return this.isSettled.get();
+    }
+
+    /**
+     * Settles this delivery as Accepted so that the service does not send it again. Calls after the first settlement
+     * of this delivery, or after its receiver was closed or lost its connection, have no effect.
+     */
+    public void complete()
+    {
+        settle(true);
+    }
+
+    /**
+     * Releases this delivery so that the service sends it again later. Calls after the first settlement of this
+     * delivery, or after its receiver was closed or lost its connection, have no effect.
+     */
+    public void abandon()
+    {
+        settle(false);
+    }
+
+    private void settle(boolean accepted)
+    {
+        if (this.isSettled.compareAndSet(false, true))
+        {
+            this.receiver.settle(this.connectionGeneration, this.deliveryId, accepted);
+        }
+    }
+}
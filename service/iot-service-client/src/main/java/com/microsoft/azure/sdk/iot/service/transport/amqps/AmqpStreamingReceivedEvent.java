@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.transport.amqps;
+
+public interface AmqpStreamingReceivedEvent
+{
+    /**
+     * Called on the reactor thread for each message received on a persistent receiver link. The delivery stays
+     * unsettled until it is settled through {@link AmqpStreamingReceivedHandler#requestSettlement(long, boolean)}.
+     * @param deliveryId identifier of the delivery within its link
+     * @param body the body of the received message
+     */
+    void onMessageReceived(long deliveryId, String body);
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.transport.amqps;
+
+import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
+import com.microsoft.azure.sdk.iot.service.ProxyOptions;
+import com.microsoft.azure.sdk.iot.service.transport.TransportUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.Released;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.engine.*;
+import org.apache.qpid.proton.reactor.Handshaker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Instance of the QPID-Proton-J BaseHandler class that keeps a single receiver link open on a service bound endpoint
+ * and receives any number of messages on it.
+ *
+ * Unlike {@link AmqpFeedbackReceivedHandler}, deliveries are not settled when they are received. Link credit is granted
+ * up front and then one credit at a time as each delivery is settled, so the number of unsettled deliveries never
+ * exceeds the configured link credit. Settlement and close requests may come from any thread; they are queued and
+ * carried out on the reactor thread the next time the reactor wakes up.
+ */
+@Slf4j
+public class AmqpStreamingReceivedHandler extends AmqpConnectionHandler
+{
+    private final String endpoint;
+    private final String linkTag;
+    private final int linkCredit;
+    private final AmqpStreamingReceivedEvent amqpStreamingReceivedEvent;
+
+    private Receiver receiverLink;
+    private long nextDeliveryId;
+    private final Map<Long, Delivery> unsettledDeliveries = new HashMap<>();
+    private final Queue<Settlement> pendingSettlements = new ConcurrentLinkedQueue<>();
+    private volatile boolean closeRequested;
+
+    /**
+     * Constructor to set up connection parameters and initialize handshaker for transport
+     * @param hostName The address string of the service (example: AAA.BBB.CCC)
+     * @param userName The username string to use SASL authentication (example: user@sas.service)
+     * @param sasToken The SAS token string
+     * @param iotHubServiceClientProtocol protocol to use
+     * @param proxyOptions the proxy options to tunnel through, if a proxy should be used.
+     * @param endpoint the address of the service bound endpoint to receive from
+     * @param linkTag the name of the receiver link
+     * @param linkCredit the maximum number of unsettled deliveries
+     * @param amqpStreamingReceivedEvent callback to delegate the received messages to
+     */
+    public AmqpStreamingReceivedHandler(String hostName, String userName, String sasToken, IotHubServiceClientProtocol iotHubServiceClientProtocol,
+                                        ProxyOptions proxyOptions, String endpoint, String linkTag, int linkCredit,
+                                        AmqpStreamingReceivedEvent amqpStreamingReceivedEvent)
+    {
+        super(hostName, userName, sasToken, iotHubServiceClientProtocol, proxyOptions);
+
+        if (linkCredit < 1)
+        {
+            throw new IllegalArgumentException("linkCredit must be positive");
+        }
+
+        if (amqpStreamingReceivedEvent == null)
+        {
+            throw new IllegalArgumentException("amqpStreamingReceivedEvent cannot be null");
+        }
+
+        this.endpoint = endpoint;
+        this.linkTag = linkTag;
+        this.linkCredit = linkCredit;
+        this.amqpStreamingReceivedEvent = amqpStreamingReceivedEvent;
+        this.nextDeliveryId = 0;
+        this.closeRequested = false;
+
+        // Link credit is issued explicitly as deliveries are settled, so no FlowController is added
+        add(new Handshaker());
+    }
+
+    /**
+     * Queues the settlement of a delivery. Safe to call from any thread.
+     * @param deliveryId identifier of the delivery, as given to {@link AmqpStreamingReceivedEvent#onMessageReceived(long, String)}
+     * @param accepted true to settle the delivery as Accepted, false to release it so that the service sends it again
+     */
+    public void requestSettlement(long deliveryId, boolean accepted)
+    {
+        this.pendingSettlements.add(new Settlement(deliveryId, accepted));
+    }
+
+    /**
+     * Queues the graceful close of the link, its session and connection. Safe to call from any thread.
+     */
+    public void requestClose()
+    {
+        this.closeRequested = true;
+    }
+
+    @Override
+    public void onConnectionInit(Event event)
+    {
+        Connection conn = event.getConnection();
+        conn.setHostname(hostName);
+
+        Session ssn = conn.session();
+
+        Map<Symbol, Object> properties = new HashMap<>();
+        properties.put(Symbol.getSymbol(TransportUtils.versionIdentifierKey), TransportUtils.USER_AGENT_STRING);
+        this.receiverLink = ssn.receiver(this.linkTag);
+        this.receiverLink.setProperties(properties);
+
+        log.debug("Opening connection, session and link for amqp streaming receiver on {}", this.endpoint);
+        conn.open();
+        ssn.open();
+        this.receiverLink.open();
+        this.receiverLink.flow(this.linkCredit);
+    }
+
+    @Override
+    public void onLinkInit(Event event)
+    {
+        Link link = event.getLink();
+        if (link.getName().equals(this.linkTag))
+        {
+            Source source = new Source();
+            source.setAddress(this.endpoint);
+            link.setSource(source);
+        }
+    }
+
+    /**
+     * Event handler for the on delivery event
+     * @param event The proton event object
+     */
+    @Override
+    public void onDelivery(Event event)
+    {
+        Receiver recv = (Receiver) event.getLink();
+        Delivery delivery = recv.current();
+        if (delivery != null && delivery.isReadable() && !delivery.isPartial() && delivery.getLink().getName().equals(this.linkTag))
+        {
+            int size = delivery.pending();
+            byte[] buffer = new byte[size];
+            int read = recv.recv(buffer, 0, buffer.length);
+            recv.advance();
+
+            org.apache.qpid.proton.message.Message msg = Proton.message();
+            msg.decode(buffer, 0, read);
+
+            if (this.closeRequested || recv.getLocalState() != EndpointState.ACTIVE)
+            {
+                log.trace("Releasing a delivery received while closing the streaming receiver, service will send it again later");
+                delivery.disposition(Released.getInstance());
+                delivery.settle();
+                return;
+            }
+
+            long deliveryId = this.nextDeliveryId++;
+            this.unsettledDeliveries.put(deliveryId, delivery);
+            this.amqpStreamingReceivedEvent.onMessageReceived(deliveryId, getBodyAsString(msg));
+        }
+    }
+
+    @Override
+    public void onReactorQuiesced(Event event)
+    {
+        // The reactor quiesces every time it runs out of events, including right after being woken up by a settlement
+        // or close request from another thread
+        settlePendingDeliveries();
+
+        if (this.closeRequested && this.receiverLink != null && this.receiverLink.getLocalState() == EndpointState.ACTIVE)
+        {
+            closeReceiverLink();
+        }
+    }
+
+    @Override
+    public void onTimerTask(Event event)
+    {
+        this.closeRequested = true;
+        settlePendingDeliveries();
+        if (this.receiverLink != null && this.receiverLink.getLocalState() == EndpointState.ACTIVE)
+        {
+            closeReceiverLink();
+        }
+    }
+
+    private void settlePendingDeliveries()
+    {
+        Settlement settlement;
+        while ((settlement = this.pendingSettlements.poll()) != null)
+        {
+            Delivery delivery = this.unsettledDeliveries.remove(settlement.deliveryId);
+            if (delivery == null)
+            {
+                continue;
+            }
+
+            delivery.disposition(settlement.accepted ? Accepted.getInstance() : Released.getInstance());
+            delivery.settle();
+
+            if (!this.closeRequested && this.receiverLink.getLocalState() == EndpointState.ACTIVE)
+            {
+                // Replace the credit used by the settled delivery
+                this.receiverLink.flow(1);
+            }
+        }
+    }
+
+    private void closeReceiverLink()
+    {
+        for (Delivery delivery : this.unsettledDeliveries.values())
+        {
+            delivery.disposition(Released.getInstance());
+            delivery.settle();
+        }
+        this.unsettledDeliveries.clear();
+
+        //By closing the link locally, proton-j will fire an event onLinkLocalClose. Within ErrorLoggingBaseHandlerWithCleanup,
+        // onLinkLocalClose closes the session locally and eventually the connection and reactor
+        log.debug("Closing amqp streaming receiver link on {}", this.endpoint);
+        this.receiverLink.close();
+    }
+
+    private static String getBodyAsString(org.apache.qpid.proton.message.Message msg)
+    {
+        if (msg.getBody() instanceof Data)
+        {
+            Binary binary = ((Data) msg.getBody()).getValue();
+            return new String(binary.getArray(), binary.getArrayOffset(), binary.getLength(), StandardCharsets.UTF_8);
+        }
+
+        return msg.getBody() == null ? null : msg.getBody().toString();
+    }
+
+    private static final class Settlement
+    {
+        private final long deliveryId;
+        private final boolean accepted;
+
+        private Settlement(long deliveryId, boolean accepted)
+        {
+            this.deliveryId = deliveryId;
+            this.accepted = accepted;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.transport.amqps;
+
+import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
+import com.microsoft.azure.sdk.iot.service.ProxyOptions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Long lived receiver for a service bound endpoint such as the feedback or the file upload notification endpoint.
+ *
+ * <p>Unlike {@link AmqpReceive}, which opens a new connection for every call to receive and settles the first message
+ * it gets, this receiver keeps one connection and link open between {@link #open(Consumer)} and {@link #close()}. At
+ * most {@code linkCredit} messages are delivered ahead of their settlement, and a new message is requested each time
+ * a delivery is completed or abandoned.</p>
+ *
+ * <p>Received deliveries are either handed to a callback on a dedicated dispatcher thread, or buffered for
+ * {@link #receive(long)} if no callback is given. The buffer never holds more than {@code linkCredit} deliveries.
+ * If the connection is lost, {@link #receive(long)} throws, while the dispatcher opens a new connection after a
+ * backoff. Deliveries of a lost connection can no longer be settled, the service sends them again.</p>
+ */
+@Slf4j
+public class AmqpStreamingReceiver implements AmqpStreamingReceivedEvent
+{
+    private final String hostName;
+    private final String userName;
+    private final String sasToken;
+    private final IotHubServiceClientProtocol iotHubServiceClientProtocol;
+    private final ProxyOptions proxyOptions;
+    private final String endpoint;
+    private final String linkTag;
+    private final int linkCredit;
+
+    private static final long RECONNECT_INITIAL_BACKOFF_MILLISECONDS = 1000;
+    private static final long RECONNECT_MAX_BACKOFF_MILLISECONDS = 30000;
+
+    private final BlockingQueue<AmqpReceivedDelivery> receivedDeliveries;
+
+    private AmqpStreamingReceivedHandler amqpStreamingReceivedHandler;
+    private ReactorRunner reactorRunner;
+    private volatile Thread reactorThread;
+    private Thread dispatcherThread;
+    private volatile IOException connectionFailure;
+    private volatile boolean isOpen;
+    private volatile int connectionGeneration;
+
+    /**
+     * Constructor to set up connection parameters
+     * @param hostName The address string of the service (example: AAA.BBB.CCC)
+     * @param userName The username string to use SASL authentication (example: user@sas.service)
+     * @param sasToken The SAS token string
+     * @param iotHubServiceClientProtocol protocol to use
+     * @param proxyOptions the proxy options to tunnel through, if a proxy should be used.
+     * @param endpoint the address of the service bound endpoint to receive from
+     * @param linkTag the name of the receiver link
+     * @param linkCredit the maximum number of deliveries received ahead of their settlement
+     * @throws IllegalArgumentException if linkCredit is not positive
+     */
+    public AmqpStreamingReceiver(String hostName, String userName, String sasToken, IotHubServiceClientProtocol iotHubServiceClientProtocol,
+                                 ProxyOptions proxyOptions, String endpoint, String linkTag, int linkCredit) throws IllegalArgumentException
+    {
+        if (linkCredit < 1)
+        {
+            throw new IllegalArgumentException("linkCredit must be positive");
+        }
+
+        this.hostName = hostName;
+        this.userName = userName;
+        this.sasToken = sasToken;
+        this.iotHubServiceClientProtocol = iotHubServiceClientProtocol;
+        this.proxyOptions = proxyOptions;
+        this.endpoint = endpoint;
+        this.linkTag = linkTag;
+        this.linkCredit = linkCredit;
+        this.receivedDeliveries = new ArrayBlockingQueue<>(linkCredit);
+        this.isOpen = false;
+    }
+
+    /**
+     * Opens the connection and receiver link on a background reactor thread
+     * @param callback callback to hand each received delivery to, on a dedicated dispatcher thread. If null, received
+     * deliveries are buffered until they are taken by {@link #receive(long)}
+     * @throws IOException if the reactor could not be created
+     * @throws IllegalStateException if this receiver is already open
+     */
+    public synchronized void open(Consumer<AmqpReceivedDelivery> callback) throws IOException, IllegalStateException
+    {
+        if (this.isOpen)
+        {
+            throw new IllegalStateException("Streaming receiver is already open");
+        }
+
+        log.info("Opening streaming receiver on {} with link credit {}", this.endpoint, this.linkCredit);
+        this.isOpen = true;
+        try
+        {
+            startConnection();
+        }
+        catch (IOException e)
+        {
+            this.isOpen = false;
+            throw e;
+        }
+
+        if (callback != null)
+        {
+            this.dispatcherThread = new Thread(() -> dispatch(callback), "azure-iot-sdk-AmqpStreamingReceiver-dispatcher");
+            this.dispatcherThread.setDaemon(true);
+            this.dispatcherThread.start();
+        }
+    }
+
+    /**
+     * Waits for the next buffered delivery. Only to be used when this receiver was opened without a callback.
+     * @param timeoutMs The timeout in milliseconds to wait for a delivery
+     * @return the next delivery, or null if none was received before the timeout
+     * @throws IOException if this receiver is not open, or if its connection was lost
+     * @throws InterruptedException if the wait was interrupted
+     */
+    public AmqpReceivedDelivery receive(long timeoutMs) throws IOException, InterruptedException
+    {
+        if (!this.isOpen)
+        {
+            throw new IOException("Streaming receiver is not open. Call open before receive");
+        }
+
+        AmqpReceivedDelivery delivery = this.receivedDeliveries.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (delivery == null)
+        {
+            throwIfConnectionLost();
+        }
+
+        return delivery;
+    }
+
+    /**
+     * Closes the receiver link and its connection. Deliveries that were not settled yet are released so that the
+     * service sends them again later.
+     * @throws InterruptedException if interrupted while waiting for the connection to close
+     */
+    public void close() throws InterruptedException
+    {
+        Thread reactorThreadToJoin;
+        Thread dispatcherThreadToStop;
+        synchronized (this)
+        {
+            if (!this.isOpen)
+            {
+                return;
+            }
+
+            this.isOpen = false;
+            reactorThreadToJoin = this.reactorThread;
+            dispatcherThreadToStop = this.dispatcherThread;
+            this.dispatcherThread = null;
+
+            log.info("Closing streaming receiver on {}", this.endpoint);
+            this.amqpStreamingReceivedHandler.requestClose();
+            this.reactorRunner.wakeup();
+        }
+
+        if (dispatcherThreadToStop != null)
+        {
+            dispatcherThreadToStop.interrupt();
+        }
+
+        reactorThreadToJoin.join(ReactorRunner.CLOSE_REACTOR_GRACEFULLY_TIMEOUT + ReactorRunner.REACTOR_TIMEOUT);
+        this.receivedDeliveries.clear();
+        log.info("Closed streaming receiver on {}", this.endpoint);
+    }
+
+    /**
+     * Getter for the state of this receiver
+     * @return true if this receiver is open and its connection was not lost
+     */
+    public boolean isOpen()
+    {
+        return this.isOpen && this.reactorThread != null && this.reactorThread.isAlive();
+    }
+
+    /**
+     * Handle on message received Proton event. Buffers the delivery for the dispatcher or for {@link #receive(long)}
+     * @param deliveryId identifier of the delivery within its link
+     * @param body the body of the received message
+     */
+    @Override
+    public void onMessageReceived(long deliveryId, String body)
+    {
+        // The link never has more unsettled deliveries than the capacity of the queue, so this cannot fail
+        int generation = this.connectionGeneration;
+        if (!this.receivedDeliveries.offer(new AmqpReceivedDelivery(this, generation, deliveryId, body)))
+        {
+            log.warn("Streaming receiver buffer is full, releasing delivery");
+            settle(generation, deliveryId, false);
+        }
+    }
+
+    synchronized void settle(int generation, long deliveryId, boolean accepted)
+    {
+        // After close, or once the connection of the delivery was lost, its reactor is gone and the service sends
+        // the delivery again, so there is nothing to settle
+        if (!this.isOpen || generation != this.connectionGeneration)
+        {
+            log.debug("Delivery {} on {} was not settled as its connection is closed", deliveryId, this.endpoint);
+            return;
+        }
+
+        this.amqpStreamingReceivedHandler.requestSettlement(deliveryId, accepted);
+        this.reactorRunner.wakeup();
+    }
+
+    private void startConnection() throws IOException
+    {
+        this.connectionFailure = null;
+        this.receivedDeliveries.clear();
+        this.connectionGeneration++;
+        this.amqpStreamingReceivedHandler = new AmqpStreamingReceivedHandler(this.hostName, this.userName, this.sasToken,
+                this.iotHubServiceClientProtocol, this.proxyOptions, this.endpoint, this.linkTag, this.linkCredit, this);
+        this.reactorRunner = new ReactorRunner(this.amqpStreamingReceivedHandler, "AmqpStreamingReceiver");
+
+        final AmqpStreamingReceivedHandler handler = this.amqpStreamingReceivedHandler;
+        final ReactorRunner runner = this.reactorRunner;
+        this.reactorThread = new Thread(() -> runReactor(handler, runner));
+        this.reactorThread.setDaemon(true);
+        this.reactorThread.start();
+    }
+
+    private synchronized void reconnect()
+    {
+        if (!this.isOpen)
+        {
+            return;
+        }
+
+        log.info("Reopening streaming receiver on {}", this.endpoint);
+        try
+        {
+            startConnection();
+        }
+        catch (IOException e)
+        {
+            // the reactor thread is not running, so the dispatcher tries again after its next backoff
+            log.warn("Streaming receiver on {} could not be reopened", this.endpoint, e);
+        }
+    }
+
+    private void runReactor(AmqpStreamingReceivedHandler handler, ReactorRunner runner)
+    {
+        runner.run(Long.MAX_VALUE);
+
+        try
+        {
+            handler.verifyConnectionWasOpened();
+        }
+        catch (IOException e)
+        {
+            this.connectionFailure = e;
+        }
+
+        log.debug("Streaming receiver reactor on {} finished running", this.endpoint);
+    }
+
+    private void dispatch(Consumer<AmqpReceivedDelivery> callback)
+    {
+        long reconnectBackoffMilliseconds = RECONNECT_INITIAL_BACKOFF_MILLISECONDS;
+        while (this.isOpen)
+        {
+            AmqpReceivedDelivery delivery;
+            try
+            {
+                delivery = this.receivedDeliveries.poll(ReactorRunner.REACTOR_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                // close() was called
+                return;
+            }
+
+            if (delivery == null)
+            {
+                if (!this.reactorThread.isAlive())
+                {
+                    log.warn("Streaming receiver on {} lost its connection, reopening it in {} milliseconds",
+                            this.endpoint, reconnectBackoffMilliseconds, this.connectionFailure);
+                    try
+                    {
+                        Thread.sleep(reconnectBackoffMilliseconds);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // close() was called
+                        return;
+                    }
+
+                    reconnectBackoffMilliseconds = Math.min(reconnectBackoffMilliseconds * 2, RECONNECT_MAX_BACKOFF_MILLISECONDS);
+                    reconnect();
+                }
+
+                continue;
+            }
+
+            reconnectBackoffMilliseconds = RECONNECT_INITIAL_BACKOFF_MILLISECONDS;
+
+            try
+            {
+                callback.accept(delivery);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Streaming receiver callback threw, abandoning delivery", e);
+                delivery.abandon();
+            }
+        }
+    }
+
+    private void throwIfConnectionLost() throws IOException
+    {
+        if (this.reactorThread.isAlive())
+        {
+            return;
+        }
+
+        if (this.connectionFailure != null)
+        {
+            throw this.connectionFailure;
+        }
+
+        throw new IOException("Streaming receiver connection to " + this.endpoint + " was closed");
+    }
+}
@@ -38,7 +38,8 @@ public class ReactorRunner
             this.reactor.setTimeout(REACTOR_TIMEOUT);
 
             long startTime = System.currentTimeMillis();
-            long endTime = startTime + timeoutMs;
+            // Guard against overflow so that long lived receivers can run with a timeout of Long.MAX_VALUE
+            long endTime = timeoutMs > Long.MAX_VALUE - startTime ? Long.MAX_VALUE : startTime + timeoutMs;
 
             boolean closedBeforeTimeout = true;
             this.reactor.start();
@@ -114,5 +115,11 @@ public class ReactorRunner
         log.trace("Finished reactor thread {}", this.threadName);
     }
 
+    /**
+     * Wakes the reactor up so that it processes any work queued from another thread. Safe to call from any thread.
+     */
+    public void wakeup()
+    {
+        this.reactor.wakeup();
+    }
 }
-
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.transport.http;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * HTTPS request that is sent through a {@link ThrottlingPolicy}. An {@link HttpRequest} can only be sent once, so the
+ * settings made on this request are recorded and applied to a new request created for every attempt.
+ */
+final class ThrottledHttpRequest extends HttpRequest
+{
+    private final ThrottlingPolicy policy;
+    private final ThrottlingPolicy.OperationType operationType;
+    private final boolean retryServiceUnavailable;
+    private final ThrottlingPolicy.RequestFactory requestFactory;
+    private final List<Consumer<HttpRequest>> settings = new ArrayList<>();
+
+    ThrottledHttpRequest(ThrottlingPolicy policy, ThrottlingPolicy.OperationType operationType, boolean retryServiceUnavailable,
+                         ThrottlingPolicy.RequestFactory requestFactory)
+    {
+        super();
+        this.policy = policy;
+        this.operationType = operationType;
+        this.retryServiceUnavailable = retryServiceUnavailable;
+        this.requestFactory = requestFactory;
+    }
+
+    @Override
+    public HttpResponse send() throws IOException
+    {
+        return this.policy.send(this.operationType, this.retryServiceUnavailable, () ->
+        {
+            HttpRequest request = this.requestFactory.create();
+            for (Consumer<HttpRequest> setting : this.settings)
+            {
+                setting.accept(request);
+            }
+
+            return request.send();
+        });
+    }
+
+    @Override
+    public HttpRequest setHeaderField(String field, String value)
+    {
+        this.settings.add(request -> request.setHeaderField(field, value));
+        return this;
+    }
+
+    @Override
+    public HttpRequest setReadTimeoutMillis(int timeout)
+    {
+        this.settings.add(request -> request.setReadTimeoutMillis(timeout));
+        return this;
+    }
+
+    @Override
+    public HttpRequest setConnectTimeoutMillis(int timeout)
+    {
+        this.settings.add(request -> request.setConnectTimeoutMillis(timeout));
+        return this;
+    }
+}
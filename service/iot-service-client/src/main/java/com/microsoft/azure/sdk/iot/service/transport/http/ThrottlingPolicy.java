@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.transport.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client side rate limit and retry policy for the HTTPS requests of a service client. A
+ * {@link com.microsoft.azure.sdk.iot.service.RegistryManager} or {@link com.microsoft.azure.sdk.iot.service.devicetwin.DeviceTwin}
+ * creates its own policy from the {@link ThrottlingPolicyOptions} of its client options, so the policy only paces the
+ * requests of that client.
+ *
+ * <p>Each {@link OperationType} has a token bucket that paces its requests to a rate, by default the documented S1 tier
+ * quota of the IotHub. When the IotHub answers a request with {@code 429 Too Many Requests} or
+ * {@code 503 Service Unavailable}, the rate of its operation type is halved. A request answered with 429 was not
+ * processed, so it is always sent again, after the delay of its Retry-After header or a jittered exponential backoff.
+ * A request answered with 503 may have been processed, so it is only sent again if it is idempotent: a GET, PUT or
+ * DELETE, or a {@link OperationType#QUERY}. Other operation types, such as a direct method invocation or a bulk
+ * registry operation, only retry a 503 if they are listed in
+ * {@link ThrottlingPolicyOptions#getRetryServiceUnavailable()}. Each successful request then raises the rate again by a
+ * twentieth of its configured value. Requests that failed for any other reason are not retried.</p>
+ *
+ * <p>Without a policy, requests are sent once, without any rate limit, as before.</p>
+ */
+public final class ThrottlingPolicy
+{
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final String RETRY_AFTER = "retry-after";
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_FRACTION = 0.05;
+    private static final double MIN_RATE_FRACTION = 1.0 / 64;
+
+    private final Map<OperationType, TokenBucket> buckets = new EnumMap<>(OperationType.class);
+    private final Set<OperationType> retryServiceUnavailable = EnumSet.noneOf(OperationType.class);
+    private final int maxAttempts;
+    private final long baseRetryDelayMillis;
+    private final long maxRetryDelayMillis;
+
+    private final LongAdder throttledCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+
+    /**
+     * The classes of operations that the IotHub throttles separately
+     */
+    public enum OperationType
+    {
+        /** Create, retrieve, list, update and delete of devices, modules and registry statistics, 100/min/unit */
+        REGISTRY(100.0 / 60, 0),
+        /** Reads of device and module twins, the higher of 100/sec or 10/sec/unit */
+        TWIN_READ(10, 100),
+        /** Updates of device and module twins, the higher of 50/sec or 5/sec/unit */
+        TWIN_UPDATE(5, 50),
+        /** Direct method invocations, about 20/sec/unit */
+        DEVICE_METHOD(20, 0),
+        /** Create, update, get, list and cancel of jobs, 100/min/unit */
+        JOB(100.0 / 60, 0),
+        /** Twin and job queries, 20/min/unit */
+        QUERY(20.0 / 60, 0),
+        /** Configuration operations, 20/min/unit */
+        CONFIGURATION(20.0 / 60, 0);
+
+        private final double ratePerSecondPerUnit;
+        private final double minimumRatePerSecond;
+
+        OperationType(double ratePerSecondPerUnit, double minimumRatePerSecond)
+        {
+            this.ratePerSecondPerUnit = ratePerSecondPerUnit;
+            this.minimumRatePerSecond = minimumRatePerSecond;
+        }
+
+        /**
+         * Getter for the documented S1 tier quota of this operation type
+         * @param units the number of units of the IotHub
+         * @return the quota, in requests per second
+         */
+        public double getDefaultRatePerSecond(int units)
+        {
+            return Math.max(this.minimumRatePerSecond, this.ratePerSecondPerUnit * units);
+        }
+
+        /**
+         * Classifies a request by the path of its URL
+         * @param url the URL of the request
+         * @param method the method of the request
+         * @return the operation type that the IotHub throttles the request as
+         */
+        public static OperationType of(URL url, HttpMethod method)
+        {
+            String path = url.getPath();
+            if (path.endsWith("/methods"))
+            {
+                return DEVICE_METHOD;
+            }
+            else if (path.startsWith("/twins"))
+            {
+                return method == HttpMethod.GET ? TWIN_READ : TWIN_UPDATE;
+            }
+            else if (path.endsWith("/query"))
+            {
+                return QUERY;
+            }
+            else if (path.startsWith("/jobs"))
+            {
+                return JOB;
+            }
+            else if (path.startsWith("/configurations"))
+            {
+                return CONFIGURATION;
+            }
+
+            return REGISTRY;
+        }
+    }
+
+    /**
+     * Creates a new, unsent request for an attempt of a throttled request
+     */
+    @FunctionalInterface
+    public interface RequestFactory
+    {
+        /**
+         * Creates the request
+         * @return the request, ready to be sent
+         * @throws IOException if the request could not be created
+         */
+        HttpRequest create() throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Attempt
+    {
+        HttpResponse send() throws IOException;
+    }
+
+    /**
+     * Constructor for ThrottlingPolicy
+     * @param options the rates and retry settings of the policy
+     * @throws IllegalArgumentException if the options are null or a rate is not positive
+     */
+    public ThrottlingPolicy(ThrottlingPolicyOptions options) throws IllegalArgumentException
+    {
+        if (options == null)
+        {
+            throw new IllegalArgumentException("options cannot be null");
+        }
+
+        int units = options.getUnits() < 1 ? ThrottlingPolicyOptions.DEFAULT_UNITS : options.getUnits();
+        for (OperationType operationType : OperationType.values())
+        {
+            Double ratePerSecond = options.getRatesPerSecond().get(operationType);
+            if (ratePerSecond == null)
+            {
+                ratePerSecond = operationType.getDefaultRatePerSecond(units);
+            }
+            else if (!(ratePerSecond > 0))
+            {
+                throw new IllegalArgumentException("The rate of " + operationType + " must be positive");
+            }
+
+            this.buckets.put(operationType, new TokenBucket(ratePerSecond));
+        }
+
+        this.retryServiceUnavailable.addAll(options.getRetryServiceUnavailable());
+        this.maxAttempts = options.getMaxAttempts() < 1 ? ThrottlingPolicyOptions.DEFAULT_MAX_ATTEMPTS : options.getMaxAttempts();
+        this.baseRetryDelayMillis = options.getBaseRetryDelayMillis() < 1 ? ThrottlingPolicyOptions.DEFAULT_BASE_RETRY_DELAY_MS : options.getBaseRetryDelayMillis();
+        this.maxRetryDelayMillis = options.getMaxRetryDelayMillis() < 1 ? ThrottlingPolicyOptions.DEFAULT_MAX_RETRY_DELAY_MS : options.getMaxRetryDelayMillis();
+    }
+
+    /**
+     * Creates a request that is sent through this policy. The headers and timeouts set on the returned request are
+     * applied to the request created for every attempt.
+     * @param operationType the operation type to pace the request as
+     * @param method the method of the request, which decides if a 503 Service Unavailable response is retried
+     * @param requestFactory creates the request for each attempt
+     * @return the throttled request
+     * @throws IllegalArgumentException if the operationType, the method or the requestFactory is null
+     */
+    public HttpRequest createRequest(OperationType operationType, HttpMethod method, RequestFactory requestFactory) throws IllegalArgumentException
+    {
+        if (operationType == null || method == null || requestFactory == null)
+        {
+            throw new IllegalArgumentException("operationType, method and requestFactory cannot be null");
+        }
+
+        return new ThrottledHttpRequest(this, operationType, isServiceUnavailableRetried(operationType, method), requestFactory);
+    }
+
+    /**
+     * Getter for the current rate of an operation type
+     * @param operationType the operation type
+     * @return the rate, in requests per second, as adapted to the throttling of the IotHub
+     */
+    public double getRatePerSecond(OperationType operationType)
+    {
+        return this.buckets.get(operationType).getRatePerSecond();
+    }
+
+    /**
+     * Getter for the number of responses that were 429 Too Many Requests or 503 Service Unavailable
+     * @return the number of throttled responses
+     */
+    public long getThrottledCount()
+    {
+        return this.throttledCount.sum();
+    }
+
+    /**
+     * Getter for the number of times a throttled request was sent again
+     * @return the number of retries
+     */
+    public long getRetryCount()
+    {
+        return this.retryCount.sum();
+    }
+
+    HttpResponse send(OperationType operationType, boolean retryServiceUnavailable, Attempt attempt) throws IOException
+    {
+        TokenBucket bucket = this.buckets.get(operationType);
+        for (int attemptNumber = 1; ; attemptNumber++)
+        {
+            sleep(bucket.reserve());
+            HttpResponse response = attempt.send();
+            if (response.getStatus() != TOO_MANY_REQUESTS && response.getStatus() != SERVICE_UNAVAILABLE)
+            {
+                bucket.onSuccess();
+                return response;
+            }
+
+            this.throttledCount.increment();
+            bucket.onThrottled();
+            if (attemptNumber >= this.maxAttempts || (response.getStatus() == SERVICE_UNAVAILABLE && !retryServiceUnavailable))
+            {
+                // the caller verifies the response and throws the matching exception
+                return response;
+            }
+
+            this.retryCount.increment();
+            sleep(retryDelayMillis(response, attemptNumber));
+        }
+    }
+
+    private boolean isServiceUnavailableRetried(OperationType operationType, HttpMethod method)
+    {
+        return method == HttpMethod.GET || method == HttpMethod.PUT || method == HttpMethod.DELETE
+                || operationType == OperationType.QUERY || this.retryServiceUnavailable.contains(operationType);
+    }
+
+    private long retryDelayMillis(HttpResponse response, int attemptNumber)
+    {
+        long backoffMillis = Math.min(this.maxRetryDelayMillis, this.baseRetryDelayMillis << Math.min(attemptNumber - 1, 30));
+        long jitteredBackoffMillis = backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+
+        String retryAfter = response.getHeaderFields().get(RETRY_AFTER);
+        if (retryAfter != null)
+        {
+            try
+            {
+                // the IotHub sends a number of seconds, so a date is treated like a missing header
+                return Math.max(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())), jitteredBackoffMillis);
+            }
+            catch (NumberFormatException e)
+            {
+                return jitteredBackoffMillis;
+            }
+        }
+
+        return jitteredBackoffMillis;
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException
+    {
+        if (millis > 0)
+        {
+            try
+            {
+                Thread.sleep(millis);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to send a throttled request");
+            }
+        }
+    }
+
+    /**
+     * Token bucket with additive increase and multiplicative decrease of its rate. Requests reserve a token and wait
+     * for it if the bucket is empty, so the waiting requests are paced at the rate in the order they arrived.
+     */
+    private static final class TokenBucket
+    {
+        private final double maxRatePerSecond;
+        private final double minRatePerSecond;
+        private double ratePerSecond;
+        private double tokens;
+        private long lastRefillNanos;
+
+        private TokenBucket(double maxRatePerSecond)
+        {
+            this.maxRatePerSecond = maxRatePerSecond;
+            this.minRatePerSecond = maxRatePerSecond * MIN_RATE_FRACTION;
+            this.ratePerSecond = maxRatePerSecond;
+            this.tokens = capacity();
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * Takes a token, going into debt if there is none
+         * @return how long to wait, in milliseconds, before the token is available
+         */
+        private synchronized long reserve()
+        {
+            refill();
+            this.tokens--;
+            return this.tokens >= 0 ? 0 : (long) Math.ceil(-this.tokens * 1000 / this.ratePerSecond);
+        }
+
+        private synchronized void onSuccess()
+        {
+            this.ratePerSecond = Math.min(this.maxRatePerSecond, this.ratePerSecond + this.maxRatePerSecond * INCREASE_FRACTION);
+        }
+
+        private synchronized void onThrottled()
+        {
+            refill();
+            this.ratePerSecond = Math.max(this.minRatePerSecond, this.ratePerSecond * DECREASE_FACTOR);
+            // drop the burst, so that the next requests are paced at the new rate
+            this.tokens = Math.min(this.tokens, 0);
+        }
+
+        private synchronized double getRatePerSecond()
+        {
+            return this.ratePerSecond;
+        }
+
+        private void refill()
+        {
+            long now = System.nanoTime();
+            this.tokens = Math.min(capacity(), this.tokens + (now - this.lastRefillNanos) * this.ratePerSecond / TimeUnit.SECONDS.toNanos(1));
+            this.lastRefillNanos = now;
+        }
+
+        private double capacity()
+        {
+            // allow a burst of one second of requests, and at least one request
+            return Math.max(1, this.ratePerSecond);
+        }
+    }
+}
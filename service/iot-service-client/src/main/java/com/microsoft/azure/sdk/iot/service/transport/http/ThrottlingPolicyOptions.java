@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package com.microsoft.azure.sdk.iot.service.transport.http;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configurable options for a {@link ThrottlingPolicy}
+ */
+@Builder
+public class ThrottlingPolicyOptions
+{
+    protected static final int DEFAULT_UNITS = 1;
+    protected static final int DEFAULT_MAX_ATTEMPTS = 6;
+    protected static final int DEFAULT_BASE_RETRY_DELAY_MS = 1000; // 1 second
+    protected static final int DEFAULT_MAX_RETRY_DELAY_MS = 30000; // 30 seconds
+
+    /**
+     * The number of units of the IotHub, which scales the default rate of every operation type. Values less than 1 are
+     * interpreted as {@link #DEFAULT_UNITS}
+     */
+    @Getter
+    private int units;
+
+    /**
+     * The rates, in requests per second, that replace the S1 tier defaults of
+     * {@link ThrottlingPolicy.OperationType#getDefaultRatePerSecond(int)} for the given operation types
+     */
+    @Getter
+    @Singular("ratePerSecond")
+    private Map<ThrottlingPolicy.OperationType, Double> ratesPerSecond;
+
+    /**
+     * The operation types whose non-idempotent requests, such as a POST of a direct method invocation or of a bulk
+     * registry operation, are sent again when the IotHub answers them with 503 Service Unavailable. A 503 response
+     * does not tell if the request was processed, so by default only GET, PUT and DELETE requests and queries retry
+     * it. Requests answered with 429 Too Many Requests are always retried.
+     */
+    @Getter
+    @Singular("retryServiceUnavailable")
+    private Set<ThrottlingPolicy.OperationType> retryServiceUnavailable;
+
+    /**
+     * The maximum number of times a request is sent, including its first attempt, while the IotHub answers it with
+     * 429 Too Many Requests, or with 503 Service Unavailable if the request retries it. Values less than 1 are interpreted as
+     * {@link #DEFAULT_MAX_ATTEMPTS}
+     */
+    @Getter
+    private int maxAttempts;
+
+    /**
+     * The delay, in milliseconds, before the first retry of a throttled request that has no Retry-After header. It
+     * doubles with every further retry. Values less than 1 are interpreted as {@link #DEFAULT_BASE_RETRY_DELAY_MS}
+     */
+    @Getter
+    private int baseRetryDelayMillis;
+
+    /**
+     * The longest delay, in milliseconds, between two attempts of a request that has no Retry-After header. Values
+     * less than 1 are interpreted as {@link #DEFAULT_MAX_RETRY_DELAY_MS}
+     */
+    @Getter
+    private int maxRetryDelayMillis;
+}
@@ -0,0 +1,127 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.service;
+
+import com.microsoft.azure.sdk.iot.service.ExportImportDevice;
+import com.microsoft.azure.sdk.iot.service.ExportImportDeviceReader;
+import com.microsoft.azure.sdk.iot.service.auth.AuthenticationType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ExportImportDeviceReader.java
+ */
+public class ExportImportDeviceReaderTest
+{
+    private static String line(int index)
+    {
+        return "{\"id\":\"device" + index + "\",\"importMode\":\"Create\",\"authentication\":{\"type\":\"certificateAuthority\"}}";
+    }
+
+    private static ExportImportDeviceReader reader(String content, int chunkSize)
+    {
+        return new ExportImportDeviceReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), new ForkJoinPool(2), chunkSize);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForNullStream()
+    {
+        new ExportImportDeviceReader(null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForZeroChunkSize()
+    {
+        reader("", 0);
+    }
+
+    @Test
+    public void readsDevicesInLineOrder()
+    {
+        //arrange
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20; i++)
+        {
+            content.append(line(i)).append('\n');
+        }
+        ExportImportDeviceReader reader = reader(content.toString(), 3);
+
+        //act
+        List<String> ids = reader.stream().map(ExportImportDevice::getId).collect(Collectors.toList());
+
+        //assert
+        assertEquals(20, ids.size());
+        for (int i = 0; i < ids.size(); i++)
+        {
+            assertEquals("device" + i, ids.get(i));
+        }
+    }
+
+    @Test
+    public void skipsEmptyLines()
+    {
+        //arrange
+        ExportImportDeviceReader reader = reader(line(0) + "\n\n  \n" + line(1), 2);
+
+        //act
+        ExportImportDevice first = reader.next();
+        ExportImportDevice second = reader.next();
+
+        //assert
+        assertEquals("device0", first.getId());
+        assertEquals(AuthenticationType.CERTIFICATE_AUTHORITY, first.getAuthenticationFinal().getAuthenticationType());
+        assertEquals("device1", second.getId());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void invalidLineThrowsWithLineNumber()
+    {
+        //arrange
+        ExportImportDeviceReader reader = reader(line(0) + "\n" + line(1) + "\n{\"id\":\"device2\"}\n", 2);
+        reader.next();
+        reader.next();
+
+        //act
+        try
+        {
+            reader.next();
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            //assert
+            assertTrue(e.getMessage().startsWith("Line 3 "));
+        }
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void nextThrowsWhenExhausted()
+    {
+        reader("", 1).next();
+    }
+
+    @Test
+    public void closeStopsReading() throws IOException
+    {
+        //arrange
+        ExportImportDeviceReader reader = reader(line(0) + "\n" + line(1) + "\n" + line(2), 1);
+        reader.next();
+
+        //act
+        reader.close();
+
+        //assert
+        assertFalse(reader.hasNext());
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.service;
+
+import com.microsoft.azure.sdk.iot.service.ExportImportDevice;
+import com.microsoft.azure.sdk.iot.service.ExportImportDeviceReader;
+import com.microsoft.azure.sdk.iot.service.ExportImportDeviceWriter;
+import com.microsoft.azure.sdk.iot.service.ImportMode;
+import com.microsoft.azure.sdk.iot.service.auth.AuthenticationType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ExportImportDeviceWriter.java
+ */
+public class ExportImportDeviceWriterTest
+{
+    private static ExportImportDevice device(int index)
+    {
+        ExportImportDevice device = new ExportImportDevice("device" + index, AuthenticationType.SELF_SIGNED);
+        device.setImportMode(ImportMode.Create);
+        return device;
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForNullStream()
+    {
+        new ExportImportDeviceWriter(null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForZeroChunkSize()
+    {
+        new ExportImportDeviceWriter(new ByteArrayOutputStream(), ForkJoinPool.commonPool(), 0);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void writeThrowsForNullDevice() throws IOException
+    {
+        new ExportImportDeviceWriter(new ByteArrayOutputStream()).write(null);
+    }
+
+    @Test
+    public void writesOneLinePerDeviceInOrder() throws IOException
+    {
+        //arrange
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        List<ExportImportDevice> devices = new ArrayList<>();
+        for (int i = 0; i < 25; i++)
+        {
+            devices.add(device(i));
+        }
+
+        //act
+        try (ExportImportDeviceWriter writer = new ExportImportDeviceWriter(outputStream, new ForkJoinPool(2), 3))
+        {
+            for (ExportImportDevice device : devices)
+            {
+                writer.write(device);
+            }
+        }
+
+        //assert
+        String[] lines = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(devices.size(), lines.length);
+        for (int i = 0; i < lines.length; i++)
+        {
+            assertTrue(lines[i].contains("\"id\":\"device" + i + "\""));
+        }
+    }
+
+    @Test
+    public void writtenDevicesCanBeReadBack() throws IOException
+    {
+        //arrange
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ExportImportDeviceWriter writer = new ExportImportDeviceWriter(outputStream, ForkJoinPool.commonPool(), 4);
+        for (int i = 0; i < 10; i++)
+        {
+            writer.write(device(i));
+        }
+
+        //act
+        writer.flush();
+
+        //assert
+        ExportImportDeviceReader reader = new ExportImportDeviceReader(new ByteArrayInputStream(outputStream.toByteArray()));
+        for (int i = 0; i < 10; i++)
+        {
+            assertEquals(device(i).getId(), reader.next().getId());
+        }
+        assertFalse(reader.hasNext());
+    }
+}
@@ -8,22 +8,39 @@ package tests.unit.com.microsoft.azure.sdk.iot.service;
 import com.microsoft.azure.sdk.iot.service.FeedbackBatch;
 import com.microsoft.azure.sdk.iot.service.FeedbackReceiver;
 import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
+import com.microsoft.azure.sdk.iot.service.ReceivedDelivery;
 import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpReceive;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpReceivedDelivery;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpStreamingReceiver;
 import mockit.Deencapsulation;
 import mockit.Expectations;
 import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class FeedbackReceiverTest
 {
     @Mocked
     AmqpReceive amqpReceive;
 
+    @Mocked
+    AmqpStreamingReceiver amqpStreamingReceiver;
+
+    @Mocked
+    AmqpReceivedDelivery amqpReceivedDelivery;
+
     // Tests_SRS_SERVICE_SDK_JAVA_FEEDBACKRECEIVER_12_001: [The constructor shall throw IllegalArgumentException if any the input string is null or empty]
     // Assert
     @Test (expected = IllegalArgumentException.class)
@@ -751,4 +768,204 @@ public class FeedbackReceiverTest
         CompletableFuture<FeedbackBatch> completableFuture = feedbackReceiver.receiveAsync(timeoutMs);
         completableFuture.get();
     }
+
+    @Test
+    public void startReceivingOpensStreamingReceiverOnFeedbackEndpoint() throws Exception
+    {
+        // Arrange
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS);
+
+        // Act
+        feedbackReceiver.startReceiving(10);
+
+        // Assert
+        new Verifications()
+        {
+            {
+                new AmqpStreamingReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS, null, "/messages/servicebound/feedback", "receiver", 10);
+                times = 1;
+                amqpStreamingReceiver.open(null);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void startReceivingWithCallbackOpensStreamingReceiverInPushMode() throws Exception
+    {
+        // Arrange
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS);
+
+        // Act
+        feedbackReceiver.startReceiving(10, receivedDelivery -> {});
+
+        // Assert
+        new Verifications()
+        {
+            {
+                amqpStreamingReceiver.open((Consumer<AmqpReceivedDelivery>) withNotNull());
+                times = 1;
+            }
+        };
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void startReceivingThrowsIfAlreadyReceiving() throws Exception
+    {
+        // Arrange
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS);
+        feedbackReceiver.startReceiving(10);
+
+        // Act
+        feedbackReceiver.startReceiving(10);
+    }
+
+    @Test (expected = IOException.class)
+    public void receiveDeliveryThrowsIfNotReceiving() throws Exception
+    {
+        // Arrange
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS);
+
+        // Act
+        feedbackReceiver.receiveDelivery(1000);
+    }
+
+    @Test
+    public void receiveDeliveryParsesFeedbackBatchAndCompletesDelivery() throws Exception
+    {
+        // Arrange
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS);
+        feedbackReceiver.startReceiving(10);
+        new NonStrictExpectations()
+        {
+            {
+                amqpStreamingReceiver.receive(1000);
+                result = amqpReceivedDelivery;
+                amqpReceivedDelivery.getBody();
+                result = "[]";
+            }
+        };
+
+        // Act
+        ReceivedDelivery<FeedbackBatch> receivedDelivery = feedbackReceiver.receiveDelivery(1000);
+        receivedDelivery.complete();
+
+        // Assert
+        assertNotNull(receivedDelivery.getValue());
+        new Verifications()
+        {
+            {
+                amqpReceivedDelivery.complete();
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void receiveDeliveryReturnsNullOnTimeout() throws Exception
+    {
+        // Arrange
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS);
+        feedbackReceiver.startReceiving(10);
+        new NonStrictExpectations()
+        {
+            {
+                amqpStreamingReceiver.receive(anyLong);
+                result = null;
+            }
+        };
+
+        // Act
+        ReceivedDelivery<FeedbackBatch> receivedDelivery = feedbackReceiver.receiveDelivery(1000);
+
+        // Assert
+        assertNull(receivedDelivery);
+    }
+
+    @Test
+    public void receiveDeliveryCompletesAndSkipsMalformedFeedback() throws Exception
+    {
+        // Arrange
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS);
+        feedbackReceiver.startReceiving(10);
+        new NonStrictExpectations()
+        {
+            {
+                amqpStreamingReceiver.receive(anyLong);
+                returns(amqpReceivedDelivery, null);
+                amqpReceivedDelivery.getBody();
+                result = "{not json";
+            }
+        };
+
+        // Act
+        ReceivedDelivery<FeedbackBatch> receivedDelivery = feedbackReceiver.receiveDelivery(1000);
+
+        // Assert
+        assertNull(receivedDelivery);
+        new Verifications()
+        {
+            {
+                amqpReceivedDelivery.complete();
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void startReceivingWithCallbackSkipsMalformedFeedback() throws Exception
+    {
+        // Arrange
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS);
+        final List<ReceivedDelivery<FeedbackBatch>> receivedDeliveries = new ArrayList<>();
+        final List<Consumer<AmqpReceivedDelivery>> dispatchers = new ArrayList<>();
+        new NonStrictExpectations()
+        {
+            {
+                amqpReceivedDelivery.getBody();
+                result = "{not json";
+            }
+        };
+        feedbackReceiver.startReceiving(10, receivedDeliveries::add);
+        new Verifications()
+        {
+            {
+                amqpStreamingReceiver.open(withCapture(dispatchers));
+            }
+        };
+
+        // Act
+        dispatchers.get(0).accept(amqpReceivedDelivery);
+
+        // Assert
+        assertTrue(receivedDeliveries.isEmpty());
+        new Verifications()
+        {
+            {
+                amqpReceivedDelivery.complete();
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void stopReceivingClosesStreamingReceiver() throws Exception
+    {
+        // Arrange
+        FeedbackReceiver feedbackReceiver = new FeedbackReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS);
+        feedbackReceiver.startReceiving(10);
+
+        // Act
+        feedbackReceiver.stopReceiving();
+        feedbackReceiver.stopReceiving();
+
+        // Assert
+        new Verifications()
+        {
+            {
+                amqpStreamingReceiver.close();
+                times = 1;
+            }
+        };
+    }
 }
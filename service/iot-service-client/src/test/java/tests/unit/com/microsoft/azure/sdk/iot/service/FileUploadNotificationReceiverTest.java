@@ -9,15 +9,22 @@ import com.microsoft.azure.sdk.iot.service.ProxyOptions;
 import com.microsoft.azure.sdk.iot.service.FileUploadNotification;
 import com.microsoft.azure.sdk.iot.service.FileUploadNotificationReceiver;
 import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
+import com.microsoft.azure.sdk.iot.deps.serializer.FileUploadNotificationParser;
+import com.microsoft.azure.sdk.iot.service.ReceivedDelivery;
 import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpFileUploadNotificationReceive;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpReceivedDelivery;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpStreamingReceiver;
 import mockit.Deencapsulation;
 import mockit.Mocked;
+import mockit.NonStrictExpectations;
 import mockit.Verifications;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
 
+import static org.junit.Assert.assertNull;
+
 public class FileUploadNotificationReceiverTest
 {
     @Mocked
@@ -26,6 +33,18 @@ public class FileUploadNotificationReceiverTest
     @Mocked
     ProxyOptions mockedProxyOptions;
 
+    @Mocked
+    AmqpStreamingReceiver amqpStreamingReceiver;
+
+    @Mocked
+    AmqpReceivedDelivery amqpReceivedDelivery;
+
+    @Mocked
+    FileUploadNotificationParser mockedNotificationParser;
+
+    @Mocked
+    FileUploadNotification mockedNotification;
+
     // Tests_SRS_SERVICE_SDK_JAVA_FILEUPLOADNOTIFICATIONRECEIVER_25_001: [** The constructor shall throw IllegalArgumentException if any the input string is null or empty **]**
     // Assert
     @Test (expected = IllegalArgumentException.class)
@@ -364,4 +383,134 @@ public class FileUploadNotificationReceiverTest
         };
 
     }
+
+    private FileUploadNotificationReceiver createReceiver()
+    {
+        return Deencapsulation.newInstance(FileUploadNotificationReceiver.class, "xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS, mockedProxyOptions);
+    }
+
+    @Test
+    public void startReceivingOpensStreamingReceiverOnFileNotificationEndpoint() throws Exception
+    {
+        // Arrange
+        FileUploadNotificationReceiver fileUploadNotificationReceiver = createReceiver();
+
+        // Act
+        fileUploadNotificationReceiver.startReceiving(10);
+
+        // Assert
+        new Verifications()
+        {
+            {
+                new AmqpStreamingReceiver("xxx", "yyy", "zzz", IotHubServiceClientProtocol.AMQPS, mockedProxyOptions, "/messages/serviceBound/filenotifications", "filenotificationreceiver", 10);
+                times = 1;
+                amqpStreamingReceiver.open(null);
+                times = 1;
+            }
+        };
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void startReceivingThrowsIfAlreadyReceiving() throws Exception
+    {
+        // Arrange
+        FileUploadNotificationReceiver fileUploadNotificationReceiver = createReceiver();
+        fileUploadNotificationReceiver.startReceiving(10);
+
+        // Act
+        fileUploadNotificationReceiver.startReceiving(10);
+    }
+
+    @Test (expected = IOException.class)
+    public void receiveDeliveryThrowsIfNotReceiving() throws Exception
+    {
+        // Arrange
+        FileUploadNotificationReceiver fileUploadNotificationReceiver = createReceiver();
+
+        // Act
+        fileUploadNotificationReceiver.receiveDelivery(1000);
+    }
+
+    @Test
+    public void receiveDeliveryParsesNotification() throws Exception
+    {
+        // Arrange
+        FileUploadNotificationReceiver fileUploadNotificationReceiver = createReceiver();
+        fileUploadNotificationReceiver.startReceiving(10);
+        new NonStrictExpectations()
+        {
+            {
+                amqpStreamingReceiver.receive(anyLong);
+                result = amqpReceivedDelivery;
+                new FileUploadNotificationParser(anyString);
+                result = mockedNotificationParser;
+                mockedNotificationParser.getDeviceId();
+                result = "device";
+            }
+        };
+
+        // Act
+        ReceivedDelivery<FileUploadNotification> receivedDelivery = fileUploadNotificationReceiver.receiveDelivery(1000);
+
+        // Assert
+        new Verifications()
+        {
+            {
+                new FileUploadNotification("device", anyString, anyString, (java.util.Date) any, (Long) any, (java.util.Date) any);
+                times = 1;
+                amqpReceivedDelivery.complete();
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void receiveDeliveryCompletesAndSkipsMalformedNotification() throws Exception
+    {
+        // Arrange
+        FileUploadNotificationReceiver fileUploadNotificationReceiver = createReceiver();
+        fileUploadNotificationReceiver.startReceiving(10);
+        new NonStrictExpectations()
+        {
+            {
+                amqpStreamingReceiver.receive(anyLong);
+                returns(amqpReceivedDelivery, null);
+                new FileUploadNotificationParser(anyString);
+                result = new IllegalArgumentException("malformed");
+            }
+        };
+
+        // Act
+        ReceivedDelivery<FileUploadNotification> receivedDelivery = fileUploadNotificationReceiver.receiveDelivery(1000);
+
+        // Assert
+        assertNull(receivedDelivery);
+        new Verifications()
+        {
+            {
+                amqpReceivedDelivery.complete();
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void stopReceivingClosesStreamingReceiver() throws Exception
+    {
+        // Arrange
+        FileUploadNotificationReceiver fileUploadNotificationReceiver = createReceiver();
+        fileUploadNotificationReceiver.startReceiving(10);
+
+        // Act
+        fileUploadNotificationReceiver.stopReceiving();
+
+        // Assert
+        new Verifications()
+        {
+            {
+                amqpStreamingReceiver.close();
+                times = 1;
+            }
+        };
+    }
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.service;
+
+import com.microsoft.azure.sdk.iot.service.ReadCache;
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubNotFoundException;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the ReadCache
+ * 100% methods covered
+ */
+public class ReadCacheTest
+{
+    private static final String KEY = "https://hub.azure-devices.net/devices/device1";
+    private static final String BODY = "{\"deviceId\":\"device1\"}";
+    private static final String ETAG = "\"MTA=\"";
+
+    private static HttpResponse response(int status, String body, String eTag)
+    {
+        Map<String, List<String>> headers = new HashMap<>();
+        if (eTag != null)
+        {
+            headers.put("ETag", Collections.singletonList(eTag));
+        }
+
+        return new HttpResponse(status, body.getBytes(StandardCharsets.UTF_8), headers, new byte[0]);
+    }
+
+    private static class RecordingGet implements ReadCache.ConditionalGet
+    {
+        private final List<String> ifNoneMatches = new ArrayList<>();
+        private final HttpResponse response;
+
+        RecordingGet(HttpResponse response)
+        {
+            this.response = response;
+        }
+
+        @Override
+        public HttpResponse send(String ifNoneMatch)
+        {
+            this.ifNoneMatches.add(ifNoneMatch);
+            return this.response;
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroMaximumSize()
+    {
+        new ReadCache(0, 1000);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNegativeTimeToLive()
+    {
+        new ReadCache(10, -1);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getThrowsOnNullConditionalGet() throws Exception
+    {
+        new ReadCache(10, 1000).get(KEY, null);
+    }
+
+    @Test
+    public void getWithinTimeToLiveIsServedFromCache() throws Exception
+    {
+        //arrange
+        ReadCache cache = new ReadCache(10, 60000);
+        RecordingGet get = new RecordingGet(response(200, BODY, ETAG));
+
+        //act
+        String first = cache.get(KEY, get);
+        String second = cache.get(KEY, get);
+
+        //assert
+        assertEquals(BODY, first);
+        assertEquals(BODY, second);
+        assertEquals(Collections.singletonList((String) null), get.ifNoneMatches);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0.5, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void getAfterTimeToLiveRevalidatesWithETag() throws Exception
+    {
+        //arrange
+        ReadCache cache = new ReadCache(10, 0);
+        cache.get(KEY, new RecordingGet(response(200, BODY, ETAG)));
+        RecordingGet notModified = new RecordingGet(response(304, "", null));
+
+        //act
+        String body = cache.get(KEY, notModified);
+
+        //assert
+        assertEquals(BODY, body);
+        assertEquals(Collections.singletonList(ETAG), notModified.ifNoneMatches);
+        assertEquals(1, cache.getRevalidationCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void getAfterTimeToLiveReplacesChangedResource() throws Exception
+    {
+        //arrange
+        ReadCache cache = new ReadCache(10, 0);
+        cache.get(KEY, new RecordingGet(response(200, BODY, ETAG)));
+        String changedBody = "{\"deviceId\":\"device1\",\"status\":\"disabled\"}";
+        RecordingGet changed = new RecordingGet(response(200, changedBody, "\"MTE=\""));
+        RecordingGet next = new RecordingGet(response(304, "", null));
+
+        //act
+        String body = cache.get(KEY, changed);
+        cache.get(KEY, next);
+
+        //assert
+        assertEquals(changedBody, body);
+        assertEquals(Collections.singletonList("\"MTE=\""), next.ifNoneMatches);
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void getEvictsLeastRecentlyUsedEntry() throws Exception
+    {
+        //arrange
+        ReadCache cache = new ReadCache(2, 60000);
+        RecordingGet get = new RecordingGet(response(200, BODY, ETAG));
+        cache.get("a", get);
+        cache.get("b", get);
+        cache.get("a", get);
+
+        //act
+        cache.get("c", get);
+        cache.get("a", get);
+        cache.get("b", get);
+
+        //assert
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void invalidateRemovesEntry() throws Exception
+    {
+        //arrange
+        ReadCache cache = new ReadCache(10, 60000);
+        RecordingGet get = new RecordingGet(response(200, BODY, ETAG));
+        cache.get(KEY, get);
+
+        //act
+        cache.invalidate(KEY);
+        cache.get(KEY, get);
+
+        //assert
+        assertEquals(2, get.ifNoneMatches.size());
+        assertNull(get.ifNoneMatches.get(1));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void invalidateAllRemovesAllEntries() throws Exception
+    {
+        //arrange
+        ReadCache cache = new ReadCache(10, 60000);
+        RecordingGet get = new RecordingGet(response(200, BODY, ETAG));
+        cache.get("a", get);
+        cache.get("b", get);
+
+        //act
+        cache.invalidateAll();
+
+        //assert
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void getInvalidatesEntryOnFailure() throws Exception
+    {
+        //arrange
+        ReadCache cache = new ReadCache(10, 0);
+        cache.get(KEY, new RecordingGet(response(200, BODY, ETAG)));
+
+        //act
+        try
+        {
+            cache.get(KEY, ifNoneMatch ->
+            {
+                throw new IotHubNotFoundException();
+            });
+            fail("expected IotHubNotFoundException");
+        }
+        catch (IotHubNotFoundException expected)
+        {
+            // expected
+        }
+
+        //assert
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void getDoesNotCacheResponseThatRacedWithInvalidation() throws Exception
+    {
+        //arrange
+        final ReadCache cache = new ReadCache(10, 60000);
+
+        //act
+        String body = cache.get(KEY, ifNoneMatch ->
+        {
+            cache.invalidate(KEY);
+            return response(200, BODY, ETAG);
+        });
+
+        //assert
+        assertEquals(BODY, body);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void getHitRateIsZeroWithoutReads()
+    {
+        assertEquals(0.0, new ReadCache(10, 1000).getHitRate(), 0.0);
+    }
+
+    @Test (expected = IOException.class)
+    public void getRethrowsIOException() throws Exception
+    {
+        new ReadCache(10, 1000).get(KEY, ifNoneMatch ->
+        {
+            throw new IOException();
+        });
+    }
+}
@@ -12,11 +12,15 @@ import com.microsoft.azure.sdk.iot.deps.serializer.StorageAuthenticationType;
 import com.microsoft.azure.sdk.iot.service.*;
 import com.microsoft.azure.sdk.iot.service.Module;
 import com.microsoft.azure.sdk.iot.service.auth.IotHubServiceSasToken;
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubBadFormatException;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubExceptionManager;
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubTooManyRequestsException;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequest;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicyOptions;
 import mockit.*;
 import mockit.integration.junit4.JMockit;
 import org.junit.Test;
@@ -1090,6 +1094,13 @@ public class RegistryManagerTest
         String deviceId = "somedevice";
 
         commonExpectations(connectionString, deviceId);
+        new NonStrictExpectations()
+        {
+            {
+                registryManagerOptions.getThrottlingPolicyOptions();
+                result = null;
+            }
+        };
 
         RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString, registryManagerOptions);
 
@@ -1588,6 +1599,255 @@ public class RegistryManagerTest
         };
     }
 
+    @Test (expected = IllegalArgumentException.class)
+    public void addDevices_input_null() throws Exception
+    {
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString);
+
+        registryManager.addDevices(null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void addDevices_input_empty() throws Exception
+    {
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString);
+
+        registryManager.addDevices(new ArrayList<>());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void addDevices_input_contains_null() throws Exception
+    {
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString);
+        List<Device> devices = new ArrayList<>();
+        devices.add(null);
+
+        registryManager.addDevices(devices);
+    }
+
+    @Test
+    public void addDevices_sends_one_request_per_100_devices(@Mocked ExportImportDevice mockExportImportDevice) throws Exception
+    {
+        //arrange
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        bulkOperationExpectations(connectionString);
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString, RegistryManagerOptions.builder().bulkOperationParallelism(1).build());
+
+        //act
+        BulkRegistryOperationResult result = registryManager.addDevices(createDeviceList(150));
+
+        //assert
+        assertTrue(result.getIsSuccessful());
+        assertTrue(result.getErrors().isEmpty());
+        new Verifications()
+        {
+            {
+                new HttpRequest(mockUrl, HttpMethod.POST, (byte[]) any, (Proxy) any);
+                times = 2;
+                mockExportImportDevice.setImportMode(ImportMode.Create);
+                times = 150;
+            }
+        };
+    }
+
+    @Test
+    public void addDevices_after_close_starts_the_executor_again(@Mocked ExportImportDevice mockExportImportDevice) throws Exception
+    {
+        //arrange
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        bulkOperationExpectations(connectionString);
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString, RegistryManagerOptions.builder().bulkOperationParallelism(2).build());
+        Deencapsulation.setField(registryManager, "executor", mockExecutorService);
+        new NonStrictExpectations()
+        {
+            {
+                mockExecutorService.isShutdown();
+                result = true;
+            }
+        };
+
+        //act
+        BulkRegistryOperationResult result = registryManager.addDevices(createDeviceList(150));
+
+        //assert
+        assertTrue(result.getIsSuccessful());
+        assertNotSame(mockExecutorService, Deencapsulation.getField(registryManager, "executor"));
+        new Verifications()
+        {
+            {
+                new HttpRequest(mockUrl, HttpMethod.POST, (byte[]) any, (Proxy) any);
+                times = 2;
+                mockExecutorService.submit((Runnable) any);
+                times = 0;
+            }
+        };
+        registryManager.close();
+    }
+
+    @Test
+    public void updateDevices_uses_update_import_mode(@Mocked ExportImportDevice mockExportImportDevice) throws Exception
+    {
+        //arrange
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        bulkOperationExpectations(connectionString);
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString, RegistryManagerOptions.builder().bulkOperationParallelism(1).build());
+
+        //act
+        registryManager.updateDevices(createDeviceList(2));
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockExportImportDevice.setImportMode(ImportMode.Update);
+                times = 2;
+                new HttpRequest(mockUrl, HttpMethod.POST, (byte[]) any, (Proxy) any);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void removeDevices_uses_delete_import_mode(@Mocked ExportImportDevice mockExportImportDevice) throws Exception
+    {
+        //arrange
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        bulkOperationExpectations(connectionString);
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString, RegistryManagerOptions.builder().bulkOperationParallelism(1).build());
+
+        //act
+        registryManager.removeDevices(createDeviceList(2));
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockExportImportDevice.setImportMode(ImportMode.Delete);
+                times = 2;
+            }
+        };
+    }
+
+    @Test
+    public void addDevices_returns_per_device_errors(@Mocked ExportImportDevice mockExportImportDevice) throws Exception
+    {
+        //arrange
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        bulkOperationExpectations(connectionString);
+        new NonStrictExpectations()
+        {
+            {
+                mockHttpResponse.getBody();
+                result = "{\"isSuccessful\":false,\"errors\":[{\"deviceId\":\"device1\",\"errorCode\":\"DeviceAlreadyExists\",\"errorStatus\":\"exists\"}]}".getBytes();
+            }
+        };
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString, RegistryManagerOptions.builder().bulkOperationParallelism(1).build());
+
+        //act
+        BulkRegistryOperationResult result = registryManager.addDevices(createDeviceList(2));
+
+        //assert
+        assertFalse(result.getIsSuccessful());
+        assertEquals(1, result.getErrors().size());
+        assertEquals("device1", result.getErrors().get(0).getDeviceId());
+        assertEquals("DeviceAlreadyExists", result.getErrors().get(0).getErrorCode());
+    }
+
+    @Test
+    public void addDevices_retries_throttled_request(@Mocked ExportImportDevice mockExportImportDevice) throws Exception
+    {
+        //arrange
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        bulkOperationExpectations(connectionString);
+        new NonStrictExpectations()
+        {
+            {
+                IotHubExceptionManager.httpResponseVerification((HttpResponse) any);
+                result = new IotHubTooManyRequestsException();
+                result = null;
+            }
+        };
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString, RegistryManagerOptions.builder().bulkOperationParallelism(1).build());
+
+        //act
+        BulkRegistryOperationResult result = registryManager.addDevices(createDeviceList(2));
+
+        //assert
+        assertTrue(result.getIsSuccessful());
+        new Verifications()
+        {
+            {
+                mockHttpRequest.send();
+                times = 2;
+            }
+        };
+    }
+
+    @Test
+    public void addDevices_with_throttling_policy_sends_each_chunk_at_most_max_attempts_times(@Mocked ExportImportDevice mockExportImportDevice) throws Exception
+    {
+        //arrange
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        bulkOperationExpectations(connectionString);
+        new NonStrictExpectations()
+        {
+            {
+                mockUrl.getPath();
+                result = "/devices";
+                mockHttpResponse.getStatus();
+                result = 429;
+                IotHubExceptionManager.httpResponseVerification((HttpResponse) any);
+                result = new IotHubTooManyRequestsException();
+            }
+        };
+        ThrottlingPolicyOptions throttlingPolicyOptions = ThrottlingPolicyOptions.builder()
+                .ratePerSecond(ThrottlingPolicy.OperationType.REGISTRY, 1000.0).maxAttempts(3).baseRetryDelayMillis(1).maxRetryDelayMillis(1).build();
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString,
+                RegistryManagerOptions.builder().bulkOperationParallelism(1).throttlingPolicyOptions(throttlingPolicyOptions).build());
+
+        //act
+        BulkRegistryOperationResult result = registryManager.addDevices(createDeviceList(2));
+
+        //assert
+        assertFalse(result.getIsSuccessful());
+        assertEquals(2, result.getErrors().size());
+        new Verifications()
+        {
+            {
+                mockHttpRequest.send();
+                times = 3;
+            }
+        };
+    }
+
+    @Test
+    public void addDevices_failed_request_reports_every_device_in_it(@Mocked ExportImportDevice mockExportImportDevice) throws Exception
+    {
+        //arrange
+        String connectionString = "HostName=aaa.bbb.ccc;SharedAccessKeyName=XXX;SharedAccessKey=YYY";
+        bulkOperationExpectations(connectionString);
+        new NonStrictExpectations()
+        {
+            {
+                IotHubExceptionManager.httpResponseVerification((HttpResponse) any);
+                result = new IotHubBadFormatException("bad request");
+            }
+        };
+        RegistryManager registryManager = RegistryManager.createFromConnectionString(connectionString, RegistryManagerOptions.builder().bulkOperationParallelism(1).build());
+
+        //act
+        BulkRegistryOperationResult result = registryManager.addDevices(createDeviceList(3));
+
+        //assert
+        assertFalse(result.getIsSuccessful());
+        assertEquals(3, result.getErrors().size());
+        assertEquals("IotHubBadFormatException", result.getErrors().get(0).getErrorCode());
+        assertEquals("bad request", result.getErrors().get(0).getErrorStatus());
+    }
+
     // Tests_SRS_SERVICE_SDK_JAVA_REGISTRYMANAGER_28_001: [The constructor shall throw IllegalArgumentException if the input module is null]
     // Assert
     @Test (expected = IllegalArgumentException.class)
@@ -2530,6 +2790,34 @@ public class RegistryManagerTest
         assertNotNull(responseDevice);
     }
 
+    private void bulkOperationExpectations(String connectionString) throws Exception
+    {
+        new NonStrictExpectations()
+        {
+            {
+                IotHubConnectionStringBuilder.createConnectionString(connectionString);
+                result = iotHubConnectionString;
+                iotHubConnectionString.getUrlDevices();
+                result = mockUrl;
+                mockHttpRequest.send();
+                result = mockHttpResponse;
+                mockHttpResponse.getBody();
+                result = "{\"isSuccessful\":true}".getBytes();
+            }
+        };
+    }
+
+    private List<Device> createDeviceList(int numberOfDevices)
+    {
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < numberOfDevices; i++)
+        {
+            devices.add(device);
+        }
+
+        return devices;
+    }
+
     private void getDevicesExpectations(String connectionString, int numberOfDevices) throws Exception
     {
         new NonStrictExpectations()
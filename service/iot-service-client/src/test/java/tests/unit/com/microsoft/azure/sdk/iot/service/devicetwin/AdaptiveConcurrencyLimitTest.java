@@ -0,0 +1,92 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package tests.unit.com.microsoft.azure.sdk.iot.service.devicetwin;
+
+import mockit.Deencapsulation;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimit.java
+ */
+public class AdaptiveConcurrencyLimitTest
+{
+    private static final String CLASS_NAME = "com.microsoft.azure.sdk.iot.service.devicetwin.AdaptiveConcurrencyLimit";
+
+    private static Object createLimit(int maxLimit)
+    {
+        return Deencapsulation.newInstance(CLASS_NAME, new Class[] {int.class}, maxLimit);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnZeroMaxLimit()
+    {
+        createLimit(0);
+    }
+
+    @Test
+    public void limitStartsAtMaxLimit()
+    {
+        //act
+        Object limit = createLimit(8);
+
+        //assert
+        assertEquals(8, (int) Deencapsulation.invoke(limit, "getLimit"));
+    }
+
+    @Test
+    public void onThrottledHalvesLimitDownToOne()
+    {
+        //arrange
+        Object limit = createLimit(8);
+
+        //act
+        Deencapsulation.invoke(limit, "onThrottled");
+        assertEquals(4, (int) Deencapsulation.invoke(limit, "getLimit"));
+        Deencapsulation.invoke(limit, "onThrottled");
+        Deencapsulation.invoke(limit, "onThrottled");
+        Deencapsulation.invoke(limit, "onThrottled");
+
+        //assert
+        assertEquals(1, (int) Deencapsulation.invoke(limit, "getLimit"));
+    }
+
+    @Test
+    public void onSuccessGrowsLimitAfterLimitSuccessesUpToMaxLimit()
+    {
+        //arrange
+        Object limit = createLimit(4);
+        Deencapsulation.invoke(limit, "onThrottled");
+
+        //act
+        Deencapsulation.invoke(limit, "onSuccess");
+        assertEquals(2, (int) Deencapsulation.invoke(limit, "getLimit"));
+        Deencapsulation.invoke(limit, "onSuccess");
+        assertEquals(3, (int) Deencapsulation.invoke(limit, "getLimit"));
+        for (int i = 0; i < 10; i++)
+        {
+            Deencapsulation.invoke(limit, "onSuccess");
+        }
+
+        //assert
+        assertEquals(4, (int) Deencapsulation.invoke(limit, "getLimit"));
+    }
+
+    @Test
+    public void acquireAndReleaseTrackRequestsInFlight() throws Exception
+    {
+        //arrange
+        Object limit = createLimit(2);
+
+        //act
+        Deencapsulation.invoke(limit, "acquire");
+        Deencapsulation.invoke(limit, "acquire");
+        assertEquals(2, (int) Deencapsulation.getField(limit, "inFlight"));
+        Deencapsulation.invoke(limit, "release");
+
+        //assert
+        assertEquals(1, (int) Deencapsulation.getField(limit, "inFlight"));
+    }
+}
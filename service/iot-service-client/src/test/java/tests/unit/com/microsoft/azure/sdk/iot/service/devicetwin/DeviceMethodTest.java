@@ -8,10 +8,14 @@ import com.microsoft.azure.sdk.iot.service.IotHubConnectionString;
 import com.microsoft.azure.sdk.iot.service.IotHubConnectionStringBuilder;
 import com.microsoft.azure.sdk.iot.service.auth.IotHubServiceSasToken;
 import com.microsoft.azure.sdk.iot.service.devicetwin.DeviceMethod;
+import com.microsoft.azure.sdk.iot.service.devicetwin.DeviceMethodFanOutOptions;
+import com.microsoft.azure.sdk.iot.service.devicetwin.DeviceMethodFanOutResult;
 import com.microsoft.azure.sdk.iot.service.devicetwin.DeviceOperations;
 import com.microsoft.azure.sdk.iot.service.devicetwin.Job;
 import com.microsoft.azure.sdk.iot.service.devicetwin.MethodResult;
+import com.microsoft.azure.sdk.iot.service.devicetwin.PrefetchingQueryIterator;
 import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubTooManyRequestsException;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
 import mockit.*;
@@ -19,15 +23,15 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 /**
  * Unit tests for Device Method
@@ -696,4 +700,213 @@ public class DeviceMethodTest
         testMethod.scheduleDeviceMethod(queryCondition, STANDARD_METHODNAME, STANDARD_TIMEOUT_SECONDS, STANDARD_TIMEOUT_SECONDS, STANDARD_PAYLOAD_MAP, now, maxExecutionTimeInSeconds);
     }
 
+    @Test (expected = IllegalArgumentException.class)
+    public void invokeOnDevicesThrowsOnNullDeviceIds() throws Exception
+    {
+        //arrange
+        DeviceMethod testMethod = DeviceMethod.createFromConnectionString(STANDARD_CONNECTIONSTRING);
+
+        //act
+        testMethod.invokeOnDevices(null, STANDARD_METHODNAME, STANDARD_PAYLOAD_MAP, null, new ArrayList<DeviceMethodFanOutResult>()::add);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void invokeOnDevicesThrowsOnEmptyMethodName() throws Exception
+    {
+        //arrange
+        DeviceMethod testMethod = DeviceMethod.createFromConnectionString(STANDARD_CONNECTIONSTRING);
+
+        //act
+        testMethod.invokeOnDevices(Collections.singletonList(STANDARD_DEVICEID), "", STANDARD_PAYLOAD_MAP, null, new ArrayList<DeviceMethodFanOutResult>()::add);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void invokeOnDevicesThrowsOnNullCallback() throws Exception
+    {
+        //arrange
+        DeviceMethod testMethod = DeviceMethod.createFromConnectionString(STANDARD_CONNECTIONSTRING);
+
+        //act
+        testMethod.invokeOnDevices(Collections.singletonList(STANDARD_DEVICEID), STANDARD_METHODNAME, STANDARD_PAYLOAD_MAP, null, null);
+    }
+
+    @Test
+    public void invokeOnDevicesReportsResultPerDevice(
+            @Mocked final MethodParser methodParser,
+            @Mocked final DeviceOperations request)
+            throws Exception
+    {
+        //arrange
+        DeviceMethod testMethod = DeviceMethod.createFromConnectionString(STANDARD_CONNECTIONSTRING);
+        final List<String> deviceIds = Arrays.asList("device1", "device2", "device3", null);
+        final List<DeviceMethodFanOutResult> results = new ArrayList<>();
+        new NonStrictExpectations()
+        {
+            {
+                methodParser.toJson();
+                result = STANDARD_JSON;
+                methodParser.getStatus();
+                result = 200;
+                DeviceOperations.request((IotHubConnectionString) any, (URL) any, (HttpMethod) any, (byte[]) any, anyString, anyLong, (Map<String, String>) any);
+                result = new HttpResponse(200, new byte[0], new HashMap<String, List<String>>(), new byte[0]);
+            }
+        };
+
+        //act
+        testMethod.invokeOnDevices(deviceIds, STANDARD_METHODNAME, STANDARD_PAYLOAD_MAP,
+                DeviceMethodFanOutOptions.builder().maxConcurrency(2).build(), results::add);
+
+        //assert
+        assertEquals(4, results.size());
+        Set<String> succeededDeviceIds = new HashSet<>();
+        for (DeviceMethodFanOutResult result : results)
+        {
+            if (result.getDeviceId() == null)
+            {
+                assertFalse(result.isSuccessful());
+                assertTrue(result.getException() instanceof IllegalArgumentException);
+            }
+            else
+            {
+                assertTrue(result.isSuccessful());
+                assertThat(result.getMethodResult().getStatus(), is(200));
+                succeededDeviceIds.add(result.getDeviceId());
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList("device1", "device2", "device3")), succeededDeviceIds);
+        new Verifications()
+        {
+            {
+                DeviceOperations.request((IotHubConnectionString) any, (URL) any, HttpMethod.POST, (byte[]) any, anyString, anyLong, Collections.<String, String>emptyMap());
+                times = 3;
+            }
+        };
+    }
+
+    @Test
+    public void invokeOnDevicesRetriesThrottledInvocation(
+            @Mocked final MethodParser methodParser)
+            throws Exception
+    {
+        //arrange
+        DeviceMethod testMethod = DeviceMethod.createFromConnectionString(STANDARD_CONNECTIONSTRING);
+        final List<DeviceMethodFanOutResult> results = new ArrayList<>();
+        final AtomicInteger requestCount = new AtomicInteger();
+        new NonStrictExpectations()
+        {
+            {
+                methodParser.toJson();
+                result = STANDARD_JSON;
+            }
+        };
+        new MockUp<DeviceOperations>()
+        {
+            @Mock HttpResponse request(IotHubConnectionString iotHubConnectionString, URL url, HttpMethod method,
+                                       byte[] payload, String requestId, long timeoutInMs, Map<String, String> requestHeaders)
+                    throws IOException, IotHubException, IllegalArgumentException
+            {
+                if (requestCount.incrementAndGet() == 1)
+                {
+                    throw new IotHubTooManyRequestsException();
+                }
+                return new HttpResponse(200, new byte[0], new HashMap<String, List<String>>(), new byte[0]);
+            }
+        };
+
+        //act
+        testMethod.invokeOnDevices(Collections.singletonList(STANDARD_DEVICEID), STANDARD_METHODNAME, STANDARD_PAYLOAD_MAP,
+                DeviceMethodFanOutOptions.builder().maxThrottleRetries(1).build(), results::add);
+
+        //assert
+        assertEquals(2, requestCount.get());
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).isSuccessful());
+    }
+
+    @Test
+    public void invokeOnDevicesReportsThrottlingWhenRetriesAreExhausted() throws Exception
+    {
+        //arrange
+        DeviceMethod testMethod = DeviceMethod.createFromConnectionString(STANDARD_CONNECTIONSTRING);
+        final List<DeviceMethodFanOutResult> results = new ArrayList<>();
+        new MockUp<DeviceOperations>()
+        {
+            @Mock HttpResponse request(IotHubConnectionString iotHubConnectionString, URL url, HttpMethod method,
+                                       byte[] payload, String requestId, long timeoutInMs, Map<String, String> requestHeaders)
+                    throws IOException, IotHubException, IllegalArgumentException
+            {
+                throw new IotHubTooManyRequestsException();
+            }
+        };
+
+        //act
+        testMethod.invokeOnDevices(Collections.singletonList(STANDARD_DEVICEID), STANDARD_METHODNAME, STANDARD_PAYLOAD_MAP,
+                DeviceMethodFanOutOptions.builder().maxThrottleRetries(0).build(), results::add);
+
+        //assert
+        assertEquals(1, results.size());
+        assertEquals(STANDARD_DEVICEID, results.get(0).getDeviceId());
+        assertNull(results.get(0).getMethodResult());
+        assertTrue(results.get(0).getException() instanceof IotHubTooManyRequestsException);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void invokeOnQueryThrowsOnNullQuery() throws Exception
+    {
+        //arrange
+        DeviceMethod testMethod = DeviceMethod.createFromConnectionString(STANDARD_CONNECTIONSTRING);
+
+        //act
+        testMethod.invokeOnQuery(null, STANDARD_METHODNAME, STANDARD_PAYLOAD_MAP, null, new ArrayList<DeviceMethodFanOutResult>()::add);
+    }
+
+    @Test
+    public void invokeOnQueryWaitsForStartedInvocationsWhenQueryFails(
+            @Mocked final MethodParser methodParser,
+            @Mocked final PrefetchingQueryIterator<String> mockDeviceIds)
+            throws Exception
+    {
+        //arrange
+        DeviceMethod testMethod = DeviceMethod.createFromConnectionString(STANDARD_CONNECTIONSTRING);
+        final AtomicBoolean isInvocationFinished = new AtomicBoolean();
+        new NonStrictExpectations()
+        {
+            {
+                methodParser.toJson();
+                result = STANDARD_JSON;
+                mockDeviceIds.hasNext();
+                result = true;
+                result = new CompletionException(new IOException());
+                mockDeviceIds.next();
+                result = STANDARD_DEVICEID;
+            }
+        };
+        new MockUp<DeviceOperations>()
+        {
+            @Mock HttpResponse request(IotHubConnectionString iotHubConnectionString, URL url, HttpMethod method,
+                                       byte[] payload, String requestId, long timeoutInMs, Map<String, String> requestHeaders)
+            {
+                // like the http request, not interrupted by the shutdown of the fan out
+                long end = System.currentTimeMillis() + 200;
+                while (System.currentTimeMillis() < end)
+                {
+                    Thread.yield();
+                }
+                isInvocationFinished.set(true);
+                return new HttpResponse(200, new byte[0], new HashMap<String, List<String>>(), new byte[0]);
+            }
+        };
+
+        //act
+        try
+        {
+            testMethod.invokeOnQuery("select * from devices", STANDARD_METHODNAME, STANDARD_PAYLOAD_MAP, null, result -> { });
+            fail("the failure of the query should be rethrown");
+        }
+        catch (CompletionException e)
+        {
+            //assert
+            assertTrue(isInvocationFinished.get());
+        }
+    }
 }
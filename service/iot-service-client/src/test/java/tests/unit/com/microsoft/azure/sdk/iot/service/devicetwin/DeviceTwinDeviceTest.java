@@ -1289,4 +1289,114 @@ public class DeviceTwinDeviceTest
         //assert
         assertEquals(expectedModuleId, Deencapsulation.getField(testDeviceTwinDevice, "moduleId"));
     }
+
+    private static Set<Pair> pairs(Object... keysAndValues)
+    {
+        Set<Pair> pairs = new HashSet<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            pairs.add(new Pair((String) keysAndValues[i], keysAndValues[i + 1]));
+        }
+        return pairs;
+    }
+
+    @Test
+    public void hasChangesReturnsFalseRightAfterBaseline()
+    {
+        //arrange
+        DeviceTwinDevice testDevice = new DeviceTwinDevice("testDevice");
+        testDevice.setTags(pairs("floor", 2));
+        testDevice.setDesiredProperties(pairs("fw", "1.0"));
+
+        //act
+        Deencapsulation.invoke(testDevice, "markAsBaseline");
+
+        //assert
+        assertFalse(testDevice.hasChanges());
+        assertTrue(((Map) Deencapsulation.invoke(testDevice, "getTagsChanges")).isEmpty());
+        assertTrue(((Map) Deencapsulation.invoke(testDevice, "getDesiredPropertiesChanges")).isEmpty());
+    }
+
+    @Test
+    public void desiredPropertiesChangesContainOnlyModifiedAddedAndRemovedProperties()
+    {
+        //arrange
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("min", 1);
+        nested.put("max", 2);
+        DeviceTwinDevice testDevice = new DeviceTwinDevice("testDevice");
+        testDevice.setDesiredProperties(pairs("count", 1, "fw", "1.0", "range", nested, "obsolete", "x"));
+        Deencapsulation.invoke(testDevice, "markAsBaseline");
+
+        Map<String, Object> newNested = new HashMap<>();
+        newNested.put("min", 1);
+        newNested.put("max", 3);
+        testDevice.setDesiredProperties(pairs("count", 1.0, "fw", "2.0", "range", newNested, "obsolete", null, "added", true, "neverSet", null));
+
+        //act
+        Map<String, Object> changes = Deencapsulation.invoke(testDevice, "getDesiredPropertiesChanges");
+
+        //assert
+        assertTrue(testDevice.hasChanges());
+        assertEquals(4, changes.size());
+        assertEquals("2.0", changes.get("fw"));
+        assertEquals(true, changes.get("added"));
+        assertTrue(changes.containsKey("obsolete"));
+        assertNull(changes.get("obsolete"));
+        Map<String, Object> rangeChanges = (Map<String, Object>) changes.get("range");
+        assertEquals(1, rangeChanges.size());
+        assertEquals(3, rangeChanges.get("max"));
+    }
+
+    @Test
+    public void tagsChangesContainAllTagsWithoutBaseline()
+    {
+        //arrange
+        DeviceTwinDevice testDevice = new DeviceTwinDevice("testDevice");
+        testDevice.setTags(pairs("floor", 2, "building", "43"));
+
+        //act
+        Map<String, Object> changes = Deencapsulation.invoke(testDevice, "getTagsChanges");
+
+        //assert
+        assertEquals(2, changes.size());
+        assertEquals(2, changes.get("floor"));
+        assertEquals("43", changes.get("building"));
+    }
+
+    @Test
+    public void baselineIsNotAffectedByInPlaceChanges()
+    {
+        //arrange
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("room", "a");
+        DeviceTwinDevice testDevice = new DeviceTwinDevice("testDevice");
+        testDevice.setTags(pairs("location", nested));
+        Deencapsulation.invoke(testDevice, "markAsBaseline");
+
+        //act
+        TwinCollection location = (TwinCollection) testDevice.getTags().iterator().next().getValue();
+        location.putFinal("room", "b");
+
+        //assert
+        assertTrue(testDevice.hasChanges());
+        Map<String, Object> changes = Deencapsulation.invoke(testDevice, "getTagsChanges");
+        assertEquals("b", ((Map<String, Object>) changes.get("location")).get("room"));
+    }
+
+    @Test
+    public void clearedCollectionsHaveNoChanges()
+    {
+        //arrange
+        DeviceTwinDevice testDevice = new DeviceTwinDevice("testDevice");
+        testDevice.setTags(pairs("floor", 2));
+        testDevice.setDesiredProperties(pairs("fw", "1.0"));
+        Deencapsulation.invoke(testDevice, "markAsBaseline");
+
+        //act
+        testDevice.clearTwin();
+
+        //assert
+        assertFalse(testDevice.hasChanges());
+    }
 }
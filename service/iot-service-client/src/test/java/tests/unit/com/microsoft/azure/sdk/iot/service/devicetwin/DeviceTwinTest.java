@@ -15,6 +15,7 @@ import com.microsoft.azure.sdk.iot.service.exceptions.IotHubExceptionManager;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequest;
 import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
 import mockit.*;
 import org.junit.Before;
 import org.junit.Test;
@@ -756,6 +757,167 @@ public class DeviceTwinTest
         testTwin.updateTwin(mockedDevice);
     }
 
+    private static DeviceTwinDevice createTrackedDevice()
+    {
+        Set<Pair> desired = new HashSet<>();
+        desired.add(new Pair("fw", "1.0"));
+        desired.add(new Pair("interval", 10));
+        desired.add(new Pair("obsolete", "x"));
+        Set<Pair> tags = new HashSet<>();
+        tags.add(new Pair("floor", 2));
+
+        DeviceTwinDevice device = new DeviceTwinDevice("SomeDevID");
+        device.setDesiredProperties(desired);
+        device.setTags(tags);
+        device.setETag("AAAAAAAAAAE=");
+        Deencapsulation.invoke(device, "markAsBaseline");
+        return device;
+    }
+
+    @Test
+    public void updateTwinChangesOnlySendsMergePatchWithETag() throws Exception
+    {
+        //arrange
+        DeviceTwin testTwin = DeviceTwin.createFromConnectionString("testString");
+        DeviceTwinDevice device = createTrackedDevice();
+        Set<Pair> desired = new HashSet<>();
+        desired.add(new Pair("fw", "2.0"));
+        desired.add(new Pair("interval", 10));
+        desired.add(new Pair("obsolete", null));
+        device.setDesiredProperties(desired);
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpResponse.getBody();
+                result = new byte[0];
+            }
+        };
+
+        //act
+        testTwin.updateTwin(device, TwinUpdateMode.CHANGES_ONLY);
+
+        //assert
+        assertFalse(device.hasChanges());
+        new Verifications()
+        {
+            {
+                List<byte[]> payloads = new ArrayList<>();
+                new HttpRequest((URL) any, HttpMethod.PATCH, withCapture(payloads));
+                times = 1;
+                assertEquals("{\"properties\":{\"desired\":{\"fw\":\"2.0\",\"obsolete\":null}}}", new String(payloads.get(0), "UTF-8"));
+                mockedHttpRequest.setHeaderField("If-Match", "\"AAAAAAAAAAE=\"");
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void updateTwinChangesOnlyDoesNotSendRequestWithoutChanges() throws Exception
+    {
+        //arrange
+        DeviceTwin testTwin = DeviceTwin.createFromConnectionString("testString");
+        DeviceTwinDevice device = createTrackedDevice();
+
+        //act
+        testTwin.updateTwin(device, TwinUpdateMode.CHANGES_ONLY);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedHttpRequest.send();
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void updateTwinChangesOnlyRefreshesDeviceFromResponse() throws Exception
+    {
+        //arrange
+        DeviceTwin testTwin = DeviceTwin.createFromConnectionString("testString");
+        DeviceTwinDevice device = createTrackedDevice();
+        Set<Pair> tags = new HashSet<>();
+        tags.add(new Pair("floor", 3));
+        device.setTags(tags);
+        final TwinCollection updatedTags = new TwinCollection();
+        updatedTags.putFinal("floor", 3);
+        updatedTags.putFinal("building", "43");
+        new NonStrictExpectations()
+        {
+            {
+                mockedHttpResponse.getBody();
+                result = "{}".getBytes();
+                TwinState.createFromTwinJson(anyString);
+                result = mockedTwinState;
+                mockedTwinState.getETag();
+                result = "AAAAAAAAAAI=";
+                mockedTwinState.getTags();
+                result = updatedTags;
+            }
+        };
+
+        //act
+        testTwin.updateTwin(device, TwinUpdateMode.CHANGES_ONLY);
+
+        //assert
+        assertEquals("AAAAAAAAAAI=", device.getETag());
+        assertEquals(2, device.getTags().size());
+        assertFalse(device.hasChanges());
+        new Verifications()
+        {
+            {
+                List<byte[]> payloads = new ArrayList<>();
+                new HttpRequest((URL) any, HttpMethod.PATCH, withCapture(payloads));
+                assertEquals("{\"tags\":{\"floor\":3}}", new String(payloads.get(0), "UTF-8"));
+            }
+        };
+    }
+
+    @Test
+    public void updateTwinFullTwinModeSendsAllProperties(@Mocked DeviceTwinDevice mockedDevice) throws Exception
+    {
+        //arrange
+        DeviceTwin testTwin = DeviceTwin.createFromConnectionString("testString");
+        TwinCollection testMap = new TwinCollection();
+        testMap.putFinal("TestKey", "TestValue");
+        new NonStrictExpectations()
+        {
+            {
+                mockedDevice.getDeviceId();
+                result = "SomeDevID";
+                Deencapsulation.invoke(mockedDevice, "getDesiredMap");
+                result = testMap;
+                new TwinState((TwinCollection)any, (TwinCollection)any, null);
+                result = mockedTwinState;
+                mockedTwinState.toJsonElement().toString();
+                result = "SomeJsonString";
+            }
+        };
+
+        //act
+        testTwin.updateTwin(mockedDevice, TwinUpdateMode.FULL_TWIN);
+
+        //assert
+        new Verifications()
+        {
+            {
+                new HttpRequest((URL) any, HttpMethod.PATCH, "SomeJsonString".getBytes());
+                times = 1;
+            }
+        };
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void updateTwinThrowsForNullMode() throws Exception
+    {
+        //arrange
+        DeviceTwin testTwin = DeviceTwin.createFromConnectionString("testString");
+
+        //act
+        testTwin.updateTwin(createTrackedDevice(), null);
+    }
+
     //Tests_SRS_DEVICETWIN_25_049: [ The method shall build the URL for this operation by calling getUrlTwinQuery ]
     //Tests_SRS_DEVICETWIN_25_050: [ The method shall create a new Query Object of Type TWIN. ]
     //Tests_SRS_DEVICETWIN_25_051: [ The method shall send a Query Request to IotHub as HTTP Method Post on the query Object by calling sendQueryRequest.]
@@ -1388,6 +1550,7 @@ public class DeviceTwinTest
                 result = null;
                 Deencapsulation.newInstance(QueryCollection.class, new Class[] {String.class, int.class, QueryType.class, IotHubConnectionString.class, URL.class, HttpMethod.class, long.class}, expectedSqlQuery, expectedPageSize, QueryType.TWIN, mockedConnectionString, null, HttpMethod.POST, 0);
                 result = mockQueryCollection;
+                Deencapsulation.invoke(mockQueryCollection, "setThrottlingPolicy", new Class[] {ThrottlingPolicy.class}, (Object) null);
             }
         };
 
@@ -1561,4 +1724,34 @@ public class DeviceTwinTest
         //act
         deviceTwin.hasNext(null);
     }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void queryTwinRowsThrowsOnNullQuery() throws IotHubException, IOException
+    {
+        //arrange
+        DeviceTwin testTwin = DeviceTwin.createFromConnectionString("testString");
+
+        //act
+        testTwin.queryTwinRows(null, 10, new ArrayList<QueryRow>()::add);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void queryTwinRowsThrowsOnZeroPageSize() throws IotHubException, IOException
+    {
+        //arrange
+        DeviceTwin testTwin = DeviceTwin.createFromConnectionString("testString");
+
+        //act
+        testTwin.queryTwinRows(VALID_SQL_QUERY, 0, new ArrayList<QueryRow>()::add);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void queryTwinRowsThrowsOnNullCallback() throws IotHubException, IOException
+    {
+        //arrange
+        DeviceTwin testTwin = DeviceTwin.createFromConnectionString("testString");
+
+        //act
+        testTwin.queryTwinRows(VALID_SQL_QUERY, 10, null);
+    }
 }
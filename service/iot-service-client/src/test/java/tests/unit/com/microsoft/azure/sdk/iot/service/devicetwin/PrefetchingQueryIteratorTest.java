@@ -0,0 +1,311 @@
+/*
+*  Copyright (c) Microsoft. All rights reserved.
+*  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+*/
+
+package tests.unit.com.microsoft.azure.sdk.iot.service.devicetwin;
+
+import com.microsoft.azure.sdk.iot.deps.serializer.ParserUtility;
+import com.microsoft.azure.sdk.iot.deps.serializer.QueryRequestParser;
+import com.microsoft.azure.sdk.iot.deps.serializer.QueryResponseParser;
+import com.microsoft.azure.sdk.iot.service.IotHubConnectionString;
+import com.microsoft.azure.sdk.iot.service.devicetwin.DeviceOperations;
+import com.microsoft.azure.sdk.iot.service.devicetwin.PrefetchingQueryIterator;
+import com.microsoft.azure.sdk.iot.service.devicetwin.QueryType;
+import com.microsoft.azure.sdk.iot.service.exceptions.IotHubException;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
+import mockit.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PrefetchingQueryIterator.java
+ */
+public class PrefetchingQueryIteratorTest
+{
+    @Mocked
+    ParserUtility mockParserUtility;
+
+    @Mocked
+    QueryRequestParser mockQueryRequestParser;
+
+    @Mocked
+    QueryResponseParser mockQueryResponseParser;
+
+    @Mocked
+    IotHubConnectionString mockConnectionString;
+
+    @Mocked
+    HttpResponse mockHttpResponse;
+
+    @Mocked
+    DeviceOperations mockDeviceOperations;
+
+    @Mocked
+    URL mockUrl;
+
+    private static final String VALID_QUERY = "select * from devices";
+    private static final int PAGE_SIZE = 2;
+    private static final long TIMEOUT = 10000;
+
+    private static Map<String, String> responseHeaders(String continuationToken, String itemType)
+    {
+        Map<String, String> headers = new HashMap<>();
+        if (continuationToken != null)
+        {
+            headers.put("x-ms-continuation", continuationToken);
+        }
+        headers.put("x-ms-item-type", itemType);
+        return headers;
+    }
+
+    private static PrefetchingQueryIterator<String> createIterator(IotHubConnectionString connectionString, URL url, int prefetchDepth)
+    {
+        return new PrefetchingQueryIterator<>(VALID_QUERY, PAGE_SIZE, QueryType.TWIN, prefetchDepth, connectionString, url, HttpMethod.POST, TIMEOUT, Function.identity());
+    }
+
+    private void twoPageExpectations() throws IOException, IotHubException
+    {
+        new NonStrictExpectations()
+        {
+            {
+                mockQueryRequestParser.toJson();
+                result = "{}";
+                DeviceOperations.request((IotHubConnectionString) any, (URL) any, (HttpMethod) any, (byte[]) any, anyString, anyLong, (Map<String, String>) any, (ThrottlingPolicy) any);
+                result = mockHttpResponse;
+                mockHttpResponse.getBody();
+                result = "{}".getBytes();
+                mockHttpResponse.getHeaderFields();
+                returns(responseHeaders("token1", "twin"), responseHeaders(null, "twin"));
+                mockQueryResponseParser.getJsonItems();
+                returns(Arrays.asList("a", "b"), Collections.singletonList("c"));
+            }
+        };
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForZeroPrefetchDepth()
+    {
+        createIterator(mockConnectionString, mockUrl, 0);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForZeroPageSize()
+    {
+        new PrefetchingQueryIterator<>(VALID_QUERY, 0, QueryType.TWIN, 1, mockConnectionString, mockUrl, HttpMethod.POST, TIMEOUT, Function.identity());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForUnknownQueryType()
+    {
+        new PrefetchingQueryIterator<>(VALID_QUERY, PAGE_SIZE, QueryType.UNKNOWN, 1, mockConnectionString, mockUrl, HttpMethod.POST, TIMEOUT, Function.identity());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForNullConverter()
+    {
+        new PrefetchingQueryIterator<String>(VALID_QUERY, PAGE_SIZE, QueryType.TWIN, 1, mockConnectionString, mockUrl, HttpMethod.POST, TIMEOUT, null);
+    }
+
+    @Test
+    public void constructorDoesNotSendRequest() throws IOException, IotHubException
+    {
+        //act
+        createIterator(mockConnectionString, mockUrl, 1);
+
+        //assert
+        new Verifications()
+        {
+            {
+                DeviceOperations.request((IotHubConnectionString) any, (URL) any, (HttpMethod) any, (byte[]) any, anyString, anyLong, (Map<String, String>) any, (ThrottlingPolicy) any);
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void iteratesAllPagesFollowingContinuationTokens() throws IOException, IotHubException
+    {
+        //arrange
+        twoPageExpectations();
+        PrefetchingQueryIterator<String> iterator = createIterator(mockConnectionString, mockUrl, 1);
+        List<String> results = new ArrayList<>();
+
+        //act
+        while (iterator.hasNext())
+        {
+            results.add(iterator.next());
+        }
+
+        //assert
+        assertEquals(Arrays.asList("a", "b", "c"), results);
+        assertFalse(iterator.hasNext());
+        new Verifications()
+        {
+            {
+                List<Map<String, String>> sentHeaders = new ArrayList<>();
+                DeviceOperations.request((IotHubConnectionString) any, (URL) any, HttpMethod.POST, (byte[]) any, null, TIMEOUT, withCapture(sentHeaders), (ThrottlingPolicy) any);
+                times = 2;
+
+                assertFalse(sentHeaders.get(0).containsKey("x-ms-continuation"));
+                assertEquals(String.valueOf(PAGE_SIZE), sentHeaders.get(0).get("x-ms-max-item-count"));
+                assertEquals("token1", sentHeaders.get(1).get("x-ms-continuation"));
+            }
+        };
+    }
+
+    @Test
+    public void streamReturnsAllResultsInOrder() throws IOException, IotHubException
+    {
+        //arrange
+        twoPageExpectations();
+        PrefetchingQueryIterator<String> iterator = createIterator(mockConnectionString, mockUrl, 2);
+
+        //act
+        List<String> results = iterator.stream().map(String::toUpperCase).collect(Collectors.toList());
+
+        //assert
+        assertEquals(Arrays.asList("A", "B", "C"), results);
+    }
+
+    @Test
+    public void hasNextThrowsCompletionExceptionWhenRequestFails() throws IOException, IotHubException
+    {
+        //arrange
+        final IotHubException failure = new IotHubException("failed");
+        new NonStrictExpectations()
+        {
+            {
+                mockQueryRequestParser.toJson();
+                result = "{}";
+                DeviceOperations.request((IotHubConnectionString) any, (URL) any, (HttpMethod) any, (byte[]) any, anyString, anyLong, (Map<String, String>) any, (ThrottlingPolicy) any);
+                result = failure;
+            }
+        };
+        PrefetchingQueryIterator<String> iterator = createIterator(mockConnectionString, mockUrl, 1);
+
+        //act
+        try
+        {
+            iterator.hasNext();
+            fail("Expected CompletionException");
+        }
+        catch (CompletionException e)
+        {
+            //assert
+            assertSame(failure, e.getCause());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void hasNextThrowsWhenResponseTypeDoesNotMatch() throws IOException, IotHubException
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockQueryRequestParser.toJson();
+                result = "{}";
+                DeviceOperations.request((IotHubConnectionString) any, (URL) any, (HttpMethod) any, (byte[]) any, anyString, anyLong, (Map<String, String>) any, (ThrottlingPolicy) any);
+                result = mockHttpResponse;
+                mockHttpResponse.getHeaderFields();
+                result = responseHeaders(null, "deviceJob");
+            }
+        };
+        PrefetchingQueryIterator<String> iterator = createIterator(mockConnectionString, mockUrl, 1);
+
+        //act
+        try
+        {
+            iterator.hasNext();
+            fail("Expected CompletionException");
+        }
+        catch (CompletionException e)
+        {
+            //assert
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void nextThrowsWhenExhausted() throws IOException, IotHubException
+    {
+        //arrange
+        twoPageExpectations();
+        PrefetchingQueryIterator<String> iterator = createIterator(mockConnectionString, mockUrl, 1);
+        iterator.next();
+        iterator.next();
+        iterator.next();
+
+        //act
+        iterator.next();
+    }
+
+    @Test
+    public void closeStopsIteration() throws IOException, IotHubException
+    {
+        //arrange
+        twoPageExpectations();
+        PrefetchingQueryIterator<String> iterator = createIterator(mockConnectionString, mockUrl, 1);
+        assertEquals("a", iterator.next());
+
+        //act
+        iterator.close();
+
+        //assert
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void closeReleasesConsumerWaitingForNextPage() throws Exception
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockQueryRequestParser.toJson();
+                result = "{}";
+                DeviceOperations.request((IotHubConnectionString) any, (URL) any, (HttpMethod) any, (byte[]) any, anyString, anyLong, (Map<String, String>) any, (ThrottlingPolicy) any);
+                result = new Delegate<HttpResponse>()
+                {
+                    HttpResponse request(IotHubConnectionString connectionString, URL url, HttpMethod method, byte[] payload, String requestId, long timeoutInMs, Map<String, String> headers,
+                                         ThrottlingPolicy throttlingPolicy) throws IOException
+                    {
+                        // the hub never answers, until the prefetch thread is interrupted by close()
+                        try
+                        {
+                            Thread.sleep(TIMEOUT);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new IOException("request interrupted");
+                    }
+                };
+            }
+        };
+        final PrefetchingQueryIterator<String> iterator = createIterator(mockConnectionString, mockUrl, 1);
+        CompletableFuture<Boolean> hasNext = CompletableFuture.supplyAsync(iterator::hasNext);
+        Thread.sleep(100);
+
+        //act
+        iterator.close();
+
+        //assert
+        assertFalse(hasNext.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+*  Copyright (c) Microsoft. All rights reserved.
+*  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+*/
+
+package tests.unit.com.microsoft.azure.sdk.iot.service.devicetwin;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.azure.sdk.iot.service.devicetwin.QueryRow;
+import mockit.Deencapsulation;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for QueryRow.java
+ */
+public class QueryRowTest
+{
+    private static final String ROW_JSON =
+            "{\"deviceId\":\"device1\",\"fw\":\"1.0\",\"properties\":{\"reported\":{\"fw\":\"2.0\",\"battery\":55,\"ratio\":0.5,\"charging\":true,\"location\":null}}}";
+
+    private static QueryRow createRow(String json)
+    {
+        JsonObject row = new JsonParser().parse(json).getAsJsonObject();
+        return Deencapsulation.newInstance(QueryRow.class, new Class[] {JsonObject.class}, row);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullRow()
+    {
+        Deencapsulation.newInstance(QueryRow.class, new Class[] {JsonObject.class}, (JsonObject) null);
+    }
+
+    @Test
+    public void gettersReadTopLevelFields()
+    {
+        //arrange
+        QueryRow row = createRow(ROW_JSON);
+
+        //act/assert
+        assertEquals("device1", row.getString("deviceId"));
+        assertEquals("1.0", row.getString("fw"));
+    }
+
+    @Test
+    public void gettersReadNestedFieldsByPath()
+    {
+        //arrange
+        QueryRow row = createRow(ROW_JSON);
+
+        //act/assert
+        assertEquals("2.0", row.getString("properties.reported.fw"));
+        assertEquals(Long.valueOf(55), row.getLong("properties.reported.battery"));
+        assertEquals(0.5, row.getDouble("properties.reported.ratio"), 0);
+        assertEquals(Boolean.TRUE, row.getBoolean("properties.reported.charging"));
+    }
+
+    @Test
+    public void exactFieldNameTakesPrecedenceOverPath()
+    {
+        //arrange
+        QueryRow row = createRow("{\"properties.reported.fw\":\"alias\",\"properties\":{\"reported\":{\"fw\":\"nested\"}}}");
+
+        //act/assert
+        assertEquals("alias", row.getString("properties.reported.fw"));
+    }
+
+    @Test
+    public void gettersReturnNullForAbsentAndNullFields()
+    {
+        //arrange
+        QueryRow row = createRow(ROW_JSON);
+
+        //act/assert
+        assertNull(row.getString("tags.building"));
+        assertNull(row.getString("deviceId.nested"));
+        assertNull(row.getLong("properties.reported.location"));
+        assertNull(row.getJson("properties.desired"));
+    }
+
+    @Test
+    public void hasDistinguishesNullFromAbsentFields()
+    {
+        //arrange
+        QueryRow row = createRow(ROW_JSON);
+
+        //act/assert
+        assertTrue(row.has("properties.reported.location"));
+        assertFalse(row.has("properties.reported.temperature"));
+    }
+
+    @Test
+    public void getJsonReturnsRawJsonOfField()
+    {
+        //arrange
+        QueryRow row = createRow(ROW_JSON);
+
+        //act
+        String json = row.getJson("properties.reported");
+
+        //assert
+        JsonObject reported = new JsonParser().parse(json).getAsJsonObject();
+        assertEquals("2.0", reported.get("fw").getAsString());
+        assertEquals(55, reported.get("battery").getAsInt());
+    }
+
+    @Test
+    public void toJsonReturnsWholeRow()
+    {
+        //arrange
+        QueryRow row = createRow(ROW_JSON);
+
+        //act/assert
+        assertEquals(new JsonParser().parse(ROW_JSON), new JsonParser().parse(row.toJson()));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void gettersThrowOnEmptyPath()
+    {
+        createRow(ROW_JSON).getString("");
+    }
+
+    @Test (expected = UnsupportedOperationException.class)
+    public void getStringThrowsForObjectField()
+    {
+        createRow(ROW_JSON).getString("properties");
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.service.transport.amqps;
+
+import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpStreamingReceivedEvent;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpStreamingReceivedHandler;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+import mockit.integration.junit4.JMockit;
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.Released;
+import org.apache.qpid.proton.engine.*;
+import org.apache.qpid.proton.message.Message;
+import org.apache.qpid.proton.reactor.FlowController;
+import org.apache.qpid.proton.reactor.Handshaker;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/** Unit tests for AmqpStreamingReceivedHandler */
+@RunWith(JMockit.class)
+public class AmqpStreamingReceivedHandlerTest
+{
+    @Mocked Handshaker handshaker;
+    @Mocked FlowController flowController;
+    @Mocked Proton proton;
+    @Mocked Message message;
+    @Mocked Connection connection;
+    @Mocked Session session;
+    @Mocked Event event;
+    @Mocked Receiver receiver;
+    @Mocked Delivery delivery;
+
+    private static final String HOST_NAME = "aaa";
+    private static final String USER_NAME = "bbb";
+    private static final String SAS_TOKEN = "ccc";
+    private static final String ENDPOINT = "/messages/servicebound/feedback";
+    private static final String LINK_TAG = "receiver";
+    private static final int LINK_CREDIT = 5;
+    private static final String BODY = "[{\"deviceId\":\"xxx\"}]";
+
+    private final List<Long> receivedDeliveryIds = new ArrayList<>();
+    private final List<String> receivedBodies = new ArrayList<>();
+
+    private final AmqpStreamingReceivedEvent amqpStreamingReceivedEvent = (deliveryId, body) ->
+    {
+        receivedDeliveryIds.add(deliveryId);
+        receivedBodies.add(body);
+    };
+
+    private AmqpStreamingReceivedHandler createHandler()
+    {
+        return new AmqpStreamingReceivedHandler(HOST_NAME, USER_NAME, SAS_TOKEN, IotHubServiceClientProtocol.AMQPS, null,
+                ENDPOINT, LINK_TAG, LINK_CREDIT, amqpStreamingReceivedEvent);
+    }
+
+    private void openLinkAndDeliverOneMessage(AmqpStreamingReceivedHandler handler)
+    {
+        new NonStrictExpectations()
+        {
+            {
+                event.getConnection();
+                result = connection;
+                connection.session();
+                result = session;
+                session.receiver(LINK_TAG);
+                result = receiver;
+                event.getLink();
+                result = receiver;
+                receiver.current();
+                result = delivery;
+                receiver.getName();
+                result = LINK_TAG;
+                receiver.getLocalState();
+                result = EndpointState.ACTIVE;
+                delivery.isReadable();
+                result = true;
+                delivery.isPartial();
+                result = false;
+                delivery.getLink();
+                result = receiver;
+                delivery.pending();
+                result = 10;
+                receiver.recv((byte[]) any, 0, anyInt);
+                result = 10;
+                Proton.message();
+                result = message;
+                message.getBody();
+                result = new Data(new Binary(BODY.getBytes(StandardCharsets.UTF_8)));
+            }
+        };
+
+        handler.onConnectionInit(event);
+        handler.onDelivery(event);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForZeroLinkCredit()
+    {
+        new AmqpStreamingReceivedHandler(HOST_NAME, USER_NAME, SAS_TOKEN, IotHubServiceClientProtocol.AMQPS, null,
+                ENDPOINT, LINK_TAG, 0, amqpStreamingReceivedEvent);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForNullEvent()
+    {
+        new AmqpStreamingReceivedHandler(HOST_NAME, USER_NAME, SAS_TOKEN, IotHubServiceClientProtocol.AMQPS, null,
+                ENDPOINT, LINK_TAG, LINK_CREDIT, null);
+    }
+
+    @Test
+    public void constructorDoesNotAddFlowController()
+    {
+        // Act
+        createHandler();
+
+        // Assert
+        new Verifications()
+        {
+            {
+                new Handshaker();
+                times = 1;
+                new FlowController();
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void onConnectionInitOpensLinkAndIssuesLinkCredit()
+    {
+        // Arrange
+        AmqpStreamingReceivedHandler handler = createHandler();
+        new NonStrictExpectations()
+        {
+            {
+                event.getConnection();
+                result = connection;
+                connection.session();
+                result = session;
+                session.receiver(LINK_TAG);
+                result = receiver;
+            }
+        };
+
+        // Act
+        handler.onConnectionInit(event);
+
+        // Assert
+        new Verifications()
+        {
+            {
+                connection.setHostname(HOST_NAME);
+                receiver.setProperties((Map<Symbol, Object>) any);
+                connection.open();
+                session.open();
+                receiver.open();
+                receiver.flow(LINK_CREDIT);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void onDeliveryDoesNotSettleAndNotifiesEvent()
+    {
+        // Arrange
+        AmqpStreamingReceivedHandler handler = createHandler();
+
+        // Act
+        openLinkAndDeliverOneMessage(handler);
+
+        // Assert
+        assertEquals(1, receivedDeliveryIds.size());
+        assertEquals(0L, (long) receivedDeliveryIds.get(0));
+        assertEquals(BODY, receivedBodies.get(0));
+        new Verifications()
+        {
+            {
+                receiver.advance();
+                times = 1;
+                delivery.settle();
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void onReactorQuiescedSettlesRequestedDeliveryAndReplenishesCredit()
+    {
+        // Arrange
+        AmqpStreamingReceivedHandler handler = createHandler();
+        openLinkAndDeliverOneMessage(handler);
+        handler.requestSettlement(receivedDeliveryIds.get(0), true);
+
+        // Act
+        handler.onReactorQuiesced(event);
+
+        // Assert
+        new Verifications()
+        {
+            {
+                delivery.disposition(Accepted.getInstance());
+                times = 1;
+                delivery.settle();
+                times = 1;
+                receiver.flow(1);
+                times = 1;
+                receiver.close();
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void onReactorQuiescedReleasesAbandonedDelivery()
+    {
+        // Arrange
+        AmqpStreamingReceivedHandler handler = createHandler();
+        openLinkAndDeliverOneMessage(handler);
+        handler.requestSettlement(receivedDeliveryIds.get(0), false);
+
+        // Act
+        handler.onReactorQuiesced(event);
+
+        // Assert
+        new Verifications()
+        {
+            {
+                delivery.disposition(Released.getInstance());
+                times = 1;
+                delivery.settle();
+                times = 1;
+                receiver.flow(1);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void onReactorQuiescedIgnoresRepeatedSettlement()
+    {
+        // Arrange
+        AmqpStreamingReceivedHandler handler = createHandler();
+        openLinkAndDeliverOneMessage(handler);
+        handler.requestSettlement(receivedDeliveryIds.get(0), true);
+        handler.requestSettlement(receivedDeliveryIds.get(0), true);
+
+        // Act
+        handler.onReactorQuiesced(event);
+
+        // Assert
+        new Verifications()
+        {
+            {
+                delivery.settle();
+                times = 1;
+                receiver.flow(1);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void onReactorQuiescedReleasesUnsettledDeliveriesAndClosesLinkWhenCloseRequested()
+    {
+        // Arrange
+        AmqpStreamingReceivedHandler handler = createHandler();
+        openLinkAndDeliverOneMessage(handler);
+        handler.requestClose();
+
+        // Act
+        handler.onReactorQuiesced(event);
+
+        // Assert
+        new Verifications()
+        {
+            {
+                delivery.disposition(Released.getInstance());
+                times = 1;
+                delivery.settle();
+                times = 1;
+                receiver.flow(1);
+                times = 0;
+                receiver.close();
+                times = 1;
+            }
+        };
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.service.transport.amqps;
+
+import com.microsoft.azure.sdk.iot.service.IotHubServiceClientProtocol;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpReceivedDelivery;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpStreamingReceivedHandler;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.AmqpStreamingReceiver;
+import com.microsoft.azure.sdk.iot.service.transport.amqps.ReactorRunner;
+import mockit.Deencapsulation;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/** Unit tests for AmqpStreamingReceiver */
+public class AmqpStreamingReceiverTest
+{
+    @Mocked AmqpStreamingReceivedHandler mockHandler;
+    @Mocked ReactorRunner mockReactorRunner;
+
+    private static final String ENDPOINT = "/messages/servicebound/feedback";
+    private static final String LINK_TAG = "receiver";
+
+    private static AmqpStreamingReceiver createReceiver()
+    {
+        return new AmqpStreamingReceiver("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS, null, ENDPOINT, LINK_TAG, 2);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForZeroLinkCredit()
+    {
+        new AmqpStreamingReceiver("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS, null, ENDPOINT, LINK_TAG, 0);
+    }
+
+    @Test (expected = IOException.class)
+    public void receiveThrowsIfNotOpen() throws IOException, InterruptedException
+    {
+        createReceiver().receive(10);
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void openThrowsIfAlreadyOpen() throws IOException
+    {
+        // Arrange
+        AmqpStreamingReceiver receiver = createReceiver();
+        receiver.open(null);
+
+        // Act
+        receiver.open(null);
+    }
+
+    @Test
+    public void openCreatesHandlerForEndpointAndLinkCredit() throws IOException
+    {
+        // Act
+        AmqpStreamingReceiver receiver = createReceiver();
+        receiver.open(null);
+
+        // Assert
+        new Verifications()
+        {
+            {
+                new AmqpStreamingReceivedHandler("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS, null, ENDPOINT, LINK_TAG, 2, receiver);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void receiveReturnsBufferedDelivery() throws IOException, InterruptedException
+    {
+        // Arrange
+        AmqpStreamingReceiver receiver = createReceiver();
+        receiver.open(null);
+        receiver.onMessageReceived(3, "body");
+
+        // Act
+        AmqpReceivedDelivery delivery = receiver.receive(1000);
+
+        // Assert
+        assertNotNull(delivery);
+        assertEquals("body", delivery.getBody());
+        assertFalse(delivery.isSettled());
+    }
+
+    @Test
+    public void completeRequestsSettlementOnceAndWakesReactor() throws IOException, InterruptedException
+    {
+        // Arrange
+        AmqpStreamingReceiver receiver = createReceiver();
+        receiver.open(null);
+        receiver.onMessageReceived(3, "body");
+        AmqpReceivedDelivery delivery = receiver.receive(1000);
+
+        // Act
+        delivery.complete();
+        delivery.abandon();
+
+        // Assert
+        assertTrue(delivery.isSettled());
+        new Verifications()
+        {
+            {
+                mockHandler.requestSettlement(3, true);
+                times = 1;
+                mockHandler.requestSettlement(anyLong, false);
+                times = 0;
+                mockReactorRunner.wakeup();
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void onMessageReceivedReleasesDeliveryWhenBufferIsFull() throws IOException
+    {
+        // Arrange
+        AmqpStreamingReceiver receiver = createReceiver();
+        receiver.open(null);
+
+        // Act
+        receiver.onMessageReceived(1, "a");
+        receiver.onMessageReceived(2, "b");
+        receiver.onMessageReceived(3, "c");
+
+        // Assert
+        new Verifications()
+        {
+            {
+                mockHandler.requestSettlement(3, false);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void receiveThrowsWhenConnectionIsLost() throws IOException, InterruptedException
+    {
+        // Arrange
+        AmqpStreamingReceiver receiver = createReceiver();
+        receiver.open(null);
+
+        // Act
+        try
+        {
+            // the mocked reactor returns immediately, as it would if the connection was closed by the service
+            receiver.receive(500);
+            fail("Expected IOException");
+        }
+        catch (IOException e)
+        {
+            // Assert
+            assertFalse(receiver.isOpen());
+        }
+    }
+
+    @Test
+    public void closeRequestsCloseAndWakesReactor() throws IOException, InterruptedException
+    {
+        // Arrange
+        AmqpStreamingReceiver receiver = createReceiver();
+        receiver.open(null);
+
+        // Act
+        receiver.close();
+        receiver.close();
+
+        // Assert
+        assertFalse(receiver.isOpen());
+        new Verifications()
+        {
+            {
+                mockHandler.requestClose();
+                times = 1;
+                mockReactorRunner.wakeup();
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void settleAfterCloseDoesNotWakeReactor() throws IOException, InterruptedException
+    {
+        // Arrange
+        AmqpStreamingReceiver receiver = createReceiver();
+        receiver.open(null);
+        receiver.onMessageReceived(3, "body");
+        AmqpReceivedDelivery delivery = receiver.receive(1000);
+        receiver.close();
+
+        // Act
+        delivery.complete();
+
+        // Assert
+        new Verifications()
+        {
+            {
+                mockHandler.requestSettlement(anyLong, anyBoolean);
+                times = 0;
+                mockReactorRunner.wakeup();
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void dispatcherReopensLostConnection() throws IOException, InterruptedException
+    {
+        // Arrange
+        AmqpStreamingReceiver receiver = createReceiver();
+
+        // Act
+        // the mocked reactor returns immediately, as it would if the connection was closed by the service
+        receiver.open(delivery -> { });
+        long deadline = System.currentTimeMillis() + 3 * ReactorRunner.REACTOR_TIMEOUT;
+        while ((int) Deencapsulation.getField(receiver, "connectionGeneration") < 2 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(100);
+        }
+        receiver.close();
+
+        // Assert
+        new Verifications()
+        {
+            {
+                new AmqpStreamingReceivedHandler("aaa", "bbb", "ccc", IotHubServiceClientProtocol.AMQPS, null, ENDPOINT, LINK_TAG, 2, receiver);
+                minTimes = 2;
+            }
+        };
+    }
+
+    @Test
+    public void settleOfDeliveryFromLostConnectionIsIgnored() throws IOException, InterruptedException
+    {
+        // Arrange
+        AmqpStreamingReceiver receiver = createReceiver();
+        receiver.open(null);
+        receiver.onMessageReceived(3, "body");
+        AmqpReceivedDelivery delivery = receiver.receive(1000);
+        Deencapsulation.invoke(receiver, "reconnect");
+
+        // Act
+        delivery.complete();
+
+        // Assert
+        new Verifications()
+        {
+            {
+                mockHandler.requestSettlement(anyLong, anyBoolean);
+                times = 0;
+            }
+        };
+    }
+}
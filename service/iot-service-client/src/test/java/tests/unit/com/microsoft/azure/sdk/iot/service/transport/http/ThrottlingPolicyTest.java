@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+
+package tests.unit.com.microsoft.azure.sdk.iot.service.transport.http;
+
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpMethod;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpRequest;
+import com.microsoft.azure.sdk.iot.service.transport.http.HttpResponse;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicy.OperationType;
+import com.microsoft.azure.sdk.iot.service.transport.http.ThrottlingPolicyOptions;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the ThrottlingPolicy
+ * 100% methods covered
+ */
+public class ThrottlingPolicyTest
+{
+    private static HttpResponse response(int status, String retryAfter)
+    {
+        Map<String, List<String>> headers = new HashMap<>();
+        if (retryAfter != null)
+        {
+            headers.put("Retry-After", Collections.singletonList(retryAfter));
+        }
+
+        return new HttpResponse(status, new byte[0], headers, new byte[0]);
+    }
+
+    /**
+     * Fake request that answers with the next of a list of responses and records the headers set on it
+     */
+    private static class FakeRequests implements ThrottlingPolicy.RequestFactory
+    {
+        private final Deque<HttpResponse> responses;
+        private final List<Map<String, String>> sentHeaders = new ArrayList<>();
+
+        FakeRequests(HttpResponse... responses)
+        {
+            this.responses = new ArrayDeque<>(Arrays.asList(responses));
+        }
+
+        @Override
+        public HttpRequest create()
+        {
+            final Map<String, String> headers = new HashMap<>();
+            return new HttpRequest()
+            {
+                @Override
+                public HttpResponse send()
+                {
+                    sentHeaders.add(headers);
+                    return responses.poll();
+                }
+
+                @Override
+                public HttpRequest setHeaderField(String field, String value)
+                {
+                    headers.put(field, value);
+                    return this;
+                }
+
+                @Override
+                public HttpRequest setReadTimeoutMillis(int timeout)
+                {
+                    headers.put("readTimeout", String.valueOf(timeout));
+                    return this;
+                }
+            };
+        }
+    }
+
+    private static ThrottlingPolicy fastRetryingPolicy(int maxAttempts)
+    {
+        return new ThrottlingPolicy(ThrottlingPolicyOptions.builder().maxAttempts(maxAttempts).baseRetryDelayMillis(1).maxRetryDelayMillis(1).build());
+    }
+
+    @Test
+    public void operationTypeOfClassifiesRequestsByPath() throws Exception
+    {
+        String hub = "https://hub.azure-devices.net";
+        assertEquals(OperationType.REGISTRY, OperationType.of(new URL(hub + "/devices/d1?api-version=1"), HttpMethod.PUT));
+        assertEquals(OperationType.REGISTRY, OperationType.of(new URL(hub + "/devices/d1/modules/m1"), HttpMethod.GET));
+        assertEquals(OperationType.REGISTRY, OperationType.of(new URL(hub + "/statistics/devices"), HttpMethod.GET));
+        assertEquals(OperationType.TWIN_READ, OperationType.of(new URL(hub + "/twins/d1"), HttpMethod.GET));
+        assertEquals(OperationType.TWIN_UPDATE, OperationType.of(new URL(hub + "/twins/d1/modules/m1"), HttpMethod.PATCH));
+        assertEquals(OperationType.DEVICE_METHOD, OperationType.of(new URL(hub + "/twins/d1/methods"), HttpMethod.POST));
+        assertEquals(OperationType.QUERY, OperationType.of(new URL(hub + "/devices/query"), HttpMethod.POST));
+        assertEquals(OperationType.QUERY, OperationType.of(new URL(hub + "/jobs/v2/query?jobType=scheduleUpdateTwin"), HttpMethod.GET));
+        assertEquals(OperationType.JOB, OperationType.of(new URL(hub + "/jobs/v2/job1"), HttpMethod.PUT));
+        assertEquals(OperationType.CONFIGURATION, OperationType.of(new URL(hub + "/configurations/c1"), HttpMethod.GET));
+    }
+
+    @Test
+    public void getDefaultRatePerSecondScalesWithUnits()
+    {
+        assertEquals(100.0, OperationType.TWIN_READ.getDefaultRatePerSecond(1), 0.0);
+        assertEquals(200.0, OperationType.TWIN_READ.getDefaultRatePerSecond(20), 0.0);
+        assertEquals(100.0 / 60 * 3, OperationType.REGISTRY.getDefaultRatePerSecond(3), 1e-9);
+    }
+
+    @Test
+    public void constructorUsesOverriddenAndDefaultRates()
+    {
+        //act
+        ThrottlingPolicy policy = new ThrottlingPolicy(ThrottlingPolicyOptions.builder().units(2).ratePerSecond(OperationType.JOB, 7.0).build());
+
+        //assert
+        assertEquals(7.0, policy.getRatePerSecond(OperationType.JOB), 0.0);
+        assertEquals(40.0, policy.getRatePerSecond(OperationType.DEVICE_METHOD), 0.0);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullOptions()
+    {
+        new ThrottlingPolicy(null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNonPositiveRate()
+    {
+        new ThrottlingPolicy(ThrottlingPolicyOptions.builder().ratePerSecond(OperationType.QUERY, 0.0).build());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void createRequestThrowsOnNullFactory()
+    {
+        fastRetryingPolicy(1).createRequest(OperationType.REGISTRY, HttpMethod.GET, null);
+    }
+
+    @Test
+    public void sendRetriesThrottledRequestWithSameSettings() throws Exception
+    {
+        //arrange
+        ThrottlingPolicy policy = fastRetryingPolicy(3);
+        FakeRequests requests = new FakeRequests(response(429, "0"), response(503, null), response(200, null));
+        HttpRequest request = policy.createRequest(OperationType.TWIN_UPDATE, HttpMethod.PUT, requests);
+        request.setHeaderField("If-Match", "*");
+        request.setReadTimeoutMillis(1000);
+
+        //act
+        HttpResponse response = request.send();
+
+        //assert
+        assertEquals(200, response.getStatus());
+        assertEquals(3, requests.sentHeaders.size());
+        for (Map<String, String> headers : requests.sentHeaders)
+        {
+            assertEquals("*", headers.get("If-Match"));
+            assertEquals("1000", headers.get("readTimeout"));
+        }
+        assertEquals(2, policy.getThrottledCount());
+        assertEquals(2, policy.getRetryCount());
+    }
+
+    @Test
+    public void sendReturnsLastThrottledResponseAfterMaxAttempts() throws Exception
+    {
+        //arrange
+        ThrottlingPolicy policy = fastRetryingPolicy(2);
+        FakeRequests requests = new FakeRequests(response(429, null), response(429, null), response(200, null));
+
+        //act
+        HttpResponse response = policy.createRequest(OperationType.REGISTRY, HttpMethod.GET, requests).send();
+
+        //assert
+        assertEquals(429, response.getStatus());
+        assertEquals(2, requests.sentHeaders.size());
+        assertEquals(1, policy.getRetryCount());
+    }
+
+    @Test
+    public void sendDoesNotRetryOtherFailures() throws Exception
+    {
+        //arrange
+        ThrottlingPolicy policy = fastRetryingPolicy(3);
+        FakeRequests requests = new FakeRequests(response(500, null), response(200, null));
+
+        //act
+        HttpResponse response = policy.createRequest(OperationType.REGISTRY, HttpMethod.GET, requests).send();
+
+        //assert
+        assertEquals(500, response.getStatus());
+        assertEquals(1, requests.sentHeaders.size());
+        assertEquals(0, policy.getThrottledCount());
+    }
+
+    @Test
+    public void throttlingHalvesRateAndSuccessRaisesIt() throws Exception
+    {
+        //arrange
+        ThrottlingPolicy policy = new ThrottlingPolicy(ThrottlingPolicyOptions.builder()
+                .ratePerSecond(OperationType.DEVICE_METHOD, 1000.0).maxAttempts(2).baseRetryDelayMillis(1).maxRetryDelayMillis(1).build());
+
+        //act
+        policy.createRequest(OperationType.DEVICE_METHOD, HttpMethod.POST, new FakeRequests(response(429, null), response(429, null))).send();
+        double throttledRate = policy.getRatePerSecond(OperationType.DEVICE_METHOD);
+        policy.createRequest(OperationType.DEVICE_METHOD, HttpMethod.POST, new FakeRequests(response(200, null))).send();
+
+        //assert
+        assertEquals(250.0, throttledRate, 0.0);
+        assertEquals(300.0, policy.getRatePerSecond(OperationType.DEVICE_METHOD), 0.0);
+        assertEquals(100.0 / 60, policy.getRatePerSecond(OperationType.REGISTRY), 1e-9);
+    }
+
+    @Test
+    public void sendPacesRequestsOnceBurstIsUsed() throws Exception
+    {
+        //arrange
+        ThrottlingPolicy policy = new ThrottlingPolicy(ThrottlingPolicyOptions.builder().ratePerSecond(OperationType.QUERY, 20.0).build());
+        long start = System.nanoTime();
+
+        //act
+        for (int i = 0; i < 22; i++)
+        {
+            policy.createRequest(OperationType.QUERY, HttpMethod.POST, new FakeRequests(response(200, null))).send();
+        }
+
+        //assert
+        // the first 20 requests use the burst, the last two wait for 50 milliseconds each
+        assertTrue((System.nanoTime() - start) / 1000000 >= 80);
+    }
+
+    @Test
+    public void sendRetriesTooManyRequestsOfNonIdempotentRequest() throws Exception
+    {
+        //arrange
+        ThrottlingPolicy policy = fastRetryingPolicy(3);
+        FakeRequests requests = new FakeRequests(response(429, null), response(200, null));
+
+        //act
+        HttpResponse response = policy.createRequest(OperationType.DEVICE_METHOD, HttpMethod.POST, requests).send();
+
+        //assert
+        assertEquals(200, response.getStatus());
+        assertEquals(2, requests.sentHeaders.size());
+    }
+
+    @Test
+    public void sendDoesNotRetryServiceUnavailableOfNonIdempotentRequest() throws Exception
+    {
+        //arrange
+        ThrottlingPolicy policy = fastRetryingPolicy(3);
+        FakeRequests requests = new FakeRequests(response(503, null), response(200, null));
+
+        //act
+        HttpResponse response = policy.createRequest(OperationType.DEVICE_METHOD, HttpMethod.POST, requests).send();
+
+        //assert
+        assertEquals(503, response.getStatus());
+        assertEquals(1, requests.sentHeaders.size());
+        assertEquals(1, policy.getThrottledCount());
+        assertEquals(0, policy.getRetryCount());
+    }
+
+    @Test
+    public void sendRetriesServiceUnavailableOfQuery() throws Exception
+    {
+        //arrange
+        ThrottlingPolicy policy = fastRetryingPolicy(3);
+        FakeRequests requests = new FakeRequests(response(503, null), response(200, null));
+
+        //act
+        HttpResponse response = policy.createRequest(OperationType.QUERY, HttpMethod.POST, requests).send();
+
+        //assert
+        assertEquals(200, response.getStatus());
+        assertEquals(2, requests.sentHeaders.size());
+    }
+
+    @Test
+    public void sendRetriesServiceUnavailableOfOptedInOperationType() throws Exception
+    {
+        //arrange
+        ThrottlingPolicy policy = new ThrottlingPolicy(ThrottlingPolicyOptions.builder()
+                .retryServiceUnavailable(OperationType.DEVICE_METHOD).maxAttempts(3).baseRetryDelayMillis(1).maxRetryDelayMillis(1).build());
+        FakeRequests requests = new FakeRequests(response(503, null), response(200, null));
+
+        //act
+        HttpResponse response = policy.createRequest(OperationType.DEVICE_METHOD, HttpMethod.POST, requests).send();
+
+        //assert
+        assertEquals(200, response.getStatus());
+        assertEquals(2, requests.sentHeaders.size());
+    }
+}